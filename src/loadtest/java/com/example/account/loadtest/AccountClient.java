@@ -0,0 +1,212 @@
+package com.example.account.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+//계좌 api 를 호출하고, cancel/query 에 쓸 최근 거래를 기억한다.
+//api 는 비즈니스 에러도 200 + errorCode 로 돌려주므로 body 를 보고 결과를 나눈다.
+public class AccountClient {
+    private static final int RECENT_TRANSACTION_SIZE = 4_096;
+
+    private final LoadTestConfig config;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private List<AccountRef> accounts = List.of();
+    private ZipfSampler accountSampler;
+
+    //최근에 성공한 USE 거래. cancel 은 꺼내서 쓰고 (한번만 취소), query 는 보기만 한다.
+    private final AtomicReferenceArray<UsedTransaction> recentTransactions =
+            new AtomicReferenceArray<>(RECENT_TRANSACTION_SIZE);
+    private final AtomicLong recentCursor = new AtomicLong();
+
+    public AccountClient(LoadTestConfig config) {
+        this.config = config;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(config.requestTimeout())
+                .build();
+    }
+
+    //------------------------------------------------------------------------//
+    //사용자마다 계좌를 accountsPerUser 개까지 만들어 둔다. (이미 있는 계좌는 그대로 쓴다)
+    //목록의 앞쪽 계좌일수록 zipf 분포로 더 자주 선택된다.
+    public void prepareAccounts() throws IOException, InterruptedException {
+        List<AccountRef> prepared = new ArrayList<>();
+        for (Long userId : config.users()) {
+            List<AccountRef> userAccounts = new ArrayList<>();
+            for (JsonNode account : send(get("/account?user_id=" + userId))) {
+                userAccounts.add(new AccountRef(userId, account.get("accountNumber").asText()));
+            }
+            while (userAccounts.size() < config.accountsPerUser()) {
+                JsonNode created = send(post("/account", Map.of(
+                        "userId", userId,
+                        "initialBalance", config.initialBalance())));
+                if(created.hasNonNull("errorCode")){
+                    break;
+                }
+                userAccounts.add(new AccountRef(userId, created.get("accountNumber").asText()));
+            }
+            prepared.addAll(userAccounts);
+        }
+
+        if(prepared.isEmpty()){
+            throw new IllegalStateException("no account prepared for users " + config.users());
+        }
+        accounts = List.copyOf(prepared);
+        accountSampler = new ZipfSampler(accounts.size(), config.zipfExponent());
+    }
+
+    public int getAccountCount() {
+        return accounts.size();
+    }
+
+    //------------------------------------------------------------------------//
+    public Outcome execute(Operation operation) {
+        try{
+            return switch (operation) {
+                case CREATE -> create();
+                case USE -> use();
+                case CANCEL -> cancel();
+                case QUERY -> query();
+                case GET_ACCOUNTS -> getAccounts();
+            };
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            return Outcome.FAILED;
+        }catch(Exception e){
+            return Outcome.FAILED;
+        }
+    }
+
+    //사용자당 계좌 10개 제한이 있어서 대부분은 OVER_MAX_ACCOUNT 로 끝난다. (그래도 조회 + insert 시도 비용은 든다)
+    private Outcome create() throws IOException, InterruptedException {
+        Long userId = config.users().get(ThreadLocalRandom.current().nextInt(config.users().size()));
+        return outcomeOf(send(post("/account", Map.of(
+                "userId", userId,
+                "initialBalance", config.initialBalance()))));
+    }
+
+    private Outcome use() throws IOException, InterruptedException {
+        AccountRef account = nextAccount();
+        long amount = ThreadLocalRandom.current().nextLong(1, config.maxAmount() + 1);
+        JsonNode response = send(post("/transaction/use", Map.of(
+                "userId", account.userId(),
+                "accountNumber", account.accountNumber(),
+                "amount", amount)));
+
+        Outcome outcome = outcomeOf(response);
+        if(Outcome.OK == outcome){
+            int index = (int) (recentCursor.getAndIncrement() % RECENT_TRANSACTION_SIZE);
+            recentTransactions.set(index, new UsedTransaction(
+                    response.get("transactionId").asText(), account.accountNumber(), amount));
+        }
+        return outcome;
+    }
+
+    private Outcome cancel() throws IOException, InterruptedException {
+        UsedTransaction transaction = takeRecentTransaction();
+        if(null == transaction){
+            return use();
+        }
+        return outcomeOf(send(post("/transaction/cancel", Map.of(
+                "transactionId", transaction.transactionId(),
+                "accountNumber", transaction.accountNumber(),
+                "amount", transaction.amount()))));
+    }
+
+    private Outcome query() throws IOException, InterruptedException {
+        UsedTransaction transaction = peekRecentTransaction();
+        if(null == transaction){
+            return use();
+        }
+        return outcomeOf(send(get("/transaction/" + transaction.transactionId())));
+    }
+
+    private Outcome getAccounts() throws IOException, InterruptedException {
+        return outcomeOf(send(get("/account?user_id=" + nextAccount().userId())));
+    }
+
+    //------------------------------------------------------------------------//
+    private AccountRef nextAccount() {
+        return accounts.get(accountSampler.next());
+    }
+
+    private UsedTransaction takeRecentTransaction() {
+        long cursor = recentCursor.get();
+        for (long i = cursor - 1; i >= 0 && i >= cursor - RECENT_TRANSACTION_SIZE; i--) {
+            UsedTransaction transaction = recentTransactions.getAndSet(
+                    (int) (i % RECENT_TRANSACTION_SIZE), null);
+            if(null != transaction){
+                return transaction;
+            }
+        }
+        return null;
+    }
+
+    private UsedTransaction peekRecentTransaction() {
+        long cursor = recentCursor.get();
+        if(0 == cursor){
+            return null;
+        }
+        long bound = Math.min(cursor, RECENT_TRANSACTION_SIZE);
+        return recentTransactions.get(
+                (int) ((cursor - 1 - ThreadLocalRandom.current().nextLong(bound)) % RECENT_TRANSACTION_SIZE));
+    }
+
+    private static Outcome outcomeOf(JsonNode response) {
+        if(!response.isObject() || !response.hasNonNull("errorCode")){
+            return Outcome.OK;
+        }
+        return "INTERNAL_SERVER_ERROR".equals(response.get("errorCode").asText())
+                ? Outcome.FAILED : Outcome.REJECTED;
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(config.baseUrl() + path))
+                .timeout(config.requestTimeout())
+                .GET()
+                .build();
+    }
+
+    private HttpRequest post(String path, Map<String, Object> body) throws IOException {
+        return HttpRequest.newBuilder(URI.create(config.baseUrl() + path))
+                .timeout(config.requestTimeout())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                .build();
+    }
+
+    private JsonNode send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if(200 != response.statusCode()){
+            throw new IOException(request.uri() + " returned " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    public enum Outcome {
+        OK,
+        REJECTED,           //errorCode 가 있는 정상 응답 (잔액 부족, lock 실패 등)
+        FAILED              //서버 에러, http 에러, timeout
+    }
+
+    private record AccountRef(Long userId, String accountNumber) {
+    }
+
+    private record UsedTransaction(String transactionId, String accountNumber, long amount) {
+    }
+}
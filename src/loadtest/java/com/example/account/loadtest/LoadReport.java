@@ -0,0 +1,113 @@
+package com.example.account.loadtest;
+
+import com.example.account.metrics.LatencyHistogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+//요청 종류별 결과와 지연 시간.
+//service : 실제로 요청을 보낸 시점부터 응답까지
+//response : 요청을 보냈어야 하는 시점부터 응답까지 (coordinated omission 보정)
+public class LoadReport {
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+    private final OperationStats total = new OperationStats();
+
+    public LoadReport() {
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+    }
+
+    //open loop, 또는 간격을 맞추는 closed loop : 원래 보내려던 시각을 알고 있다.
+    public void record(Operation operation, AccountClient.Outcome outcome,
+                       long serviceNanos, long responseNanos) {
+        for (OperationStats target : new OperationStats[]{stats.get(operation), total}) {
+            target.count(outcome);
+            target.service.recordNanos(serviceNanos);
+            target.response.recordNanos(responseNanos);
+        }
+    }
+
+    //간격 없이 도는 closed loop : 기대 간격으로 빠진 요청들을 채워 넣는다.
+    public void recordWithExpectedInterval(Operation operation, AccountClient.Outcome outcome,
+                                           long serviceNanos, long expectedIntervalNanos) {
+        for (OperationStats target : new OperationStats[]{stats.get(operation), total}) {
+            target.count(outcome);
+            target.service.recordNanos(serviceNanos);
+            target.response.recordNanosWithExpectedInterval(serviceNanos, expectedIntervalNanos);
+        }
+    }
+
+    //open loop 에서 끝날 때까지 worker 를 얻지 못한 요청.
+    public void recordNotSent(Operation operation, long responseNanos) {
+        for (OperationStats target : new OperationStats[]{stats.get(operation), total}) {
+            target.count(AccountClient.Outcome.FAILED);
+            target.response.recordNanos(responseNanos);
+        }
+    }
+
+    public long getCount() {
+        return total.count.sum();
+    }
+
+    public double getErrorRate() {
+        long count = total.count.sum();
+        return 0 == count ? 0 : (double) total.failed.sum() / count;
+    }
+
+    public double getCorrectedP99Millis() {
+        return total.response.getPercentileMillis(99);
+    }
+
+    public String format(String header, double elapsedSeconds) {
+        StringBuilder builder = new StringBuilder(header).append('\n');
+        builder.append(String.format("throughput : %.1f req/s, error rate : %.4f%n%n",
+                total.count.sum() / elapsedSeconds, getErrorRate()));
+        builder.append(String.format("%-13s %9s %9s %9s %7s %9s | %-36s | %-36s%n",
+                "operation", "count", "ok", "rejected", "failed", "req/s",
+                "service ms (p50 / p99 / p99.9 / max)",
+                "response ms (corrected, same order)"));
+
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            if(0 < entry.getValue().count.sum()){
+                builder.append(entry.getValue().format(entry.getKey().name(), elapsedSeconds));
+            }
+        }
+        builder.append(total.format("ALL", elapsedSeconds));
+        return builder.toString();
+    }
+
+    private static class OperationStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder ok = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LatencyHistogram service = new LatencyHistogram();
+        private final LatencyHistogram response = new LatencyHistogram();
+
+        void count(AccountClient.Outcome outcome) {
+            count.increment();
+            switch (outcome) {
+                case OK -> ok.increment();
+                case REJECTED -> rejected.increment();
+                case FAILED -> failed.increment();
+            }
+        }
+
+        String format(String name, double elapsedSeconds) {
+            return String.format("%-13s %9d %9d %9d %7d %9.1f | %-36s | %-36s%n",
+                    name, count.sum(), ok.sum(), rejected.sum(), failed.sum(),
+                    count.sum() / elapsedSeconds,
+                    percentiles(service), percentiles(response));
+        }
+
+        private static String percentiles(LatencyHistogram histogram) {
+            return String.format("%.2f / %.2f / %.2f / %.2f",
+                    histogram.getPercentileMillis(50),
+                    histogram.getPercentileMillis(99),
+                    histogram.getPercentileMillis(99.9),
+                    histogram.getMaxMillis());
+        }
+    }
+}
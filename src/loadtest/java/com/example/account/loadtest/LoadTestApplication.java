@@ -0,0 +1,201 @@
+package com.example.account.loadtest;
+
+import com.example.account.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+//로컬에 띄운 서버(bootRun 등)에 요청을 섞어서 보내고 처리량과 지연 시간을 보고한다.
+//ex) gradlew loadTest -Dloadtest.mode=open -Dloadtest.rate=500 -Dloadtest.mix=read-heavy
+//max-p99-ms, max-error-rate 를 넘으면 exit code 1 로 끝나서 배포 전 검사에 쓸 수 있다.
+public class LoadTestApplication {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        AccountClient client = new AccountClient(config);
+        client.prepareAccounts();
+
+        String header = String.format(
+                "mode=%s threads=%d rate=%s duration=%ds warmup=%ds mix=%s zipf=%.2f accounts=%d",
+                config.mode(), config.threads(),
+                0 < config.rate() ? String.valueOf(config.rate()) : "-",
+                config.duration().toSeconds(), config.warmup().toSeconds(),
+                config.mix(), config.zipfExponent(), client.getAccountCount());
+        System.out.println(header);
+
+        LoadReport report = new LoadReport();
+        if(LoadTestConfig.Mode.OPEN == config.mode()){
+            runOpenLoop(config, client, report);
+        }else{
+            runClosedLoop(config, client, report);
+        }
+
+        String result = report.format(header, config.duration().toMillis() / 1_000.0);
+        System.out.println(result);
+        writeReport(config.reportFile(), result);
+
+        if(!passesGates(config, report)){
+            System.exit(1);
+        }
+    }
+
+    //------------------------------------------------------------------------//
+    //응답과 상관 없이 rate 에 맞춰 요청 시각을 정하고 worker 에게 넘긴다.
+    //worker 가 모자라면 요청이 큐에서 기다리고, 그 시간도 response 에 들어간다.
+    private static void runOpenLoop(LoadTestConfig config, AccountClient client, LoadReport report)
+            throws InterruptedException {
+        if(config.rate() <= 0){
+            throw new IllegalArgumentException("loadtest.rate is required for open loop");
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(config.threads());
+        long intervalNanos = (long) (1_000_000_000L / config.rate());
+        long startedAt = System.nanoTime();
+        long measureFrom = startedAt + config.warmup().toNanos();
+        long endAt = measureFrom + config.duration().toNanos();
+
+        for (long i = 0; ; i++) {
+            long intendedAt = startedAt + i * intervalNanos;
+            if(intendedAt >= endAt){
+                break;
+            }
+            waitUntil(intendedAt);
+
+            workers.execute(new ScheduledRequest(
+                    config.mix().next(), intendedAt, intendedAt >= measureFrom, client, report));
+        }
+
+        //끝날 때까지 보내지도 못한 요청은 실패로, 기다린 시간만큼 response 에 남긴다.
+        workers.shutdown();
+        if(!workers.awaitTermination(config.requestTimeout().toMillis() * 2, TimeUnit.MILLISECONDS)){
+            List<Runnable> notSent = workers.shutdownNow();
+            long now = System.nanoTime();
+            notSent.stream()
+                    .map(ScheduledRequest.class::cast)
+                    .filter(ScheduledRequest::measured)
+                    .forEach(request -> report.recordNotSent(
+                            request.operation(), now - request.intendedAt()));
+            System.out.println("requests not sent before the end : " + notSent.size());
+        }
+    }
+
+    private record ScheduledRequest(Operation operation, long intendedAt, boolean measured,
+                                    AccountClient client, LoadReport report) implements Runnable {
+        @Override
+        public void run() {
+            long sentAt = System.nanoTime();
+            AccountClient.Outcome outcome = client.execute(operation);
+            long doneAt = System.nanoTime();
+            if(measured){
+                report.record(operation, outcome, doneAt - sentAt, doneAt - intendedAt);
+            }
+        }
+    }
+
+    //스레드마다 응답을 받고 thinkTime 만큼 쉰 다음 다시 보낸다.
+    //rate 가 있으면 스레드마다 threads / rate 간격으로 보낼 시각을 정하고 그 시각부터 잰다. (wrk2 방식)
+    //rate 가 없으면 warmup 의 p50 + thinkTime 을 기대 간격으로 보고 느린 응답 동안 빠진 요청을 채운다.
+    private static void runClosedLoop(LoadTestConfig config, AccountClient client, LoadReport report)
+            throws InterruptedException {
+        long startedAt = System.nanoTime();
+        long measureFrom = startedAt + config.warmup().toNanos();
+        long endAt = measureFrom + config.duration().toNanos();
+        long pacingNanos = 0 < config.rate()
+                ? (long) (1_000_000_000L * config.threads() / config.rate()) : 0;
+
+        LatencyHistogram warmupHistogram = new LatencyHistogram();
+        AtomicLong expectedIntervalNanos = new AtomicLong();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < config.threads(); t++) {
+            Thread thread = new Thread(() -> {
+                long intendedAt = System.nanoTime();
+                while (true) {
+                    long sentAt = System.nanoTime();
+                    if(sentAt >= endAt){
+                        return;
+                    }
+                    Operation operation = config.mix().next();
+                    AccountClient.Outcome outcome = client.execute(operation);
+                    long doneAt = System.nanoTime();
+
+                    if(sentAt < measureFrom){
+                        warmupHistogram.recordNanos(doneAt - sentAt);
+                    }else if(0 < pacingNanos){
+                        report.record(operation, outcome, doneAt - sentAt, doneAt - intendedAt);
+                    }else{
+                        report.recordWithExpectedInterval(operation, outcome,
+                                doneAt - sentAt, expectedInterval(config, warmupHistogram, expectedIntervalNanos));
+                    }
+
+                    if(0 < pacingNanos){
+                        intendedAt += pacingNanos;
+                        waitUntil(intendedAt);
+                    }else if(!config.thinkTime().isZero()){
+                        LockSupport.parkNanos(config.thinkTime().toNanos());
+                    }
+                }
+            }, "loadtest-" + t);
+            thread.start();
+            threads.add(thread);
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private static long expectedInterval(LoadTestConfig config, LatencyHistogram warmupHistogram,
+                                         AtomicLong cached) {
+        if(null != config.expectedInterval()){
+            return config.expectedInterval().toNanos();
+        }
+        //warmup 이 끝난 뒤 처음 부른 스레드가 정한 값을 모두 같이 쓴다.
+        return cached.updateAndGet(current -> 0 != current ? current
+                : Math.max(1, (long) (warmupHistogram.getPercentileMillis(50) * 1_000_000)
+                        + config.thinkTime().toNanos()));
+    }
+
+    private static void waitUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    //------------------------------------------------------------------------//
+    private static boolean passesGates(LoadTestConfig config, LoadReport report) {
+        boolean passed = true;
+        if(0 == report.getCount()){
+            System.out.println("GATE FAILED : no request was measured");
+            passed = false;
+        }
+        if(0 < config.maxP99Millis() && report.getCorrectedP99Millis() > config.maxP99Millis()){
+            System.out.printf("GATE FAILED : corrected p99 %.2fms > %.2fms%n",
+                    report.getCorrectedP99Millis(), config.maxP99Millis());
+            passed = false;
+        }
+        if(0 <= config.maxErrorRate() && report.getErrorRate() > config.maxErrorRate()){
+            System.out.printf("GATE FAILED : error rate %.4f > %.4f%n",
+                    report.getErrorRate(), config.maxErrorRate());
+            passed = false;
+        }
+        return passed;
+    }
+
+    private static void writeReport(String reportFile, String result) throws IOException {
+        Path path = Path.of(reportFile);
+        if(null != path.getParent()){
+            Files.createDirectories(path.getParent());
+        }
+        Files.writeString(path, result);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.account.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+//-Dloadtest.xxx 로 받는 설정. (gradlew loadTest -Dloadtest.mode=open -Dloadtest.rate=500)
+public record LoadTestConfig(
+        String baseUrl,
+        Mode mode,
+        int threads,                //closed: 동시 사용자 수, open: 요청을 보내는 worker 수
+        double rate,                //초당 요청 수. open 에서는 필수, closed 에서는 주면 스레드마다 간격을 맞춘다.
+        Duration duration,
+        Duration warmup,            //이 시간 동안의 결과는 버린다.
+        Duration thinkTime,         //closed: 응답을 받고 다음 요청까지 쉬는 시간
+        Duration expectedInterval,  //closed + rate 없음: coordinated omission 보정 간격. 없으면 warmup 의 p50 + thinkTime
+        TrafficMix mix,
+        double zipfExponent,
+        List<Long> users,
+        int accountsPerUser,
+        long initialBalance,
+        long maxAmount,
+        Duration requestTimeout,
+        String reportFile,
+        double maxP99Millis,        //보정된 전체 p99 가 이보다 크면 실패 (0 이면 검사 안함)
+        double maxErrorRate         //실패율이 이보다 크면 실패 (음수면 검사 안함)
+) {
+    public enum Mode {
+        CLOSED,                     //응답을 받아야 다음 요청을 보낸다.
+        OPEN                        //응답과 상관 없이 정해진 rate 로 요청을 보낸다.
+    }
+
+    public static LoadTestConfig fromSystemProperties() {
+        Mode mode = Mode.valueOf(property("mode", "closed").toUpperCase());
+        double rate = Double.parseDouble(property("rate", Mode.OPEN == mode ? "200" : "0"));
+
+        return new LoadTestConfig(
+                property("base-url", "http://localhost:8080"),
+                mode,
+                Integer.parseInt(property("threads", Mode.OPEN == mode ? "64" : "16")),
+                rate,
+                duration(property("duration", "60s")),
+                duration(property("warmup", "10s")),
+                duration(property("think-time", "0ms")),
+                property("expected-interval", "").isEmpty()
+                        ? null : duration(property("expected-interval", "")),
+                TrafficMix.parse(property("mix", "default")),
+                Double.parseDouble(property("zipf-exponent", "1.1")),
+                Arrays.stream(property("users", "1,2,3").split(","))
+                        .map(String::trim)
+                        .map(Long::valueOf)
+                        .toList(),
+                Integer.parseInt(property("accounts-per-user", "10")),
+                Long.parseLong(property("initial-balance", "1000000000")),
+                Long.parseLong(property("max-amount", "1000")),
+                duration(property("request-timeout", "5s")),
+                property("report-file", "build/loadtest/report.txt"),
+                Double.parseDouble(property("max-p99-ms", "0")),
+                Double.parseDouble(property("max-error-rate", "-1"))
+        );
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty("loadtest." + name, defaultValue);
+    }
+
+    //10s, 500ms, 2m 형태
+    static Duration duration(String value) {
+        String text = value.trim().toLowerCase();
+        if(text.endsWith("ms")){
+            return Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+        }
+        if(text.endsWith("s")){
+            return Duration.ofSeconds(Long.parseLong(text.substring(0, text.length() - 1)));
+        }
+        if(text.endsWith("m")){
+            return Duration.ofMinutes(Long.parseLong(text.substring(0, text.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(text));
+    }
+}
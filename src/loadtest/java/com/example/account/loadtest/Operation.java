@@ -0,0 +1,9 @@
+package com.example.account.loadtest;
+
+public enum Operation {
+    CREATE,                 //POST /account
+    USE,                    //POST /transaction/use
+    CANCEL,                 //POST /transaction/cancel (최근 성공한 USE 를 취소)
+    QUERY,                  //GET /transaction/{transactionId}
+    GET_ACCOUNTS            //GET /account?user_id=
+}
@@ -0,0 +1,65 @@
+package com.example.account.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+//요청 종류별 비율. ex) use:50,query:20,get_accounts:15,cancel:10,create:5
+//이름으로 미리 정해둔 mix 를 고를 수도 있다. (default, read-heavy, write-heavy)
+public class TrafficMix {
+    private static final Map<String, String> PRESETS = Map.of(
+            "default", "use:50,query:20,get_accounts:15,cancel:10,create:5",
+            "read-heavy", "use:15,query:40,get_accounts:40,cancel:3,create:2",
+            "write-heavy", "use:75,query:5,get_accounts:5,cancel:14,create:1");
+
+    private final Operation[] operations;
+    private final double[] cumulative;
+    private final Map<Operation, Double> weights;
+
+    private TrafficMix(Map<Operation, Double> weights) {
+        this.weights = weights;
+        this.operations = weights.keySet().toArray(Operation[]::new);
+        this.cumulative = new double[operations.length];
+
+        double total = weights.values().stream().mapToDouble(Double::doubleValue).sum();
+        double sum = 0;
+        for (int i = 0; i < operations.length; i++) {
+            sum += weights.get(operations[i]) / total;
+            cumulative[i] = sum;
+        }
+    }
+
+    public static TrafficMix parse(String mix) {
+        String definition = PRESETS.getOrDefault(mix, mix);
+        Map<Operation, Double> weights = new EnumMap<>(Operation.class);
+        for (String entry : definition.split(",")) {
+            String[] pair = entry.trim().split(":");
+            if(2 != pair.length){
+                throw new IllegalArgumentException("invalid mix entry : " + entry);
+            }
+            double weight = Double.parseDouble(pair[1].trim());
+            if(0 < weight){
+                weights.put(Operation.valueOf(pair[0].trim().toUpperCase()), weight);
+            }
+        }
+        if(weights.isEmpty()){
+            throw new IllegalArgumentException("empty mix : " + mix);
+        }
+        return new TrafficMix(weights);
+    }
+
+    public Operation next() {
+        double value = ThreadLocalRandom.current().nextDouble();
+        for (int i = 0; i < cumulative.length; i++) {
+            if(value < cumulative[i]){
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    @Override
+    public String toString() {
+        return weights.toString();
+    }
+}
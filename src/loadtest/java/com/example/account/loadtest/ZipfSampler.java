@@ -0,0 +1,32 @@
+package com.example.account.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+//0 ~ size-1 의 순위를 zipf 분포로 뽑는다. (0 번이 가장 자주 뽑히는 hot 계좌)
+//P(k) ∝ 1 / (k+1)^exponent, exponent 가 0 이면 균등 분포.
+public class ZipfSampler {
+    private final double[] cumulative;
+
+    public ZipfSampler(int size, double exponent) {
+        if(size <= 0){
+            throw new IllegalArgumentException("size must be positive : " + size);
+        }
+        cumulative = new double[size];
+        double sum = 0;
+        for (int k = 0; k < size; k++) {
+            sum += 1.0 / Math.pow(k + 1, exponent);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < size; k++) {
+            cumulative[k] /= sum;
+        }
+    }
+
+    public int next() {
+        double value = ThreadLocalRandom.current().nextDouble();
+        int index = Arrays.binarySearch(cumulative, value);
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cumulative.length - 1);
+    }
+}
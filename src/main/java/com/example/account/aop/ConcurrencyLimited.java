@@ -0,0 +1,11 @@
+package com.example.account.aop;
+
+import java.lang.annotation.*;
+
+//ConcurrencyLimiter 의 동시 처리 한도를 넘으면 바로 TOO_MANY_REQUESTS 로 거절한다.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+public @interface ConcurrencyLimited {
+}
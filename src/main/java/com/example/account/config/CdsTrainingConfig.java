@@ -0,0 +1,26 @@
+package com.example.account.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+//gradle cdsArchive 태스크에서 사용.
+//-XX:ArchiveClassesAtExit 로 띄운 학습용 실행을 기동 완료 직후 정상 종료시켜서
+//그때까지 로딩된 클래스들로 CDS(class-data-sharing) 아카이브가 만들어지게 한다.
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "account.startup.exit-on-ready", havingValue = "true")
+public class CdsTrainingConfig {
+
+    @Bean
+    public ApplicationListener<ApplicationReadyEvent> exitOnReadyListener(){
+        return event -> {
+            log.info("application ready, exit for cds archive training");
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        };
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.account.config;
+
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+//hibernate 가 기본 DB 에 만드는 DDL 을 문자열로 받아둔다.
+//같은 스키마를 다른 DB (shard, 로컬 replica) 에 만들때 사용한다.
+class HibernateSchemaScript {
+    private final StringWriter script = new StringWriter();
+
+    HibernatePropertiesCustomizer customizer(){
+        return hibernateProperties -> {
+            //scripts.action 을 주면 hibernate 가 hbm2ddl.auto 를 보지 않으므로 DB 쪽 동작도 같이 넘겨준다.
+            hibernateProperties.put("jakarta.persistence.schema-generation.database.action",
+                    hibernateProperties.getOrDefault("hibernate.hbm2ddl.auto", "none"));
+            hibernateProperties.put("jakarta.persistence.schema-generation.scripts.action", "create");
+            hibernateProperties.put("jakarta.persistence.schema-generation.scripts.create-target", script);
+            hibernateProperties.put("hibernate.hbm2ddl.delimiter", ";");
+        };
+    }
+
+    //EntityManagerFactory 가 만들어진 뒤에 불러야 DDL 이 들어 있다.
+    String get(){
+        return script.toString();
+    }
+
+    static void execute(DataSource dataSource, String script){
+        new ResourceDatabasePopulator(new ByteArrayResource(script.getBytes(StandardCharsets.UTF_8)))
+                .execute(dataSource);
+    }
+}
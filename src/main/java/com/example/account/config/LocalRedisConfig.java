@@ -4,11 +4,17 @@ import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Configuration;
 import redis.embedded.RedisServer;
 
+import java.io.IOException;
+import java.net.ServerSocket;
+
+//cluster, sentinel 등 외부 redis 를 사용할때는 account.redis.embedded=false 로 끈다.
 @Slf4j
 @Configuration
+@ConditionalOnProperty(name = "account.redis.embedded", havingValue = "true", matchIfMissing = true)
 public class LocalRedisConfig {
     @Value("${spring.redis.port}")
     private int redisPort;
@@ -17,6 +23,13 @@ public class LocalRedisConfig {
 
     @PostConstruct
     public void startRedis(){
+        //이미 포트를 점유하고 있는 redis 가 있다면 (이전 실행에서 남은 서버, 같은 JVM 의 다른 테스트 컨텍스트 등)
+        //새로 띄우지 않고 그 서버를 그대로 사용한다.
+        if(isPortInUse(redisPort)){
+            log.info("redis port {} is already in use, skip embedded redis start", redisPort);
+            return;
+        }
+
         redisServer = new RedisServer(redisPort);
         redisServer.start();
 
@@ -43,4 +56,12 @@ public class LocalRedisConfig {
             redisServer.stop();
         }
     }
+
+    private static boolean isPortInUse(int port){
+        try(ServerSocket ignored = new ServerSocket(port)){
+            return false;
+        }catch(IOException e){
+            return true;
+        }
+    }
 }
@@ -0,0 +1,36 @@
+package com.example.account.config;
+
+import com.example.account.outbox.FileOutboxSink;
+import com.example.account.outbox.InMemoryOutboxSink;
+import com.example.account.outbox.OutboxSink;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+//거래 이벤트를 보낼 sink. 다른 OutboxSink bean 을 등록하면 그것을 쓴다.
+@Configuration
+public class OutboxConfig {
+    //file : file 경로에 JSON 한줄씩, memory : 최근 memory-capacity 개를 메모리에
+    @Value("${account.outbox.sink:file}")
+    private String sink;
+
+    @Value("${account.outbox.file:outbox/transaction-events.jsonl}")
+    private String file;
+
+    @Value("${account.outbox.memory-capacity:10000}")
+    private int memoryCapacity;
+
+    @Bean
+    @ConditionalOnMissingBean(OutboxSink.class)
+    public OutboxSink outboxSink(ObjectMapper objectMapper){
+        return switch (sink) {
+            case "file" -> new FileOutboxSink(Path.of(file), objectMapper);
+            case "memory" -> new InMemoryOutboxSink(memoryCapacity);
+            default -> throw new IllegalStateException("unknown account.outbox.sink : " + sink);
+        };
+    }
+}
@@ -1,13 +1,19 @@
 package com.example.account.config;
 
+import com.example.account.shard.ConsistentHashRing;
+import com.example.account.type.RedisMode;
+import jakarta.annotation.PreDestroy;
 import org.redisson.Redisson;
 import org.redisson.api.RedissonClient;
 import org.redisson.config.Config;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.io.ObjectInputFilter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 @Configuration
 public class RedisRepositoryConfig {
@@ -17,11 +23,79 @@ public class RedisRepositoryConfig {
     @Value("${spring.redis.port}")
     private String redisPort;
 
+    @Value("${account.redis.mode:single}")
+    private RedisMode redisMode;
+
+    //cluster, replicated, sentinel, sharded 모드에서 사용할 노드 목록. (host:port,host:port...)
+    @Value("${account.redis.nodes:}")
+    private String[] redisNodes;
+
+    //sentinel 모드의 master 이름.
+    @Value("${account.redis.master-name:mymaster}")
+    private String masterName;
+
+    //sharded 모드에서 노드마다 따로 만든 client 들. (종료시 정리용)
+    private final List<RedissonClient> shardClients = new ArrayList<>();
+
     //@Bean(name = "redissonClient")
     @Bean
-    public RedissonClient redissonClient(){
+    public RedissonClient redissonClient(ObjectProvider<LocalRedisConfig> localRedisConfig){
+        //fast 프로파일(lazy-initialization)에서는 LocalRedisConfig 도 처음 필요할 때 만들어진다.
+        //클라이언트가 접속하기 전에 embedded redis 가 떠 있어야 하므로 여기서 먼저 꺼내온다.
+        localRedisConfig.ifAvailable(config -> {});
+
         Config config = new Config();
-        config.useSingleServer().setAddress("redis://"+redisHost+":"+redisPort);
+        switch (redisMode) {
+            //cluster 에서는 ACLK:{계좌번호} 키가 CRC16 slot 으로 master 들에게 나뉘어 들어간다.
+            case CLUSTER -> config.useClusterServers().addNodeAddress(nodeAddresses());
+            case REPLICATED -> config.useReplicatedServers().addNodeAddress(nodeAddresses());
+            case SENTINEL -> config.useSentinelServers()
+                    .setMasterName(masterName)
+                    .addSentinelAddress(nodeAddresses());
+            //sharded 모드에서 이 client 는 첫번째 노드를 사용한다. (lock 이외의 용도)
+            case SHARDED -> config.useSingleServer().setAddress(nodeAddresses()[0]);
+            default -> config.useSingleServer().setAddress("redis://"+redisHost+":"+redisPort);
+        }
         return Redisson.create(config);
     }
+
+    //계좌 lock 을 잡을 redis client 를 계좌번호로 고르기 위한 링.
+    //sharded 모드가 아니라면 redissonClient 하나만 가진다.
+    @Bean
+    public ConsistentHashRing<RedissonClient> lockClientRing(RedissonClient redissonClient){
+        if(RedisMode.SHARDED != redisMode){
+            return new ConsistentHashRing<>(List.of(redissonClient));
+        }
+
+        String[] addresses = nodeAddresses();
+        List<RedissonClient> clients = new ArrayList<>();
+        clients.add(redissonClient);
+        for (int i = 1; i < addresses.length; i++) {
+            Config config = new Config();
+            config.useSingleServer().setAddress(addresses[i]);
+            RedissonClient client = Redisson.create(config);
+            shardClients.add(client);
+            clients.add(client);
+        }
+        return new ConsistentHashRing<>(clients);
+    }
+
+    @PreDestroy
+    public void shutdownShardClients(){
+        shardClients.forEach(RedissonClient::shutdown);
+    }
+
+    private String[] nodeAddresses(){
+        String[] addresses = Arrays.stream(redisNodes)
+                .map(String::trim)
+                .filter(node -> !node.isEmpty())
+                .map(node -> node.contains("://") ? node : "redis://" + node)
+                .toArray(String[]::new);
+
+        if(0 == addresses.length){
+            throw new IllegalStateException(
+                    "account.redis.nodes is required for redis mode " + redisMode);
+        }
+        return addresses;
+    }
 }
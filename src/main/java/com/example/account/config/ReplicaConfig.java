@@ -0,0 +1,104 @@
+package com.example.account.config;
+
+import com.example.account.replica.ReplicaLagMonitor;
+import com.example.account.replica.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+//account.replica.enabled=true 일때
+//spring.datasource 는 primary 로, account.replica.url 의 DB 는 조회용 replica 로 사용한다.
+//어떤 조회를 replica 에서 읽을지는 ReplicaRouting 이 정한다.
+//shard 마다 replica 를 두는 구성은 아직 지원하지 않는다. (sharding 과 같이 켜면 dataSource bean 이 겹쳐서 기동에 실패한다)
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "account.replica.enabled", havingValue = "true")
+public class ReplicaConfig {
+    @Value("${account.replica.url:}")
+    private String replicaUrl;
+
+    @Value("${account.replica.heartbeat-interval:500ms}")
+    private Duration heartbeatInterval;
+
+    //true 면 replica 에 primary 와 같은 스키마를 직접 만든다. (복제가 없는 로컬 H2 용)
+    @Value("${account.replica.init-schema:false}")
+    private boolean initSchema;
+
+    private final HibernateSchemaScript schemaScript = new HibernateSchemaScript();
+
+    private HikariDataSource primaryDataSource;
+    private HikariDataSource replicaDataSource;
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties dataSourceProperties){
+        if(replicaUrl.isBlank()){
+            throw new IllegalStateException("account.replica.url is required when replica is enabled");
+        }
+
+        primaryDataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        primaryDataSource.setPoolName(ReplicaRoutingDataSource.PRIMARY);
+
+        replicaDataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(dataSourceProperties.determineDriverClassName())
+                .url(replicaUrl)
+                .username(dataSourceProperties.determineUsername())
+                .password(dataSourceProperties.determinePassword())
+                .build();
+        replicaDataSource.setPoolName(ReplicaRoutingDataSource.REPLICA);
+        replicaDataSource.setReadOnly(true);
+
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource();
+        routingDataSource.setTargetDataSources(Map.of(
+                ReplicaRoutingDataSource.PRIMARY, primaryDataSource,
+                ReplicaRoutingDataSource.REPLICA, replicaDataSource));
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+        return routingDataSource;
+    }
+
+    //dataSource 에서 만든 primary, replica pool 을 사용한다.
+    @Bean
+    @DependsOn("dataSource")
+    public ReplicaLagMonitor replicaLagMonitor(){
+        return new ReplicaLagMonitor(primaryDataSource, replicaDataSource, heartbeatInterval, initSchema);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "account.replica.init-schema", havingValue = "true")
+    public HibernatePropertiesCustomizer replicaSchemaScriptCustomizer(){
+        return schemaScript.customizer();
+    }
+
+    @Bean
+    @Lazy(false)
+    @ConditionalOnProperty(name = "account.replica.init-schema", havingValue = "true")
+    public Object replicaSchemaInitializer(EntityManagerFactory entityManagerFactory){
+        HibernateSchemaScript.execute(replicaDataSource, schemaScript.get());
+        log.info("replica schema created : {}", replicaUrl);
+        return replicaUrl;
+    }
+
+    @PreDestroy
+    public void closeDataSources(){
+        replicaDataSource.close();
+        primaryDataSource.close();
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.account.config;
+
+import com.example.account.shard.ShardRouting;
+import com.example.account.shard.ShardRoutingAspect;
+import com.example.account.shard.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+//account.sharding.enabled=true 일때
+//spring.datasource 는 사용자(AccountUser) directory 로, account.sharding.urls 의 DB 들은 계좌/거래 shard 로 사용한다.
+//계좌와 그 계좌의 거래는 계좌번호의 consistent hash 로 정해진 shard 한곳에 저장된다.
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "account.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+    //shard 마다 sequence 시작값을 이만큼씩 떨어뜨린다.
+    //hibernate 의 id optimizer 는 entity 마다 하나라서, 어느 shard 의 sequence 에서 받은 id 든
+    //다른 shard 에 쓰일 수 있으므로 shard 끼리 id 범위가 겹치면 안된다.
+    private static final long SEQUENCE_RANGE = 1_000_000_000_000_000L;
+
+    @Value("${account.sharding.urls:}")
+    private String[] shardUrls;
+
+    //hibernate 가 directory DB 에 만드는 DDL 을 받아서 shard 들에도 똑같이 만든다.
+    private final HibernateSchemaScript schemaScript = new HibernateSchemaScript();
+
+    private final List<HikariDataSource> shardDataSources = new ArrayList<>();
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties dataSourceProperties){
+        List<String> urls = ShardRouting.urls(shardUrls);
+        List<String> shardNames = ShardRouting.shardNames(urls.size());
+
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource shard = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(dataSourceProperties.determineDriverClassName())
+                    .url(urls.get(i))
+                    .username(dataSourceProperties.determineUsername())
+                    .password(dataSourceProperties.determinePassword())
+                    .build();
+            shard.setPoolName(shardNames.get(i));
+            shardDataSources.add(shard);
+            targets.put(shardNames.get(i), shard);
+        }
+
+        ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource();
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(
+                dataSourceProperties.initializeDataSourceBuilder().build());
+        return routingDataSource;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardSchemaScriptCustomizer(){
+        return schemaScript.customizer();
+    }
+
+    //EntityManagerFactory 가 만들어진 뒤 (= DDL 이 script 에 써진 뒤) shard 들의 스키마를 만든다.
+    //lazy-initialization 에서도 기동할때 만들어지도록 @Lazy(false).
+    @Bean
+    @Lazy(false)
+    public Object shardSchemaInitializer(EntityManagerFactory entityManagerFactory){
+        for (int i = 0; i < shardDataSources.size(); i++) {
+            HibernateSchemaScript.execute(shardDataSources.get(i), shardSchema(schemaScript.get(), i));
+            log.info("shard schema created : {}", shardDataSources.get(i).getPoolName());
+        }
+        return shardDataSources.size();
+    }
+
+    @Bean
+    public ShardRoutingAspect shardRoutingAspect(ShardRouting shardRouting,
+                                                 PlatformTransactionManager transactionManager){
+        return new ShardRoutingAspect(shardRouting, transactionManager);
+    }
+
+    @PreDestroy
+    public void closeShardDataSources(){
+        shardDataSources.forEach(HikariDataSource::close);
+    }
+
+    //1. 사용자는 directory 에만 있으므로 shard 에서는 account -> account_user FK 를 만들지 않는다.
+    //2. sequence 시작값을 shard 마다 다르게 한다.
+    static String shardSchema(String script, int shardIndex){
+        long sequenceStart = (shardIndex + 1) * SEQUENCE_RANGE;
+        return Arrays.stream(script.split(";"))
+                .map(String::trim)
+                .filter(statement -> !statement.isEmpty())
+                .filter(statement -> !statement.toLowerCase().matches("(?s).*references\\s+account_user\\b.*"))
+                .map(statement -> statement.replaceAll("(?i)start with 1\\b", "start with " + sequenceStart))
+                .collect(Collectors.joining(";\n", "", ";"));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.account.config;
+
+import com.example.account.metrics.SqlStatsAspect;
+import com.example.account.metrics.SqlStatsDataSource;
+import com.example.account.metrics.SqlStatsRecorder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+//account.sql-stats.enabled=true 일때
+//DataSource 를 SqlStatsDataSource 로 감싸고 service method 단위 기록을 켠다.
+//숫자로 보게 되므로 콘솔 SQL 로그(show_sql, format_sql)는 끈다.
+@Configuration
+@ConditionalOnProperty(name = "account.sql-stats.enabled", havingValue = "true")
+public class SqlStatsConfig {
+
+    @Bean
+    public static BeanPostProcessor sqlStatsDataSourcePostProcessor(
+            ObjectProvider<SqlStatsRecorder> sqlStatsRecorder){
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if(bean instanceof DataSource dataSource && !(bean instanceof SqlStatsDataSource)){
+                    return new SqlStatsDataSource(dataSource, sqlStatsRecorder.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public SqlStatsAspect sqlStatsAspect(SqlStatsRecorder sqlStatsRecorder){
+        return new SqlStatsAspect(sqlStatsRecorder);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatsHibernatePropertiesCustomizer(){
+        return hibernateProperties -> {
+            hibernateProperties.put("hibernate.show_sql", "false");
+            hibernateProperties.put("hibernate.format_sql", "false");
+        };
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.account.config;
+
+import com.example.account.partition.TransactionTableInspector;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+//account.transaction-partition.enabled=true 일때
+//거래 SQL 의 transaction 테이블을 월별 partition 테이블로 바꾸는 inspector 를 hibernate 에 등록한다.
+//어느 테이블로 보낼지는 TransactionPartitionRouting 이 정한다.
+@Configuration
+@ConditionalOnProperty(name = "account.transaction-partition.enabled", havingValue = "true")
+public class TransactionPartitionConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer transactionPartitionHibernatePropertiesCustomizer(){
+        return hibernateProperties -> hibernateProperties.put(
+                "hibernate.session_factory.statement_inspector", new TransactionTableInspector());
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.account.config;
+
+import com.example.account.metrics.LatencyInterceptor;
+import com.example.account.metrics.LatencyRecorder;
+import com.example.account.metrics.SqlStatsInterceptor;
+import com.example.account.metrics.SqlStatsRecorder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+//@WebMvcTest 처럼 recorder bean 이 없는 환경에서도 뜰 수 있게 ObjectProvider 로 받는다.
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    private final ObjectProvider<SqlStatsRecorder> sqlStatsRecorder;
+    private final ObjectProvider<LatencyRecorder> latencyRecorder;
+
+    @Value("${account.sql-stats.enabled:false}")
+    private boolean sqlStatsEnabled;
+
+    public WebConfig(ObjectProvider<SqlStatsRecorder> sqlStatsRecorder,
+                     ObjectProvider<LatencyRecorder> latencyRecorder) {
+        this.sqlStatsRecorder = sqlStatsRecorder;
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if(sqlStatsEnabled){
+            sqlStatsRecorder.ifAvailable(recorder ->
+                    registry.addInterceptor(new SqlStatsInterceptor(recorder)));
+        }
+        latencyRecorder.ifAvailable(recorder ->
+                registry.addInterceptor(new LatencyInterceptor(recorder))
+                        .addPathPatterns("/account/**", "/transaction/**"));
+    }
+}
@@ -1,14 +1,25 @@
 package com.example.account.controller;
 
+import com.example.account.aop.ConcurrencyLimited;
 import com.example.account.dto.AccountDto;
+import com.example.account.dto.BulkCreateAccountDto;
 import com.example.account.dto.CreateAccountDto;
 import com.example.account.dto.DeleteAccountDto;
 import com.example.account.dto.GetAccountDto;
+import com.example.account.dto.GetAccountSummaryDto;
+import com.example.account.service.AccountProvisioningService;
 import com.example.account.service.AccountService;
+import com.example.account.service.BalanceChangeStream;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -16,8 +27,12 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class AccountController {
     private final AccountService accountService;
+    private final AccountProvisioningService accountProvisioningService;
+    private final BalanceChangeStream balanceChangeStream;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/account")
+    @ConcurrencyLimited
     public CreateAccountDto.Response createAccount(
             @RequestBody @Valid CreateAccountDto.Request request)
     {
@@ -27,7 +42,26 @@ public class AccountController {
         return CreateAccountDto.Response.from(accountDto);
     }
 
+    //결과는 저장되는 대로 한 줄에 항목 하나씩 (NDJSON) 보낸다.
+    @PostMapping(value = "/account/bulk", produces = "application/x-ndjson")
+    public StreamingResponseBody createAccounts(
+            @RequestBody @Valid BulkCreateAccountDto.Request request)
+    {
+        return outputStream -> accountProvisioningService.provision(request.getAccounts(), results -> {
+            try{
+                for (BulkCreateAccountDto.Result result : results) {
+                    outputStream.write(objectMapper.writeValueAsBytes(result));
+                    outputStream.write('\n');
+                }
+                outputStream.flush();
+            }catch(IOException e){
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
     @DeleteMapping("/account")
+    @ConcurrencyLimited
     public DeleteAccountDto.Response deleteAccount(
             @RequestBody @Valid DeleteAccountDto.Request request)
     {
@@ -46,4 +80,16 @@ public class AccountController {
                         .build())
                 .collect(Collectors.toList());
     }
+
+    //잔액 변경 SSE stream. 첫 이벤트는 지금 잔액이고, 이후 사용/취소가 커밋될 때마다 balance 이벤트를 보낸다.
+    //(GET /account 를 주기적으로 다시 읽지 않아도 된다)
+    @GetMapping(value = "/account/{accountNumber}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter getBalanceEvents(@PathVariable("accountNumber") String accountNumber){
+        return balanceChangeStream.subscribe(accountNumber, () -> accountService.getBalance(accountNumber));
+    }
+
+    @GetMapping("/account/summary")
+    public GetAccountSummaryDto.Response getAccountSummary(@RequestParam("user_id") Long userId){
+        return GetAccountSummaryDto.Response.from(accountService.getAccountSummary(userId));
+    }
 }
@@ -0,0 +1,31 @@
+package com.example.account.controller;
+
+import com.example.account.dto.DailyAggregateBackfillDto;
+import com.example.account.service.DailyAccountAggregateService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+//운영 내부용 일자별 거래 집계 관리.
+@RestController
+@RequiredArgsConstructor
+public class InternalDailyAggregateController {
+    private final DailyAccountAggregateService dailyAccountAggregateService;
+
+    //[from, to] 의 계좌별 하루 집계를 거래에서 다시 만든다. (집계를 쓰기 전의 거래를 채울때 한번)
+    //끝날때까지 기다린다. 오늘 이후는 다시 만들지 않는다.
+    @PostMapping("/internal/daily-aggregates/backfill")
+    public DailyAggregateBackfillDto.Response backfillDailyAggregates(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return DailyAggregateBackfillDto.Response.builder()
+                .from(from)
+                .to(to)
+                .rows(dailyAccountAggregateService.backfill(from, to))
+                .build();
+    }
+}
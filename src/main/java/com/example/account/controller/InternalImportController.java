@@ -0,0 +1,29 @@
+package com.example.account.controller;
+
+import com.example.account.dto.TransactionImportDto;
+import com.example.account.importer.TransactionHistoryImporter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+//운영 내부용 데이터 이관.
+@RestController
+@RequiredArgsConstructor
+public class InternalImportController {
+    private final TransactionHistoryImporter transactionHistoryImporter;
+
+    //이관 디렉토리(account.transaction-import.input-dir) 에 있는 CSV 파일의 거래 이력 이관을 백그라운드로 시작한다.
+    //같은 파일로 다시 부르면 checkpoint 다음 줄부터 이어서 한다.
+    @PostMapping("/internal/transaction-import")
+    public TransactionImportDto.Response startTransactionImport(@RequestParam("file") String file){
+        return transactionHistoryImporter.start(transactionHistoryImporter.resolveInputFile(file));
+    }
+
+    //마지막 이관의 진행 상황.
+    @GetMapping("/internal/transaction-import")
+    public TransactionImportDto.Response getTransactionImport(){
+        return transactionHistoryImporter.status();
+    }
+}
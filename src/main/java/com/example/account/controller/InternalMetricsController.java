@@ -0,0 +1,54 @@
+package com.example.account.controller;
+
+import com.example.account.dto.ConcurrencyLimitDto;
+import com.example.account.dto.LatencyDto;
+import com.example.account.dto.SqlStatsDto;
+import com.example.account.limit.ConcurrencyLimiter;
+import com.example.account.metrics.LatencyRecorder;
+import com.example.account.metrics.SqlStatsRecorder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+//운영 내부용 지표 조회.
+@RestController
+@RequiredArgsConstructor
+public class InternalMetricsController {
+    private final SqlStatsRecorder sqlStatsRecorder;
+    private final LatencyRecorder latencyRecorder;
+    private final ConcurrencyLimiter concurrencyLimiter;
+
+    @GetMapping("/internal/sql-stats")
+    public SqlStatsDto.Response getSqlStats(){
+        return sqlStatsRecorder.snapshot();
+    }
+
+    //지금까지의 통계를 돌려주고 초기화한다.
+    @DeleteMapping("/internal/sql-stats")
+    public SqlStatsDto.Response resetSqlStats(){
+        SqlStatsDto.Response response = sqlStatsRecorder.snapshot();
+        sqlStatsRecorder.reset();
+        return response;
+    }
+
+    //endpoint 별 단계(phase) 지연 시간. p50, p99, p99.9
+    @GetMapping("/internal/latency")
+    public LatencyDto.Response getLatency(){
+        return latencyRecorder.snapshot();
+    }
+
+    //지금 window 를 돌려주고 새 window 로 다시 센다.
+    @DeleteMapping("/internal/latency")
+    public LatencyDto.Response resetLatency(){
+        LatencyDto.Response response = latencyRecorder.snapshot();
+        latencyRecorder.reset();
+        return response;
+    }
+
+    //쓰기 요청의 동시 처리 한도, 처리 중인 요청 수, 거절 수
+    @GetMapping("/internal/concurrency-limit")
+    public ConcurrencyLimitDto.Response getConcurrencyLimit(){
+        return concurrencyLimiter.snapshot();
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.account.controller;
+
+import com.example.account.dto.OutboxStatusDto;
+import com.example.account.outbox.TransactionOutboxRelay;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+//운영 내부용 거래 이벤트 outbox 상태. (shard 별 high-water mark 와 밀린 이벤트 수)
+@RestController
+@RequiredArgsConstructor
+public class InternalOutboxController {
+    private final TransactionOutboxRelay transactionOutboxRelay;
+
+    @GetMapping("/internal/outbox")
+    public OutboxStatusDto.Response getOutboxStatus(){
+        return transactionOutboxRelay.status();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.account.controller;
+
+import com.example.account.partition.TransactionPartitionRouting;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.YearMonth;
+import java.util.List;
+
+//운영 내부용 거래 월별 partition 관리.
+@RestController
+@RequiredArgsConstructor
+public class InternalPartitionController {
+    private final TransactionPartitionRouting transactionPartitionRouting;
+
+    @GetMapping("/internal/transaction-partitions")
+    public List<YearMonth> getTransactionPartitions(){
+        return transactionPartitionRouting.getPartitions();
+    }
+
+    //지난 달의 partition 을 조회에서 뺀다. (테이블은 detached_ 로 남긴다)
+    //detach=false 면 이미 떼어낸 테이블을 지운다. (account.transaction-partition.allow-drop 이 켜져 있어야 한다)
+    @DeleteMapping("/internal/transaction-partitions/{month}")
+    public List<YearMonth> removeTransactionPartition(
+            @PathVariable("month") YearMonth month,
+            @RequestParam(value = "detach", defaultValue = "true") boolean detach){
+        if(detach){
+            transactionPartitionRouting.detach(month);
+        }else{
+            transactionPartitionRouting.drop(month);
+        }
+        return transactionPartitionRouting.getPartitions();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.account.controller;
+
+import com.example.account.dto.MonthlyStatementDto;
+import com.example.account.statement.MonthlyStatementJob;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.YearMonth;
+
+//운영 내부용 월별 거래 명세.
+@RestController
+@RequiredArgsConstructor
+public class InternalStatementController {
+    private final MonthlyStatementJob monthlyStatementJob;
+
+    //month(yyyy-MM) 의 계좌별 거래 명세 파일 생성을 백그라운드로 시작한다.
+    //다시 부르면 이미 만든 구간은 건너뛴다. (force=true 면 모두 다시 만든다)
+    @PostMapping("/internal/statements")
+    public MonthlyStatementDto.Response startMonthlyStatement(
+            @RequestParam("month") YearMonth month,
+            @RequestParam(value = "force", defaultValue = "false") boolean force){
+        return monthlyStatementJob.start(month, force);
+    }
+
+    //마지막 명세 생성의 진행 상황.
+    @GetMapping("/internal/statements")
+    public MonthlyStatementDto.Response getMonthlyStatement(){
+        return monthlyStatementJob.status();
+    }
+}
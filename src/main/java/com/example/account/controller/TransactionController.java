@@ -1,7 +1,9 @@
 package com.example.account.controller;
 
 import com.example.account.aop.AccountLock;
+import com.example.account.aop.ConcurrencyLimited;
 import com.example.account.dto.CancelTransactionDto;
+import com.example.account.dto.GetDailyAggregateDto;
 import com.example.account.dto.QueryTransactionDto;
 import com.example.account.dto.TransactionDto;
 import com.example.account.dto.UseBalanceDto;
@@ -9,14 +11,20 @@ import com.example.account.exception.AccountException;
 import com.example.account.service.TransactionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+
+import static com.example.account.type.ErrorCode.ACCOUNT_NOT_FOUND;
+
 @RestController
 @RequiredArgsConstructor
 public class TransactionController {
     final private TransactionService transactionService;
 
     @PostMapping("/transaction/use")
+    @ConcurrencyLimited
     @AccountLock
     public UseBalanceDto.Response useBalance(
            @RequestBody @Valid UseBalanceDto.Request request) {
@@ -28,16 +36,21 @@ public class TransactionController {
                             ,request.getAmount())
             );
         }catch(AccountException e){
-            transactionService.saveFailedTransaction(
-                    request.getAccountNumber(),
-                    request.getAmount()
-            );
+            //계좌가 없으면 실패 거래를 남길 계좌도 없다.
+            if(ACCOUNT_NOT_FOUND != e.getErrorCode()){
+                transactionService.saveFailedTransaction(
+                        request.getAccountNumber(),
+                        request.getAmount(),
+                        e.getErrorCode()
+                );
+            }
 
             throw e;
         }
     }
 
     @PostMapping("/transaction/cancel")
+    @ConcurrencyLimited
     @AccountLock
     public UseBalanceDto.Response cancelTransaction(
             @RequestBody @Valid CancelTransactionDto.Request request) {
@@ -47,10 +60,14 @@ public class TransactionController {
                     transactionService.cancelTransaction(request.getTransactionId(),
                             request.getAccountNumber(), request.getAmount()));
         }catch(AccountException e){
-            transactionService.cancelFailedTransaction(
-                    request.getAccountNumber(),
-                    request.getAmount()
-            );
+            //계좌가 없으면 실패 거래를 남길 계좌도 없다.
+            if(ACCOUNT_NOT_FOUND != e.getErrorCode()){
+                transactionService.cancelFailedTransaction(
+                        request.getAccountNumber(),
+                        request.getAmount(),
+                        e.getErrorCode()
+                );
+            }
 
             throw e;
         }
@@ -62,4 +79,14 @@ public class TransactionController {
         return QueryTransactionDto.Response.from(
                 transactionService.queryTransaction(transactionId));
     }
+
+    //일자별 거래 집계. (account_number 가 없으면 모든 계좌의 합계)
+    @GetMapping("/transaction/daily-aggregate")
+    public GetDailyAggregateDto.Response getDailyAggregates(
+            @RequestParam(value = "account_number", required = false) String accountNumber,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return GetDailyAggregateDto.Response.from(accountNumber, from, to,
+                transactionService.getDailyAggregates(accountNumber, from, to));
+    }
 }
@@ -27,7 +27,8 @@ public class Account {
 
     //n:1의 연결 {many account -> one user}
     //다른 Entity 를 안에 포함시키려는 경우에는 관계에 대한 어노테이션이 필요한것같다.
-    @ManyToOne
+    //LAZY : 계좌를 읽을 때 사용자까지 같이 읽지 않는다. (사용자 id 는 proxy 에서 바로 꺼낼 수 있다.)
+    @ManyToOne(fetch = FetchType.LAZY)
     private AccountUser accountUser;
 
     private String accountNumber;
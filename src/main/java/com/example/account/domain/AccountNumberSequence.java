@@ -0,0 +1,20 @@
+package com.example.account.domain;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.*;
+
+//마지막으로 발급한 계좌번호. (row 는 id = 1 하나뿐이다)
+//사용자(AccountUser) 와 같은 DB 에 있다. (sharding 에서는 directory)
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class AccountNumberSequence {
+    @Id
+    private Integer id;
+
+    private Long lastNumber;
+}
@@ -0,0 +1,30 @@
+package com.example.account.domain;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+//사용자별 계좌 요약. 계좌 생성/해지, 잔액 사용/취소와 같이 갱신된다.
+//사용자(AccountUser) 와 같은 DB 에 있다. (sharding 에서는 directory)
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class AccountUserSummary {
+    @Id                                     //AccountUser 의 id 를 그대로 PK 로 사용한다.
+    private Long userId;
+
+    private Integer accountCount;           //만든 계좌 수 (해지 포함. 계좌 수 제한에 사용)
+    private Integer activeAccountCount;     //사용중인 계좌 수
+    private Long totalBalance;              //사용중인 계좌 잔액 합계
+    private LocalDateTime lastActivityAt;   //마지막 계좌 생성/해지/거래 일시
+
+    //insertEmpty 로 넣고 아직 계좌들로부터 세지 않은 요약은 값이 없다.
+    public boolean isBuilt(){
+        return null != accountCount;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.account.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+//계좌별 하루 거래 집계. 거래를 쓸때 같이 더한다. (DailyAccountAggregateService)
+//계좌와 같은 DB 에 있다. (sharding 에서는 계좌의 shard)
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"accountNumber", "aggregateDate"}),
+        indexes = @Index(columnList = "aggregateDate"))
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class DailyAccountAggregate {
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    private String accountNumber;
+    private LocalDate aggregateDate;        //거래 일자.
+
+    private Long debitAmount;               //성공한 사용 금액 합계
+    private Long cancelAmount;              //성공한 취소 금액 합계
+    private Long successCount;              //성공(S) 거래 수
+    private Long failureCount;              //실패(F) 거래 수
+}
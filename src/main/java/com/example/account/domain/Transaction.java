@@ -1,6 +1,7 @@
 package com.example.account.domain;
 
 import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
 import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
 import jakarta.persistence.*;
@@ -12,6 +13,8 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.time.LocalDateTime;
 
 @Entity
+//계좌별 기간 조회 (월별 거래 명세)
+@Table(indexes = @Index(columnList = "account_id,transactedAt"))
 @EntityListeners(AuditingEntityListener.class)
 @NoArgsConstructor
 @AllArgsConstructor
@@ -30,7 +33,8 @@ public class Transaction {
     private TransactionResultType transactionResultType;
 
     //n:1의 연결 {many account -> one user}
-    @ManyToOne
+    //LAZY : 거래를 읽을 때 계좌, 사용자까지 같이 읽지 않는다.
+    @ManyToOne(fetch = FetchType.LAZY)
     private Account account;
 
     private Long amount;                    //거리 금액
@@ -38,6 +42,9 @@ public class Transaction {
 
     private String transactionId;           //거래 아이디.
 
+    @Enumerated(EnumType.STRING)
+    private ErrorCode errorCode;            //실패 거래(F) 의 실패 사유.
+
     private LocalDateTime transactedAt;     //거래 일시.
 
     //생성일시 & 수정일시는 모든 테이블이 가지고 있으면 좋다.
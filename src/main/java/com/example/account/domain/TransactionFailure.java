@@ -0,0 +1,33 @@
+package com.example.account.domain;
+
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+//실패한 사용/취소 거래를 분 단위로 모은 건수.
+//계좌가 없는 경우에도 남길 수 있도록 계좌 FK 대신 계좌번호를 가진다.
+@Entity
+@Table(indexes = @Index(columnList = "accountNumber,bucketStartedAt"))
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class TransactionFailure {
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    private String accountNumber;
+
+    @Enumerated(EnumType.STRING)
+    private TransactionType transactionType;
+    @Enumerated(EnumType.STRING)
+    private ErrorCode errorCode;
+
+    private LocalDateTime bucketStartedAt;  //집계 구간(1분) 시작 일시.
+    private Long failureCount;              //구간 안의 실패 건수.
+}
@@ -0,0 +1,41 @@
+package com.example.account.domain;
+
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+//외부로 보낼 거래 이벤트. 거래(또는 실패 집계) 와 같은 트랜잭션에서 쓴다. (TransactionOutboxWriter)
+//TransactionOutboxRelay 가 id 순서로 읽어서 보내고 어디까지 보냈는지(high-water mark) 를 남긴다.
+//id 는 insert 할때 DB 가 1씩 늘려서 주므로 중간이 비어 있으면 아직 커밋되지 않은 거래가 있다는 뜻이다.
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class TransactionOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String transactionId;           //거래 아이디. (실패 집계는 없다)
+    private String accountNumber;
+
+    @Enumerated(EnumType.STRING)
+    private TransactionType transactionType;
+    @Enumerated(EnumType.STRING)
+    private TransactionResultType transactionResultType;
+    @Enumerated(EnumType.STRING)
+    private ErrorCode errorCode;
+
+    private Long amount;
+    private Long balanceSnapshot;
+    private Long eventCount;                //이 이벤트가 나타내는 거래 수. (실패 집계는 분 단위 건수)
+
+    private LocalDateTime occurredAt;       //거래 일시. (실패 집계는 분 bucket 시작 일시)
+    private LocalDateTime createdAt;        //outbox 에 쓴 일시.
+}
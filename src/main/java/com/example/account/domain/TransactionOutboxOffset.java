@@ -0,0 +1,26 @@
+package com.example.account.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+//relay 가 어느 outbox id 까지 보냈는지. (high-water mark)
+//outbox 와 같은 DB 에 있다. (sharding 에서는 shard 마다 하나)
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class TransactionOutboxOffset {
+    @Id
+    private String relayName;
+
+    private Long publishedId;               //이 id 까지 보냈다.
+    @Column(length = 4000)
+    private String pendingGaps;             //publishedId 앞에서 비어 있던 id 들. (id:비어 있던 것을 본 epoch millis, ...)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,14 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class AccountBalanceDto {
+    private String accountNumber;
+    private Long id;
+    private Long accountBalance;
+}
@@ -0,0 +1,13 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class AccountCountDto {
+    private String accountNumber;
+    private Long count;
+}
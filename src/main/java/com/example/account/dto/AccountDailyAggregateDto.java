@@ -0,0 +1,16 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+//하루 집계를 거래에서 다시 만들때 (DailyAccountAggregateService.backfill) 계좌별 성공 거래 합계.
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class AccountDailyAggregateDto {
+    private String accountNumber;
+    private Long debitAmount;
+    private Long cancelAmount;
+    private Long successCount;
+}
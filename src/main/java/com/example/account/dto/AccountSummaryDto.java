@@ -0,0 +1,29 @@
+package com.example.account.dto;
+
+import com.example.account.domain.AccountUserSummary;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class AccountSummaryDto {
+    private Long userId;
+    private Integer accountCount;
+    private Integer activeAccountCount;
+    private Long totalBalance;
+    private LocalDateTime lastActivityAt;
+
+    static public AccountSummaryDto fromEntity(final AccountUserSummary summary){
+        return AccountSummaryDto.builder()
+                .userId(summary.getUserId())
+                .accountCount(summary.getAccountCount())
+                .activeAccountCount(summary.getActiveAccountCount())
+                .totalBalance(summary.getTotalBalance())
+                .lastActivityAt(summary.getLastActivityAt())
+                .build();
+    }
+}
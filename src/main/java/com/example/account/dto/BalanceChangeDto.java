@@ -0,0 +1,43 @@
+package com.example.account.dto;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.type.TransactionType;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+//GET /account/{accountNumber}/events 로 보내는 잔액 변경.
+//구독을 시작할때 보내는 지금 잔액은 거래 정보(transactionType 등) 가 없다.
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class BalanceChangeDto {
+    private String accountNumber;
+    private Long balance;                   //변경 후 잔액 (거래의 balanceSnapshot)
+    private TransactionType transactionType;
+    private String transactionId;
+    private Long amount;
+    private LocalDateTime changedAt;        //거래 일시. (지금 잔액은 계좌의 마지막 수정 일시)
+
+    public static BalanceChangeDto fromEntity(final Transaction transaction){
+        return BalanceChangeDto.builder()
+                .accountNumber(transaction.getAccount().getAccountNumber())
+                .balance(transaction.getBalanceSnapshot())
+                .transactionType(transaction.getTransactionType())
+                .transactionId(transaction.getTransactionId())
+                .amount(transaction.getAmount())
+                .changedAt(transaction.getTransactedAt())
+                .build();
+    }
+
+    public static BalanceChangeDto fromAccount(final Account account){
+        return BalanceChangeDto.builder()
+                .accountNumber(account.getAccountNumber())
+                .balance(account.getAccountBalance())
+                .changedAt(null != account.getUpdatedAt() ? account.getUpdatedAt() : account.getRegisteredAt())
+                .build();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.account.dto;
+
+import com.example.account.type.ErrorCode;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+public class BulkCreateAccountDto {
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Getter
+    @Setter
+    public static class Request{
+        //항목마다 POST /account 와 같은 검증을 한다.
+        @NotEmpty
+        @Size(max = 100_000)
+        @Valid
+        private List<CreateAccountDto.Request> accounts;
+    }
+
+    //항목 하나의 결과. index 는 요청 accounts 의 위치.
+    //성공하면 accountNumber, 실패하면 errorCode 가 있다.
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Getter
+    @Setter
+    @Builder
+    public static class Result{
+        private Integer index;
+        private Long userId;
+        private String accountNumber;
+        private ErrorCode errorCode;
+
+        static public Result success(int index, Long userId, String accountNumber){
+            return Result.builder()
+                    .index(index)
+                    .userId(userId)
+                    .accountNumber(accountNumber)
+                    .build();
+        }
+
+        static public Result failed(int index, Long userId, ErrorCode errorCode){
+            return Result.builder()
+                    .index(index)
+                    .userId(userId)
+                    .errorCode(errorCode)
+                    .build();
+        }
+    }
+}
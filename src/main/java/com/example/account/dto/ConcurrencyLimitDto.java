@@ -0,0 +1,20 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+public class ConcurrencyLimitDto {
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Getter
+    @Setter
+    @Builder
+    public static class Response{
+        private boolean enabled;
+        private int limit;                  //지금 동시 처리 한도
+        private int inFlight;               //처리 중인 요청 수
+        private long accepted;
+        private long rejected;              //한도를 넘어 TOO_MANY_REQUESTS 로 거절한 요청 수
+        private double shortRttMillis;      //마지막 window 의 평균 지연 시간
+        private double longRttMillis;       //긴 기간의 평균 지연 시간
+    }
+}
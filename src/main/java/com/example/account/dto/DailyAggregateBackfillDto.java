@@ -0,0 +1,18 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+
+public class DailyAggregateBackfillDto {
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Getter
+    @Setter
+    @Builder
+    public static class Response{
+        private LocalDate from;
+        private LocalDate to;
+        private Long rows;                  //다시 만든 (계좌, 날짜) 집계 수
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.account.dto;
+
+import com.example.account.domain.DailyAccountAggregate;
+import lombok.*;
+
+import java.time.LocalDate;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class DailyAggregateDto {
+    private LocalDate aggregateDate;
+    private Long debitAmount;
+    private Long cancelAmount;
+    private Long successCount;
+    private Long failureCount;
+
+    static public DailyAggregateDto fromEntity(final DailyAccountAggregate aggregate){
+        return DailyAggregateDto.builder()
+                .aggregateDate(aggregate.getAggregateDate())
+                .debitAmount(aggregate.getDebitAmount())
+                .cancelAmount(aggregate.getCancelAmount())
+                .successCount(aggregate.getSuccessCount())
+                .failureCount(aggregate.getFailureCount())
+                .build();
+    }
+
+    //같은 날짜의 다른 shard 집계를 더한다.
+    static public DailyAggregateDto sum(DailyAggregateDto a, DailyAggregateDto b){
+        return DailyAggregateDto.builder()
+                .aggregateDate(a.getAggregateDate())
+                .debitAmount(a.getDebitAmount() + b.getDebitAmount())
+                .cancelAmount(a.getCancelAmount() + b.getCancelAmount())
+                .successCount(a.getSuccessCount() + b.getSuccessCount())
+                .failureCount(a.getFailureCount() + b.getFailureCount())
+                .build();
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+public class GetAccountSummaryDto {
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Getter
+    @Setter
+    @Builder
+    static public class Response{
+        private Long userId;
+        private Integer accountCount;
+        private Long totalBalance;
+        private LocalDateTime lastActivityAt;
+
+        static public Response from(final AccountSummaryDto summaryDto){
+            return Response.builder()
+                    .userId(summaryDto.getUserId())
+                    .accountCount(summaryDto.getActiveAccountCount())
+                    .totalBalance(summaryDto.getTotalBalance())
+                    .lastActivityAt(summaryDto.getLastActivityAt())
+                    .build();
+        }
+    }
+}
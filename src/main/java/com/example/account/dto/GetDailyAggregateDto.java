@@ -0,0 +1,38 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class GetDailyAggregateDto {
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Getter
+    @Setter
+    @Builder
+    static public class Response{
+        private String accountNumber;       //없으면 모든 계좌
+        private LocalDate from;
+        private LocalDate to;
+        private Long debitAmount;
+        private Long cancelAmount;
+        private Long successCount;
+        private Long failureCount;
+        private List<DailyAggregateDto> days;   //거래가 있는 날만 날짜 순
+
+        static public Response from(String accountNumber, LocalDate from, LocalDate to,
+                                    List<DailyAggregateDto> days){
+            return Response.builder()
+                    .accountNumber(accountNumber)
+                    .from(from)
+                    .to(to)
+                    .debitAmount(days.stream().mapToLong(DailyAggregateDto::getDebitAmount).sum())
+                    .cancelAmount(days.stream().mapToLong(DailyAggregateDto::getCancelAmount).sum())
+                    .successCount(days.stream().mapToLong(DailyAggregateDto::getSuccessCount).sum())
+                    .failureCount(days.stream().mapToLong(DailyAggregateDto::getFailureCount).sum())
+                    .days(days)
+                    .build();
+        }
+    }
+}
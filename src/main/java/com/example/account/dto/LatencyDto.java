@@ -0,0 +1,45 @@
+package com.example.account.dto;
+
+import com.example.account.type.LatencyPhase;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class LatencyDto {
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Getter
+    @Setter
+    @Builder
+    public static class Phase{
+        private LatencyPhase phase;
+        private long count;
+        private double meanMillis;
+        private double p50Millis;
+        private double p99Millis;
+        private double p999Millis;
+        private double maxMillis;
+    }
+
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Getter
+    @Setter
+    @Builder
+    public static class Endpoint{
+        private String endpoint;                //ex) POST /transaction/use
+        private List<Phase> phases;
+    }
+
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Getter
+    @Setter
+    @Builder
+    public static class Response{
+        private boolean enabled;
+        private LocalDateTime windowStartedAt;  //마지막 reset 시각
+        private List<Endpoint> endpoints;
+    }
+}
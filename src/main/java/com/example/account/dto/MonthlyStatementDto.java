@@ -0,0 +1,21 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+public class MonthlyStatementDto {
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Getter
+    @Setter
+    @Builder
+    public static class Response{
+        private String month;               //yyyy-MM
+        private String directory;           //명세 파일, manifest 가 있는 디렉토리
+        private String state;               //RUNNING, DONE, FAILED
+        private Long blocks;                //계좌번호 구간 수
+        private Long written;               //이번에 만든 구간 파일 수
+        private Long skipped;               //manifest 에 있어서 건너뛴 구간 수
+        private Long accounts;              //이번에 만든 계좌 명세 수
+        private String error;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+public class OutboxStatusDto {
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Getter
+    @Setter
+    @Builder
+    public static class Response{
+        private Boolean enabled;            //outbox 에 쓰는지
+        private Boolean relayEnabled;       //이 서버에서 relay 가 도는지
+        private String sink;
+        private Long published;             //기동 후 보낸 이벤트 수
+        private Long failures;              //기동 후 relay 실패 수
+        private String lastError;
+        private List<Shard> shards;
+    }
+
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Getter
+    @Setter
+    @Builder
+    public static class Shard{
+        private String shard;               //sharding 이 꺼져 있으면 null
+        private Long publishedId;           //high-water mark
+        private Long latestId;              //마지막으로 쓴 outbox id
+        private Long pending;               //아직 보내지 않은 이벤트 수 (대략)
+        private Integer gaps;               //건너뛰었지만 아직 다시 보고 있는 비어 있던 id 수
+    }
+}
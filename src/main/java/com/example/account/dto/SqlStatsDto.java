@@ -0,0 +1,50 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class SqlStatsDto {
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Getter
+    @Setter
+    @Builder
+    public static class Stats{
+        private String name;                    //endpoint 또는 service method
+        private long calls;                     //요청 수 또는 메서드 호출 수
+        private long statements;
+        private double statementsPerCall;
+        private long rows;                      //select 로 읽어온 row 수
+        private double totalMillis;
+        private double avgMillis;
+        private double maxMillis;
+    }
+
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Getter
+    @Setter
+    @Builder
+    public static class SlowStatement{
+        private String sql;
+        private String bindShape;               //바인딩 파라미터 타입 ex) (Long, String)
+        private double elapsedMillis;
+        private String endpoint;
+        private String serviceMethod;
+        private LocalDateTime executedAt;
+    }
+
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Getter
+    @Setter
+    @Builder
+    public static class Response{
+        private boolean enabled;
+        private List<Stats> endpoints;
+        private List<Stats> serviceMethods;
+        private List<SlowStatement> slowStatements;
+    }
+}
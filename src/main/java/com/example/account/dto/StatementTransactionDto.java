@@ -0,0 +1,24 @@
+package com.example.account.dto;
+
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+//월별 거래 명세(MonthlyStatementJob) 집계용. 필요한 컬럼만 읽는다.
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class StatementTransactionDto {
+    private String accountNumber;
+    private TransactionType transactionType;
+    private TransactionResultType transactionResultType;
+    private Long amount;
+    private Long balanceSnapshot;
+    private ErrorCode errorCode;
+    private LocalDateTime transactedAt;
+}
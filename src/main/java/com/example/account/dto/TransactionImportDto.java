@@ -0,0 +1,22 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+public class TransactionImportDto {
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Getter
+    @Setter
+    @Builder
+    public static class Response{
+        private String file;
+        private String state;               //RUNNING, DONE, FAILED
+        private Long linesRead;             //header 를 뺀 읽은 줄 수
+        private Long imported;              //이번에 저장한 거래 수
+        private Long duplicates;            //이미 들어가 있어서 건너뛴 거래 수
+        private Long unknownAccounts;       //계좌번호가 없어서 건너뛴 줄 수
+        private Long malformed;             //형식이 맞지 않아 건너뛴 줄 수
+        private Long checkpoint;            //여기까지는 모두 저장됨 (다시 시작하면 이 다음 줄부터 저장)
+        private String error;
+    }
+}
@@ -3,17 +3,37 @@ package com.example.account.exception;
 import com.example.account.type.ErrorCode;
 import lombok.*;
 
-@AllArgsConstructor
-@NoArgsConstructor
+import java.util.EnumMap;
+import java.util.Map;
+
+//서비스 정책에 걸려서 요청을 거절할때 던지는 예외.
+//거절은 정상적인 흐름이라 stack trace 가 필요 없으므로 만들지 않는다. (suppressed 도 쌓지 않는다)
+//값이 바뀌지 않으므로 ErrorCode 마다 하나씩 만들어 둔 예외를 of() 로 같이 쓴다.
 @Getter
-@Setter
-@Builder
 public class AccountException extends RuntimeException{
-    private ErrorCode errorCode;
-    private String errorMessage;
+    private static final Map<ErrorCode, AccountException> SHARED = new EnumMap<>(ErrorCode.class);
+
+    static {
+        for (ErrorCode errorCode : ErrorCode.values()) {
+            SHARED.put(errorCode, new AccountException(errorCode));
+        }
+    }
+
+    private final ErrorCode errorCode;
+    private final String errorMessage;
 
     public AccountException(ErrorCode errorCode){
+        this(errorCode, errorCode.getDescription());
+    }
+
+    @Builder
+    public AccountException(ErrorCode errorCode, String errorMessage){
+        super(errorMessage, null, false, false);
         this.errorCode = errorCode;
-        this.errorMessage = errorCode.getDescription();
+        this.errorMessage = errorMessage;
+    }
+
+    public static AccountException of(ErrorCode errorCode){
+        return SHARED.get(errorCode);
     }
 }
@@ -1,15 +1,24 @@
 package com.example.account.exception;
 
 import com.example.account.dto.ErrorResponse;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.time.Duration;
+
 import static com.example.account.type.ErrorCode.INTERNAL_SERVER_ERROR;
 
 @Slf4j
 @RestControllerAdvice
 public class GlobalExceptionHandler {
+    private final RejectionLog rejectionLog;
+
+    public GlobalExceptionHandler(@Value("${account.rejection-log.interval:10s}") Duration rejectionLogInterval) {
+        this.rejectionLog = new RejectionLog(rejectionLogInterval);
+    }
 
     @ExceptionHandler(Exception.class)
     public ErrorResponse handleAccount(Exception e){
@@ -18,9 +27,15 @@ public class GlobalExceptionHandler {
                 INTERNAL_SERVER_ERROR.getDescription());
     }
 
+    //거절은 건마다 로그를 남기지 않고 ErrorCode 별로 세어서 주기적으로 남긴다.
     @ExceptionHandler(AccountException.class)
     public ErrorResponse handleAccountException(AccountException e){
-        log.error("{} is occurred", e.getErrorCode());
+        rejectionLog.record(e.getErrorCode());
         return new ErrorResponse(e.getErrorCode(), e.getErrorMessage());
     }
+
+    @PreDestroy
+    public void flushRejectionLog(){
+        rejectionLog.flush();
+    }
 }
@@ -0,0 +1,58 @@
+package com.example.account.exception;
+
+import com.example.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+//거절(AccountException) 을 ErrorCode 별로 세어 두었다가 interval 마다 한줄로 남긴다.
+//같은 거절이 몰려 들어와도 건마다 로그를 쓰지 않는다.
+@Slf4j
+class RejectionLog {
+    private final long intervalNanos;
+    private final Map<ErrorCode, LongAdder> counts = new EnumMap<>(ErrorCode.class);
+    private final AtomicLong nextFlushAt;
+
+    RejectionLog(Duration interval) {
+        this.intervalNanos = interval.toNanos();
+        for (ErrorCode errorCode : ErrorCode.values()) {
+            counts.put(errorCode, new LongAdder());
+        }
+        this.nextFlushAt = new AtomicLong(System.nanoTime() + intervalNanos);
+    }
+
+    void record(ErrorCode errorCode) {
+        counts.get(errorCode).increment();
+
+        //interval 이 지났다면 먼저 차례를 잡은 스레드 하나만 로그를 쓴다.
+        long now = System.nanoTime();
+        long flushAt = nextFlushAt.get();
+        if(now - flushAt >= 0 && nextFlushAt.compareAndSet(flushAt, now + intervalNanos)){
+            flush();
+        }
+    }
+
+    void flush() {
+        String summary = drain();
+        if(null != summary){
+            log.warn("rejected requests in the last {}s : {}", intervalNanos / 1_000_000_000, summary);
+        }
+    }
+
+    //지금까지 센 값을 "CODE=count, ..." 로 돌려주고 0 으로 되돌린다. (없으면 null)
+    String drain() {
+        StringJoiner summary = new StringJoiner(", ");
+        counts.forEach((errorCode, count) -> {
+            long value = count.sumThenReset();
+            if(0 < value){
+                summary.add(errorCode + "=" + value);
+            }
+        });
+        return 0 == summary.length() ? null : summary.toString();
+    }
+}
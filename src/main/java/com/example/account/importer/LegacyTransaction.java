@@ -0,0 +1,68 @@
+package com.example.account.importer;
+
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//이관할 거래 이력 CSV 의 한 줄.
+//첫 줄은 header 이고 열 순서는 header 로 정한다. (값에는 , 와 " 가 없다)
+//transaction_id,account_number,transaction_type,transaction_result_type,amount,transacted_at
+//USE,S,1000,2023-01-01T10:00:00 처럼 enum 이름과 ISO 일시를 쓴다.
+record LegacyTransaction(String transactionId,
+                         String accountNumber,
+                         TransactionType transactionType,
+                         TransactionResultType transactionResultType,
+                         long amount,
+                         LocalDateTime transactedAt) {
+    private static final List<String> COLUMNS = List.of("transaction_id", "account_number",
+            "transaction_type", "transaction_result_type", "amount", "transacted_at");
+
+    //거래가 잔액에 더하는 값. 성공한 사용만 뺀다. (거래 취소는 잔액을 바꾸지 않는다 - TransactionService.cancelTransaction)
+    long balanceDelta(){
+        if(TransactionResultType.S == transactionResultType && TransactionType.USE == transactionType){
+            return -amount;
+        }
+        return 0L;
+    }
+
+    //header 의 열 위치. COLUMNS 순서로 돌려준다.
+    static int[] columnIndexes(String header){
+        String[] names = header.trim().split(",");
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            indexes.put(names[i].trim().toLowerCase(), i);
+        }
+        int[] columnIndexes = new int[COLUMNS.size()];
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            Integer index = indexes.get(COLUMNS.get(i));
+            if(null == index){
+                throw new IllegalArgumentException("missing column : " + COLUMNS.get(i));
+            }
+            columnIndexes[i] = index;
+        }
+        return columnIndexes;
+    }
+
+    //형식이 맞지 않으면 IllegalArgumentException 또는 DateTimeException.
+    static LegacyTransaction parse(String line, int[] columnIndexes){
+        String[] values = line.split(",", -1);
+        return new LegacyTransaction(
+                value(values, columnIndexes[0]),
+                value(values, columnIndexes[1]),
+                TransactionType.valueOf(value(values, columnIndexes[2])),
+                TransactionResultType.valueOf(value(values, columnIndexes[3])),
+                Long.parseLong(value(values, columnIndexes[4])),
+                LocalDateTime.parse(value(values, columnIndexes[5])));
+    }
+
+    private static String value(String[] values, int index){
+        if(index >= values.length || values[index].isBlank()){
+            throw new IllegalArgumentException("missing value at column " + index);
+        }
+        return values[index].trim();
+    }
+}
@@ -0,0 +1,434 @@
+package com.example.account.importer;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.AccountBalanceDto;
+import com.example.account.dto.TransactionImportDto;
+import com.example.account.exception.AccountException;
+import com.example.account.job.BackgroundJob;
+import com.example.account.partition.TransactionPartitionRouting;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.service.DailyAccountAggregateService;
+import com.example.account.shard.ShardRouting;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionType;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+//예전 시스템의 거래 이력 CSV 이관. (형식은 LegacyTransaction)
+//1. 계좌번호 -> 계좌 id, 현재 잔액 map 을 모든 shard 에서 한번 만든다.
+//2. 파일을 한 줄씩 두번 읽는다. (파일 전체를 메모리에 올리지 않는다)
+//   첫번째는 계좌별 잔액 변화 합계로 이력 시작 시점의 잔액을 구하고,
+//   두번째는 그 잔액에서 차례로 더해가며 거래마다 balanceSnapshot 을 정한다. (파일은 계좌별로 시간 순이어야 한다)
+//3. segment-size 줄 마다 계좌번호 hash 로 partitions 개로 나눠 동시에 JDBC batch 로 넣고,
+//   segment 가 모두 커밋되면 <파일>.checkpoint 에 몇번째 줄까지 넣었는지 남긴다.
+//4. 다 넣으면 이력 기간의 계좌별 하루 집계를 다시 만든다. (DailyAccountAggregateService.backfill)
+//5. 다시 시작하면 checkpoint 까지는 잔액 계산만 하고 그 다음 줄부터 넣는다.
+//   checkpoint 다음 segment 는 일부만 커밋되었을 수 있으므로 이미 있는 거래 (아이디, 종류, 일시) 는 건너뛴다.
+@Slf4j
+@Component
+public class TransactionHistoryImporter {
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final ShardRouting shardRouting;
+    private final TransactionPartitionRouting transactionPartitionRouting;
+    private final DailyAccountAggregateService dailyAccountAggregateService;
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${account.transaction-import.input-dir:imports}")
+    private Path inputDir = Path.of("imports");
+
+    @Value("${account.transaction-import.partitions:4}")
+    private int partitions = 4;
+
+    @Value("${account.transaction-import.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${account.transaction-import.segment-size:50000}")
+    private int segmentSize = 50_000;
+
+    private final BackgroundJob<Progress> job = new BackgroundJob<>("transaction-import-job");
+
+    public TransactionHistoryImporter(AccountRepository accountRepository,
+                                      TransactionRepository transactionRepository,
+                                      ShardRouting shardRouting,
+                                      TransactionPartitionRouting transactionPartitionRouting,
+                                      DailyAccountAggregateService dailyAccountAggregateService,
+                                      ObjectProvider<PlatformTransactionManager> transactionManager) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.shardRouting = shardRouting;
+        this.transactionPartitionRouting = transactionPartitionRouting;
+        this.dailyAccountAggregateService = dailyAccountAggregateService;
+        this.transactionManager = transactionManager;
+    }
+
+    //요청으로 받은 파일 이름을 이관 디렉토리 안의 경로로 바꾼다. (../ 나 절대 경로로 밖을 가리키면 거절)
+    public Path resolveInputFile(String file){
+        Path directory = inputDir.toAbsolutePath().normalize();
+        Path resolved = directory.resolve(file).normalize();
+        if(!resolved.startsWith(directory) || resolved.equals(directory)){
+            throw AccountException.of(ErrorCode.INVALID_IMPORT_FILE);
+        }
+        return resolved;
+    }
+
+    //백그라운드에서 시작한다. 이미 이관 중이면 지금 진행 상황만 돌려준다.
+    public TransactionImportDto.Response start(Path file){
+        return job.start(new Progress(file), this::run).toResponse();
+    }
+
+    public TransactionImportDto.Response status(){
+        Progress progress = job.current();
+        return null == progress ? null : progress.toResponse();
+    }
+
+    //끝날때까지 기다린다.
+    public TransactionImportDto.Response importFile(Path file){
+        return job.run(new Progress(file), this::run).toResponse();
+    }
+
+    @PreDestroy
+    public void stop(){
+        job.shutdown();
+    }
+
+    private void run(Progress progress){
+        long startedAt = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(partitions, runnable -> {
+            Thread thread = new Thread(runnable, "transaction-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try{
+            Map<String, ImportAccount> accounts = loadAccounts();
+            computeOpeningBalances(progress, accounts);
+            importLines(progress, accounts, executor);
+            if(null != progress.firstDate){
+                dailyAccountAggregateService.backfill(progress.firstDate, progress.lastDate);
+            }
+            progress.done();
+            log.info("transaction import done. file : {}, imported : {}, took : {}s", progress.file,
+                    progress.imported.get(), (System.nanoTime() - startedAt) / 1_000_000_000);
+        }catch(Exception e){
+            progress.fail(e);
+            log.error("transaction import failed. file : {}, checkpoint : {}", progress.file, progress.checkpoint, e);
+        }finally {
+            executor.shutdownNow();
+        }
+    }
+
+    //stream 은 커넥션이 열려 있는 동안만 읽을 수 있으므로 읽기 전용 트랜잭션 안에서 읽는다.
+    private Map<String, ImportAccount> loadAccounts(){
+        Map<String, ImportAccount> accounts = new HashMap<>();
+        shardRouting.onEachShard(() -> {
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager.getObject());
+            transactionTemplate.setReadOnly(true);
+            return transactionTemplate.execute(status -> {
+                try (Stream<AccountBalanceDto> balances = accountRepository.streamAllAccountBalances()) {
+                    balances.forEach(balance -> accounts.put(balance.getAccountNumber(),
+                            new ImportAccount(balance.getId(), balance.getAccountBalance())));
+                }
+                return accounts.size();
+            });
+        });
+        return accounts;
+    }
+
+    //현재 잔액에서 이력의 잔액 변화를 모두 빼면 이력 시작 시점의 잔액이다. (하루 집계를 다시 만들 기간도 같이 구한다)
+    private void computeOpeningBalances(Progress progress, Map<String, ImportAccount> accounts) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(progress.file, StandardCharsets.UTF_8)) {
+            int[] columnIndexes = LegacyTransaction.columnIndexes(reader.readLine());
+            String line;
+            while (null != (line = reader.readLine())) {
+                LegacyTransaction transaction = parseOrNull(line, columnIndexes);
+                ImportAccount account = null == transaction ? null : accounts.get(transaction.accountNumber());
+                if(null != account){
+                    account.balance -= transaction.balanceDelta();
+                    progress.addDate(transaction.transactedAt().toLocalDate());
+                }
+            }
+        }
+    }
+
+    private void importLines(Progress progress, Map<String, ImportAccount> accounts,
+                             ExecutorService executor) throws IOException {
+        long checkpoint = readCheckpoint(progress.file);
+        progress.checkpoint = checkpoint;
+        boolean mayHaveDuplicates = true;
+
+        try (BufferedReader reader = Files.newBufferedReader(progress.file, StandardCharsets.UTF_8)) {
+            int[] columnIndexes = LegacyTransaction.columnIndexes(reader.readLine());
+            List<List<PendingTransaction>> segment = newSegment();
+            int segmentRows = 0;
+            long lineNumber = 0;
+            String line;
+            while (null != (line = reader.readLine())) {
+                lineNumber++;
+                progress.linesRead.set(lineNumber);
+
+                LegacyTransaction transaction = parseOrNull(line, columnIndexes);
+                ImportAccount account = null == transaction ? null : accounts.get(transaction.accountNumber());
+                if(null != account){
+                    //checkpoint 전의 줄도 다음 줄의 잔액을 위해 더한다.
+                    account.balance += transaction.balanceDelta();
+                }
+                if(lineNumber <= checkpoint){
+                    continue;
+                }
+                if(null == transaction){
+                    progress.malformed.incrementAndGet();
+                }else if(null == account){
+                    progress.unknownAccounts.incrementAndGet();
+                }else{
+                    segment.get(Math.floorMod(transaction.accountNumber().hashCode(), partitions))
+                            .add(new PendingTransaction(transaction, account.id, account.balance));
+                    segmentRows++;
+                }
+
+                if(segmentRows >= segmentSize){
+                    insertSegment(segment, mayHaveDuplicates, progress, executor);
+                    mayHaveDuplicates = false;
+                    segment = newSegment();
+                    segmentRows = 0;
+                    writeCheckpoint(progress, lineNumber);
+                }
+            }
+            insertSegment(segment, mayHaveDuplicates, progress, executor);
+            writeCheckpoint(progress, lineNumber);
+        }
+    }
+
+    private List<List<PendingTransaction>> newSegment(){
+        List<List<PendingTransaction>> segment = new ArrayList<>();
+        for (int i = 0; i < partitions; i++) {
+            segment.add(new ArrayList<>());
+        }
+        return segment;
+    }
+
+    //partition 마다 한 스레드. 하나라도 실패하면 checkpoint 를 남기지 않고 멈춘다.
+    private void insertSegment(List<List<PendingTransaction>> segment, boolean mayHaveDuplicates,
+                               Progress progress, ExecutorService executor){
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (List<PendingTransaction> partition : segment) {
+            if(!partition.isEmpty()){
+                tasks.add(() -> insertPartition(partition, mayHaveDuplicates, progress));
+            }
+        }
+        try{
+            for (Future<Integer> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("transaction import interrupted", e);
+        }catch(ExecutionException e){
+            throw new IllegalStateException("transaction import partition failed", e.getCause());
+        }
+    }
+
+    //shard 마다 한 트랜잭션으로 넣는다.
+    private Integer insertPartition(List<PendingTransaction> partition, boolean mayHaveDuplicates,
+                                    Progress progress){
+        Map<String, List<PendingTransaction>> byShard = new HashMap<>();
+        for (PendingTransaction pending : partition) {
+            byShard.computeIfAbsent(shardRouting.shardOf(pending.transaction().accountNumber()),
+                    shard -> new ArrayList<>()).add(pending);
+        }
+
+        int inserted = 0;
+        for (List<PendingTransaction> rows : byShard.values()) {
+            inserted += shardRouting.onShard(rows.get(0).transaction().accountNumber(),
+                    () -> new TransactionTemplate(transactionManager.getObject()).execute(
+                            status -> insert(rows, mayHaveDuplicates, progress)));
+        }
+        return inserted;
+    }
+
+    //거래 월 테이블(TransactionPartitionRouting) 마다 나눠 넣는다.
+    private Integer insert(List<PendingTransaction> rows, boolean mayHaveDuplicates, Progress progress){
+        Map<YearMonth, List<PendingTransaction>> byMonth = new TreeMap<>();
+        for (PendingTransaction row : rows) {
+            byMonth.computeIfAbsent(YearMonth.from(row.transaction().transactedAt()),
+                    month -> new ArrayList<>()).add(row);
+        }
+
+        int inserted = 0;
+        for (Map.Entry<YearMonth, List<PendingTransaction>> month : byMonth.entrySet()) {
+            inserted += transactionPartitionRouting.onMonth(month.getKey(),
+                    () -> insertMonth(month.getValue(), mayHaveDuplicates, progress));
+        }
+        return inserted;
+    }
+
+    private Integer insertMonth(List<PendingTransaction> rows, boolean mayHaveDuplicates, Progress progress){
+        Set<ImportKey> existing = mayHaveDuplicates ? findExisting(rows) : Set.of();
+
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+        int inserted = 0;
+        for (PendingTransaction row : rows) {
+            LegacyTransaction transaction = row.transaction();
+            if(existing.contains(new ImportKey(transaction.transactionId(), transaction.transactionType(),
+                    transaction.transactedAt()))){
+                progress.duplicates.incrementAndGet();
+                continue;
+            }
+            entityManager.persist(Transaction.builder()
+                    .transactionType(transaction.transactionType())
+                    .transactionResultType(transaction.transactionResultType())
+                    .account(entityManager.getReference(Account.class, row.accountId()))
+                    .amount(transaction.amount())
+                    .balanceSnapshot(row.balanceSnapshot())
+                    .transactionId(transaction.transactionId())
+                    .transactedAt(transaction.transactedAt())
+                    .build());
+            if(0 == ++inserted % batchSize){
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        progress.imported.addAndGet(inserted);
+        return inserted;
+    }
+
+    private Set<ImportKey> findExisting(List<PendingTransaction> rows){
+        Set<ImportKey> existing = new HashSet<>();
+        for (int from = 0; from < rows.size(); from += 1000) {
+            transactionRepository.findExistingTransactions(
+                    rows.subList(from, Math.min(from + 1000, rows.size())).stream()
+                            .map(row -> row.transaction().transactionId())
+                            .distinct()
+                            .toList())
+                    .forEach(transaction -> existing.add(new ImportKey(transaction.getTransactionId(),
+                            transaction.getTransactionType(), transaction.getTransactedAt())));
+        }
+        return existing;
+    }
+
+    private static LegacyTransaction parseOrNull(String line, int[] columnIndexes){
+        try{
+            return LegacyTransaction.parse(line, columnIndexes);
+        }catch(IllegalArgumentException | DateTimeException e){
+            return null;
+        }
+    }
+
+    private static Path checkpointFile(Path file){
+        return file.resolveSibling(file.getFileName() + ".checkpoint");
+    }
+
+    private static long readCheckpoint(Path file) throws IOException {
+        Path checkpointFile = checkpointFile(file);
+        return Files.exists(checkpointFile) ? Long.parseLong(Files.readString(checkpointFile).trim()) : 0L;
+    }
+
+    //임시 파일에 쓰고 바꿔서 반쯤 쓰인 checkpoint 가 남지 않게 한다.
+    private static void writeCheckpoint(Progress progress, long lineNumber){
+        try{
+            Path checkpointFile = checkpointFile(progress.file);
+            Path temp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+            Files.writeString(temp, String.valueOf(lineNumber));
+            Files.move(temp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            progress.checkpoint = lineNumber;
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static class ImportAccount {
+        private final long id;
+        private long balance;
+
+        private ImportAccount(long id, long balance) {
+            this.id = id;
+            this.balance = balance;
+        }
+    }
+
+    private record PendingTransaction(LegacyTransaction transaction, long accountId, long balanceSnapshot) {
+    }
+
+    //이미 들어간 거래인지 보는 키. (취소 거래는 원래 거래 아이디를 같이 쓴다)
+    private record ImportKey(String transactionId, TransactionType transactionType, LocalDateTime transactedAt) {
+    }
+
+    private static class Progress extends BackgroundJob.Progress {
+        private final Path file;
+        private volatile long checkpoint;
+        private LocalDate firstDate;
+        private LocalDate lastDate;
+        private final AtomicLong linesRead = new AtomicLong();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong duplicates = new AtomicLong();
+        private final AtomicLong unknownAccounts = new AtomicLong();
+        private final AtomicLong malformed = new AtomicLong();
+
+        private Progress(Path file) {
+            this.file = file;
+        }
+
+        private void addDate(LocalDate date){
+            if(null == firstDate || date.isBefore(firstDate)){
+                firstDate = date;
+            }
+            if(null == lastDate || date.isAfter(lastDate)){
+                lastDate = date;
+            }
+        }
+
+        private TransactionImportDto.Response toResponse(){
+            return TransactionImportDto.Response.builder()
+                    .file(file.toString())
+                    .state(getState())
+                    .linesRead(linesRead.get())
+                    .imported(imported.get())
+                    .duplicates(duplicates.get())
+                    .unknownAccounts(unknownAccounts.get())
+                    .malformed(malformed.get())
+                    .checkpoint(checkpoint)
+                    .error(getError())
+                    .build();
+        }
+    }
+}
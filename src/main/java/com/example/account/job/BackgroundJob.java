@@ -0,0 +1,78 @@
+package com.example.account.job;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+//운영 내부용 백그라운드 작업 (거래 이력 이관, 월별 거래 명세). 한번에 하나만 돌고 마지막 실행의 진행 상황을 남긴다.
+//작업마다 전용 스레드 하나에서 돌린다. (오래 걸리는 DB 작업이 common pool 을 잡지 않게 한다)
+public class BackgroundJob<P extends BackgroundJob.Progress> {
+    private final AtomicReference<P> current = new AtomicReference<>();
+    private final ExecutorService executor;
+
+    public BackgroundJob(String name) {
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    //백그라운드에서 시작한다. 이미 실행 중이면 실행 중인 진행 상황을 돌려준다.
+    public P start(P progress, Consumer<P> action){
+        P running = current.get();
+        if((null != running && running.isRunning()) || !current.compareAndSet(running, progress)){
+            return current.get();
+        }
+        try{
+            executor.execute(() -> action.accept(progress));
+        }catch(RejectedExecutionException e){
+            progress.fail(e);
+        }
+        return progress;
+    }
+
+    //끝날때까지 기다린다.
+    public P run(P progress, Consumer<P> action){
+        current.set(progress);
+        action.accept(progress);
+        return progress;
+    }
+
+    //한번도 실행하지 않았으면 null.
+    public P current(){
+        return current.get();
+    }
+
+    public void shutdown(){
+        executor.shutdownNow();
+    }
+
+    public abstract static class Progress {
+        private volatile String state = "RUNNING";
+        private volatile String error;
+
+        public boolean isRunning(){
+            return "RUNNING".equals(state);
+        }
+
+        public void done(){
+            state = "DONE";
+        }
+
+        public void fail(Exception e){
+            error = e.toString();
+            state = "FAILED";
+        }
+
+        public String getState(){
+            return state;
+        }
+
+        public String getError(){
+            return error;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.account.limit;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+//LockAopAspect 보다 먼저 동작해서 거절된 요청은 검증, lock, 실패 거래 저장 없이 끝나고
+//받은 요청의 지연 시간에는 lock 대기가 들어간다.
+//TCP 요청도 같은 controller 메서드를 부르므로 같은 한도를 쓴다.
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+@RequiredArgsConstructor
+public class ConcurrencyLimitAspect {
+    private final ConcurrencyLimiter concurrencyLimiter;
+
+    @Around("@annotation(com.example.account.aop.ConcurrencyLimited)")
+    public Object aroundMethod(ProceedingJoinPoint pjp) throws Throwable {
+        ConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire();
+        try{
+            return pjp.proceed();
+        }finally {
+            concurrencyLimiter.release(permit);
+        }
+    }
+}
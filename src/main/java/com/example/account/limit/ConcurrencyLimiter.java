@@ -0,0 +1,100 @@
+package com.example.account.limit;
+
+import com.example.account.dto.ConcurrencyLimitDto;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+//쓰기 요청(@ConcurrencyLimited) 의 동시 처리 수를 GradientLimit 의 한도로 제한한다.
+//DB, redis 가 느려지면 지연 시간이 늘어 한도가 줄고, 한도를 넘는 요청은 기다리지 않고 바로 TOO_MANY_REQUESTS 로 거절한다.
+//(tomcat 스레드, 커넥션, lock 을 잡고 쌓이지 않게 해서 받은 요청은 제 시간에 끝낸다)
+@Component
+public class ConcurrencyLimiter {
+    private static final Permit DISABLED = new Permit(0L, 0);
+
+    @Value("${account.concurrency-limit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${account.concurrency-limit.initial-limit:50}")
+    private int initialLimit = 50;
+
+    @Value("${account.concurrency-limit.min-limit:5}")
+    private int minLimit = 5;
+
+    @Value("${account.concurrency-limit.max-limit:500}")
+    private int maxLimit = 500;
+
+    //평균 지연 시간이 긴 기간 평균의 이 배수를 넘으면 한도를 줄인다.
+    @Value("${account.concurrency-limit.tolerance:1.5}")
+    private double tolerance = 1.5;
+
+    @Value("${account.concurrency-limit.smoothing:0.2}")
+    private double smoothing = 0.2;
+
+    @Value("${account.concurrency-limit.window:100ms}")
+    private Duration window = Duration.ofMillis(100);
+
+    @Value("${account.concurrency-limit.window-samples:10}")
+    private int windowSamples = 10;
+
+    @Value("${account.concurrency-limit.long-windows:600}")
+    private int longWindows = 600;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    private GradientLimit gradientLimit;
+
+    @PostConstruct
+    public void init(){
+        gradientLimit = new GradientLimit(initialLimit, minLimit, maxLimit, tolerance, smoothing,
+                window.toNanos(), windowSamples, longWindows);
+    }
+
+    //한도 안이면 시작 시각과 그때의 처리 중인 요청 수(이 요청 포함) 를 돌려준다. 끝나면 그 값으로 release 를 불러야 한다.
+    public Permit acquire(){
+        if(!enabled){
+            return DISABLED;
+        }
+        int current = inFlight.incrementAndGet();
+        if(current > gradientLimit.getLimit()){
+            inFlight.decrementAndGet();
+            rejected.increment();
+            throw AccountException.of(ErrorCode.TOO_MANY_REQUESTS);
+        }
+        accepted.increment();
+        return new Permit(System.nanoTime(), current);
+    }
+
+    //실패한 요청도 걸린 시간만큼 지연 시간에 넣는다. (lock 대기로 실패한 요청도 과부하 신호다)
+    public void release(Permit permit){
+        if(!enabled){
+            return;
+        }
+        inFlight.decrementAndGet();
+        long now = System.nanoTime();
+        gradientLimit.onSample(now, now - permit.startedAt(), permit.inFlight());
+    }
+
+    public ConcurrencyLimitDto.Response snapshot(){
+        return ConcurrencyLimitDto.Response.builder()
+                .enabled(enabled)
+                .limit(gradientLimit.getLimit())
+                .inFlight(inFlight.get())
+                .accepted(accepted.sum())
+                .rejected(rejected.sum())
+                .shortRttMillis(gradientLimit.getShortRttMillis())
+                .longRttMillis(gradientLimit.getLongRttMillis())
+                .build();
+    }
+
+    public record Permit(long startedAt, int inFlight) {
+    }
+}
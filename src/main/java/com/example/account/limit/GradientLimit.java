@@ -0,0 +1,92 @@
+package com.example.account.limit;
+
+//관측한 지연 시간의 기울기(gradient) 로 동시 처리 한도를 정한다.
+//window 마다 평균 지연 시간(short) 을 긴 기간의 평균(long) 과 비교한다.
+//  gradient  = tolerance * long / short  (0.5 ~ 1)
+//  새 한도   = 한도 * gradient + sqrt(한도)  (지연이 늘지 않으면 sqrt(한도) 만큼 늘리고, 늘면 줄인다)
+//  한도      = 한도 * (1 - smoothing) + 새 한도 * smoothing
+//처리 중인 요청이 한도의 절반도 안되면 한도가 병목이 아니므로 늘리지 않는다.
+//long 은 windows 개 window 의 지수 평균이라서 오래 느려지면 천천히 따라 올라간다. (부하가 빠지면 빨리 내려간다)
+public class GradientLimit {
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final long windowNanos;
+    private final int windowSamples;
+    private final int longWindows;
+
+    private volatile double limit;
+    private volatile double shortRtt;
+    private volatile double longRtt;
+
+    //지금 window 의 표본
+    private long windowStartedAt;
+    private long windowRttSum;
+    private int windowCount;
+    private int windowMaxInFlight;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing,
+                         long windowNanos, int windowSamples, int longWindows) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.windowNanos = windowNanos;
+        this.windowSamples = windowSamples;
+        this.longWindows = longWindows;
+        this.limit = clamp(initialLimit);
+    }
+
+    //요청 하나가 끝났을때. inFlight 는 그 요청을 시작할때 처리 중이던 요청 수. (그 요청 포함)
+    //window 가 windowNanos 를 지나고 windowSamples 개 이상 모였으면 한도를 다시 계산한다.
+    public synchronized void onSample(long now, long rttNanos, int inFlight){
+        if(0 == windowCount){
+            windowStartedAt = now;
+        }
+        windowRttSum += rttNanos;
+        windowCount++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlight);
+        if(windowNanos > now - windowStartedAt || windowSamples > windowCount){
+            return;
+        }
+
+        update(Math.max(1.0, windowRttSum / (double) windowCount), windowMaxInFlight);
+        windowRttSum = 0;
+        windowCount = 0;
+        windowMaxInFlight = 0;
+    }
+
+    private void update(double sampleRtt, int inFlight){
+        shortRtt = sampleRtt;
+        double baseline = 0 == longRtt ? sampleRtt : longRtt + (sampleRtt - longRtt) / longWindows;
+        //지연이 절반 아래로 줄었으면 (부하가 빠졌으면) long 도 빨리 내린다.
+        if(2 < baseline / sampleRtt){
+            baseline *= 0.95;
+        }
+        longRtt = baseline;
+
+        if(inFlight < limit / 2){
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * baseline / sampleRtt));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        limit = clamp(limit * (1 - smoothing) + newLimit * smoothing);
+    }
+
+    private double clamp(double value){
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+
+    public int getLimit(){
+        return (int) limit;
+    }
+
+    public double getShortRttMillis(){
+        return shortRtt / 1_000_000.0;
+    }
+
+    public double getLongRttMillis(){
+        return longRtt / 1_000_000.0;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.account.metrics;
+
+import com.example.account.type.LatencyPhase;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+//controller 진입/반환 시점과 service, 실패 거래 저장 시간을 LatencyRecorder 에 남긴다.
+//LockAopAspect 보다 먼저, 트랜잭션 보다 바깥에서 동작해서 lock 대기와 커밋 시간이 각각의 단계에 들어간다.
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class LatencyAspect {
+    private final LatencyRecorder latencyRecorder;
+
+    @Around("within(com.example.account.controller.AccountController) "
+            + "|| within(com.example.account.controller.TransactionController)")
+    public Object aroundController(ProceedingJoinPoint pjp) throws Throwable {
+        latencyRecorder.enterHandler();
+        try{
+            return pjp.proceed();
+        }finally {
+            latencyRecorder.exitHandler();
+        }
+    }
+
+    @Around("(within(com.example.account.service.AccountService) "
+            + "|| within(com.example.account.service.TransactionService)) "
+            + "&& !execution(* com.example.account.service.TransactionService.*FailedTransaction(..))")
+    public Object aroundService(ProceedingJoinPoint pjp) throws Throwable {
+        if(!latencyRecorder.enterService()){
+            try{
+                return pjp.proceed();
+            }finally {
+                latencyRecorder.exitService();
+            }
+        }
+
+        long startedAt = System.nanoTime();
+        try{
+            return pjp.proceed();
+        }finally {
+            latencyRecorder.exitService();
+            latencyRecorder.record(LatencyPhase.SERVICE, System.nanoTime() - startedAt);
+        }
+    }
+
+    @Around("execution(* com.example.account.service.TransactionService.*FailedTransaction(..))")
+    public Object aroundFailedTransaction(ProceedingJoinPoint pjp) throws Throwable {
+        long startedAt = System.nanoTime();
+        try{
+            return pjp.proceed();
+        }finally {
+            latencyRecorder.record(LatencyPhase.FAILED_TRANSACTION, System.nanoTime() - startedAt);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.account.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//HdrHistogram 과 같은 방식의 log-linear 히스토그램.
+//값(마이크로초)을 2의 거듭제곱 구간으로 나누고, 각 구간을 다시 64개로 나눠서
+//1µs ~ 약 25일 범위를 상대 오차 1/64 (약 1.6%) 이내로 기록한다.
+//record 는 lock 없이 AtomicLongArray 의 칸 하나만 올린다.
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;            //128
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;      //64
+    private static final int MAX_EXPONENT = 40;                                  //2^40 µs
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    private static final int BUCKET_COUNT =
+            SUB_BUCKET_COUNT + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKET_HALF_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void recordNanos(long nanos){
+        long micros = Math.min(Math.max(nanos / 1_000, 0), MAX_VALUE);
+        counts.incrementAndGet(indexOf(micros));
+        totalCount.incrementAndGet();
+        totalMicros.addAndGet(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    //coordinated omission 보정. (HdrHistogram 의 recordValueWithExpectedInterval)
+    //기대 간격보다 오래 걸린 요청이 있으면 그 동안 보내지 못한 요청들도 기다렸다고 보고
+    //elapsed - interval, elapsed - 2 * interval ... 을 같이 기록한다.
+    public void recordNanosWithExpectedInterval(long nanos, long expectedIntervalNanos){
+        recordNanos(nanos);
+        if(expectedIntervalNanos <= 0){
+            return;
+        }
+        for (long missed = nanos - expectedIntervalNanos;
+             missed >= expectedIntervalNanos;
+             missed -= expectedIntervalNanos) {
+            recordNanos(missed);
+        }
+    }
+
+    public long getCount(){
+        return totalCount.get();
+    }
+
+    public double getMeanMillis(){
+        long count = totalCount.get();
+        return 0 == count ? 0 : totalMicros.get() / 1_000.0 / count;
+    }
+
+    public double getMaxMillis(){
+        return maxMicros.get() / 1_000.0;
+    }
+
+    //percentile 은 0 ~ 100. 해당 칸의 가장 큰 값을 돌려준다. (실제 최대값을 넘지는 않는다.)
+    public double getPercentileMillis(double percentile){
+        long count = totalCount.get();
+        if(0 == count){
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if(seen >= target){
+                return Math.min(highestValueAt(i), maxMicros.get()) / 1_000.0;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    static int indexOf(long value){
+        if(value < SUB_BUCKET_COUNT){
+            return (int) value;
+        }
+        //value >>> shift 가 [64, 128) 에 들어오도록 shift 를 정한다.
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS + 1;
+        return SUB_BUCKET_COUNT
+                + (shift - 1) * SUB_BUCKET_HALF_COUNT
+                + (int) ((value >>> shift) - SUB_BUCKET_HALF_COUNT);
+    }
+
+    static long highestValueAt(int index){
+        if(index < SUB_BUCKET_COUNT){
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
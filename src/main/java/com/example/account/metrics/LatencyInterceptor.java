@@ -0,0 +1,25 @@
+package com.example.account.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+//요청의 시작과 끝(응답 쓰기가 끝난 시점)을 LatencyRecorder 에 알려준다.
+@RequiredArgsConstructor
+public class LatencyInterceptor implements HandlerInterceptor {
+    private final LatencyRecorder latencyRecorder;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+                             Object handler) {
+        latencyRecorder.beginRequest(RequestEndpoint.of(request));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        latencyRecorder.endRequest();
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.account.metrics;
+
+import com.example.account.dto.LatencyDto;
+import com.example.account.type.LatencyPhase;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+//endpoint 별로 요청을 단계(LatencyPhase)로 나눠 지연 시간 히스토그램을 모은다.
+//LatencyInterceptor 가 요청 시작/끝을, LatencyAspect 와 LockAopAspect 가 중간 단계를 기록한다.
+//reset 하면 새 window 로 바꾸고 이전 window 는 버린다.
+@Component
+public class LatencyRecorder {
+    private static final ThreadLocal<Context> CONTEXT = new ThreadLocal<>();
+
+    @Value("${account.latency.enabled:true}")
+    private boolean enabled;
+
+    private final AtomicReference<Window> window = new AtomicReference<>(new Window());
+
+    //------------------------------------------------------------------------//
+    public void beginRequest(String endpoint){
+        if(!enabled){
+            return;
+        }
+        Context context = new Context();
+        context.endpoint = endpoint;
+        context.startedAt = System.nanoTime();
+        CONTEXT.set(context);
+    }
+
+    public void endRequest(){
+        Context context = CONTEXT.get();
+        if(null == context){
+            return;
+        }
+        CONTEXT.remove();
+
+        long now = System.nanoTime();
+        if(0 != context.handlerExitedAt){
+            record(context.endpoint, LatencyPhase.SERIALIZATION, now - context.handlerExitedAt);
+        }
+        record(context.endpoint, LatencyPhase.TOTAL, now - context.startedAt);
+    }
+
+    //controller 메서드 진입 (요청 body 를 읽고 검증까지 끝난 시점)
+    public void enterHandler(){
+        Context context = CONTEXT.get();
+        if(null != context){
+            record(context.endpoint, LatencyPhase.DESERIALIZATION,
+                    System.nanoTime() - context.startedAt);
+        }
+    }
+
+    //controller 메서드 반환 (예외로 빠져 나와도 에러 응답을 쓰는 시간부터는 직렬화로 본다)
+    public void exitHandler(){
+        Context context = CONTEXT.get();
+        if(null != context){
+            context.handlerExitedAt = System.nanoTime();
+        }
+    }
+
+    //요청 처리중이 아니면 (테스트, 배치 등) 기록하지 않는다.
+    public void record(LatencyPhase phase, long elapsedNanos){
+        Context context = CONTEXT.get();
+        if(null != context){
+            record(context.endpoint, phase, elapsedNanos);
+        }
+    }
+
+    //service 안에서 다른 service 를 부르면 바깥 것만 기록하기 위한 깊이.
+    public boolean enterService(){
+        Context context = CONTEXT.get();
+        return null != context && 0 == context.serviceDepth++;
+    }
+
+    public void exitService(){
+        Context context = CONTEXT.get();
+        if(null != context){
+            context.serviceDepth--;
+        }
+    }
+
+    private void record(String endpoint, LatencyPhase phase, long elapsedNanos){
+        window.get().histograms
+                .computeIfAbsent(endpoint, key -> newPhaseHistograms())
+                .get(phase)
+                .recordNanos(elapsedNanos);
+    }
+
+    //------------------------------------------------------------------------//
+    public LatencyDto.Response snapshot(){
+        Window current = window.get();
+        return LatencyDto.Response.builder()
+                .enabled(enabled)
+                .windowStartedAt(current.startedAt)
+                .endpoints(current.histograms.entrySet().stream()
+                        .sorted(Map.Entry.comparingByKey())
+                        .map(entry -> LatencyDto.Endpoint.builder()
+                                .endpoint(entry.getKey())
+                                .phases(entry.getValue().entrySet().stream()
+                                        .filter(phase -> 0 < phase.getValue().getCount())
+                                        .map(phase -> toDto(phase.getKey(), phase.getValue()))
+                                        .toList())
+                                .build())
+                        .toList())
+                .build();
+    }
+
+    public void reset(){
+        window.set(new Window());
+    }
+
+    private static LatencyDto.Phase toDto(LatencyPhase phase, LatencyHistogram histogram){
+        return LatencyDto.Phase.builder()
+                .phase(phase)
+                .count(histogram.getCount())
+                .meanMillis(histogram.getMeanMillis())
+                .p50Millis(histogram.getPercentileMillis(50))
+                .p99Millis(histogram.getPercentileMillis(99))
+                .p999Millis(histogram.getPercentileMillis(99.9))
+                .maxMillis(histogram.getMaxMillis())
+                .build();
+    }
+
+    private static Map<LatencyPhase, LatencyHistogram> newPhaseHistograms(){
+        Map<LatencyPhase, LatencyHistogram> histograms = new EnumMap<>(LatencyPhase.class);
+        Arrays.stream(LatencyPhase.values())
+                .forEach(phase -> histograms.put(phase, new LatencyHistogram()));
+        return histograms;
+    }
+
+    private static class Window {
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final Map<String, Map<LatencyPhase, LatencyHistogram>> histograms =
+                new ConcurrentHashMap<>();
+    }
+
+    private static class Context {
+        private String endpoint;
+        private long startedAt;
+        private long handlerExitedAt;
+        private int serviceDepth;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.account.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.servlet.HandlerMapping;
+
+//지표를 묶는 endpoint 이름.
+//path variable 이 들어간 경로는 패턴으로 묶는다. ex) GET /transaction/{transactionId}
+public final class RequestEndpoint {
+    private RequestEndpoint() {
+    }
+
+    public static String of(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " "
+                + (null != pattern ? pattern : request.getRequestURI());
+    }
+}
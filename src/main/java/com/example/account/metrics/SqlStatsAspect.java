@@ -0,0 +1,29 @@
+package com.example.account.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+//@Service 메서드 단위로 SQL 통계를 모으기 위해 지금 실행중인 메서드를 기록한다.
+//트랜잭션 커밋(flush) 때 나가는 SQL 도 포함되도록 트랜잭션 보다 바깥에서 동작한다.
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class SqlStatsAspect {
+    private final SqlStatsRecorder sqlStatsRecorder;
+
+    @Around("@within(org.springframework.stereotype.Service)")
+    public Object aroundServiceMethod(ProceedingJoinPoint pjp) throws Throwable {
+        sqlStatsRecorder.enterServiceMethod(
+                pjp.getSignature().getDeclaringType().getSimpleName()
+                        + "." + pjp.getSignature().getName());
+        try{
+            return pjp.proceed();
+        }finally {
+            sqlStatsRecorder.exitServiceMethod();
+        }
+    }
+}
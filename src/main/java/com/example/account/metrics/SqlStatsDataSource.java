@@ -0,0 +1,178 @@
+package com.example.account.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+//Connection -> Statement -> ResultSet 을 proxy 로 감싸서
+//SQL 실행 시간, 바인딩 파라미터 타입, 읽어온 row 수를 SqlStatsRecorder 에 기록하는 DataSource.
+//(account.sql-stats.enabled=true 일때 SqlStatsConfig 에서 기존 DataSource 를 이것으로 감싼다.)
+public class SqlStatsDataSource extends DelegatingDataSource {
+    private final SqlStatsRecorder sqlStatsRecorder;
+
+    public SqlStatsDataSource(DataSource targetDataSource, SqlStatsRecorder sqlStatsRecorder) {
+        super(targetDataSource);
+        this.sqlStatsRecorder = sqlStatsRecorder;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = super.getConnection();
+        return wrap(Connection.class, new ConnectionHandler(connection));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Connection connection = super.getConnection(username, password);
+        return wrap(Connection.class, new ConnectionHandler(connection));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T wrap(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(SqlStatsDataSource.class.getClassLoader(),
+                new Class<?>[]{type}, handler);
+    }
+
+    //------------------------------------------------------------------------//
+    //proxy 공통 처리 : equals/hashCode 는 proxy 자신을 기준으로 하고 나머지는 target 으로 넘긴다.
+    private abstract static class DelegatingHandler implements InvocationHandler {
+        protected final Object target;
+
+        DelegatingHandler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public final Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if("equals".equals(method.getName()) && 1 == method.getParameterCount()){
+                return proxy == args[0];
+            }
+            if("hashCode".equals(method.getName()) && 0 == method.getParameterCount()){
+                return System.identityHashCode(proxy);
+            }
+            return handle(method, args);
+        }
+
+        protected abstract Object handle(Method method, Object[] args) throws Throwable;
+
+        protected Object invokeTarget(Method method, Object[] args) throws Throwable {
+            try{
+                return method.invoke(target, args);
+            }catch(InvocationTargetException e){
+                throw e.getTargetException();
+            }
+        }
+    }
+
+    private class ConnectionHandler extends DelegatingHandler {
+        ConnectionHandler(Connection target) {
+            super(target);
+        }
+
+        @Override
+        protected Object handle(Method method, Object[] args) throws Throwable {
+            Object result = invokeTarget(method, args);
+
+            //prepareStatement(sql, ...), prepareCall(sql, ...), createStatement(...)
+            if(result instanceof Statement statement){
+                String sql = (null != args && 0 < args.length && args[0] instanceof String s) ? s : null;
+                Class<? extends Statement> type =
+                        statement instanceof CallableStatement ? CallableStatement.class
+                        : statement instanceof PreparedStatement ? PreparedStatement.class
+                        : Statement.class;
+                return wrap(type, new StatementHandler(statement, sql));
+            }
+            return result;
+        }
+    }
+
+    private class StatementHandler extends DelegatingHandler {
+        private final String sql;
+        private final Map<Integer, String> bindTypes = new TreeMap<>();
+
+        StatementHandler(Statement target, String sql) {
+            super(target);
+            this.sql = sql;
+        }
+
+        @Override
+        protected Object handle(Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if(name.startsWith("execute")){
+                //Statement.execute(sql) 처럼 실행할때 SQL 을 넘기는 경우도 있다.
+                String executedSql = (null != args && 0 < args.length && args[0] instanceof String s) ? s : sql;
+                long startedAt = System.nanoTime();
+                Object result;
+                try{
+                    result = invokeTarget(method, args);
+                }finally {
+                    sqlStatsRecorder.recordStatement(executedSql, bindShape(),
+                            System.nanoTime() - startedAt);
+                }
+                return wrapResultSet(result);
+            }
+
+            //setLong(1, ..), setString(2, ..) 등 바인딩 파라미터의 타입만 남긴다. (값은 남기지 않음)
+            if(name.startsWith("set") && null != args && 2 <= args.length
+                    && args[0] instanceof Integer index){
+                bindTypes.put(index, bindType(name, args[1]));
+            } else if("clearParameters".equals(name)){
+                bindTypes.clear();
+            }
+
+            Object result = invokeTarget(method, args);
+            return "getResultSet".equals(name) ? wrapResultSet(result) : result;
+        }
+
+        private Object wrapResultSet(Object result) {
+            if(result instanceof ResultSet resultSet){
+                return wrap(ResultSet.class, new ResultSetHandler(resultSet));
+            }
+            return result;
+        }
+
+        private String bindShape() {
+            StringJoiner joiner = new StringJoiner(", ", "(", ")");
+            bindTypes.values().forEach(joiner::add);
+            return joiner.toString();
+        }
+
+        private static String bindType(String setter, Object value) {
+            if("setNull".equals(setter) || null == value){
+                return "null";
+            }
+            return "setObject".equals(setter)
+                    ? value.getClass().getSimpleName()
+                    : setter.substring("set".length());
+        }
+    }
+
+    private class ResultSetHandler extends DelegatingHandler {
+        ResultSetHandler(ResultSet target) {
+            super(target);
+        }
+
+        @Override
+        protected Object handle(Method method, Object[] args) throws Throwable {
+            Object result = invokeTarget(method, args);
+            if("next".equals(method.getName()) && Boolean.TRUE.equals(result)){
+                sqlStatsRecorder.recordRow();
+            }
+            return result;
+        }
+    }
+}
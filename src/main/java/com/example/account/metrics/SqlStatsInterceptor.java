@@ -0,0 +1,25 @@
+package com.example.account.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+//요청마다 endpoint(ex. POST /transaction/use) 를 SqlStatsRecorder 에 알려준다.
+@RequiredArgsConstructor
+public class SqlStatsInterceptor implements HandlerInterceptor {
+    private final SqlStatsRecorder sqlStatsRecorder;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+                             Object handler) {
+        sqlStatsRecorder.beginRequest(RequestEndpoint.of(request));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        sqlStatsRecorder.endRequest();
+    }
+}
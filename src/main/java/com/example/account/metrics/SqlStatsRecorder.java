@@ -0,0 +1,212 @@
+package com.example.account.metrics;
+
+import com.example.account.dto.SqlStatsDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+//endpoint 별, service method 별로 실행된 SQL 의 갯수, 시간, 읽어온 row 수를 모은다.
+//느린 SQL 은 바인딩 타입과 함께 가장 느린 것부터 slow-buffer-size 개까지 남긴다. (더 느린 것이 오면 가장 빠른 것을 뺀다)
+//요청, service method 밖의 스레드 (relay, importer, scheduler 등) 의 SQL 은 느린 SQL 로만 남는다.
+//(SqlStatsDataSource, SqlStatsAspect, SqlStatsInterceptor 가 이 클래스로 기록한다.)
+@Component
+public class SqlStatsRecorder {
+    private static final ThreadLocal<Context> CONTEXT = new ThreadLocal<>();
+
+    @Value("${account.sql-stats.enabled:false}")
+    private boolean enabled;
+
+    @Value("${account.sql-stats.slow-threshold:50ms}")
+    private Duration slowThreshold = Duration.ofMillis(50);
+
+    @Value("${account.sql-stats.slow-buffer-size:100}")
+    private int slowBufferSize = 100;
+
+    private final Map<String, Stats> byEndpoint = new ConcurrentHashMap<>();
+    private final Map<String, Stats> byServiceMethod = new ConcurrentHashMap<>();
+
+    //elapsed 가 가장 작은 것이 맨 앞인 min-heap. (slowStatements 로 동기화)
+    private final PriorityQueue<SqlStatsDto.SlowStatement> slowStatements = new PriorityQueue<>(
+            Comparator.comparingDouble(SqlStatsDto.SlowStatement::getElapsedMillis));
+
+    //------------------------------------------------------------------------//
+    public void beginRequest(String endpoint){
+        Context context = new Context();
+        context.endpoint = endpoint;
+        CONTEXT.set(context);
+    }
+
+    public void endRequest(){
+        Context context = CONTEXT.get();
+        if(null == context){
+            return;
+        }
+        if(null != context.endpoint){
+            stats(byEndpoint, context.endpoint).calls.increment();
+        }
+        CONTEXT.remove();
+    }
+
+    public void enterServiceMethod(String serviceMethod){
+        Context context = CONTEXT.get();
+        if(null == context){
+            context = new Context();
+            CONTEXT.set(context);
+        }
+        context.serviceMethods.push(serviceMethod);
+    }
+
+    public void exitServiceMethod(){
+        Context context = CONTEXT.get();
+        if(null == context){
+            return;
+        }
+        String serviceMethod = context.serviceMethods.poll();
+        if(null != serviceMethod){
+            stats(byServiceMethod, serviceMethod).calls.increment();
+        }
+        if(null == context.endpoint && context.serviceMethods.isEmpty()){
+            CONTEXT.remove();
+        }
+    }
+
+    //------------------------------------------------------------------------//
+    public void recordStatement(String sql, String bindShape, long elapsedNanos){
+        Context context = CONTEXT.get();
+        String endpoint = null == context ? null : context.endpoint;
+        String serviceMethod = null == context ? null : context.serviceMethods.peek();
+
+        if(null != endpoint){
+            stats(byEndpoint, endpoint).addStatement(elapsedNanos);
+        }
+        if(null != serviceMethod){
+            stats(byServiceMethod, serviceMethod).addStatement(elapsedNanos);
+        }
+
+        if(elapsedNanos >= slowThreshold.toNanos()){
+            recordSlow(SqlStatsDto.SlowStatement.builder()
+                    .sql(sql)
+                    .bindShape(bindShape)
+                    .elapsedMillis(toMillis(elapsedNanos))
+                    .endpoint(endpoint)
+                    .serviceMethod(serviceMethod)
+                    .executedAt(LocalDateTime.now())
+                    .build());
+        }
+    }
+
+    private void recordSlow(SqlStatsDto.SlowStatement slowStatement){
+        synchronized (slowStatements) {
+            if(slowStatements.size() < slowBufferSize){
+                slowStatements.add(slowStatement);
+            }else if(0 < slowBufferSize
+                    && slowStatements.peek().getElapsedMillis() < slowStatement.getElapsedMillis()){
+                slowStatements.poll();
+                slowStatements.add(slowStatement);
+            }
+        }
+    }
+
+    public void recordRow(){
+        Context context = CONTEXT.get();
+        if(null == context){
+            return;
+        }
+        String serviceMethod = context.serviceMethods.peek();
+
+        if(null != context.endpoint){
+            stats(byEndpoint, context.endpoint).rows.increment();
+        }
+        if(null != serviceMethod){
+            stats(byServiceMethod, serviceMethod).rows.increment();
+        }
+    }
+
+    //------------------------------------------------------------------------//
+    public SqlStatsDto.Response snapshot(){
+        List<SqlStatsDto.SlowStatement> slowest;
+        synchronized (slowStatements) {
+            slowest = new ArrayList<>(slowStatements);
+        }
+        slowest.sort(Comparator.comparingDouble(
+                SqlStatsDto.SlowStatement::getElapsedMillis).reversed());
+
+        return SqlStatsDto.Response.builder()
+                .enabled(enabled)
+                .endpoints(toDto(byEndpoint))
+                .serviceMethods(toDto(byServiceMethod))
+                .slowStatements(slowest)
+                .build();
+    }
+
+    public void reset(){
+        byEndpoint.clear();
+        byServiceMethod.clear();
+        synchronized (slowStatements) {
+            slowStatements.clear();
+        }
+    }
+
+    private static List<SqlStatsDto.Stats> toDto(Map<String, Stats> statsMap){
+        return statsMap.entrySet().stream()
+                .map(entry -> entry.getValue().toDto(entry.getKey()))
+                .sorted(Comparator.comparingDouble(SqlStatsDto.Stats::getTotalMillis).reversed())
+                .toList();
+    }
+
+    private static Stats stats(Map<String, Stats> statsMap, String name){
+        return statsMap.computeIfAbsent(name, key -> new Stats());
+    }
+
+    private static double toMillis(long nanos){
+        return nanos / 1_000_000.0;
+    }
+
+    //요청 스레드에서 지금 실행중인 endpoint 와 service method (안쪽 메서드가 맨 위)
+    private static class Context {
+        private String endpoint;
+        private final Deque<String> serviceMethods = new ArrayDeque<>();
+    }
+
+    private static class Stats {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void addStatement(long elapsedNanos){
+            statements.increment();
+            totalNanos.add(elapsedNanos);
+            maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+        }
+
+        SqlStatsDto.Stats toDto(String name){
+            long callCount = calls.sum();
+            long statementCount = statements.sum();
+            long total = totalNanos.sum();
+            return SqlStatsDto.Stats.builder()
+                    .name(name)
+                    .calls(callCount)
+                    .statements(statementCount)
+                    .statementsPerCall(0 == callCount ? 0 : (double) statementCount / callCount)
+                    .rows(rows.sum())
+                    .totalMillis(toMillis(total))
+                    .avgMillis(0 == statementCount ? 0 : toMillis(total) / statementCount)
+                    .maxMillis(toMillis(maxNanos.get()))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.account.outbox;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+//최근 이벤트를 capacity 개까지 메모리에 둔다. (테스트, 로컬 확인용)
+public class InMemoryOutboxSink implements OutboxSink {
+    private final int capacity;
+    private final Deque<TransactionEvent> events = new ArrayDeque<>();
+
+    public InMemoryOutboxSink(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void publish(List<TransactionEvent> published){
+        for (TransactionEvent event : published) {
+            if(capacity <= events.size()){
+                events.removeFirst();
+            }
+            events.addLast(event);
+        }
+    }
+
+    public synchronized List<TransactionEvent> getEvents(){
+        return List.copyOf(events);
+    }
+
+    public synchronized void clear(){
+        events.clear();
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.account.outbox;
+
+import java.util.List;
+
+//relay 가 outbox id 순서의 이벤트 묶음을 넘긴다.
+//예외를 던지면 high-water mark 를 올리지 않고 그 묶음부터 다시 보낸다.
+//account.outbox.sink 대신 쓰려면 이 타입의 bean 을 등록한다.
+public interface OutboxSink {
+    void publish(List<TransactionEvent> events);
+}
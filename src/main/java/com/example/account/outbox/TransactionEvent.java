@@ -0,0 +1,46 @@
+package com.example.account.outbox;
+
+import com.example.account.domain.TransactionOutbox;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+//sink 로 보내는 거래 이벤트.
+//같은 이벤트가 다시 갈 수 있으므로(at-least-once) 받는 쪽은 (shard, eventId) 로 중복을 거른다.
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class TransactionEvent {
+    private String shard;                   //sharding 이 꺼져 있으면 null
+    private Long eventId;                   //shard 안에서 1씩 늘어나는 outbox id
+    private String transactionId;           //실패 집계는 null
+    private String accountNumber;
+    private TransactionType transactionType;
+    private TransactionResultType transactionResultType;
+    private ErrorCode errorCode;
+    private Long amount;
+    private Long balanceSnapshot;
+    private Long eventCount;
+    private LocalDateTime occurredAt;
+
+    public static TransactionEvent fromEntity(String shard, TransactionOutbox outbox){
+        return TransactionEvent.builder()
+                .shard(shard)
+                .eventId(outbox.getId())
+                .transactionId(outbox.getTransactionId())
+                .accountNumber(outbox.getAccountNumber())
+                .transactionType(outbox.getTransactionType())
+                .transactionResultType(outbox.getTransactionResultType())
+                .errorCode(outbox.getErrorCode())
+                .amount(outbox.getAmount())
+                .balanceSnapshot(outbox.getBalanceSnapshot())
+                .eventCount(outbox.getEventCount())
+                .occurredAt(outbox.getOccurredAt())
+                .build();
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.account.outbox;
+
+import com.example.account.domain.TransactionOutbox;
+import com.example.account.domain.TransactionOutboxOffset;
+import com.example.account.dto.OutboxStatusDto;
+import com.example.account.repository.TransactionOutboxOffsetRepository;
+import com.example.account.repository.TransactionOutboxRepository;
+import com.example.account.shard.ShardContext;
+import com.example.account.shard.ShardRouting;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+//outbox 를 high-water mark 다음부터 batch-size 씩 id 순서로 읽어 sink 로 보내고, 보낸 마지막 id 를 남긴다.
+//요청 스레드와 상관없는 relay 스레드 하나에서 poll-interval 마다 돈다. 꽉 찬 batch 를 보냈으면 쉬지 않고 다음 batch 를 읽는다.
+//id 가 비어 있으면 그 id 의 거래가 아직 커밋되지 않았을 수 있으므로 gap-timeout 동안 그 앞에서 멈춘다.
+//그보다 오래 비어 있으면 넘어가지만 그 id 는 high-water mark 와 같이 남겨두고 (pendingGaps)
+//gap-horizon 동안 batch 마다 다시 읽어서 늦게 커밋되었으면 보낸다. (그때도 없으면 롤백된 것으로 본다)
+//sink 로 보낸 뒤 high-water mark 를 남기기 전에 죽으면 그 batch 를 다시 보낸다. (at-least-once)
+//sharding 이 켜져 있으면 shard 마다 따로 읽고 따로 남긴다.
+//여러 서버에서 켜면 같은 이벤트를 중복으로 보내므로 relay 는 기본으로 꺼 두고 한 서버에서만 켠다. (account.outbox.relay-enabled)
+@Slf4j
+@Component
+public class TransactionOutboxRelay {
+    static final String RELAY_NAME = "transaction-outbox";
+    //pendingGaps 컬럼 길이 안에 들어가는 만큼만 다시 본다.
+    static final int MAX_PENDING_GAPS = 100;
+
+    private final TransactionOutboxRepository transactionOutboxRepository;
+    private final TransactionOutboxOffsetRepository transactionOutboxOffsetRepository;
+    private final ShardRouting shardRouting;
+    private final OutboxSink outboxSink;
+
+    @Value("${account.outbox.enabled:false}")
+    private boolean enabled;
+
+    @Value("${account.outbox.relay-enabled:false}")
+    private boolean relayEnabled;
+
+    @Value("${account.outbox.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${account.outbox.poll-interval:200ms}")
+    private Duration pollInterval = Duration.ofMillis(200);
+
+    @Value("${account.outbox.gap-timeout:5s}")
+    private Duration gapTimeout = Duration.ofSeconds(5);
+
+    @Value("${account.outbox.gap-horizon:10m}")
+    private Duration gapHorizon = Duration.ofMinutes(10);
+
+    //보낸 이벤트를 이만큼 남겨뒀다가 지운다.
+    @Value("${account.outbox.retention:1h}")
+    private Duration retention = Duration.ofHours(1);
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private volatile String lastError;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "transaction-outbox-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TransactionOutboxRelay(TransactionOutboxRepository transactionOutboxRepository,
+                                  TransactionOutboxOffsetRepository transactionOutboxOffsetRepository,
+                                  ShardRouting shardRouting,
+                                  OutboxSink outboxSink) {
+        this.transactionOutboxRepository = transactionOutboxRepository;
+        this.transactionOutboxOffsetRepository = transactionOutboxOffsetRepository;
+        this.shardRouting = shardRouting;
+        this.outboxSink = outboxSink;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start(){
+        if(!enabled || !relayEnabled){
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(this::relayQuietly,
+                pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::cleanupQuietly, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop(){
+        scheduler.shutdownNow();
+    }
+
+    //밀린 이벤트를 모두 보낸다. 보낸 이벤트 수를 돌려준다.
+    public synchronized long relay(){
+        return shardRouting.onEachShard(this::relayShard).stream()
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
+    //보낸 지 retention 이 지난 이벤트를 지운다.
+    public synchronized long cleanup(){
+        LocalDateTime before = LocalDateTime.now().minus(retention);
+        return shardRouting.onEachShard(() -> (long) transactionOutboxRepository.deletePublished(
+                        publishedId(), before)).stream()
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
+    public OutboxStatusDto.Response status(){
+        List<OutboxStatusDto.Shard> shards = shardRouting.onEachShard(() -> {
+            TransactionOutboxOffset offset = offset();
+            long latestId = transactionOutboxRepository.findLatestId().orElse(0L);
+            return OutboxStatusDto.Shard.builder()
+                    .shard(ShardContext.current())
+                    .publishedId(offset.getPublishedId())
+                    .latestId(latestId)
+                    .pending(Math.max(0L, latestId - offset.getPublishedId()))
+                    .gaps(decodeGaps(offset.getPendingGaps()).size())
+                    .build();
+        });
+        return OutboxStatusDto.Response.builder()
+                .enabled(enabled)
+                .relayEnabled(relayEnabled)
+                .sink(outboxSink.getClass().getSimpleName())
+                .published(published.sum())
+                .failures(failures.sum())
+                .lastError(lastError)
+                .shards(shards)
+                .build();
+    }
+
+    private Long relayShard(){
+        long total = 0;
+        int sent;
+        do{
+            sent = relayBatch();
+            total += sent;
+        }while(sent == batchSize);
+        return total;
+    }
+
+    private int relayBatch(){
+        TransactionOutboxOffset offset = offset();
+        long publishedId = offset.getPublishedId();
+        Map<Long, Long> gaps = decodeGaps(offset.getPendingGaps());
+        long now = System.currentTimeMillis();
+        List<TransactionEvent> events = new ArrayList<>();
+
+        //건너뛴 id 중 늦게 커밋된 것을 먼저 보내고, gap-horizon 이 지난 것은 롤백된 것으로 보고 지운다.
+        boolean gapsChanged = false;
+        if(!gaps.isEmpty()){
+            for (TransactionOutbox row : transactionOutboxRepository.findAllById(gaps.keySet())) {
+                events.add(TransactionEvent.fromEntity(ShardContext.current(), row));
+                gaps.remove(row.getId());
+            }
+            gapsChanged = !events.isEmpty();
+            gapsChanged |= gaps.values().removeIf(seenAt -> seenAt < now - gapHorizon.toMillis());
+            events.sort(Comparator.comparing(TransactionEvent::getEventId));
+        }
+
+        List<TransactionOutbox> rows = transactionOutboxRepository.findNext(publishedId, PageRequest.of(0, batchSize));
+        LocalDateTime gapDeadline = LocalDateTime.now().minus(gapTimeout);
+        long last = publishedId;
+        for (TransactionOutbox row : rows) {
+            if(row.getId() != last + 1){
+                if(row.getCreatedAt().isAfter(gapDeadline)){
+                    break;
+                }
+                gapsChanged |= addGaps(gaps, last + 1, row.getId(), now);
+            }
+            events.add(TransactionEvent.fromEntity(ShardContext.current(), row));
+            last = row.getId();
+        }
+        if(events.isEmpty() && !gapsChanged){
+            return 0;
+        }
+
+        if(!events.isEmpty()){
+            outboxSink.publish(events);
+        }
+        transactionOutboxOffsetRepository.save(TransactionOutboxOffset.builder()
+                .relayName(RELAY_NAME)
+                .publishedId(last)
+                .pendingGaps(encodeGaps(gaps))
+                .updatedAt(LocalDateTime.now())
+                .build());
+        published.add(events.size());
+        return events.size();
+    }
+
+    //[from, to) 의 비어 있는 id 를 남긴다. 너무 많으면 남기지 못한 id 는 예전처럼 롤백된 것으로 본다.
+    private boolean addGaps(Map<Long, Long> gaps, long from, long to, long now){
+        boolean added = false;
+        for (long id = from; id < to; id++) {
+            if(gaps.size() >= MAX_PENDING_GAPS){
+                log.warn("too many outbox gaps, ids from {} to {} will not be rechecked", id, to - 1);
+                break;
+            }
+            gaps.put(id, now);
+            added = true;
+        }
+        return added;
+    }
+
+    private TransactionOutboxOffset offset(){
+        return transactionOutboxOffsetRepository.findById(RELAY_NAME)
+                .orElseGet(() -> TransactionOutboxOffset.builder()
+                        .relayName(RELAY_NAME)
+                        .publishedId(0L)
+                        .build());
+    }
+
+    private long publishedId(){
+        return offset().getPublishedId();
+    }
+
+    private static Map<Long, Long> decodeGaps(String pendingGaps){
+        Map<Long, Long> gaps = new TreeMap<>();
+        if(null == pendingGaps || pendingGaps.isEmpty()){
+            return gaps;
+        }
+        for (String gap : pendingGaps.split(",")) {
+            int separator = gap.indexOf(':');
+            gaps.put(Long.parseLong(gap.substring(0, separator)), Long.parseLong(gap.substring(separator + 1)));
+        }
+        return gaps;
+    }
+
+    private static String encodeGaps(Map<Long, Long> gaps){
+        if(gaps.isEmpty()){
+            return null;
+        }
+        StringJoiner joiner = new StringJoiner(",");
+        gaps.forEach((id, seenAt) -> joiner.add(id + ":" + seenAt));
+        return joiner.toString();
+    }
+
+    private void relayQuietly(){
+        try{
+            relay();
+        }catch(Exception e){
+            failures.increment();
+            lastError = e.getMessage();
+            log.error("transaction outbox relay failed", e);
+        }
+    }
+
+    private void cleanupQuietly(){
+        try{
+            cleanup();
+        }catch(Exception e){
+            log.error("transaction outbox cleanup failed", e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.account.outbox;
+
+import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionFailure;
+import com.example.account.domain.TransactionOutbox;
+import com.example.account.repository.TransactionOutboxRepository;
+import com.example.account.type.FailureRecordMode;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.function.Supplier;
+
+import static com.example.account.type.TransactionResultType.F;
+
+//거래 이벤트를 거래와 같은 트랜잭션에서 outbox 에 쓴다. 보내는 것은 TransactionOutboxRelay 가 따로 한다.
+//실패는 aggregate 모드면 transaction_failure 의 분 bucket 마다, row 모드면 실패 거래마다 하나씩 쓴다.
+//(aggregate 모드의 표본 실패 거래는 bucket 에 이미 세어져 있으므로 쓰지 않는다)
+@Component
+public class TransactionOutboxWriter {
+    private final TransactionOutboxRepository transactionOutboxRepository;
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+
+    @Value("${account.outbox.enabled:false}")
+    private boolean enabled;
+
+    @Value("${account.failure.mode:aggregate}")
+    private FailureRecordMode failureMode = FailureRecordMode.AGGREGATE;
+
+    public TransactionOutboxWriter(TransactionOutboxRepository transactionOutboxRepository,
+                                   ObjectProvider<PlatformTransactionManager> transactionManager) {
+        this.transactionOutboxRepository = transactionOutboxRepository;
+        this.transactionManager = transactionManager;
+    }
+
+    public boolean isEnabled(){
+        return enabled;
+    }
+
+    //write 로 거래를 저장하고 같은 트랜잭션에서 이벤트를 쓴다. (진행 중인 트랜잭션이 있으면 거기에 참여한다)
+    public Transaction save(Supplier<Transaction> write){
+        if(!enabled){
+            return write.get();
+        }
+        PlatformTransactionManager manager = transactionManager.getIfAvailable();
+        if(null == manager){
+            return append(write.get());
+        }
+        return new TransactionTemplate(manager).execute(status -> append(write.get()));
+    }
+
+    //transaction_failure 를 저장하는 트랜잭션에서 부른다.
+    public void appendFailures(Collection<TransactionFailure> rows){
+        if(!enabled){
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        transactionOutboxRepository.saveAll(rows.stream()
+                .map(row -> TransactionOutbox.builder()
+                        .accountNumber(row.getAccountNumber())
+                        .transactionType(row.getTransactionType())
+                        .transactionResultType(F)
+                        .errorCode(row.getErrorCode())
+                        .eventCount(row.getFailureCount())
+                        .occurredAt(row.getBucketStartedAt())
+                        .createdAt(now)
+                        .build())
+                .toList());
+    }
+
+    private Transaction append(Transaction transaction){
+        if(F == transaction.getTransactionResultType() && FailureRecordMode.AGGREGATE == failureMode){
+            return transaction;
+        }
+        transactionOutboxRepository.save(TransactionOutbox.builder()
+                .transactionId(transaction.getTransactionId())
+                .accountNumber(transaction.getAccount().getAccountNumber())
+                .transactionType(transaction.getTransactionType())
+                .transactionResultType(transaction.getTransactionResultType())
+                .errorCode(transaction.getErrorCode())
+                .amount(transaction.getAmount())
+                .balanceSnapshot(transaction.getBalanceSnapshot())
+                .eventCount(1L)
+                .occurredAt(transaction.getTransactedAt())
+                .createdAt(LocalDateTime.now())
+                .build());
+        return transaction;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.account.partition;
+
+import java.util.function.Supplier;
+
+//지금 스레드의 거래(transaction) SQL 이 사용할 월별 partition 테이블 이름. (null 이면 원래 transaction 테이블)
+//TransactionTableInspector 가 hibernate 가 만든 SQL 의 테이블 이름을 이 값으로 바꾼다.
+//insert 는 flush 할때 실행되므로 flush 까지 이 값이 유지되어야 한다. (TransactionPartitionRouting.write)
+public final class TransactionPartitionContext {
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private TransactionPartitionContext() {
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    public static <T> T call(String table, Supplier<T> action) {
+        String previous = CURRENT.get();
+        CURRENT.set(table);
+        try{
+            return action.get();
+        }finally {
+            if(null == previous){
+                CURRENT.remove();
+            }else{
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.example.account.partition;
+
+import com.example.account.shard.ShardContext;
+import com.example.account.shard.ShardRouting;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+//거래(transaction) 를 거래 일시의 월별 테이블 transaction_yyyyMM 에 나눠 저장한다.
+//테이블 구조는 hibernate 가 만든 transaction 테이블을 복사한다. 원래 transaction 테이블에는 partition 전에 쓴 거래가 남는다.
+//1. 쓰기는 거래 일시의 월 테이블로 간다. (없으면 만든다) 이번 달부터 months-ahead 달 뒤까지는 미리 만들어둔다.
+//2. 새 거래 아이디는 yyyyMM_ 로 시작하므로 아이디로 찾을때는 그 달의 테이블 하나만 본다.
+//   (partition 전의 아이디는 원래 테이블부터 최근 달 순서로 찾는다)
+//3. 기간 조회는 그 기간의 월 테이블과 원래 테이블만 본다.
+//4. 지난 달 테이블은 detached_transaction_yyyyMM 으로 이름을 바꿔 조회에서 뺀다. (테이블 단위라서 행 수와 관계없다)
+//   떼어낸 테이블은 allow-drop 이 켜져 있을때만 지울 수 있다. (되돌릴 수 없으므로)
+//sharding 이 켜져 있으면 shard 마다 따로 만든다.
+@Slf4j
+@Component
+public class TransactionPartitionRouting {
+    private static final String BASE_TABLE = "transaction";
+    private static final String DETACHED_PREFIX = "detached_";
+    private static final Pattern PARTITION_TABLE = Pattern.compile("(?i)transaction_(\\d{6})");
+    private static final Pattern PARTITIONED_ID = Pattern.compile("(\\d{6})_[0-9a-f]{25}");
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final ObjectProvider<DataSource> dataSource;
+    private final ShardRouting shardRouting;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${account.transaction-partition.enabled:false}")
+    private boolean enabled;
+
+    //떼어낸 테이블을 지울 수 있는지.
+    @Value("${account.transaction-partition.allow-drop:false}")
+    private boolean allowDrop;
+
+    //이번 달 뒤로 미리 만들어두는 달 수.
+    @Value("${account.transaction-partition.months-ahead:1}")
+    private int monthsAhead = 1;
+
+    @Value("${spring.jpa.hibernate.ddl-auto:none}")
+    private String ddlAuto = "none";
+
+    //DB(shard) 별 partition 월 목록.
+    private final Map<String, NavigableSet<YearMonth>> partitionsByDb = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "transaction-partition");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TransactionPartitionRouting(ObjectProvider<DataSource> dataSource, ShardRouting shardRouting) {
+        this.dataSource = dataSource;
+        this.shardRouting = shardRouting;
+    }
+
+    //스키마(원래 transaction 테이블) 가 모두 만들어진 뒤에 시작한다.
+    @EventListener(ApplicationReadyEvent.class)
+    public void start(){
+        if(!enabled){
+            return;
+        }
+        //hibernate 가 transaction 테이블을 새로 만들었으면 예전 partition 도 지운다. (id sequence 가 처음부터 다시 시작한다)
+        if(ddlAuto.startsWith("create")){
+            shardRouting.onEachShard(() -> {
+                new ArrayList<>(partitions()).forEach(month -> execute("drop table " + tableOf(month)));
+                partitionsByDb.remove(dbKey());
+                return 0;
+            });
+        }
+        createAhead();
+        scheduler.scheduleWithFixedDelay(this::createAheadQuietly, 1, 1, TimeUnit.HOURS);
+    }
+
+    @PreDestroy
+    public void stop(){
+        scheduler.shutdownNow();
+    }
+
+    public boolean isEnabled(){
+        return enabled;
+    }
+
+    //partition 이 켜져 있으면 거래 월을 앞에 붙인다. (yyyyMM_ + 25자리, 전체 32자리)
+    public String newTransactionId(LocalDateTime transactedAt){
+        String random = UUID.randomUUID().toString().replace("-", "");
+        if(!enabled){
+            return random;
+        }
+        return transactedAt.format(MONTH) + "_" + random.substring(0, 25);
+    }
+
+    //transactedAt 의 월 테이블에 쓴다. insert 가 그 테이블로 가도록 action 의 변경을 여기서 flush 한다.
+    //(트랜잭션이 없으면 repository 호출이 각자 커밋하면서 flush 한다)
+    public <T> T write(LocalDateTime transactedAt, Supplier<T> action){
+        if(!enabled){
+            return action.get();
+        }
+        return onMonth(YearMonth.from(transactedAt), () -> {
+            T result = action.get();
+            if(TransactionSynchronizationManager.isActualTransactionActive()){
+                entityManager.flush();
+            }
+            return result;
+        });
+    }
+
+    //month 테이블에서 action 을 실행한다. (없으면 만든다)
+    public <T> T onMonth(YearMonth month, Supplier<T> action){
+        if(!enabled){
+            return action.get();
+        }
+        return TransactionPartitionContext.call(ensure(month), action);
+    }
+
+    //거래 아이디로 찾는다. 아이디에 월이 있으면 그 달의 테이블만 본다.
+    public <T> Optional<T> find(String transactionId, Supplier<Optional<T>> action){
+        if(!enabled){
+            return action.get();
+        }
+
+        NavigableSet<YearMonth> partitions = partitions();
+        YearMonth month = monthOf(transactionId);
+        if(null != month){
+            return partitions.contains(month)
+                    ? TransactionPartitionContext.call(tableOf(month), action)
+                    : Optional.empty();
+        }
+
+        Optional<T> found = action.get();
+        for (YearMonth partition : partitions.descendingSet()) {
+            if(found.isPresent()){
+                break;
+            }
+            found = TransactionPartitionContext.call(tableOf(partition), action);
+        }
+        return found;
+    }
+
+    //[from, to] 월 테이블들과 원래 테이블에서 action 을 실행한 결과들. (null 이면 그쪽 끝이 없다)
+    //action 은 null 을 돌려주면 안된다.
+    public <T> List<T> onMonths(YearMonth from, YearMonth to, Supplier<T> action){
+        if(!enabled){
+            return List.of(action.get());
+        }
+
+        List<T> results = new ArrayList<>();
+        results.add(action.get());
+        for (YearMonth month : partitions()) {
+            if((null == from || !month.isBefore(from)) && (null == to || !month.isAfter(to))){
+                results.add(TransactionPartitionContext.call(tableOf(month), action));
+            }
+        }
+        return results;
+    }
+
+    //모든 shard 에 있는 partition 월.
+    public List<YearMonth> getPartitions(){
+        if(!enabled){
+            return List.of();
+        }
+        NavigableSet<YearMonth> months = new TreeSet<>();
+        shardRouting.onEachShard(() -> months.addAll(partitions()));
+        return List.copyOf(months);
+    }
+
+    //detach 로 떼어낸 테이블을 지운다. 아직 조회에 쓰이는 (떼어내지 않은) 달은 지울 수 없다.
+    public void drop(YearMonth month){
+        if(!allowDrop){
+            throw new IllegalStateException("dropping partitions is disabled. set account.transaction-partition.allow-drop");
+        }
+        validatePast(month);
+        shardRouting.onEachShard(() -> {
+            if(partitions().contains(month)){
+                throw new IllegalArgumentException("detach the partition before dropping : " + month);
+            }
+            return 0;
+        });
+        shardRouting.onEachShard(() -> {
+            execute("drop table if exists " + DETACHED_PREFIX + tableOf(month));
+            log.info("transaction partition dropped : {}, shard : {}", DETACHED_PREFIX + tableOf(month),
+                    ShardContext.current());
+            return 0;
+        });
+    }
+
+    //테이블을 그대로 두고 이름만 바꿔서 조회에서 뺀다.
+    public void detach(YearMonth month){
+        removePartition(month, "alter table " + tableOf(month) + " rename to " + DETACHED_PREFIX + tableOf(month));
+    }
+
+    private void removePartition(YearMonth month, String sql){
+        validatePast(month);
+        shardRouting.onEachShard(() -> {
+            NavigableSet<YearMonth> partitions = partitions();
+            if(partitions.contains(month)){
+                execute(sql);
+                partitions.remove(month);
+                log.info("transaction partition removed : {}, shard : {}", tableOf(month), ShardContext.current());
+            }
+            return 0;
+        });
+    }
+
+    private static void validatePast(YearMonth month){
+        if(!month.isBefore(YearMonth.now())){
+            throw new IllegalArgumentException("only past partitions can be removed : " + month);
+        }
+    }
+
+    private void createAheadQuietly(){
+        try{
+            createAhead();
+        }catch(Exception e){
+            log.error("transaction partition create failed", e);
+        }
+    }
+
+    private void createAhead(){
+        YearMonth now = YearMonth.now();
+        shardRouting.onEachShard(() -> {
+            for (int i = 0; i <= monthsAhead; i++) {
+                ensure(now.plusMonths(i));
+            }
+            return 0;
+        });
+    }
+
+    //지금 DB 에 month 테이블이 없으면 만든다.
+    private synchronized String ensure(YearMonth month){
+        NavigableSet<YearMonth> partitions = partitions();
+        String table = tableOf(month);
+        if(partitions.contains(month)){
+            return table;
+        }
+
+        try{
+            execute("create table " + table + " as select * from " + BASE_TABLE + " where 1 = 0",
+                    "alter table " + table + " add primary key (id)",
+                    "create index " + table + "_transaction_id on " + table + " (transaction_id)",
+                    "create index " + table + "_account_transacted_at on " + table + " (account_id, transacted_at)");
+            log.info("transaction partition created : {}, shard : {}", table, ShardContext.current());
+        }catch(IllegalStateException e){
+            //다른 서버가 먼저 만들었으면 그대로 쓴다.
+            partitionsByDb.remove(dbKey());
+            if(!partitions().contains(month)){
+                throw e;
+            }
+        }
+        partitions().add(month);
+        return table;
+    }
+
+    private NavigableSet<YearMonth> partitions(){
+        return partitionsByDb.computeIfAbsent(dbKey(), key -> loadPartitions());
+    }
+
+    private NavigableSet<YearMonth> loadPartitions(){
+        NavigableSet<YearMonth> partitions = new ConcurrentSkipListSet<>();
+        try (Connection connection = dataSource.getObject().getConnection();
+             ResultSet tables = connection.getMetaData().getTables(
+                     connection.getCatalog(), connection.getSchema(), "%", new String[]{"TABLE"})) {
+            while (tables.next()) {
+                Matcher matcher = PARTITION_TABLE.matcher(tables.getString("TABLE_NAME"));
+                if(matcher.matches()){
+                    partitions.add(YearMonth.parse(matcher.group(1), MONTH));
+                }
+            }
+        }catch(SQLException e){
+            throw new IllegalStateException("transaction partition lookup failed", e);
+        }
+        return partitions;
+    }
+
+    //트랜잭션의 커넥션이 아닌 따로 얻은 커넥션에서 실행한다. (DDL 이 진행 중인 트랜잭션을 커밋하지 않도록)
+    private void execute(String... statements){
+        try (Connection connection = dataSource.getObject().getConnection();
+             Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        }catch(SQLException e){
+            throw new IllegalStateException("transaction partition ddl failed : " + statements[0], e);
+        }
+    }
+
+    private static String dbKey(){
+        return String.valueOf(ShardContext.current());
+    }
+
+    static String tableOf(YearMonth month){
+        return BASE_TABLE + "_" + month.format(MONTH);
+    }
+
+    static YearMonth monthOf(String transactionId){
+        Matcher matcher = PARTITIONED_ID.matcher(transactionId);
+        if(!matcher.matches()){
+            return null;
+        }
+        try{
+            return YearMonth.parse(matcher.group(1), MONTH);
+        }catch(DateTimeParseException e){
+            return null;
+        }
+    }
+}
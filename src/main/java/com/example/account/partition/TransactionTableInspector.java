@@ -0,0 +1,21 @@
+package com.example.account.partition;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+//hibernate 가 실행하는 SQL 의 transaction 테이블을 지금 partition 테이블로 바꾼다.
+//transaction_id 같은 컬럼, transaction_failure 같은 다른 테이블은 단어가 달라서 바뀌지 않는다.
+public class TransactionTableInspector implements StatementInspector {
+    private static final Pattern TABLE = Pattern.compile("(?i)\\btransaction\\b");
+
+    @Override
+    public String inspect(String sql) {
+        String table = TransactionPartitionContext.current();
+        if(null == table){
+            return sql;
+        }
+        return TABLE.matcher(sql).replaceAll(Matcher.quoteReplacement(table));
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.account.replica;
+
+import java.util.function.Supplier;
+
+//지금 스레드가 replica 에서 읽어도 되는지.
+//ReplicaRoutingDataSource 가 커넥션을 얻을 때 이 값을 보고 DB 를 고른다.
+//ReplicaRouting 만 이 값을 켠다. (쓰기가 섞이지 않는 읽기 전용 트랜잭션 안에서만)
+public final class ReplicaContext {
+    private static final ThreadLocal<Boolean> CURRENT = new ThreadLocal<>();
+
+    private ReplicaContext() {
+    }
+
+    public static boolean isReplicaRead() {
+        return Boolean.TRUE.equals(CURRENT.get());
+    }
+
+    public static <T> T callOnReplica(Supplier<T> action) {
+        Boolean previous = CURRENT.get();
+        CURRENT.set(Boolean.TRUE);
+        try{
+            return action.get();
+        }finally {
+            if(null == previous){
+                CURRENT.remove();
+            }else{
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.account.replica;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+//primary 의 heartbeat 행에 주기적으로 지금 시각을 쓰고, replica 에 복제된 값을 읽는다.
+//replica 의 값이 곧 "replica 가 primary 를 어느 시각까지 따라왔는지" 가 된다. (pt-heartbeat 방식)
+//replica 를 읽지 못하면 마지막 값을 그대로 두므로 시간이 지나면 stale 로 판단된다.
+@Slf4j
+public class ReplicaLagMonitor {
+    private static final String CREATE_TABLE =
+            "create table if not exists replica_heartbeat (id int primary key, beat_at bigint not null)";
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final Duration interval;
+    //로컬 H2 처럼 복제가 없는 replica 에는 heartbeat 테이블도 직접 만든다.
+    private final boolean createOnReplica;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile long replicatedUntil;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, Duration interval, boolean createOnReplica) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.interval = interval;
+        this.createOnReplica = createOnReplica;
+    }
+
+    @PostConstruct
+    public void start(){
+        primary.execute(CREATE_TABLE);
+        if(createOnReplica){
+            replica.execute(CREATE_TABLE);
+        }
+        refreshQuietly();
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly,
+                interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop(){
+        scheduler.shutdownNow();
+    }
+
+    public void refresh(){
+        long now = System.currentTimeMillis();
+        if(0 == primary.update("update replica_heartbeat set beat_at = ? where id = 1", now)){
+            primary.update("insert into replica_heartbeat (id, beat_at) values (1, ?)", now);
+        }
+
+        List<Long> beats = replica.queryForList("select beat_at from replica_heartbeat where id = 1", Long.class);
+        if(!beats.isEmpty()){
+            replicatedUntil = beats.get(0);
+        }
+    }
+
+    //replica 가 반영한 마지막 primary 시각 (epoch millis). 아직 모르면 0.
+    public long getReplicatedUntil(){
+        return replicatedUntil;
+    }
+
+    private void refreshQuietly(){
+        try{
+            refresh();
+        }catch(Exception e){
+            log.warn("replica heartbeat failed", e);
+        }
+    }
+}
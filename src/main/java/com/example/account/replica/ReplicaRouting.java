@@ -0,0 +1,132 @@
+package com.example.account.replica;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+//조회를 어느 DB 에서, 어떤 트랜잭션으로 실행할지 정한다.
+//조회는 읽기 전용 트랜잭션으로 실행한다. (hibernate session read-only = entity snapshot 없음, flush mode MANUAL)
+//1. replica 가 max-staleness 보다 뒤처져 있으면 primary 에서 읽는다.
+//2. 사용자가 쓴 뒤 replica 가 아직 그 시각까지 따라오지 못했다면 primary 에서 읽는다. (read-your-writes)
+//   쓰기 시각은 이 서버에서만 기억하므로, 다른 서버에서 쓴 직후의 읽기는 max-staleness 만큼 늦게 보일 수 있다.
+//account.replica.enabled=false 면 항상 primary 에서 읽는다.
+@Component
+public class ReplicaRouting {
+    private final ObjectProvider<ReplicaLagMonitor> lagMonitor;
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+
+    @Value("${account.replica.enabled:false}")
+    private boolean enabled;
+
+    @Value("${account.query.read-only:true}")
+    private boolean readOnlyTransaction;
+
+    //sharding 이 켜져 있으면 shard 마다 트랜잭션이 따로 열려야 하므로 조회 전체를 하나로 묶지 않는다.
+    @Value("${account.sharding.enabled:false}")
+    private boolean shardingEnabled;
+
+    @Value("${account.replica.max-staleness:1s}")
+    private Duration maxStaleness = Duration.ofSeconds(1);
+
+    //사용자별 마지막 쓰기 커밋 시각 (epoch millis)
+    private final ConcurrentHashMap<Long, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReplicaRouting(ObjectProvider<ReplicaLagMonitor> lagMonitor,
+                          ObjectProvider<PlatformTransactionManager> transactionManager) {
+        this.lagMonitor = lagMonitor;
+        this.transactionManager = transactionManager;
+    }
+
+    public boolean isEnabled(){
+        return enabled;
+    }
+
+    //userId 의 데이터를 읽는다. (null 이면 read-your-writes 를 보지 않는다)
+    public <T> T read(Long userId, Supplier<T> action){
+        if(!canReadReplica(userId)){
+            return onPrimary(action);
+        }
+        return onReplica(action);
+    }
+
+    //replica 에서 찾지 못하면 primary 에서 한번 더 찾는다.
+    //누가 썼는지 모르는 단건 조회라도 방금 만들어진 데이터를 놓치지 않는다.
+    public <T> Optional<T> find(Supplier<Optional<T>> action){
+        if(!canReadReplica(null)){
+            return onPrimary(action);
+        }
+        Optional<T> result = onReplica(action);
+        return result.isPresent() ? result : onPrimary(action);
+    }
+
+    //트랜잭션 안에서 호출되면 커밋된 뒤의 시각을 남긴다.
+    public void markWrittenAfterCommit(Long userId){
+        if(!enabled){
+            return;
+        }
+        if(TransactionSynchronizationManager.isSynchronizationActive()){
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            markWritten(userId);
+                        }
+                    });
+            return;
+        }
+        markWritten(userId);
+    }
+
+    private void markWritten(Long userId){
+        long now = System.currentTimeMillis();
+        lastWrites.put(userId, now);
+
+        //max-staleness 보다 오래된 쓰기는 replica 가 따라왔거나 (1번으로) primary 에서 읽게 되므로 지운다.
+        if(lastWrites.size() > 10_000){
+            lastWrites.values().removeIf(writtenAt -> writtenAt < now - maxStaleness.toMillis());
+        }
+    }
+
+    private boolean canReadReplica(Long userId){
+        //이미 트랜잭션 안이라면 그 트랜잭션의 DB(primary) 를 그대로 사용한다.
+        if(!enabled || TransactionSynchronizationManager.isActualTransactionActive()){
+            return false;
+        }
+
+        long replicatedUntil = lagMonitor.getObject().getReplicatedUntil();
+        if(System.currentTimeMillis() - replicatedUntil > maxStaleness.toMillis()){
+            return false;
+        }
+
+        Long writtenAt = null == userId ? null : lastWrites.get(userId);
+        return null == writtenAt || writtenAt < replicatedUntil;
+    }
+
+    //action 의 repository 호출들이 하나의 읽기 전용 트랜잭션(= replica 커넥션 하나) 으로 실행된다.
+    private <T> T onReplica(Supplier<T> action){
+        return ReplicaContext.callOnReplica(() -> inReadOnlyTransaction(action));
+    }
+
+    private <T> T onPrimary(Supplier<T> action){
+        if(!readOnlyTransaction || shardingEnabled){
+            return action.get();
+        }
+        return inReadOnlyTransaction(action);
+    }
+
+    //이미 트랜잭션 안이라면 그 트랜잭션에 참여한다.
+    private <T> T inReadOnlyTransaction(Supplier<T> action){
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager.getObject());
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate.execute(status -> action.get());
+    }
+}
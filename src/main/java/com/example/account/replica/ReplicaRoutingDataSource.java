@@ -0,0 +1,14 @@
+package com.example.account.replica;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+//ReplicaContext 가 켜져 있으면 replica 에서, 아니면 기본(primary) DB 에서 커넥션을 얻는다.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ReplicaContext.isReplicaRead() ? REPLICA : PRIMARY;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.account.repository;
+
+import com.example.account.domain.AccountNumberSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+//advance 와 findLastNumber 는 같은 트랜잭션에서 불러야 한다. (update 한 row 의 lock 으로 다른 발급을 막는다)
+@Repository
+public interface AccountNumberSequenceRepository
+        extends JpaRepository<AccountNumberSequence, Integer> {
+
+    @Modifying
+    @Query("update AccountNumberSequence s set s.lastNumber = s.lastNumber + :count where s.id = 1")
+    int advance(@Param("count") long count);
+
+    @Query("select s.lastNumber from AccountNumberSequence s where s.id = 1")
+    Long findLastNumber();
+}
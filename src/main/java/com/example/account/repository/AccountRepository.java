@@ -2,11 +2,20 @@ package com.example.account.repository;
 
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountBalanceDto;
+import com.example.account.dto.AccountDto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 //Entity 를 DB에 저장하기위해서는 JPA 에서 제공해주는 Repository 가 필요하다?
 //Spring 쪽에서 JPA 를 쓰기 쉽게 만들어주는 특수한 형태의 IF?.
@@ -17,11 +26,54 @@ import java.util.Optional;
 public interface AccountRepository
         extends JpaRepository<Account, Long> {
 
-    Optional<Account> findFirstByOrderByIdDesc();
+    //계좌번호는 자릿수가 같으므로 문자열 정렬 = 숫자 정렬.
+    //(sharding 에서는 id 가 shard 마다 다른 범위라서 id 로는 마지막 계좌를 알 수 없다.)
+    //계좌번호만 읽으므로 read-only 로 읽어서 dirty checking 용 snapshot 을 만들지 않는다.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    Optional<Account> findFirstByOrderByAccountNumberDesc();
 
-    Integer countByAccountUser(AccountUser accountUser);
+    //월별 거래 명세(MonthlyStatementJob) 의 계좌번호 구간을 정할때 첫 계좌번호를 읽는다.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    Optional<Account> findFirstByOrderByAccountNumberAsc();
 
     Optional<Account> findByAccountNumber(String accountNumber);
 
+    //계좌번호 Bloom filter 가 없다고 답한 계좌번호를 확인할때 쓴다.
+    boolean existsByAccountNumber(String accountNumber);
+
+    //계좌번호 Bloom filter(AccountNumberFilter) 를 채울때 전체 계좌번호를 나눠서 읽는다.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select a.accountNumber from Account a")
+    Stream<String> streamAllAccountNumbers();
+
+    //거래 이력 이관(TransactionHistoryImporter) 에서 계좌번호 -> 계좌 id, 잔액 map 을 만들때 나눠서 읽는다.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.example.account.dto.AccountBalanceDto(a.accountNumber, a.id, a.accountBalance) " +
+            "from Account a")
+    Stream<AccountBalanceDto> streamAllAccountBalances();
+
+    //월별 거래 명세의 한 계좌번호 구간에서 before 전에 만든 계좌들.
+    @Query("select new com.example.account.dto.AccountBalanceDto(a.accountNumber, a.id, a.accountBalance) " +
+            "from Account a " +
+            "where a.accountNumber between :from and :to and a.registeredAt < :before")
+    List<AccountBalanceDto> findBalancesRegisteredBefore(@Param("from") String from,
+                                                         @Param("to") String to,
+                                                         @Param("before") LocalDateTime before);
+
     List<Account> findByAccountUser(AccountUser accountUser);
+
+    //계좌 목록 조회용. AccountDto 에 필요한 컬럼만 읽는다.
+    //사용자 id 는 account 테이블의 FK 컬럼에서 읽으므로 account_user 와 join 하지 않는다.
+    @Query("select new com.example.account.dto.AccountDto(" +
+            "a.accountUser.id, a.accountNumber, a.accountBalance, " +
+            "a.registeredAt, a.unregisteredAt) " +
+            "from Account a where a.accountUser = :accountUser")
+    List<AccountDto> findDtoByAccountUser(@Param("accountUser") AccountUser accountUser);
+
+    //사용자 id 로 읽는다. (계좌 요약을 만들때)
+    @Query("select new com.example.account.dto.AccountDto(" +
+            "a.accountUser.id, a.accountNumber, a.accountBalance, " +
+            "a.registeredAt, a.unregisteredAt) " +
+            "from Account a where a.accountUser.id = :userId")
+    List<AccountDto> findDtoByAccountUserId(@Param("userId") Long userId);
 }
@@ -3,11 +3,16 @@ package com.example.account.repository;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AccountUserRepository
         extends JpaRepository<AccountUser, Long> {
+    //lock 전 검증(KnownUserRule) 에서 메모리에 올려둘 사용자 id 목록.
+    @Query("select u.id from AccountUser u")
+    List<Long> findAllIds();
 }
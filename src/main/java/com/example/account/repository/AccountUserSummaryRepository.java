@@ -0,0 +1,69 @@
+package com.example.account.repository;
+
+import com.example.account.domain.AccountUserSummary;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+//요약은 읽지 않고 update 한 문장으로 고친다.
+//같은 사용자의 다른 계좌 거래가 동시에 와도 (계좌 lock 은 계좌마다 따로다) 갱신이 사라지지 않는다.
+//모두 update 된 row 수를 돌려준다. (0 이면 요약이 아직 없거나 조건에 걸림)
+//아직 만들지 않은 요약(accountCount 가 null) 의 update 는 null 로 남는다. (만들때 계좌들로부터 다시 센다)
+@Repository
+public interface AccountUserSummaryRepository
+        extends JpaRepository<AccountUserSummary, Long> {
+
+    //계좌 수 제한 검사와 증가를 한번에 한다. (balance 는 새 계좌들의 잔액 합계)
+    @Transactional
+    @Modifying
+    @Query("update AccountUserSummary s set s.accountCount = s.accountCount + :count, " +
+            "s.activeAccountCount = s.activeAccountCount + :count, " +
+            "s.totalBalance = s.totalBalance + :balance, s.lastActivityAt = :at " +
+            "where s.userId = :userId and s.accountCount + :count <= :maxAccountCount")
+    int addAccounts(@Param("userId") Long userId, @Param("count") int count, @Param("balance") Long balance,
+                    @Param("maxAccountCount") int maxAccountCount, @Param("at") LocalDateTime at);
+
+    //계좌 저장에 실패했을때 addAccounts 를 되돌린다.
+    @Transactional
+    @Modifying
+    @Query("update AccountUserSummary s set s.accountCount = s.accountCount - :count, " +
+            "s.activeAccountCount = s.activeAccountCount - :count, " +
+            "s.totalBalance = s.totalBalance - :balance " +
+            "where s.userId = :userId")
+    int removeAccounts(@Param("userId") Long userId, @Param("count") int count, @Param("balance") Long balance);
+
+    //해지된 계좌는 계좌 수 제한에는 그대로 센다.
+    @Transactional
+    @Modifying
+    @Query("update AccountUserSummary s set s.activeAccountCount = s.activeAccountCount - 1, " +
+            "s.lastActivityAt = :at where s.userId = :userId")
+    int unregisterAccount(@Param("userId") Long userId, @Param("at") LocalDateTime at);
+
+    //값이 없는 (아직 만들지 않은) 요약 한줄을 넣는다. 이미 있으면 unique 충돌. (merge 로 덮어쓰지 않도록 insert 만 한다)
+    @Transactional
+    @Modifying
+    @Query(value = "insert into account_user_summary (user_id) values (:userId)", nativeQuery = true)
+    int insertEmpty(@Param("userId") Long userId);
+
+    //요약을 만드는 동안 같은 사용자의 update 를 막는다.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from AccountUserSummary s where s.userId = :userId")
+    Optional<AccountUserSummary> findForUpdate(@Param("userId") Long userId);
+
+    @Query("select count(s) > 0 from AccountUserSummary s where s.userId = :userId and s.accountCount is not null")
+    boolean existsBuilt(@Param("userId") Long userId);
+
+    @Transactional
+    @Modifying
+    @Query("update AccountUserSummary s set s.totalBalance = s.totalBalance + :delta, " +
+            "s.lastActivityAt = :at where s.userId = :userId")
+    int addBalance(@Param("userId") Long userId, @Param("delta") Long delta, @Param("at") LocalDateTime at);
+}
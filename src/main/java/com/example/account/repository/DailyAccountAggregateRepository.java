@@ -0,0 +1,56 @@
+package com.example.account.repository;
+
+import com.example.account.domain.DailyAccountAggregate;
+import com.example.account.dto.DailyAggregateDto;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+//집계는 읽지 않고 update 한 문장으로 더한다. (요약 AccountUserSummaryRepository 와 같은 방식)
+@Repository
+public interface DailyAccountAggregateRepository
+        extends JpaRepository<DailyAccountAggregate, Long> {
+
+    boolean existsByAccountNumberAndAggregateDate(String accountNumber, LocalDate aggregateDate);
+
+    //update 된 row 수를 돌려준다. (0 이면 그 날의 row 가 아직 없음)
+    @Transactional
+    @Modifying
+    @Query("update DailyAccountAggregate d set d.debitAmount = d.debitAmount + :debitAmount, " +
+            "d.cancelAmount = d.cancelAmount + :cancelAmount, " +
+            "d.successCount = d.successCount + :successCount, " +
+            "d.failureCount = d.failureCount + :failureCount " +
+            "where d.accountNumber = :accountNumber and d.aggregateDate = :aggregateDate")
+    int add(@Param("accountNumber") String accountNumber, @Param("aggregateDate") LocalDate aggregateDate,
+            @Param("debitAmount") long debitAmount, @Param("cancelAmount") long cancelAmount,
+            @Param("successCount") long successCount, @Param("failureCount") long failureCount);
+
+    //거래에서 다시 만든 값으로 바꾼다. (DailyAccountAggregateService.backfill) 0 이면 row 가 아직 없음.
+    @Transactional
+    @Modifying
+    @Query("update DailyAccountAggregate d set d.debitAmount = :debitAmount, " +
+            "d.cancelAmount = :cancelAmount, " +
+            "d.successCount = :successCount, " +
+            "d.failureCount = :failureCount " +
+            "where d.accountNumber = :accountNumber and d.aggregateDate = :aggregateDate")
+    int replace(@Param("accountNumber") String accountNumber, @Param("aggregateDate") LocalDate aggregateDate,
+                @Param("debitAmount") long debitAmount, @Param("cancelAmount") long cancelAmount,
+                @Param("successCount") long successCount, @Param("failureCount") long failureCount);
+
+    List<DailyAccountAggregate> findByAccountNumberAndAggregateDateBetweenOrderByAggregateDate(
+            String accountNumber, LocalDate from, LocalDate to);
+
+    //모든 계좌의 날짜별 합계.
+    @Query("select new com.example.account.dto.DailyAggregateDto(d.aggregateDate, " +
+            "sum(d.debitAmount), sum(d.cancelAmount), sum(d.successCount), sum(d.failureCount)) " +
+            "from DailyAccountAggregate d " +
+            "where d.aggregateDate between :from and :to " +
+            "group by d.aggregateDate")
+    List<DailyAggregateDto> sumByAggregateDate(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,35 @@
+package com.example.account.repository;
+
+import com.example.account.domain.TransactionFailure;
+import com.example.account.dto.AccountCountDto;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TransactionFailureRepository
+        extends JpaRepository<TransactionFailure, Long> {
+
+    //월별 거래 명세(MonthlyStatementJob) 용. 한 계좌번호 구간의 [start, end) 실패 건수를 계좌별로 더한다.
+    @Query("select new com.example.account.dto.AccountCountDto(f.accountNumber, sum(f.failureCount)) " +
+            "from TransactionFailure f " +
+            "where f.accountNumber between :from and :to " +
+            "and f.bucketStartedAt >= :start and f.bucketStartedAt < :end " +
+            "group by f.accountNumber")
+    List<AccountCountDto> sumFailureCounts(@Param("from") String from,
+                                           @Param("to") String to,
+                                           @Param("start") LocalDateTime start,
+                                           @Param("end") LocalDateTime end);
+
+    //하루 집계 다시 만들기(DailyAccountAggregateService.backfill) 용. [start, end) 실패 건수를 계좌별로 더한다.
+    @Query("select new com.example.account.dto.AccountCountDto(f.accountNumber, sum(f.failureCount)) " +
+            "from TransactionFailure f " +
+            "where f.bucketStartedAt >= :start and f.bucketStartedAt < :end " +
+            "group by f.accountNumber")
+    List<AccountCountDto> sumFailureCountsByAccount(@Param("start") LocalDateTime start,
+                                                    @Param("end") LocalDateTime end);
+}
@@ -0,0 +1,9 @@
+package com.example.account.repository;
+
+import com.example.account.domain.TransactionOutboxOffset;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TransactionOutboxOffsetRepository extends JpaRepository<TransactionOutboxOffset, String> {
+}
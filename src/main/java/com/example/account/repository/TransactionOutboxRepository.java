@@ -0,0 +1,30 @@
+package com.example.account.repository;
+
+import com.example.account.domain.TransactionOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TransactionOutboxRepository extends JpaRepository<TransactionOutbox, Long> {
+    //high-water mark 다음부터 id 순서로 (PK 범위 조회)
+    @Query("select o from TransactionOutbox o where o.id > :publishedId order by o.id")
+    List<TransactionOutbox> findNext(@Param("publishedId") Long publishedId, Pageable pageable);
+
+    @Query("select max(o.id) from TransactionOutbox o")
+    Optional<Long> findLatestId();
+
+    //보낸 이벤트 중 보관 기간이 지난 것을 지운다.
+    @Transactional
+    @Modifying
+    @Query("delete from TransactionOutbox o where o.id <= :publishedId and o.createdAt < :before")
+    int deletePublished(@Param("publishedId") Long publishedId, @Param("before") LocalDateTime before);
+}
@@ -1,13 +1,119 @@
 package com.example.account.repository;
 
 import com.example.account.domain.Transaction;
+import com.example.account.dto.AccountCountDto;
+import com.example.account.dto.AccountDailyAggregateDto;
+import com.example.account.dto.StatementTransactionDto;
+import com.example.account.dto.TransactionDto;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository
         extends JpaRepository<Transaction, Long> {
     Optional<Transaction> findByTransactionId(String transactionId);
+
+    //거래 조회용. TransactionDto 에 필요한 컬럼만 한번의 select 로 읽는다.
+    //(Transaction, Account entity 를 만들지 않는다.)
+    @Query("select new com.example.account.dto.TransactionDto(" +
+            "a.accountNumber, t.transactionType, t.transactionResultType, " +
+            "t.amount, t.balanceSnapshot, t.transactionId, t.transactedAt) " +
+            "from Transaction t join t.account a " +
+            "where t.transactionId = :transactionId")
+    Optional<TransactionDto> findDtoByTransactionId(@Param("transactionId") String transactionId);
+
+    //사용자 요약을 만들때 마지막 활동 일시.
+    @Query("select max(t.transactedAt) from Transaction t where t.account.accountUser.id = :userId")
+    Optional<LocalDateTime> findLastTransactedAtByAccountUserId(@Param("userId") Long userId);
+
+    //거래 이력 이관을 이어서 할때 이미 들어간 거래를 거른다.
+    //취소 거래는 원래 거래 아이디를 같이 쓰므로 거래 종류, 거래 일시까지 같아야 같은 거래다.
+    @Query("select new com.example.account.dto.TransactionDto(" +
+            "a.accountNumber, t.transactionType, t.transactionResultType, " +
+            "t.amount, t.balanceSnapshot, t.transactionId, t.transactedAt) " +
+            "from Transaction t join t.account a " +
+            "where t.transactionId in :transactionIds")
+    List<TransactionDto> findExistingTransactions(@Param("transactionIds") Collection<String> transactionIds);
+
+    //월별 거래 명세(MonthlyStatementJob) 용. 한 계좌번호 구간의 [start, end) 거래를 계좌번호, 거래 순으로 나눠 읽는다.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.example.account.dto.StatementTransactionDto(" +
+            "a.accountNumber, t.transactionType, t.transactionResultType, " +
+            "t.amount, t.balanceSnapshot, t.errorCode, t.transactedAt) " +
+            "from Transaction t join t.account a " +
+            "where a.accountNumber between :from and :to " +
+            "and t.transactedAt >= :start and t.transactedAt < :end " +
+            "order by a.accountNumber, t.transactedAt, t.id")
+    Stream<StatementTransactionDto> streamStatementTransactions(@Param("from") String from,
+                                                                @Param("to") String to,
+                                                                @Param("start") LocalDateTime start,
+                                                                @Param("end") LocalDateTime end);
+
+    //하루 집계 다시 만들기(DailyAccountAggregateService.backfill) 용. [start, end) 의 성공 거래를 계좌별로 더한다.
+    @Query("select new com.example.account.dto.AccountDailyAggregateDto(a.accountNumber, " +
+            "sum(case when t.transactionType = :use then t.amount else 0L end), " +
+            "sum(case when t.transactionType = :use then 0L else t.amount end), " +
+            "count(t)) " +
+            "from Transaction t join t.account a " +
+            "where t.transactionResultType = :success " +
+            "and t.transactedAt >= :start and t.transactedAt < :end " +
+            "group by a.accountNumber")
+    List<AccountDailyAggregateDto> sumSuccessesByAccount(@Param("start") LocalDateTime start,
+                                                         @Param("end") LocalDateTime end,
+                                                         @Param("use") TransactionType use,
+                                                         @Param("success") TransactionResultType success);
+
+    //[start, end) 의 실패 거래 수. allFailures 가 아니면 실패 사유가 없는 (transaction_failure 에 세지 않은) 것만.
+    @Query("select new com.example.account.dto.AccountCountDto(a.accountNumber, count(t)) " +
+            "from Transaction t join t.account a " +
+            "where t.transactionResultType = :failed " +
+            "and (t.errorCode is null or :allFailures = true) " +
+            "and t.transactedAt >= :start and t.transactedAt < :end " +
+            "group by a.accountNumber")
+    List<AccountCountDto> countFailuresByAccount(@Param("start") LocalDateTime start,
+                                                 @Param("end") LocalDateTime end,
+                                                 @Param("failed") TransactionResultType failed,
+                                                 @Param("allFailures") boolean allFailures);
+
+    //한 계좌번호 구간에서 계좌마다 at 전의 마지막 거래. (그 달의 시작 잔액)
+    @Query("select new com.example.account.dto.StatementTransactionDto(" +
+            "a.accountNumber, t.transactionType, t.transactionResultType, " +
+            "t.amount, t.balanceSnapshot, t.errorCode, t.transactedAt) " +
+            "from Transaction t join t.account a " +
+            "where a.accountNumber between :from and :to " +
+            "and t.transactedAt = (select max(t2.transactedAt) from Transaction t2 " +
+            "where t2.account = t.account and t2.transactedAt < :at) " +
+            "order by t.id")
+    List<StatementTransactionDto> findLastTransactionsBefore(@Param("from") String from,
+                                                             @Param("to") String to,
+                                                             @Param("at") LocalDateTime at);
+
+    //한 계좌번호 구간에서 계좌마다 at 이후의 첫 거래. (그 달에 거래가 없는 계좌의 잔액)
+    @Query("select new com.example.account.dto.StatementTransactionDto(" +
+            "a.accountNumber, t.transactionType, t.transactionResultType, " +
+            "t.amount, t.balanceSnapshot, t.errorCode, t.transactedAt) " +
+            "from Transaction t join t.account a " +
+            "where a.accountNumber between :from and :to " +
+            "and t.transactedAt = (select min(t2.transactedAt) from Transaction t2 " +
+            "where t2.account = t.account and t2.transactedAt >= :at) " +
+            "order by t.id desc")
+    List<StatementTransactionDto> findFirstTransactionsFrom(@Param("from") String from,
+                                                            @Param("to") String to,
+                                                            @Param("at") LocalDateTime at);
 }
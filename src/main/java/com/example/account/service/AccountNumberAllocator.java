@@ -0,0 +1,78 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountNumberSequence;
+import com.example.account.repository.AccountNumberSequenceRepository;
+import com.example.account.repository.AccountRepository;
+import com.example.account.shard.ShardRouting;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Comparator;
+import java.util.Optional;
+
+//계좌번호 발급.
+//account_number_sequence 한 row 를 update 해서 연속된 계좌번호 count 개를 한번에 예약한다.
+//(모든 shard 의 마지막 계좌번호를 읽고 +1 하던 방식은 동시에 만들면 같은 번호가 나올 수 있었다)
+//이미 트랜잭션 안이면 그 트랜잭션이 끝날때까지 다른 발급은 기다린다.
+@Slf4j
+@Component
+public class AccountNumberAllocator {
+    private static final long FIRST_ACCOUNT_NUMBER = 1_000_000_000L;
+
+    private final AccountNumberSequenceRepository accountNumberSequenceRepository;
+    private final AccountRepository accountRepository;
+    private final ShardRouting shardRouting;
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+
+    private volatile boolean seeded;
+
+    public AccountNumberAllocator(AccountNumberSequenceRepository accountNumberSequenceRepository,
+                                  AccountRepository accountRepository,
+                                  ShardRouting shardRouting,
+                                  ObjectProvider<PlatformTransactionManager> transactionManager) {
+        this.accountNumberSequenceRepository = accountNumberSequenceRepository;
+        this.accountRepository = accountRepository;
+        this.shardRouting = shardRouting;
+        this.transactionManager = transactionManager;
+    }
+
+    //예약한 첫 계좌번호를 돌려준다. (first ~ first + count - 1)
+    public long reserve(int count){
+        if(!seeded){
+            seed();
+        }
+        return new TransactionTemplate(transactionManager.getObject()).execute(status -> {
+            accountNumberSequenceRepository.advance(count);
+            return accountNumberSequenceRepository.findLastNumber() - count + 1;
+        });
+    }
+
+    //sequence 가 없으면 (처음 기동, 이 기능 전의 DB) 모든 shard 의 마지막 계좌번호로 만든다.
+    //shard 마다 읽어야 하므로 트랜잭션 밖에서 불러야 한다. (sharding 이 켜져 있을때)
+    private synchronized void seed(){
+        if(seeded){
+            return;
+        }
+        if(!accountNumberSequenceRepository.existsById(1)){
+            long lastNumber = shardRouting.onEachShard(accountRepository::findFirstByOrderByAccountNumberDesc)
+                    .stream()
+                    .flatMap(Optional::stream)
+                    .map(Account::getAccountNumber)
+                    .map(Long::parseLong)
+                    .max(Comparator.naturalOrder())
+                    .orElse(FIRST_ACCOUNT_NUMBER - 1);
+            try{
+                accountNumberSequenceRepository.saveAndFlush(new AccountNumberSequence(1, lastNumber));
+            }catch(DataIntegrityViolationException e){
+                //다른 서버가 먼저 만들었다.
+                log.info("account number sequence already seeded");
+            }
+        }
+        seeded = true;
+    }
+}
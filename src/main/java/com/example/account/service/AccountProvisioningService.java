@@ -0,0 +1,234 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.dto.BulkCreateAccountDto;
+import com.example.account.dto.CreateAccountDto;
+import com.example.account.replica.ReplicaRouting;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.shard.ShardRouting;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import com.example.account.validation.AccountNumberFilter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+//파트너 이관용 대량 계좌 생성.
+//1. 사용자와 요약은 사용자마다 한번 읽고, 계좌 수 제한은 메모리에서 검사한다.
+//2. 요약은 사용자마다 update 한번, 계좌번호는 전체를 한번에 연속으로 예약한다.
+//3. 계좌는 chunk-size 개씩 shard 별로 한 트랜잭션에서 넣는다.
+//   batch-size 개마다 JDBC batch 로 flush 하고 persistence context 를 비운다.
+//4. 결과는 chunk 가 커밋될 때마다 results 로 넘긴다. (실패한 항목은 먼저 넘긴다)
+//   results 가 실패하면 (연결이 끊기면) 남은 chunk 는 넣지 않고 요약에서 되돌린다.
+@Slf4j
+@Service
+public class AccountProvisioningService {
+    private final AccountUserRepository accountUserRepository;
+    private final AccountSummaryService accountSummaryService;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final AccountNumberFilter accountNumberFilter;
+    private final AccountReadCache accountReadCache;
+    private final ShardRouting shardRouting;
+    private final ReplicaRouting replicaRouting;
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    //한 트랜잭션(커밋, 결과 전송) 단위.
+    @Value("${account.provisioning.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    //JDBC batch 크기, persistence context 를 비우는 주기.
+    @Value("${account.provisioning.batch-size:100}")
+    private int batchSize = 100;
+
+    public AccountProvisioningService(AccountUserRepository accountUserRepository,
+                                      AccountSummaryService accountSummaryService,
+                                      AccountNumberAllocator accountNumberAllocator,
+                                      AccountNumberFilter accountNumberFilter,
+                                      AccountReadCache accountReadCache,
+                                      ShardRouting shardRouting,
+                                      ReplicaRouting replicaRouting,
+                                      ObjectProvider<PlatformTransactionManager> transactionManager) {
+        this.accountUserRepository = accountUserRepository;
+        this.accountSummaryService = accountSummaryService;
+        this.accountNumberAllocator = accountNumberAllocator;
+        this.accountNumberFilter = accountNumberFilter;
+        this.accountReadCache = accountReadCache;
+        this.shardRouting = shardRouting;
+        this.replicaRouting = replicaRouting;
+        this.transactionManager = transactionManager;
+    }
+
+    public void provision(List<CreateAccountDto.Request> requests,
+                          Consumer<List<BulkCreateAccountDto.Result>> results){
+        Map<Long, AccountUser> users = accountUserRepository.findAllById(requests.stream()
+                        .map(CreateAccountDto.Request::getUserId)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(AccountUser::getId, Function.identity()));
+
+        Map<Long, Integer> remaining = new HashMap<>();
+        users.values().forEach(user -> remaining.put(user.getId(),
+                AccountService.MAX_ACCOUNT_COUNT - accountSummaryService.getSummary(user).getAccountCount()));
+
+        //1. 메모리에서 사용자, 계좌 수 제한 검사.
+        List<BulkCreateAccountDto.Result> rejected = new ArrayList<>();
+        List<Integer> accepted = new ArrayList<>();
+        Map<Long, int[]> countByUser = new LinkedHashMap<>();
+        Map<Long, Long> balanceByUser = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            CreateAccountDto.Request request = requests.get(i);
+            Long userId = request.getUserId();
+            if(!users.containsKey(userId)){
+                rejected.add(BulkCreateAccountDto.Result.failed(i, userId, ErrorCode.USER_NOT_FOUND));
+                continue;
+            }
+            if(remaining.merge(userId, -1, Integer::sum) < 0){
+                rejected.add(BulkCreateAccountDto.Result.failed(i, userId, ErrorCode.OVER_MAX_ACCOUNT));
+                continue;
+            }
+            accepted.add(i);
+            countByUser.computeIfAbsent(userId, key -> new int[1])[0]++;
+            balanceByUser.merge(userId, request.getInitialBalance(), Long::sum);
+        }
+
+        //2. 요약에 사용자별로 한번에 더한다. (그사이 다른 요청이 만든 계좌로 제한을 넘으면 그 사용자는 실패)
+        Set<Long> overMax = new HashSet<>();
+        countByUser.forEach((userId, count) -> {
+            if(!accountSummaryService.addAccounts(userId, count[0], balanceByUser.get(userId))){
+                overMax.add(userId);
+            }
+        });
+        if(!overMax.isEmpty()){
+            accepted.removeIf(index -> {
+                Long userId = requests.get(index).getUserId();
+                if(overMax.contains(userId)){
+                    rejected.add(BulkCreateAccountDto.Result.failed(index, userId, ErrorCode.OVER_MAX_ACCOUNT));
+                    return true;
+                }
+                return false;
+            });
+        }
+        if(!rejected.isEmpty()){
+            results.accept(rejected);
+        }
+        if(accepted.isEmpty()){
+            return;
+        }
+
+        //3. 계좌번호 예약 후 chunk 단위로 저장.
+        long firstAccountNumber = accountNumberAllocator.reserve(accepted.size());
+        int saved = 0;
+        try{
+            for (int from = 0; from < accepted.size(); from += chunkSize) {
+                List<Account> chunk = new ArrayList<>();
+                for (int i = from; i < Math.min(from + chunkSize, accepted.size()); i++) {
+                    CreateAccountDto.Request request = requests.get(accepted.get(i));
+                    String accountNumber = String.valueOf(firstAccountNumber + i);
+
+                    //lock 전 검증이 새 계좌를 없는 계좌로 거절하지 않도록 저장보다 먼저 더한다.
+                    accountNumberFilter.add(accountNumber);
+                    chunk.add(Account.builder()
+                            .accountUser(users.get(request.getUserId()))
+                            .accountNumber(accountNumber)
+                            .accountStatus(AccountStatus.IN_USE)
+                            .accountBalance(request.getInitialBalance())
+                            .registeredAt(LocalDateTime.now())
+                            .build());
+                }
+                List<BulkCreateAccountDto.Result> chunkResults =
+                        saveChunk(chunk, accepted.subList(from, from + chunk.size()));
+                saved = from + chunk.size();
+                results.accept(chunkResults);
+            }
+        }finally {
+            //결과를 보내다가 (연결이 끊겨) 멈추면 아직 넣지 않은 계좌는 요약에서 되돌린다.
+            removeUnsaved(requests, accepted.subList(saved, accepted.size()));
+            countByUser.keySet().stream()
+                    .filter(userId -> !overMax.contains(userId))
+                    .forEach(userId -> {
+                        accountReadCache.invalidate(userId);
+                        replicaRouting.markWrittenAfterCommit(userId);
+                    });
+        }
+    }
+
+    private void removeUnsaved(List<CreateAccountDto.Request> requests, List<Integer> unsaved){
+        if(unsaved.isEmpty()){
+            return;
+        }
+        log.warn("account provisioning stopped. unsaved accounts : {}", unsaved.size());
+        unsaved.stream()
+                .map(requests::get)
+                .collect(Collectors.groupingBy(CreateAccountDto.Request::getUserId))
+                .forEach((userId, userRequests) -> accountSummaryService.removeAccounts(
+                        userId, userRequests.size(),
+                        userRequests.stream().mapToLong(CreateAccountDto.Request::getInitialBalance).sum()));
+    }
+
+    //shard 마다 한 트랜잭션. 실패한 shard 의 계좌는 요약에서 되돌린다. (예약한 계좌번호는 비워둔다)
+    private List<BulkCreateAccountDto.Result> saveChunk(List<Account> chunk, List<Integer> indexes){
+        Map<String, List<Integer>> positionsByShard = new HashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            positionsByShard.computeIfAbsent(shardRouting.shardOf(chunk.get(i).getAccountNumber()),
+                    shard -> new ArrayList<>()).add(i);
+        }
+
+        BulkCreateAccountDto.Result[] results = new BulkCreateAccountDto.Result[chunk.size()];
+        for (List<Integer> positions : positionsByShard.values()) {
+            List<Account> accounts = positions.stream().map(chunk::get).toList();
+            try{
+                shardRouting.onShard(accounts.get(0).getAccountNumber(), () -> insert(accounts));
+                positions.forEach(position -> results[position] = BulkCreateAccountDto.Result.success(
+                        indexes.get(position), chunk.get(position).getAccountUser().getId(),
+                        chunk.get(position).getAccountNumber()));
+            }catch(RuntimeException e){
+                log.error("account provisioning insert failed. accounts : {}", accounts.size(), e);
+                accounts.stream()
+                        .collect(Collectors.groupingBy(account -> account.getAccountUser().getId()))
+                        .forEach((userId, userAccounts) -> accountSummaryService.removeAccounts(
+                                userId, userAccounts.size(),
+                                userAccounts.stream().mapToLong(Account::getAccountBalance).sum()));
+                positions.forEach(position -> results[position] = BulkCreateAccountDto.Result.failed(
+                        indexes.get(position), chunk.get(position).getAccountUser().getId(),
+                        ErrorCode.INTERNAL_SERVER_ERROR));
+            }
+        }
+        return List.of(results);
+    }
+
+    private Integer insert(List<Account> accounts){
+        return new TransactionTemplate(transactionManager.getObject()).execute(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            for (int i = 0; i < accounts.size(); i++) {
+                entityManager.persist(accounts.get(i));
+                if(0 == (i + 1) % batchSize){
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            return accounts.size();
+        });
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.account.service;
+
+import com.example.account.dto.AccountDto;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+//GET /account 의 사용자별 계좌 목록 캐시.
+//계좌 생성/해지, 잔액 사용/취소가 커밋되면 그 사용자의 목록을 지운다.
+//읽는 중인 사용자에게만 version 을 두고 무효화때 올려서, 읽는 도중에 무효화된 목록은 담지 않는다.
+//(version 은 읽기가 끝나면 지우므로 캐시 밖의 사용자 수만큼 쌓이지 않는다)
+//다른 서버의 무효화는 redis topic 으로 전달 받는다.
+@Slf4j
+@Component
+public class AccountReadCache {
+    private static final String INVALIDATION_TOPIC = "account-read-cache-invalidation";
+
+    private final ObjectProvider<RedissonClient> redissonClient;
+
+    @Value("${account.cache.account-read.enabled:true}")
+    private boolean enabled;
+
+    @Value("${account.cache.account-read.ttl:30s}")
+    private Duration ttl;
+
+    @Value("${account.cache.account-read.max-size:10000}")
+    private int maxSize;
+
+    @Value("${account.cache.account-read.broadcast:true}")
+    private boolean broadcast;
+
+    //자기가 보낸 무효화 메세지를 구분하기 위한 서버 id.
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final ConcurrentHashMap<Long, Loading> loadings = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, CachedAccounts> entries = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean subscribing = new AtomicBoolean();
+    private volatile boolean subscribed;
+
+    public AccountReadCache(ObjectProvider<RedissonClient> redissonClient) {
+        this.redissonClient = redissonClient;
+    }
+
+    public List<AccountDto> get(Long userId, Supplier<List<AccountDto>> loader) {
+        if(!isCacheable()){
+            return loader.get();
+        }
+
+        CachedAccounts cached = entries.get(userId);
+        if(null != cached && cached.isValid(ttl)){
+            return cached.accounts();
+        }
+
+        Loading loading = loadings.compute(userId, (key, current) -> {
+            Loading started = null == current ? new Loading() : current;
+            started.readers++;
+            return started;
+        });
+        long version = loading.version.get();
+        try{
+            List<AccountDto> accounts = List.copyOf(loader.get());
+
+            //읽는 도중에 무효화가 일어났다면 (version 이 바뀜) 오래된 목록일 수 있으므로 담지 않는다.
+            entries.compute(userId, (key, old) ->
+                    version == loading.version.get()
+                            ? new CachedAccounts(accounts, System.nanoTime())
+                            : old);
+            evictOverflow();
+            return accounts;
+        }finally {
+            loadings.computeIfPresent(userId, (key, current) -> 0 == --current.readers ? null : current);
+        }
+    }
+
+    //트랜잭션 안에서 호출되면 커밋된 뒤에 무효화한다.
+    //(커밋 전에 무효화하면 다른 요청이 커밋 전 값을 다시 캐시에 담을 수 있다.)
+    //무효화는 요청 스레드에서 응답 전에 일어나므로 자기 서버의 쓰기는 바로 다음 읽기에 보인다.
+    public void invalidateAfterCommit(Long userId) {
+        if(TransactionSynchronizationManager.isSynchronizationActive()){
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            invalidate(userId);
+                        }
+                    });
+            return;
+        }
+        invalidate(userId);
+    }
+
+    public void invalidate(Long userId) {
+        invalidateLocal(userId);
+        publish(userId);
+    }
+
+    //version 을 먼저 올리고 지운다. (읽기가 담는 것은 entries 의 같은 key 에서 version 을 본 뒤라서 둘 중 하나는 막힌다)
+    private void invalidateLocal(Long userId) {
+        Loading loading = loadings.get(userId);
+        if(null != loading){
+            loading.version.incrementAndGet();
+        }
+        entries.remove(userId);
+    }
+
+    private void evictOverflow() {
+        Iterator<Long> iterator = entries.keySet().iterator();
+        while (entries.size() > maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private boolean isCacheable() {
+        if(!enabled){
+            return false;
+        }
+        if(!broadcast || subscribed){
+            return true;
+        }
+
+        //다른 서버의 무효화를 받을 수 있게 된 뒤부터 캐시를 사용한다.
+        //redis 접속이 첫 요청을 붙잡지 않도록 구독은 백그라운드에서 한다.
+        if(subscribing.compareAndSet(false, true)){
+            CompletableFuture.runAsync(this::subscribe);
+        }
+        return false;
+    }
+
+    private void subscribe() {
+        try{
+            redissonClient.getObject()
+                    .getTopic(INVALIDATION_TOPIC, StringCodec.INSTANCE)
+                    .addListener(String.class, (channel, message) -> onMessage(message));
+            subscribed = true;
+            log.info("account read cache subscribed to {}", INVALIDATION_TOPIC);
+        }catch(Exception e){
+            log.error("account read cache subscribe failed", e);
+            subscribing.set(false);
+        }
+    }
+
+    private void publish(Long userId) {
+        if(!enabled || !broadcast){
+            return;
+        }
+        try{
+            redissonClient.getObject()
+                    .getTopic(INVALIDATION_TOPIC, StringCodec.INSTANCE)
+                    .publishAsync(nodeId + ":" + userId);
+        }catch(Exception e){
+            //전파에 실패해도 다른 서버의 캐시는 ttl 이 지나면 다시 읽힌다.
+            log.error("account read cache invalidation publish failed. userId : {}", userId, e);
+        }
+    }
+
+    private void onMessage(String message) {
+        int separator = message.lastIndexOf(':');
+        if(message.substring(0, separator).equals(nodeId)){
+            return;
+        }
+        invalidateLocal(Long.valueOf(message.substring(separator + 1)));
+    }
+
+    private record CachedAccounts(List<AccountDto> accounts, long loadedAt) {
+        boolean isValid(Duration ttl) {
+            return System.nanoTime() - loadedAt < ttl.toNanos();
+        }
+    }
+
+    //사용자 한명을 읽고 있는 요청 수와 그동안의 무효화 version. (readers 는 loadings 의 compute 안에서만 바꾼다)
+    private static final class Loading {
+        private final AtomicLong version = new AtomicLong();
+        private int readers;
+    }
+}
@@ -3,28 +3,43 @@ package com.example.account.service;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.dto.AccountDto;
+import com.example.account.dto.AccountSummaryDto;
+import com.example.account.dto.BalanceChangeDto;
 import com.example.account.dto.GetAccountDto;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountUserRepository;
 import com.example.account.type.AccountStatus;
 import com.example.account.repository.AccountRepository;
+import com.example.account.replica.ReplicaRouting;
+import com.example.account.shard.ShardKey;
+import com.example.account.shard.ShardRouting;
 import com.example.account.type.ErrorCode;
+import com.example.account.validation.AccountNumberFilter;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class AccountService {
+    //사용자당 최대 계좌 수. (해지한 계좌도 센다)
+    public static final int MAX_ACCOUNT_COUNT = 10;
+
     private final AccountRepository accountRepository;
     private final AccountUserRepository accountUserRepository;
-
-    @Transactional
+    private final AccountReadCache accountReadCache;
+    private final ShardRouting shardRouting;
+    private final ReplicaRouting replicaRouting;
+    private final AccountNumberFilter accountNumberFilter;
+    private final AccountSummaryService accountSummaryService;
+    private final AccountNumberAllocator accountNumberAllocator;
+
+    //sharding 이 켜져 있으면 새 계좌는 계좌번호로 정해진 shard 에 저장하고 요약, 계좌번호는 directory 에서 갱신한다.
+    //그래서 메서드 전체를 하나의 트랜잭션으로 묶지 않는다.
     public AccountDto createAccount(Long userId, Long initialBalance) {
 
         //서비스 정책.
@@ -34,21 +49,26 @@ public class AccountService {
 
         AccountUser accountUser = getAccountUser(userId);
 
-        validateCreateAccount(accountUser);
+        //계좌 수 제한은 사용자 요약 한줄로 검사하고, 계좌 저장과 같이 요약을 갱신한다.
+        final Account account = accountSummaryService.openAccount(accountUser, initialBalance, () -> {
+            String accountNumber = String.valueOf(accountNumberAllocator.reserve(1));
+
+            //lock 전 검증이 새 계좌를 없는 계좌로 거절하지 않도록 저장보다 먼저 더한다.
+            accountNumberFilter.add(accountNumber);
 
-        String accountNumber = accountRepository.findFirstByOrderByIdDesc()
-                .map(account -> (Integer.parseInt(account.getAccountNumber())) + 1 + "")
-                .orElse("1000000000");
+            return shardRouting.onShard(accountNumber, () -> accountRepository.save(
+                    Account.builder()
+                            .accountUser(accountUser)
+                            .accountNumber(accountNumber)
+                            .accountStatus(AccountStatus.IN_USE)
+                            .accountBalance(initialBalance)
+                            .registeredAt(LocalDateTime.now())
+                            .build()
+            ));
+        });
 
-        final Account account = accountRepository.save(
-                Account.builder()
-                        .accountUser(accountUser)
-                        .accountNumber(accountNumber)
-                        .accountStatus(AccountStatus.IN_USE)
-                        .accountBalance(initialBalance)
-                        .registeredAt(LocalDateTime.now())
-                        .build()
-        );
+        accountReadCache.invalidateAfterCommit(accountUser.getId());
+        replicaRouting.markWrittenAfterCommit(accountUser.getId());
 
         //Repository 의 응답 에서 나온 Entity 를
         //Service -> Controller 간의 통신에 이용하는것은 문제가 있을수있다.
@@ -56,32 +76,29 @@ public class AccountService {
         return AccountDto.fromEntity(account);
     }
 
-
-    private void validateCreateAccount(AccountUser accountUser){
-        if(10 <= accountRepository.countByAccountUser(accountUser)){
-            throw new AccountException(ErrorCode.OVER_MAX_ACCOUNT);
-        }
-    }
-
     @Transactional
-    public AccountDto deleteAccount(Long userId, String accountNumber){
+    public AccountDto deleteAccount(Long userId, @ShardKey String accountNumber){
 
         AccountUser accountUser = getAccountUser(userId);
 
         Account account = accountRepository.findByAccountNumber(accountNumber)
-                        .orElseThrow(()-> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+                        .orElseThrow(()-> AccountException.of(ErrorCode.ACCOUNT_NOT_FOUND));
 
         validateDeleteAccount(account, accountUser);
 
         account.setAccountStatus(AccountStatus.UNREGISTERED);
         account.setUnregisteredAt(LocalDateTime.now());
+        accountSummaryService.unregisterAccount(accountUser.getId());
+
+        accountReadCache.invalidateAfterCommit(accountUser.getId());
+        replicaRouting.markWrittenAfterCommit(accountUser.getId());
 
         return AccountDto.fromEntity(account);
     }
 
     private AccountUser getAccountUser(Long userId) {
         AccountUser accountUser = accountUserRepository.findById(userId)
-                .orElseThrow(()->new AccountException(ErrorCode.USER_NOT_FOUND));
+                .orElseThrow(()->AccountException.of(ErrorCode.USER_NOT_FOUND));
         return accountUser;
     }
 
@@ -89,28 +106,41 @@ public class AccountService {
         //정책.
         //1.사용자 또는 계좌가 없는경우. --> deleteAccount 메서드 에서 처리
         //2.사용자 아이디와, 계좌 소유주가 다른경우.
-        if(accountUser.getId() != account.getAccountUser().getId()){
-            throw new AccountException(ErrorCode.USER_ACCOUNT_NOT_MATCH);
+        if(!accountUser.getId().equals(account.getAccountUser().getId())){
+            throw AccountException.of(ErrorCode.USER_ACCOUNT_NOT_MATCH);
         }
         //3.계좌가 이미 해지 상태인 경우.
         if(AccountStatus.UNREGISTERED ==  account.getAccountStatus()){
-            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTRED);
+            throw AccountException.of(ErrorCode.ACCOUNT_ALREADY_UNREGISTRED);
         }
         //4.잔액이 남아 있는 경우.
         if(0L != account.getAccountBalance()){
-            throw new AccountException(ErrorCode.ACCOUNT_REMAIN_BALANCE);
+            throw AccountException.of(ErrorCode.ACCOUNT_REMAIN_BALANCE);
         }
     }
 
-    @Transactional
+    //캐시에 있으면 트랜잭션(DB 커넥션) 없이 바로 돌려준다.
+    //캐시에 없을때만 repository 를 통해 사용자와 계좌 목록을 읽어온다.
+    //replica 가 켜져 있으면 사용자가 방금 쓴 경우가 아닐때 replica 에서 읽는다.
     public List<AccountDto> getAccounts(Long userId){
-        AccountUser accountUser = getAccountUser(userId);
+        return accountReadCache.get(userId, () -> replicaRouting.read(userId, () -> {
+            AccountUser accountUser = getAccountUser(userId);
 
-        List<Account> accountList = accountRepository.findByAccountUser(accountUser);
+            //sharding 이 켜져 있으면 사용자의 계좌가 여러 shard 에 나뉘어 있다.
+            return shardRouting.collect(() -> accountRepository.findDtoByAccountUser(accountUser),
+                    Comparator.comparing(AccountDto::getAccountNumber));
+        }));
+    }
 
-        return accountList.stream()
-                .map(AccountDto::fromEntity)
-                .collect(Collectors.toList());
+    //잔액 변경 stream 을 시작할때 보내는 지금 잔액. (방금 바뀐 잔액이어야 하므로 primary 에서 읽는다)
+    public BalanceChangeDto getBalance(@ShardKey String accountNumber){
+        return accountRepository.findByAccountNumber(accountNumber)
+                .map(BalanceChangeDto::fromAccount)
+                .orElseThrow(() -> AccountException.of(ErrorCode.ACCOUNT_NOT_FOUND));
     }
 
+    //요약 한줄만 읽는다. (요약이 아직 없는 사용자만 계좌들로부터 만든다)
+    public AccountSummaryDto getAccountSummary(Long userId){
+        return AccountSummaryDto.fromEntity(accountSummaryService.getSummary(getAccountUser(userId)));
+    }
 }
@@ -0,0 +1,209 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.AccountUserSummary;
+import com.example.account.dto.AccountDto;
+import com.example.account.exception.AccountException;
+import com.example.account.partition.TransactionPartitionRouting;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserSummaryRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.shard.ShardRouting;
+import com.example.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+//사용자별 계좌 요약(AccountUserSummary) 관리.
+//sharding 이 꺼져 있으면 요약은 계좌/거래와 같은 트랜잭션에서 갱신된다.
+//켜져 있으면 요약은 directory 에 있으므로 directory 트랜잭션에서 따로 갱신된다. (계좌 저장에 실패하면 되돌린다)
+//  잔액 변경, 해지는 shard 트랜잭션이 커밋된 뒤에 갱신한다. (shard 가 롤백되면 요약도 바뀌지 않는다)
+//요약이 없는 사용자(이 기능 전에 만든 사용자 등) 는 처음 읽거나 갱신할때 계좌들로부터 만든다.
+//1. 값이 없는 한줄을 따로 트랜잭션(REQUIRES_NEW) 에서 넣는다. (동시에 넣은 요청이 있으면 unique 충돌을 무시한다)
+//2. 그 줄을 lock 하고 계좌들을 읽어서 채운다. 이미 채워져 있으면 그대로 쓴다.
+//   채우는 동안의 갱신은 lock 을 기다렸다가 채운 값에 더해진다. (커밋되지 않아 읽지 못한 변경이 빠지지 않는다)
+//갱신할 줄이 없으면 만든 뒤에 다시 갱신한다.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AccountSummaryService {
+    private final AccountUserSummaryRepository accountUserSummaryRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final ShardRouting shardRouting;
+    private final TransactionPartitionRouting transactionPartitionRouting;
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+
+    public AccountUserSummary getSummary(AccountUser accountUser){
+        return accountUserSummaryRepository.findById(accountUser.getId())
+                .filter(AccountUserSummary::isBuilt)
+                .orElseGet(() -> build(accountUser.getId()));
+    }
+
+    //계좌 수 제한을 요약 한줄로 검사하면서 계좌를 만든다. (save 는 계좌번호를 정하고 저장한다)
+    public Account openAccount(AccountUser accountUser, Long initialBalance, Supplier<Account> save){
+        if(!accountUserSummaryRepository.existsBuilt(accountUser.getId())){
+            build(accountUser.getId());
+        }
+
+        PlatformTransactionManager manager = transactionManager.getIfAvailable();
+        if(shardRouting.isEnabled() || null == manager){
+            return addAccountAndSave(accountUser.getId(), initialBalance, save);
+        }
+        return new TransactionTemplate(manager).execute(
+                status -> addAccountAndSave(accountUser.getId(), initialBalance, save));
+    }
+
+    private Account addAccountAndSave(Long userId, Long initialBalance, Supplier<Account> save){
+        if(!addAccounts(userId, 1, initialBalance)){
+            throw AccountException.of(ErrorCode.OVER_MAX_ACCOUNT);
+        }
+
+        try{
+            return save.get();
+        }catch(RuntimeException e){
+            //한 트랜잭션이면 같이 롤백되므로 되돌려도 상관없다.
+            removeAccounts(userId, 1, initialBalance);
+            throw e;
+        }
+    }
+
+    //계좌 count 개 (잔액 합계 balance) 를 더한다. 계좌 수 제한을 넘으면 더하지 않고 false.
+    public boolean addAccounts(Long userId, int count, Long balance){
+        return 0 < updateOrBuild(userId, () -> accountUserSummaryRepository.addAccounts(userId, count, balance,
+                AccountService.MAX_ACCOUNT_COUNT, LocalDateTime.now()));
+    }
+
+    public void removeAccounts(Long userId, int count, Long balance){
+        accountUserSummaryRepository.removeAccounts(userId, count, balance);
+    }
+
+    public void unregisterAccount(Long userId){
+        LocalDateTime at = LocalDateTime.now();
+        afterShardCommit(userId, () -> updateOrBuild(userId,
+                () -> accountUserSummaryRepository.unregisterAccount(userId, at)));
+    }
+
+    public void addBalance(Long userId, Long delta){
+        LocalDateTime at = LocalDateTime.now();
+        afterShardCommit(userId, () -> updateOrBuild(userId,
+                () -> accountUserSummaryRepository.addBalance(userId, delta, at)));
+    }
+
+    //sharding 이면 directory 의 갱신이 shard 트랜잭션보다 먼저 커밋되므로, shard 트랜잭션이 커밋된 뒤에 갱신한다.
+    //커밋된 거래를 실패로 돌려주지 않도록 갱신 실패는 남기기만 한다.
+    private void afterShardCommit(Long userId, Runnable update){
+        if(!shardRouting.isEnabled() || !TransactionSynchronizationManager.isSynchronizationActive()){
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        try{
+                            update.run();
+                        }catch(RuntimeException e){
+                            log.error("account summary update failed after commit. userId : {}", userId, e);
+                        }
+                    }
+                });
+    }
+
+    //고친 줄이 없는데 요약이 아직 없으면 만들고 다시 고친다.
+    //(만들때는 이 요청의 커밋되지 않은 변경을 읽지 못하므로 다시 고쳐야 한번씩 들어간다)
+    private int updateOrBuild(Long userId, IntSupplier update){
+        int updated = update.getAsInt();
+        if(0 < updated || accountUserSummaryRepository.existsBuilt(userId)){
+            return updated;
+        }
+        build(userId);
+        return update.getAsInt();
+    }
+
+    private AccountUserSummary build(Long userId){
+        try{
+            inNewTransaction(() -> accountUserSummaryRepository.insertEmpty(userId));
+        }catch(DataIntegrityViolationException e){
+            //동시에 넣은 요청이 있었다.
+        }
+        return inNewTransaction(() -> {
+            AccountUserSummary summary = accountUserSummaryRepository.findForUpdate(userId)
+                    .orElseThrow(() -> new IllegalStateException("account summary not inserted : " + userId));
+            if(!summary.isBuilt()){
+                fill(summary, withoutTransaction(() -> shardRouting.collect(
+                        () -> accountRepository.findDtoByAccountUserId(userId),
+                        Comparator.comparing(AccountDto::getAccountNumber))),
+                        withoutTransaction(() -> lastTransactedAt(userId)));
+            }
+            return summary;
+        });
+    }
+
+    //모든 shard, 월 테이블에서 사용자의 마지막 거래 일시.
+    private LocalDateTime lastTransactedAt(Long userId){
+        return shardRouting.onEachShard(() -> transactionPartitionRouting.onMonths(null, null,
+                        () -> transactionRepository.findLastTransactedAtByAccountUserId(userId)))
+                .stream()
+                .flatMap(List::stream)
+                .flatMap(Optional::stream)
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+    }
+
+    //lock 한 (영속 상태의) 요약에 채우므로 커밋할때 update 된다.
+    //마지막 활동 일시는 계좌 생성, 해지, 거래 일시 중 가장 늦은 것이다.
+    private static void fill(AccountUserSummary summary, List<AccountDto> accounts, LocalDateTime lastTransactedAt){
+        List<AccountDto> activeAccounts = accounts.stream()
+                .filter(account -> null == account.getUnregisteredAt())
+                .toList();
+
+        summary.setAccountCount(accounts.size());
+        summary.setActiveAccountCount(activeAccounts.size());
+        summary.setTotalBalance(activeAccounts.stream().mapToLong(AccountDto::getAccountBalance).sum());
+        summary.setLastActivityAt(Stream.concat(
+                        accounts.stream().flatMap(account -> Stream.of(
+                                account.getRegisteredAt(), account.getUnregisteredAt())),
+                        Stream.of(lastTransactedAt))
+                .filter(at -> null != at)
+                .max(Comparator.naturalOrder())
+                .orElse(null));
+    }
+
+    private <T> T inNewTransaction(Supplier<T> action){
+        PlatformTransactionManager manager = transactionManager.getIfAvailable();
+        if(null == manager){
+            return action.get();
+        }
+        TransactionTemplate transactionTemplate = new TransactionTemplate(manager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return transactionTemplate.execute(status -> action.get());
+    }
+
+    //계좌는 sharding 이면 다른 DB 에 있으므로 directory 트랜잭션을 잠시 멈추고 읽는다.
+    private <T> T withoutTransaction(Supplier<T> action){
+        PlatformTransactionManager manager = transactionManager.getIfAvailable();
+        if(null == manager){
+            return action.get();
+        }
+        TransactionTemplate transactionTemplate = new TransactionTemplate(manager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+        return transactionTemplate.execute(status -> action.get());
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.account.service;
+
+import com.example.account.domain.Transaction;
+import com.example.account.dto.BalanceChangeDto;
+import com.example.account.dto.ErrorResponse;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+//GET /account/{accountNumber}/events 의 잔액 변경 SSE stream.
+//구독자는 servlet 비동기 요청(SseEmitter) 이라서 스레드를 잡고 있지 않는다.
+//보내는 것은 dispatch-threads 개의 스레드가, 연결 확인(heartbeat) 은 스레드 하나가 모든 구독자에게 한다.
+//사용/취소가 커밋되면 이 서버의 구독자에게 보내고 redis topic 으로 다른 서버에도 전달한다.
+//(다른 서버의 메세지는 이 서버에 구독자가 생긴 뒤부터 받는다)
+//구독자마다 마지막으로 보낸 changedAt 보다 이전의 변경은 보내지 않는다. (지금 잔액과 늦게 도착한 이전 변경이 뒤바뀌지 않도록)
+@Slf4j
+@Component
+public class BalanceChangeStream {
+    private static final String TOPIC = "account-balance-change";
+    private static final String EVENT_NAME = "balance";
+
+    private final ObjectProvider<RedissonClient> redissonClient;
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    @Value("${account.balance-events.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${account.balance-events.broadcast:true}")
+    private boolean broadcast = true;
+
+    //연결을 이만큼 유지하고 닫는다. (클라이언트는 다시 연결한다)
+    @Value("${account.balance-events.timeout:30m}")
+    private Duration timeout = Duration.ofMinutes(30);
+
+    @Value("${account.balance-events.heartbeat-interval:15s}")
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    @Value("${account.balance-events.max-subscribers:10000}")
+    private int maxSubscribers = 10_000;
+
+    @Value("${account.balance-events.dispatch-threads:2}")
+    private int dispatchThreads = 2;
+
+    //자기가 보낸 메세지를 구분하기 위한 서버 id.
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final AtomicBoolean subscribing = new AtomicBoolean();
+
+    private ExecutorService dispatcher;
+    private ScheduledExecutorService heartbeat;
+
+    public BalanceChangeStream(ObjectProvider<RedissonClient> redissonClient) {
+        this.redissonClient = redissonClient;
+    }
+
+    @PostConstruct
+    public void start(){
+        if(!enabled){
+            return;
+        }
+        dispatcher = Executors.newFixedThreadPool(dispatchThreads, runnable -> {
+            Thread thread = new Thread(runnable, "balance-change-dispatch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "balance-change-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleWithFixedDelay(this::heartbeatAll,
+                heartbeatInterval.toMillis(), heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop(){
+        if(null != heartbeat){
+            heartbeat.shutdownNow();
+            dispatcher.shutdownNow();
+        }
+        subscribers.values().forEach(accountSubscribers -> accountSubscribers.forEach(
+                subscriber -> subscriber.emitter.complete()));
+    }
+
+    //구독을 등록한 뒤에 지금 잔액(current) 을 첫 이벤트로 보낸다.
+    //(먼저 읽고 등록하면 그 사이의 변경을 놓친다)
+    //계좌가 없거나 구독자가 너무 많으면 error 이벤트를 보내고 닫는다.
+    public SseEmitter subscribe(String accountNumber, Supplier<BalanceChangeDto> current){
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        if(!enabled || maxSubscribers <= subscriberCount.get()){
+            return reject(emitter, ErrorCode.TOO_MANY_SUBSCRIBERS);
+        }
+
+        Subscriber subscriber = new Subscriber(accountNumber, emitter);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        subscribers.computeIfAbsent(accountNumber, key -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        subscriberCount.incrementAndGet();
+        subscribeTopic();
+
+        try{
+            subscriber.send(current.get());
+        }catch(AccountException e){
+            remove(subscriber);
+            return reject(emitter, e.getErrorCode());
+        }
+        return emitter;
+    }
+
+    //트랜잭션 안에서 호출되면 커밋된 뒤에 보낸다. 요청 스레드는 보내기를 맡기기만 하고 기다리지 않는다.
+    public void publishAfterCommit(Transaction transaction){
+        if(!enabled){
+            return;
+        }
+        BalanceChangeDto change = BalanceChangeDto.fromEntity(transaction);
+        if(TransactionSynchronizationManager.isSynchronizationActive()){
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            publish(change);
+                        }
+                    });
+            return;
+        }
+        publish(change);
+    }
+
+    public int getSubscriberCount(){
+        return subscriberCount.get();
+    }
+
+    private void publish(BalanceChangeDto change){
+        deliver(change);
+        if(!broadcast){
+            return;
+        }
+        try{
+            redissonClient.getObject()
+                    .getTopic(TOPIC, StringCodec.INSTANCE)
+                    .publishAsync(nodeId + " " + objectMapper.writeValueAsString(change));
+        }catch(Exception e){
+            //다른 서버의 구독자는 이 변경을 받지 못한다. (다음 변경이나 다시 연결할때의 지금 잔액으로 맞춰진다)
+            log.error("balance change publish failed. accountNumber : {}", change.getAccountNumber(), e);
+        }
+    }
+
+    private void deliver(BalanceChangeDto change){
+        Set<Subscriber> accountSubscribers = subscribers.get(change.getAccountNumber());
+        if(null == accountSubscribers || accountSubscribers.isEmpty()){
+            return;
+        }
+        dispatcher.execute(() -> accountSubscribers.forEach(subscriber -> subscriber.send(change)));
+    }
+
+    private void subscribeTopic(){
+        if(!broadcast || !subscribing.compareAndSet(false, true)){
+            return;
+        }
+        //redis 접속이 첫 구독 요청을 붙잡지 않도록 백그라운드에서 한다.
+        CompletableFuture.runAsync(() -> {
+            try{
+                redissonClient.getObject()
+                        .getTopic(TOPIC, StringCodec.INSTANCE)
+                        .addListener(String.class, (channel, message) -> onMessage(message));
+                log.info("balance change stream subscribed to {}", TOPIC);
+            }catch(Exception e){
+                log.error("balance change stream subscribe failed", e);
+                subscribing.set(false);
+            }
+        });
+    }
+
+    private void onMessage(String message){
+        int separator = message.indexOf(' ');
+        if(message.substring(0, separator).equals(nodeId)){
+            return;
+        }
+        try{
+            deliver(objectMapper.readValue(message.substring(separator + 1), BalanceChangeDto.class));
+        }catch(JsonProcessingException e){
+            log.error("balance change message parse failed : {}", message, e);
+        }
+    }
+
+    private void heartbeatAll(){
+        subscribers.values().forEach(accountSubscribers -> accountSubscribers.forEach(Subscriber::heartbeat));
+    }
+
+    private void remove(Subscriber subscriber){
+        Set<Subscriber> accountSubscribers = subscribers.get(subscriber.accountNumber);
+        if(null != accountSubscribers && accountSubscribers.remove(subscriber)){
+            subscriberCount.decrementAndGet();
+            subscribers.computeIfPresent(subscriber.accountNumber,
+                    (key, remaining) -> remaining.isEmpty() ? null : remaining);
+        }
+    }
+
+    private SseEmitter reject(SseEmitter emitter, ErrorCode errorCode){
+        try{
+            emitter.send(SseEmitter.event()
+                    .name("error")
+                    .data(new ErrorResponse(errorCode, errorCode.getDescription()), MediaType.APPLICATION_JSON));
+            emitter.complete();
+        }catch(IOException e){
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    private final class Subscriber {
+        private final String accountNumber;
+        private final SseEmitter emitter;
+        private LocalDateTime lastChangedAt;
+
+        private Subscriber(String accountNumber, SseEmitter emitter) {
+            this.accountNumber = accountNumber;
+            this.emitter = emitter;
+        }
+
+        private synchronized void send(BalanceChangeDto change){
+            if(null != lastChangedAt && null != change.getChangedAt()
+                    && !change.getChangedAt().isAfter(lastChangedAt)){
+                return;
+            }
+            lastChangedAt = change.getChangedAt();
+            emit(SseEmitter.event().name(EVENT_NAME).data(change, MediaType.APPLICATION_JSON));
+        }
+
+        private synchronized void heartbeat(){
+            emit(SseEmitter.event().comment("heartbeat"));
+        }
+
+        //보내지 못했으면 연결이 끊긴 것이므로 구독을 지운다.
+        private void emit(SseEmitter.SseEventBuilder event){
+            try{
+                emitter.send(event);
+            }catch(IOException | IllegalStateException e){
+                remove(this);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
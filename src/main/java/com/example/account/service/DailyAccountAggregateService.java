@@ -0,0 +1,227 @@
+package com.example.account.service;
+
+import com.example.account.domain.DailyAccountAggregate;
+import com.example.account.dto.DailyAggregateDto;
+import com.example.account.exception.AccountException;
+import com.example.account.partition.TransactionPartitionRouting;
+import com.example.account.replica.ReplicaRouting;
+import com.example.account.repository.DailyAccountAggregateRepository;
+import com.example.account.repository.TransactionFailureRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.shard.ShardRouting;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.FailureRecordMode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+//계좌별 하루 거래 집계(daily_account_aggregate) 관리.
+//성공한 사용/취소는 거래와 같은 트랜잭션에서 update 한 문장으로 더한다.
+//실패는 TransactionFailureAggregator 가 flush 할때 모아서 더한다. (row 모드면 실패마다)
+//그 날의 첫 거래면 row 를 먼저 따로 트랜잭션(REQUIRES_NEW) 에서 만든다.
+//(거래 트랜잭션에서 insert 하면 동시에 만든 다른 요청과 unique 충돌이 나서 거래까지 롤백된다)
+//집계를 쓰기 전의 거래, 이관한 거래는 backfill 로 거래(와 실패 집계) 에서 날짜마다 다시 만든다.
+@Slf4j
+@Service
+public class DailyAccountAggregateService {
+    //이만큼 기간을 한번에 조회할 수 있다.
+    public static final long MAX_QUERY_DAYS = 366L;
+    //row 를 만든 (계좌, 날짜) 를 기억하는 최대 갯수. 넘으면 비우고 다시 확인한다.
+    private static final int MAX_CREATED_KEYS = 100_000;
+
+    private final DailyAccountAggregateRepository dailyAccountAggregateRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionFailureRepository transactionFailureRepository;
+    private final ShardRouting shardRouting;
+    private final ReplicaRouting replicaRouting;
+    private final TransactionPartitionRouting transactionPartitionRouting;
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+
+    @Value("${account.failure.mode:aggregate}")
+    private FailureRecordMode failureMode = FailureRecordMode.AGGREGATE;
+
+    private final Set<Key> created = ConcurrentHashMap.newKeySet();
+
+    public DailyAccountAggregateService(DailyAccountAggregateRepository dailyAccountAggregateRepository,
+                                        TransactionRepository transactionRepository,
+                                        TransactionFailureRepository transactionFailureRepository,
+                                        ShardRouting shardRouting,
+                                        ReplicaRouting replicaRouting,
+                                        TransactionPartitionRouting transactionPartitionRouting,
+                                        ObjectProvider<PlatformTransactionManager> transactionManager) {
+        this.dailyAccountAggregateRepository = dailyAccountAggregateRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionFailureRepository = transactionFailureRepository;
+        this.shardRouting = shardRouting;
+        this.replicaRouting = replicaRouting;
+        this.transactionPartitionRouting = transactionPartitionRouting;
+        this.transactionManager = transactionManager;
+    }
+
+    public void addDebit(String accountNumber, Long amount){
+        add(accountNumber, LocalDate.now(), amount, 0L, 1L, 0L);
+    }
+
+    public void addCancel(String accountNumber, Long amount){
+        add(accountNumber, LocalDate.now(), 0L, amount, 1L, 0L);
+    }
+
+    public void addFailures(String accountNumber, LocalDate date, long count){
+        add(accountNumber, date, 0L, 0L, 0L, count);
+    }
+
+    //accountNumber 가 없으면 모든 계좌의 날짜별 합계. (모든 shard 에서 읽어서 날짜별로 더한다)
+    public List<DailyAggregateDto> getDailyAggregates(String accountNumber, LocalDate from, LocalDate to){
+        if(from.isAfter(to) || MAX_QUERY_DAYS < ChronoUnit.DAYS.between(from, to) + 1){
+            throw AccountException.of(ErrorCode.INVALID_DATE_RANGE);
+        }
+
+        if(null != accountNumber){
+            return shardRouting.onShard(accountNumber, () -> replicaRouting.read(null,
+                    () -> dailyAccountAggregateRepository
+                            .findByAccountNumberAndAggregateDateBetweenOrderByAggregateDate(accountNumber, from, to)
+                            .stream()
+                            .map(DailyAggregateDto::fromEntity)
+                            .toList()));
+        }
+
+        Map<LocalDate, DailyAggregateDto> days = new TreeMap<>();
+        shardRouting.onEachShard(() -> replicaRouting.read(null,
+                        () -> dailyAccountAggregateRepository.sumByAggregateDate(from, to)))
+                .forEach(shardDays -> shardDays.forEach(day ->
+                        days.merge(day.getAggregateDate(), day, DailyAggregateDto::sum)));
+        return List.copyOf(days.values());
+    }
+
+    private void add(String accountNumber, LocalDate date, long debitAmount, long cancelAmount,
+                     long successCount, long failureCount){
+        Key key = new Key(accountNumber, date);
+        if(!created.contains(key)){
+            create(key);
+        }
+        if(0 < dailyAccountAggregateRepository.add(accountNumber, date,
+                debitAmount, cancelAmount, successCount, failureCount)){
+            return;
+        }
+        //만든 것으로 기억했지만 row 가 없으면 (지워졌으면) 다시 만들고 더한다.
+        created.remove(key);
+        create(key);
+        dailyAccountAggregateRepository.add(accountNumber, date,
+                debitAmount, cancelAmount, successCount, failureCount);
+    }
+
+    //[from, to] 날짜의 집계를 거래(와 실패 집계) 에서 다시 만든다. 다시 만든 (계좌, 날짜) 수를 돌려준다.
+    //거래가 더 생기는 오늘 이후는 다시 만들지 않는다. (오늘 집계는 거래를 쓸때 더한 값 그대로)
+    //날짜마다, shard 마다 한 트랜잭션이다. 여러번 돌려도 같은 값이 된다.
+    public long backfill(LocalDate from, LocalDate to){
+        if(from.isAfter(to)){
+            throw AccountException.of(ErrorCode.INVALID_DATE_RANGE);
+        }
+        LocalDate last = to.isBefore(LocalDate.now()) ? to : LocalDate.now().minusDays(1);
+        long rows = 0;
+        for (LocalDate date = from; !date.isAfter(last); date = date.plusDays(1)) {
+            LocalDate day = date;
+            rows += shardRouting.onEachShard(() -> new TransactionTemplate(transactionManager.getObject())
+                            .execute(status -> backfillDay(day))).stream()
+                    .mapToLong(Integer::longValue)
+                    .sum();
+        }
+        log.info("daily account aggregate backfilled. from : {}, to : {}, rows : {}", from, last, rows);
+        return rows;
+    }
+
+    private Integer backfillDay(LocalDate date){
+        LocalDateTime start = date.atStartOfDay();
+        LocalDateTime end = date.plusDays(1).atStartOfDay();
+        YearMonth month = YearMonth.from(date);
+        Map<String, long[]> aggregates = new HashMap<>();
+
+        transactionPartitionRouting.onMonths(month, month, () -> transactionRepository.sumSuccessesByAccount(
+                        start, end, TransactionType.USE, TransactionResultType.S))
+                .forEach(sums -> sums.forEach(sum -> {
+                    long[] aggregate = aggregates.computeIfAbsent(sum.getAccountNumber(), key -> new long[4]);
+                    aggregate[0] += sum.getDebitAmount();
+                    aggregate[1] += sum.getCancelAmount();
+                    aggregate[2] += sum.getSuccessCount();
+                }));
+        //aggregate 모드의 실패는 transaction_failure 에 세고, 실패 사유가 있는 거래 row 는 그 중 표본이다.
+        transactionPartitionRouting.onMonths(month, month, () -> transactionRepository.countFailuresByAccount(
+                        start, end, TransactionResultType.F, FailureRecordMode.ROW == failureMode))
+                .forEach(counts -> counts.forEach(count -> aggregates.computeIfAbsent(
+                        count.getAccountNumber(), key -> new long[4])[3] += count.getCount()));
+        transactionFailureRepository.sumFailureCountsByAccount(start, end)
+                .forEach(count -> aggregates.computeIfAbsent(
+                        count.getAccountNumber(), key -> new long[4])[3] += count.getCount());
+
+        aggregates.forEach((accountNumber, aggregate) -> {
+            if(0 == dailyAccountAggregateRepository.replace(accountNumber, date,
+                    aggregate[0], aggregate[1], aggregate[2], aggregate[3])){
+                dailyAccountAggregateRepository.save(DailyAccountAggregate.builder()
+                        .accountNumber(accountNumber)
+                        .aggregateDate(date)
+                        .debitAmount(aggregate[0])
+                        .cancelAmount(aggregate[1])
+                        .successCount(aggregate[2])
+                        .failureCount(aggregate[3])
+                        .build());
+            }
+        });
+        return aggregates.size();
+    }
+
+    //없으면 0 으로 만든다. 다른 요청이 먼저 만들었으면 그대로 쓴다.
+    private void create(Key key){
+        PlatformTransactionManager manager = transactionManager.getIfAvailable();
+        try{
+            if(null == manager){
+                insertIfAbsent(key);
+            }else{
+                TransactionTemplate transactionTemplate = new TransactionTemplate(manager);
+                transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+                transactionTemplate.executeWithoutResult(status -> insertIfAbsent(key));
+            }
+        }catch(DataIntegrityViolationException e){
+            //동시에 만든 요청이 있었다.
+        }
+
+        if(MAX_CREATED_KEYS <= created.size()){
+            created.clear();
+        }
+        created.add(key);
+    }
+
+    private void insertIfAbsent(Key key){
+        if(dailyAccountAggregateRepository.existsByAccountNumberAndAggregateDate(key.accountNumber(), key.date())){
+            return;
+        }
+        dailyAccountAggregateRepository.saveAndFlush(DailyAccountAggregate.builder()
+                .accountNumber(key.accountNumber())
+                .aggregateDate(key.date())
+                .debitAmount(0L)
+                .cancelAmount(0L)
+                .successCount(0L)
+                .failureCount(0L)
+                .build());
+    }
+
+    private record Key(String accountNumber, LocalDate date) {
+    }
+}
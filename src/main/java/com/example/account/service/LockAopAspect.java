@@ -1,6 +1,9 @@
 package com.example.account.service;
 
 import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.metrics.LatencyRecorder;
+import com.example.account.type.LatencyPhase;
+import com.example.account.validation.PreLockValidator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -15,14 +18,25 @@ import org.springframework.stereotype.Component;
 public class LockAopAspect {
 
     private final LockService lockService;
+    private final LatencyRecorder latencyRecorder;
+    private final PreLockValidator preLockValidator;
 
     @Around("@annotation(com.example.account.aop.AccountLock) && args(request)")
     public Object aroundMethod(
             ProceedingJoinPoint pjp,
             AccountLockIdInterface request
     ) throws Throwable {
-        //lock 취득 시도
-        lockService.lock(request.getAccountNumber());
+        //요청 값만으로 거절할 수 있는 요청은 lock, DB 없이 여기서 거절한다.
+        //(거절된 요청은 실패 거래로 저장되지 않는다)
+        preLockValidator.validate(request);
+
+        //lock 취득 시도 (못 잡고 ACCOUNT_TRANSACTION_LOCK 으로 끝난 대기도 기록한다)
+        long lockStartedAt = System.nanoTime();
+        try{
+            lockService.lock(request.getAccountNumber());
+        }finally {
+            latencyRecorder.record(LatencyPhase.LOCK_WAIT, System.nanoTime() - lockStartedAt);
+        }
         try{
             //before
             return pjp.proceed();
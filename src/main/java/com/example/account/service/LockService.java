@@ -1,6 +1,7 @@
 package com.example.account.service;
 
 import com.example.account.exception.AccountException;
+import com.example.account.shard.ConsistentHashRing;
 import com.example.account.type.ErrorCode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -15,26 +16,38 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 public class LockService {
     //RedisRepositoryConfig.java에서
-    //Bean어노테이션으로 등록해 놓은 redissonClient가 있다.
+    //Bean어노테이션으로 등록해 놓은 lockClientRing이 있다.
 
     //만약 변수의 이름(final이여만하나?)과 Bean의 이름이 같다면.
     //자동으로 주입이 되게 된다.
-    private final RedissonClient redissonClient;
+    //sharded 모드에서는 계좌번호의 해시로 lock 을 잡을 redis 가 정해진다.
+    private final ConsistentHashRing<RedissonClient> lockClientRing;
 
     public String lock(String accountNumber){
-        RLock lock = redissonClient.getLock(getLockKey(accountNumber));
+        RLock lock = getLock(accountNumber);
         log.debug("Trying lock for accountNumber : {}", accountNumber);
 
         try{
             boolean isLock = lock.tryLock(1,15, TimeUnit.SECONDS);
 
             if(!isLock){
-                log.error("---------------Lock Failed----------------");
-                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                //lock 경합은 거절(ACCOUNT_TRANSACTION_LOCK) 로 GlobalExceptionHandler 에서 모아서 남긴다.
+                log.debug("Lock failed for accountNumber : {}", accountNumber);
+                throw AccountException.of(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
             }
 
+        }catch(AccountException e){
+            throw e;
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            log.error("Redis lock interrupted. accountNumber : {}", accountNumber);
+            throw AccountException.of(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
         }catch(Exception e){
-            log.error("Redis lock failed");
+            //redis 에 접속할 수 없는 경우 등.
+            //예전에는 여기서 로그만 남기고 lock 없이 거래를 진행했다. (동시에 잔액이 바뀌는 문제)
+            //lock 을 잡지 못했다면 거래를 진행하지 않는다.
+            log.error("Redis lock failed. accountNumber : {}", accountNumber, e);
+            throw AccountException.of(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
         }
 
         return "get lock success";
@@ -42,7 +55,11 @@ public class LockService {
 
     public void unlock(String accountNumber){
         log.debug("Unlock for accountNumber : {}", accountNumber);
-        redissonClient.getLock(getLockKey(accountNumber)).unlock();
+        getLock(accountNumber).unlock();
+    }
+
+    private RLock getLock(String accountNumber) {
+        return lockClientRing.get(accountNumber).getLock(getLockKey(accountNumber));
     }
 
     private static String getLockKey(String accountNumber) {
@@ -0,0 +1,180 @@
+package com.example.account.service;
+
+import com.example.account.domain.TransactionFailure;
+import com.example.account.outbox.TransactionOutboxWriter;
+import com.example.account.repository.TransactionFailureRepository;
+import com.example.account.shard.ShardRouting;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.FailureRecordMode;
+import com.example.account.type.TransactionType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+//실패한 사용/취소 거래를 계좌, 거래 종류, ErrorCode, 분 단위 bucket 으로 메모리에서 센다.
+//flush-interval 마다 닫힌 bucket 을 transaction_failure 에 bucket 당 한줄로 저장한다. (shard 별로 saveAll 한번)
+//sample-rate 만큼의 실패는 실패 사유와 함께 거래(Transaction) row 로도 남긴다.
+//저장할때 같은 트랜잭션에서 계좌별 하루 집계(DailyAccountAggregateService) 의 실패 수도 더하고
+//bucket 마다 실패 이벤트를 outbox 에 쓴다.
+@Slf4j
+@Component
+public class TransactionFailureAggregator {
+    private static final long BUCKET_MILLIS = 60_000L;
+    //bucket 이 닫힌 직후에 늦게 더하는 스레드가 있을 수 있으므로 조금 더 기다렸다 저장한다.
+    private static final long CLOSE_GRACE_MILLIS = 5_000L;
+
+    private final TransactionFailureRepository transactionFailureRepository;
+    private final ShardRouting shardRouting;
+    private final DailyAccountAggregateService dailyAccountAggregateService;
+    private final TransactionOutboxWriter transactionOutboxWriter;
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+
+    @Value("${account.failure.mode:aggregate}")
+    private FailureRecordMode mode = FailureRecordMode.AGGREGATE;
+
+    @Value("${account.failure.sample-rate:0}")
+    private double sampleRate;
+
+    @Value("${account.failure.flush-interval:10s}")
+    private Duration flushInterval = Duration.ofSeconds(10);
+
+    private final Map<Bucket, LongAdder> counts = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "transaction-failure-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TransactionFailureAggregator(TransactionFailureRepository transactionFailureRepository,
+                                        ShardRouting shardRouting,
+                                        DailyAccountAggregateService dailyAccountAggregateService,
+                                        TransactionOutboxWriter transactionOutboxWriter,
+                                        ObjectProvider<PlatformTransactionManager> transactionManager) {
+        this.transactionFailureRepository = transactionFailureRepository;
+        this.shardRouting = shardRouting;
+        this.dailyAccountAggregateService = dailyAccountAggregateService;
+        this.transactionOutboxWriter = transactionOutboxWriter;
+        this.transactionManager = transactionManager;
+    }
+
+    @PostConstruct
+    public void start(){
+        if(FailureRecordMode.AGGREGATE == mode){
+            scheduler.scheduleWithFixedDelay(this::flushQuietly,
+                    flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    //종료할 때는 아직 열려 있는 bucket 까지 저장한다.
+    @PreDestroy
+    public void stop(){
+        scheduler.shutdownNow();
+        flush(Long.MAX_VALUE);
+    }
+
+    //실패를 센다. 거래 row 로도 남겨야 하면 true.
+    public boolean record(String accountNumber, TransactionType transactionType, ErrorCode errorCode){
+        if(FailureRecordMode.ROW == mode){
+            dailyAccountAggregateService.addFailures(accountNumber, LocalDate.now(), 1L);
+            return true;
+        }
+
+        long bucketStartedAt = System.currentTimeMillis() / BUCKET_MILLIS * BUCKET_MILLIS;
+        counts.computeIfAbsent(new Bucket(accountNumber, transactionType, errorCode, bucketStartedAt),
+                        bucket -> new LongAdder())
+                .increment();
+
+        return 0 < sampleRate && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private void flushQuietly(){
+        try{
+            flush(System.currentTimeMillis());
+        }catch(Exception e){
+            log.error("transaction failure flush failed", e);
+        }
+    }
+
+    //now 기준으로 닫힌 bucket 을 꺼내서 저장한다.
+    //저장에 실패한 shard 의 건수는 다시 더해두고 다음 flush 에서 저장한다.
+    void flush(long now){
+        Map<String, Map<Bucket, TransactionFailure>> rowsByShard = new HashMap<>();
+        for (Bucket bucket : counts.keySet()) {
+            if(bucket.startedAt() + BUCKET_MILLIS + CLOSE_GRACE_MILLIS > now){
+                continue;
+            }
+            LongAdder count = counts.remove(bucket);
+            if(null == count){
+                continue;
+            }
+
+            TransactionFailure row = TransactionFailure.builder()
+                    .accountNumber(bucket.accountNumber())
+                    .transactionType(bucket.transactionType())
+                    .errorCode(bucket.errorCode())
+                    .bucketStartedAt(LocalDateTime.ofInstant(
+                            Instant.ofEpochMilli(bucket.startedAt()), ZoneId.systemDefault()))
+                    .failureCount(count.sum())
+                    .build();
+            rowsByShard.computeIfAbsent(shardRouting.shardOf(bucket.accountNumber()), shard -> new HashMap<>())
+                    .put(bucket, row);
+        }
+
+        for (Map<Bucket, TransactionFailure> rows : rowsByShard.values()) {
+            try{
+                shardRouting.onShard(rows.keySet().iterator().next().accountNumber(), () -> save(rows.values()));
+            }catch(Exception e){
+                log.error("transaction failure save failed. rows : {}", rows.size(), e);
+                rows.forEach((bucket, row) -> counts.computeIfAbsent(bucket, key -> new LongAdder())
+                        .add(row.getFailureCount()));
+            }
+        }
+    }
+
+    //sharding 이 꺼져 있어도 transaction_failure 와 하루 집계, outbox 를 한 트랜잭션으로 저장한다.
+    private Integer save(Collection<TransactionFailure> rows){
+        PlatformTransactionManager manager = transactionManager.getIfAvailable();
+        if(null == manager){
+            return saveRows(rows);
+        }
+        return new TransactionTemplate(manager).execute(status -> saveRows(rows));
+    }
+
+    private Integer saveRows(Collection<TransactionFailure> rows){
+        transactionFailureRepository.saveAll(rows);
+        transactionOutboxWriter.appendFailures(rows);
+
+        //계좌, 날짜별로 더해서 한번씩 update 한다.
+        Map<String, Map<LocalDate, Long>> failures = new HashMap<>();
+        rows.forEach(row -> failures.computeIfAbsent(row.getAccountNumber(), key -> new HashMap<>())
+                .merge(row.getBucketStartedAt().toLocalDate(), row.getFailureCount(), Long::sum));
+        failures.forEach((accountNumber, counts) -> counts.forEach((date, count) ->
+                dailyAccountAggregateService.addFailures(accountNumber, date, count)));
+        return rows.size();
+    }
+
+    private record Bucket(String accountNumber, TransactionType transactionType,
+                          ErrorCode errorCode, long startedAt) {
+    }
+}
@@ -4,11 +4,17 @@ import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
 import com.example.account.dto.AccountDto;
+import com.example.account.dto.DailyAggregateDto;
 import com.example.account.dto.TransactionDto;
 import com.example.account.exception.AccountException;
+import com.example.account.outbox.TransactionOutboxWriter;
+import com.example.account.partition.TransactionPartitionRouting;
+import com.example.account.replica.ReplicaRouting;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
 import com.example.account.repository.TransactionRepository;
+import com.example.account.shard.ShardKey;
+import com.example.account.shard.ShardRouting;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
 import com.example.account.type.TransactionResultType;
@@ -17,8 +23,9 @@ import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.util.List;
 
 import static com.example.account.type.ErrorCode.*;
 import static com.example.account.type.TransactionResultType.*;
@@ -27,17 +34,30 @@ import static com.example.account.type.TransactionType.*;
 @Service
 @RequiredArgsConstructor
 public class TransactionService {
+    //잔액 사용 금액 범위. (lock 전 검증 UseAmountRule 도 같은 값을 쓴다)
+    public static final long MIN_USE_AMOUNT = 100L;
+    public static final long MAX_USE_AMOUNT = 100_000L;
+
     final private AccountUserRepository accountUserRepository;
     final private AccountRepository accountRepository;
     final private TransactionRepository transactionRepository;
+    final private AccountReadCache accountReadCache;
+    final private ShardRouting shardRouting;
+    final private ReplicaRouting replicaRouting;
+    final private TransactionFailureAggregator transactionFailureAggregator;
+    final private AccountSummaryService accountSummaryService;
+    final private DailyAccountAggregateService dailyAccountAggregateService;
+    final private TransactionPartitionRouting transactionPartitionRouting;
+    final private TransactionOutboxWriter transactionOutboxWriter;
+    final private BalanceChangeStream balanceChangeStream;
 
 
     @Transactional
-    public TransactionDto useBalance(Long id, String accountNumber, Long amount) {
+    public TransactionDto useBalance(Long id, @ShardKey String accountNumber, Long amount) {
         AccountUser accountUser = accountUserRepository.findById(id)
-                .orElseThrow(()->new AccountException(USER_NOT_FOUND));
+                .orElseThrow(()->AccountException.of(USER_NOT_FOUND));
         Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(()->new AccountException(ACCOUNT_NOT_FOUND));
+                .orElseThrow(()->AccountException.of(ACCOUNT_NOT_FOUND));
 
         validateAccountRelation(accountUser, account);
         validateUseBalance(account, amount);
@@ -45,33 +65,49 @@ public class TransactionService {
 
         //잔액 사용.
         account.setAccountBalance(account.getAccountBalance() - amount);
+        accountSummaryService.addBalance(accountUser.getId(), -amount);
+        dailyAccountAggregateService.addDebit(accountNumber, amount);
 
-        final Transaction transaction = transactionRepository.save(
+        //거래 이벤트는 거래와 같은 트랜잭션에서 outbox 에 쓰고, 보내는 것은 relay 가 따로 한다.
+        LocalDateTime transactedAt = LocalDateTime.now();
+        final Transaction transaction = transactionOutboxWriter.save(
+                () -> transactionPartitionRouting.write(transactedAt, () -> transactionRepository.save(
                 Transaction.builder()
                 .transactionType(USE)
                 .transactionResultType(S)
                 .account(account)
                 .amount(amount)
                 .balanceSnapshot(account.getAccountBalance())
-                .transactionId(UUID.randomUUID().toString().replace("-", ""))
-                .transactedAt(LocalDateTime.now())
-                .build());
+                .transactionId(transactionPartitionRouting.newTransactionId(transactedAt))
+                .transactedAt(transactedAt)
+                .build())));
+
+        accountReadCache.invalidateAfterCommit(accountUser.getId());
+        replicaRouting.markWrittenAfterCommit(accountUser.getId());
+        balanceChangeStream.publishAfterCommit(transaction);
 
         return TransactionDto.fromEntity(transaction);
     }
 
     @Transactional
-    public TransactionDto cancelTransaction(String transactionId, String accountNumber, Long amount) {
-        Transaction transaction = transactionRepository.findByTransactionId(transactionId)
-                .orElseThrow(()->new AccountException(TRANSACTION_NOT_FOUND));
+    public TransactionDto cancelTransaction(String transactionId, @ShardKey String accountNumber, Long amount) {
+        Transaction transaction = transactionPartitionRouting.find(transactionId,
+                        () -> transactionRepository.findByTransactionId(transactionId))
+                .orElseThrow(()->AccountException.of(TRANSACTION_NOT_FOUND));
 
         Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(()->new AccountException(ACCOUNT_NOT_FOUND));
+                .orElseThrow(()->AccountException.of(ACCOUNT_NOT_FOUND));
 
         validateCancelTransaction(transaction, account, amount);
 
+        //거래 취소는 잔액을 바꾸지 않으므로 요약은 마지막 거래 일시만 바뀐다.
+        accountSummaryService.addBalance(account.getAccountUser().getId(), 0L);
+        dailyAccountAggregateService.addCancel(accountNumber, amount);
 
-        final Transaction savedTransaction = transactionRepository.save(
+        //취소 거래는 원래 거래 아이디를 그대로 쓰지만 취소한 달의 테이블에 저장된다.
+        LocalDateTime transactedAt = LocalDateTime.now();
+        final Transaction savedTransaction = transactionOutboxWriter.save(
+                () -> transactionPartitionRouting.write(transactedAt, () -> transactionRepository.save(
                 Transaction.builder()
                         .transactionType(CANCEL)
                         .transactionResultType(S)
@@ -79,73 +115,77 @@ public class TransactionService {
                         .amount(amount)
                         .balanceSnapshot(account.getAccountBalance())
                         .transactionId(transaction.getTransactionId())
-                        .transactedAt(LocalDateTime.now())
-                        .build());
+                        .transactedAt(transactedAt)
+                        .build())));
+
+        accountReadCache.invalidateAfterCommit(account.getAccountUser().getId());
+        replicaRouting.markWrittenAfterCommit(account.getAccountUser().getId());
+        balanceChangeStream.publishAfterCommit(savedTransaction);
 
         return TransactionDto.fromEntity(savedTransaction);
     }
 
-    @Transactional
+    //거래 아이디로는 shard 를 알 수 없으므로 shard 들을 차례로 찾아본다. (sharding 이 꺼져 있으면 한번)
+    //shard 마다 따로 트랜잭션을 열어야 하므로 이 메서드에는 트랜잭션을 걸지 않는다.
+    //replica 가 켜져 있으면 replica 에서 먼저 찾고, 없으면 (방금 만들어진 거래일 수 있으므로) primary 에서 찾는다.
     public TransactionDto queryTransaction(String transactionId)
     {
-        return TransactionDto.fromEntity(transactionRepository.findByTransactionId(transactionId)
-                .orElseThrow(()->new AccountException(TRANSACTION_NOT_FOUND)));
+        return replicaRouting.find(() -> shardRouting.findFirst(
+                        () -> transactionPartitionRouting.find(transactionId,
+                                () -> transactionRepository.findDtoByTransactionId(transactionId))))
+                .orElseThrow(()->AccountException.of(TRANSACTION_NOT_FOUND));
     }
 
-    //------------------------------------------------------------------------//
-    @Transactional
-    public void saveFailedTransaction(String accountNumber, Long amount)
+    //raw 거래를 읽지 않고 계좌별 하루 집계만 읽는다. (accountNumber 가 없으면 모든 계좌)
+    public List<DailyAggregateDto> getDailyAggregates(String accountNumber, LocalDate from, LocalDate to)
     {
-        //유저나 계좌가 없어서 에러가 발생한경우는
-        //처리하지 않음.
-        //if(USER_NOT_FOUND == errorCode || ACCOUNT_NOT_FOUND == errorCode){
-            //return;
-        //}
-
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                        .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        return dailyAccountAggregateService.getDailyAggregates(accountNumber, from, to);
+    }
 
-        transactionRepository.save(
-                Transaction.builder()
-                .transactionType(USE)
-                .transactionResultType(F)
-                .account(account)
-                .amount(amount)
-                .balanceSnapshot(account.getAccountBalance())
-                .transactionId(UUID.randomUUID().toString().replace("-", ""))
-                .transactedAt(LocalDateTime.now())
-                .build());
+    //------------------------------------------------------------------------//
+    //실패 거래는 TransactionFailureAggregator 가 실패 사유(errorCode) 별로 세고,
+    //row 모드이거나 sample 된 실패만 거래(Transaction) row 로 남긴다.
+    //대부분의 실패는 DB 를 쓰지 않으므로 트랜잭션을 걸지 않는다. (row 를 남길 때는 repository 호출이 각자 트랜잭션)
+    //(outbox 가 켜져 있으면 실패 거래 row 와 이벤트를 한 트랜잭션으로 쓴다)
+    public void saveFailedTransaction(@ShardKey String accountNumber, Long amount, ErrorCode errorCode)
+    {
+        saveFailure(USE, accountNumber, amount, errorCode);
     }
 
-    @Transactional
-    public void cancelFailedTransaction(String accountNumber, Long amount)
+    public void cancelFailedTransaction(@ShardKey String accountNumber, Long amount, ErrorCode errorCode)
     {
-        //유저나 계좌가 없어서 에러가 발생한경우는
-        //처리하지 않음.
-        //if(USER_NOT_FOUND == errorCode || ACCOUNT_NOT_FOUND == errorCode){
-        //return;
-        //}
+        saveFailure(CANCEL, accountNumber, amount, errorCode);
+    }
+
+    private void saveFailure(TransactionType transactionType, String accountNumber,
+                             Long amount, ErrorCode errorCode){
+        if(!transactionFailureAggregator.record(accountNumber, transactionType, errorCode)){
+            return;
+        }
 
         Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+                .orElseThrow(() -> AccountException.of(ACCOUNT_NOT_FOUND));
 
-        transactionRepository.save(
+        LocalDateTime transactedAt = LocalDateTime.now();
+        transactionOutboxWriter.save(() -> transactionPartitionRouting.write(transactedAt,
+                () -> transactionRepository.save(
                 Transaction.builder()
-                        .transactionType(CANCEL)
+                        .transactionType(transactionType)
                         .transactionResultType(F)
                         .account(account)
                         .amount(amount)
                         .balanceSnapshot(account.getAccountBalance())
-                        .transactionId(UUID.randomUUID().toString().replace("-", ""))
-                        .transactedAt(LocalDateTime.now())
-                        .build());
+                        .transactionId(transactionPartitionRouting.newTransactionId(transactedAt))
+                        .errorCode(errorCode)
+                        .transactedAt(transactedAt)
+                        .build())));
     }
 
     //------------------------------------------------------------------------//
     private void validateAccountRelation(AccountUser accountUser, Account account){
         if(!accountUser.getId().equals(account.getAccountUser().getId()))
         {
-            throw new AccountException(USER_ACCOUNT_NOT_MATCH);
+            throw AccountException.of(USER_ACCOUNT_NOT_MATCH);
         }
     }
 
@@ -153,18 +193,18 @@ public class TransactionService {
                                         Long amount) {
         //3.계좌가 이미 해지 상태인경우.
         if(AccountStatus.UNREGISTERED == account.getAccountStatus()){
-            throw new AccountException(ACCOUNT_ALREADY_UNREGISTRED);
+            throw AccountException.of(ACCOUNT_ALREADY_UNREGISTRED);
         }
         //4.거래 금액이 잔액보다 큰 경우.
         if(account.getAccountBalance() < amount){
-            throw new AccountException(AMOUNT_OVER_BALANCE);
+            throw AccountException.of(AMOUNT_OVER_BALANCE);
         }
         //5.거래 금액이 너무 작거나 큰 경우.
-        if(100L > amount){
-            throw new AccountException(AMOUNT_IS_TOO_SMALL);
+        if(MIN_USE_AMOUNT > amount){
+            throw AccountException.of(AMOUNT_IS_TOO_SMALL);
         }
-        if(100_000L < amount){
-            throw new AccountException(AMOUNT_IS_TOO_BIG);
+        if(MAX_USE_AMOUNT < amount){
+            throw AccountException.of(AMOUNT_IS_TOO_BIG);
         }
     }
 
@@ -176,18 +216,20 @@ public class TransactionService {
         //--> 이전 단계에서 처리 완료.
 
         //3.거래와 계좌가 일치하지 않는경우.
-        if(transaction.getAccount().getId() != account.getId()){
-            throw new AccountException(TRANSACTION_ACCOUNT_NOT_MATCH);
+        //transaction.getAccount() 는 LAZY proxy 일 수 있으므로 id 값으로 비교한다.
+        if(!transaction.getAccount().getId().equals(account.getId())){
+            throw AccountException.of(TRANSACTION_ACCOUNT_NOT_MATCH);
         }
 
         //4.거래금액와 거래 취소 금액이 다른경우.
-        if(transaction.getAmount() != amount){
-            throw new AccountException(TRANSACTION_AMOUNT_NOT_MATCH);
+        //Long 끼리 != 로 비교하면 캐시 범위(-128~127)를 넘는 금액은 같은 값이어도 다르다고 나온다.
+        if(!transaction.getAmount().equals(amount)){
+            throw AccountException.of(TRANSACTION_AMOUNT_NOT_MATCH);
         }
 
         //5.1년이 넘은 거래는 거래 취소 불가능.
         if(transaction.getTransactedAt().isBefore(LocalDateTime.now().minusYears(1))){
-            throw new AccountException(TRANSACTION_TOO_OLD);
+            throw AccountException.of(TRANSACTION_TOO_OLD);
         }
     }
 }
@@ -0,0 +1,65 @@
+package com.example.account.shard;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+//consistent hash ring.
+//노드 하나당 virtualNodes 개의 가상 노드를 링 위에 흩어 놓고
+//키의 해시값 이상인 첫번째 가상 노드의 주인에게 키를 보낸다.
+//노드가 추가/제거 되어도 해당 노드 몫의 키들만 옮겨간다.
+public class ConsistentHashRing<T> {
+    public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    private final List<T> nodes;
+    private final NavigableMap<Long, T> ring = new TreeMap<>();
+
+    public ConsistentHashRing(List<T> nodes){
+        this(nodes, DEFAULT_VIRTUAL_NODES);
+    }
+
+    public ConsistentHashRing(List<T> nodes, int virtualNodes){
+        if(nodes.isEmpty()){
+            throw new IllegalArgumentException("hash ring needs at least one node");
+        }
+        this.nodes = List.copyOf(nodes);
+
+        //가상 노드의 위치는 노드의 순서(index)로 정해진다.
+        //목록 끝에 노드를 추가하면 기존 노드들의 위치는 그대로 유지된다.
+        for (int i = 0; i < nodes.size(); i++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                ring.put(hash("node-" + i + "#" + v), nodes.get(i));
+            }
+        }
+    }
+
+    public T get(String key){
+        if(1 == nodes.size()){
+            return nodes.get(0);
+        }
+        Map.Entry<Long, T> entry = ring.ceilingEntry(hash(key));
+        return (null != entry ? entry : ring.firstEntry()).getValue();
+    }
+
+    public List<T> getNodes(){
+        return nodes;
+    }
+
+    //FNV-1a(64bit) 후 murmur3 의 fmix64 로 한번 더 섞는다.
+    //계좌번호 처럼 끝자리만 다른 연속된 키도 링 위에 고르게 퍼지게 하기 위함.
+    static long hash(String key){
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.account.shard;
+
+import java.util.function.Supplier;
+
+//지금 스레드가 사용할 shard 이름. (null 이면 directory DB)
+//ShardRoutingDataSource 가 커넥션을 얻을 때 이 값을 보고 DB 를 고른다.
+//트랜잭션은 시작할 때 커넥션을 얻으므로 트랜잭션 보다 먼저 정해져야 한다.
+public final class ShardContext {
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    //이전 값을 돌려준다. (restore 로 되돌릴때 사용)
+    public static String set(String shard) {
+        String previous = CURRENT.get();
+        if(null == shard){
+            CURRENT.remove();
+        }else{
+            CURRENT.set(shard);
+        }
+        return previous;
+    }
+
+    public static void restore(String previous) {
+        set(previous);
+    }
+
+    public static <T> T call(String shard, Supplier<T> action) {
+        String previous = set(shard);
+        try{
+            return action.get();
+        }finally {
+            restore(previous);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.account.shard;
+
+import java.lang.annotation.*;
+
+//service 메서드의 계좌번호 파라미터에 붙인다.
+//sharding 이 켜져 있으면 이 계좌번호를 가진 shard 에서 트랜잭션이 시작된다.
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ShardKey {
+}
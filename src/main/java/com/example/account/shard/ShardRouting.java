@@ -0,0 +1,100 @@
+package com.example.account.shard;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+//계좌번호 -> shard 를 consistent hash 로 정하고, 원하는 shard 에서 작업을 실행한다.
+//account.sharding.enabled=false 면 DB 가 하나이므로 모든 메서드가 그냥 한번 실행한다.
+//action 안의 repository 호출은 각자의 트랜잭션으로 실행되어야 한다. (바깥 트랜잭션이 있으면 그 DB 를 그대로 쓴다)
+@Component
+public class ShardRouting {
+    @Value("${account.sharding.enabled:false}")
+    private boolean enabled;
+
+    //shard 마다 jdbc url. (shard-0, shard-1 ... 순서)
+    @Value("${account.sharding.urls:}")
+    private String[] shardUrls;
+
+    private ConsistentHashRing<String> ring;
+
+    @PostConstruct
+    public void init(){
+        if(enabled){
+            ring = new ConsistentHashRing<>(shardNames(urls(shardUrls).size()));
+        }
+    }
+
+    public boolean isEnabled(){
+        return null != ring;
+    }
+
+    public String shardOf(String accountNumber){
+        return isEnabled() ? ring.get(accountNumber) : null;
+    }
+
+    public <T> T onShard(String accountNumber, Supplier<T> action){
+        if(!isEnabled()){
+            return action.get();
+        }
+        return ShardContext.call(shardOf(accountNumber), action);
+    }
+
+    public <T> List<T> onEachShard(Supplier<T> action){
+        if(!isEnabled()){
+            return List.of(action.get());
+        }
+        List<T> results = new ArrayList<>();
+        for (String shard : ring.getNodes()) {
+            results.add(ShardContext.call(shard, action));
+        }
+        return results;
+    }
+
+    //shard 를 차례로 보면서 처음 찾은 값을 돌려준다.
+    public <T> Optional<T> findFirst(Supplier<Optional<T>> action){
+        if(!isEnabled()){
+            return action.get();
+        }
+        for (String shard : ring.getNodes()) {
+            Optional<T> result = ShardContext.call(shard, action);
+            if(result.isPresent()){
+                return result;
+            }
+        }
+        return Optional.empty();
+    }
+
+    //모든 shard 의 결과를 합쳐서 정렬한다.
+    public <T> List<T> collect(Supplier<List<T>> action, Comparator<? super T> order){
+        return onEachShard(action).stream()
+                .flatMap(List::stream)
+                .sorted(order)
+                .toList();
+    }
+
+    public static List<String> shardNames(int count){
+        return IntStream.range(0, count)
+                .mapToObj(i -> "shard-" + i)
+                .toList();
+    }
+
+    public static List<String> urls(String[] shardUrls){
+        List<String> urls = Arrays.stream(shardUrls)
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .toList();
+        if(urls.isEmpty()){
+            throw new IllegalStateException("account.sharding.urls is required when sharding is enabled");
+        }
+        return urls;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.account.shard;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//1. @ShardKey 파라미터가 있는 service 메서드는 그 계좌의 shard 에서 트랜잭션을 시작한다.
+//   (@Transactional 보다 먼저 동작해야 하므로 순서를 앞에 둔다.)
+//2. AccountUserRepository, AccountUserSummaryRepository, AccountNumberSequenceRepository 는
+//   어느 shard 의 트랜잭션 안에서 불리더라도
+//   directory DB 에서 새 트랜잭션으로 읽고 쓴다.
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@RequiredArgsConstructor
+public class ShardRoutingAspect {
+    private static final int NO_SHARD_KEY = -1;
+
+    private final ShardRouting shardRouting;
+    private final PlatformTransactionManager transactionManager;
+
+    private final Map<Method, Integer> shardKeyIndexes = new ConcurrentHashMap<>();
+
+    @Around("@within(org.springframework.stereotype.Service)")
+    public Object aroundShardKey(ProceedingJoinPoint pjp) throws Throwable {
+        Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+        int index = shardKeyIndexes.computeIfAbsent(method, ShardRoutingAspect::shardKeyIndex);
+        if(NO_SHARD_KEY == index){
+            return pjp.proceed();
+        }
+
+        String previous = ShardContext.set(shardRouting.shardOf((String) pjp.getArgs()[index]));
+        try{
+            return pjp.proceed();
+        }finally {
+            ShardContext.restore(previous);
+        }
+    }
+
+    @Around("target(com.example.account.repository.AccountUserRepository)"
+            + " || target(com.example.account.repository.AccountUserSummaryRepository)"
+            + " || target(com.example.account.repository.AccountNumberSequenceRepository)")
+    public Object aroundDirectory(ProceedingJoinPoint pjp) throws Throwable {
+        String previous = ShardContext.set(null);
+        try{
+            if(null == previous){
+                return pjp.proceed();
+            }
+
+            //이미 shard 트랜잭션 안이라면 잠시 멈추고 directory 커넥션으로 새 트랜잭션을 연다.
+            DefaultTransactionDefinition definition = new DefaultTransactionDefinition(
+                    TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            TransactionStatus status = transactionManager.getTransaction(definition);
+            Object result;
+            try{
+                result = pjp.proceed();
+            }catch(Throwable e){
+                transactionManager.rollback(status);
+                throw e;
+            }
+            transactionManager.commit(status);
+            return result;
+        }finally {
+            ShardContext.restore(previous);
+        }
+    }
+
+    private static int shardKeyIndex(Method method) {
+        Annotation[][] annotations = method.getParameterAnnotations();
+        for (int i = 0; i < annotations.length; i++) {
+            for (Annotation annotation : annotations[i]) {
+                if(annotation instanceof ShardKey){
+                    return i;
+                }
+            }
+        }
+        return NO_SHARD_KEY;
+    }
+}
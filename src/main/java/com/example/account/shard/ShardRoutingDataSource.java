@@ -0,0 +1,12 @@
+package com.example.account.shard;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+//ShardContext 의 shard 이름으로 커넥션을 얻을 DB 를 고른다.
+//shard 가 정해지지 않았다면 기본(directory) DB 를 사용한다.
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+}
@@ -0,0 +1,429 @@
+package com.example.account.statement;
+
+import com.example.account.domain.Account;
+import com.example.account.dto.AccountBalanceDto;
+import com.example.account.dto.MonthlyStatementDto;
+import com.example.account.dto.StatementTransactionDto;
+import com.example.account.job.BackgroundJob;
+import com.example.account.partition.TransactionPartitionRouting;
+import com.example.account.replica.ReplicaRouting;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionFailureRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.shard.ShardRouting;
+import com.example.account.type.FailureRecordMode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+//계좌별 월 거래 명세 (시작 잔액, 마지막 잔액, 사용, 취소, 실패 건수) 를 파일로 만든다.
+//1. 계좌번호를 range-size 개씩 나눈 구간(block) 을 fork-join pool 에서 나눠 처리한다. (구간끼리는 서로 읽는 데이터가 없다)
+//2. 구간마다 shard 별로 읽기 전용 트랜잭션에서 계좌, 그 달의 거래(계좌번호, 거래 순으로 나눠 읽기), 실패 건수를 읽어 메모리에서 집계한다.
+//   replica 가 켜져 있으면 replica 에서 읽는다. (지난 달 데이터라서 늦게 복제되어도 상관없다)
+//3. 구간마다 <output-dir>/<yyyy-MM>/statement-<첫 계좌번호>.csv.gz 를 쓰고 manifest.properties 에 남긴다.
+//   다시 실행하면 manifest 에 있고 파일도 있는 구간은 건너뛴다. (force 면 모두 다시 만든다)
+@Slf4j
+@Component
+public class MonthlyStatementJob {
+    private static final String HEADER = "account_number,opening_balance,closing_balance," +
+            "debit_count,debit_amount,cancel_count,cancel_amount,failure_count";
+    private static final String MANIFEST = "manifest.properties";
+    private static final String RANGE_SIZE_KEY = "range-size";
+    private static final String BLOCK_KEY_PREFIX = "block.";
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionFailureRepository transactionFailureRepository;
+    private final ShardRouting shardRouting;
+    private final TransactionPartitionRouting transactionPartitionRouting;
+    private final ReplicaRouting replicaRouting;
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+
+    @Value("${account.statement.output-dir:statements}")
+    private Path outputDir = Path.of("statements");
+
+    //한 파일에 들어가는 계좌번호 구간 크기. 바꾸면 이전 manifest 는 쓰지 않는다.
+    @Value("${account.statement.range-size:10000}")
+    private long rangeSize = 10_000L;
+
+    //0 이면 CPU 수.
+    @Value("${account.statement.parallelism:0}")
+    private int parallelism;
+
+    @Value("${account.failure.mode:aggregate}")
+    private FailureRecordMode failureMode = FailureRecordMode.AGGREGATE;
+
+    private final BackgroundJob<Progress> job = new BackgroundJob<>("monthly-statement-job");
+
+    public MonthlyStatementJob(AccountRepository accountRepository,
+                               TransactionRepository transactionRepository,
+                               TransactionFailureRepository transactionFailureRepository,
+                               ShardRouting shardRouting,
+                               TransactionPartitionRouting transactionPartitionRouting,
+                               ReplicaRouting replicaRouting,
+                               ObjectProvider<PlatformTransactionManager> transactionManager) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionFailureRepository = transactionFailureRepository;
+        this.shardRouting = shardRouting;
+        this.transactionPartitionRouting = transactionPartitionRouting;
+        this.replicaRouting = replicaRouting;
+        this.transactionManager = transactionManager;
+    }
+
+    //백그라운드에서 시작한다. 이미 실행 중이면 지금 진행 상황만 돌려준다.
+    public MonthlyStatementDto.Response start(YearMonth month, boolean force){
+        return job.start(new Progress(month, outputDir.resolve(month.toString())),
+                progress -> run(progress, force)).toResponse();
+    }
+
+    public MonthlyStatementDto.Response status(){
+        Progress progress = job.current();
+        return null == progress ? null : progress.toResponse();
+    }
+
+    //끝날때까지 기다린다.
+    public MonthlyStatementDto.Response generate(YearMonth month, boolean force){
+        return job.run(new Progress(month, outputDir.resolve(month.toString())),
+                progress -> run(progress, force)).toResponse();
+    }
+
+    @PreDestroy
+    public void stop(){
+        job.shutdown();
+    }
+
+    private void run(Progress progress, boolean force){
+        long startedAt = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(0 < parallelism ? parallelism : Runtime.getRuntime().availableProcessors());
+        try{
+            //아직 끝나지 않은 달은 거래가 더 생기므로 만들지 않는다.
+            if(!YearMonth.now().isAfter(progress.month)){
+                throw new IllegalArgumentException("month is not closed yet : " + progress.month);
+            }
+
+            Optional<long[]> blocks = blockRange();
+            Files.createDirectories(progress.directory);
+            Manifest manifest = Manifest.load(progress.directory, rangeSize, force);
+            if(blocks.isPresent()){
+                long[] range = blocks.get();
+                progress.blocks.set(range[1] - range[0] + 1);
+                pool.invoke(new BlockTask(progress, manifest, range[0], range[1]));
+            }
+            progress.done();
+            log.info("monthly statement done. month : {}, written : {}, skipped : {}, took : {}s", progress.month,
+                    progress.written.get(), progress.skipped.get(), (System.nanoTime() - startedAt) / 1_000_000_000);
+        }catch(Exception e){
+            progress.fail(e);
+            log.error("monthly statement failed. month : {}, written : {}", progress.month, progress.written.get(), e);
+        }finally {
+            pool.shutdownNow();
+        }
+    }
+
+    //모든 shard 의 첫, 마지막 계좌번호가 들어가는 구간 번호. (계좌가 없으면 empty)
+    private Optional<long[]> blockRange(){
+        List<String> first = shardRouting.onEachShard(() -> accountRepository.findFirstByOrderByAccountNumberAsc()
+                        .map(Account::getAccountNumber))
+                .stream().flatMap(Optional::stream).sorted().toList();
+        List<String> last = shardRouting.onEachShard(() -> accountRepository.findFirstByOrderByAccountNumberDesc()
+                        .map(Account::getAccountNumber))
+                .stream().flatMap(Optional::stream).sorted().toList();
+        if(first.isEmpty()){
+            return Optional.empty();
+        }
+        return Optional.of(new long[]{
+                Long.parseLong(first.get(0)) / rangeSize,
+                Long.parseLong(last.get(last.size() - 1)) / rangeSize});
+    }
+
+    //구간이 하나가 될때까지 반으로 나눈다.
+    private class BlockTask extends RecursiveAction {
+        private final Progress progress;
+        private final Manifest manifest;
+        private final long firstBlock;
+        private final long lastBlock;
+
+        private BlockTask(Progress progress, Manifest manifest, long firstBlock, long lastBlock) {
+            this.progress = progress;
+            this.manifest = manifest;
+            this.firstBlock = firstBlock;
+            this.lastBlock = lastBlock;
+        }
+
+        @Override
+        protected void compute() {
+            if(firstBlock == lastBlock){
+                writeBlock(progress, manifest, firstBlock);
+                return;
+            }
+            long middle = (firstBlock + lastBlock) >>> 1;
+            invokeAll(new BlockTask(progress, manifest, firstBlock, middle),
+                    new BlockTask(progress, manifest, middle + 1, lastBlock));
+        }
+    }
+
+    private void writeBlock(Progress progress, Manifest manifest, long block){
+        String from = String.valueOf(block * rangeSize);
+        String to = String.valueOf(block * rangeSize + rangeSize - 1);
+        Path file = progress.directory.resolve("statement-" + from + ".csv.gz");
+        if(manifest.contains(from) && Files.exists(file)){
+            progress.skipped.incrementAndGet();
+            return;
+        }
+
+        LocalDateTime start = progress.month.atDay(1).atStartOfDay();
+        LocalDateTime end = progress.month.plusMonths(1).atDay(1).atStartOfDay();
+        Map<String, Statement> statements = new TreeMap<>();
+        shardRouting.onEachShard(() -> read(() -> aggregate(statements, from, to, start, end)));
+
+        try{
+            Path temp = Files.createTempFile(progress.directory, "statement-" + from, ".tmp");
+            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(temp)), StandardCharsets.UTF_8))) {
+                writer.write(HEADER);
+                writer.newLine();
+                for (Map.Entry<String, Statement> entry : statements.entrySet()) {
+                    writer.write(entry.getValue().toLine(entry.getKey()));
+                    writer.newLine();
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            manifest.put(from, statements.size());
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+        progress.written.incrementAndGet();
+        progress.accounts.addAndGet(statements.size());
+    }
+
+    //한 shard 의 한 구간을 집계한다. 그 달이 끝나기 전에 만든 계좌만 명세를 만든다.
+    private Integer aggregate(Map<String, Statement> statements, String from, String to,
+                              LocalDateTime start, LocalDateTime end){
+        List<AccountBalanceDto> accounts = accountRepository.findBalancesRegisteredBefore(from, to, end);
+        if(accounts.isEmpty()){
+            return 0;
+        }
+        accounts.forEach(account -> statements.put(account.getAccountNumber(),
+                new Statement(account.getAccountBalance())));
+
+        //거래가 월 테이블로 나뉘어 있으면 (TransactionPartitionRouting) 테이블마다 읽어서 거래 일시로 고른다.
+        YearMonth month = YearMonth.from(start);
+        transactionPartitionRouting.onMonths(null, month.minusMonths(1),
+                        () -> transactionRepository.findLastTransactionsBefore(from, to, start))
+                .forEach(transactions -> transactions.forEach(transaction -> ifPresent(statements,
+                        transaction.getAccountNumber(), statement -> statement.setPrevious(transaction))));
+
+        transactionPartitionRouting.onMonths(month, month, () -> {
+            try (Stream<StatementTransactionDto> transactions =
+                         transactionRepository.streamStatementTransactions(from, to, start, end)) {
+                transactions.forEach(transaction -> ifPresent(statements, transaction.getAccountNumber(),
+                        statement -> statement.add(transaction, failureMode)));
+            }
+            return 0;
+        });
+
+        transactionFailureRepository.sumFailureCounts(from, to, start, end)
+                .forEach(failure -> ifPresent(statements, failure.getAccountNumber(),
+                        statement -> statement.failureCount += failure.getCount()));
+
+        //그 달 전에도, 그 달에도 거래가 없는 계좌는 그 달 뒤의 첫 거래 전 잔액이 그 달의 잔액이다.
+        if(statements.values().stream().anyMatch(Statement::needsLaterBalance)){
+            transactionPartitionRouting.onMonths(month.plusMonths(1), null,
+                            () -> transactionRepository.findFirstTransactionsFrom(from, to, end))
+                    .forEach(transactions -> transactions.forEach(transaction -> ifPresent(statements,
+                            transaction.getAccountNumber(), statement -> statement.setLater(transaction))));
+        }
+        return accounts.size();
+    }
+
+    private static void ifPresent(Map<String, Statement> statements, String accountNumber,
+                                  Consumer<Statement> action){
+        Statement statement = statements.get(accountNumber);
+        if(null != statement){
+            action.accept(statement);
+        }
+    }
+
+    //stream 은 커넥션이 열려 있는 동안만 읽을 수 있으므로 읽기 전용 트랜잭션 안에서 읽는다.
+    private <T> T read(Supplier<T> action){
+        return replicaRouting.read(null, () -> {
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager.getObject());
+            transactionTemplate.setReadOnly(true);
+            return transactionTemplate.execute(status -> action.get());
+        });
+    }
+
+    //거래 전 잔액. 성공한 사용만 잔액을 바꾼다. (거래 취소는 잔액을 바꾸지 않는다 - TransactionService.cancelTransaction)
+    static long balanceBefore(StatementTransactionDto transaction){
+        if(TransactionResultType.S == transaction.getTransactionResultType()
+                && TransactionType.USE == transaction.getTransactionType()){
+            return transaction.getBalanceSnapshot() + transaction.getAmount();
+        }
+        return transaction.getBalanceSnapshot();
+    }
+
+    private static class Statement {
+        private final long currentBalance;
+        private StatementTransactionDto previous;
+        private StatementTransactionDto first;
+        private StatementTransactionDto later;
+        private Long closing;
+        private long debitCount;
+        private long debitAmount;
+        private long cancelCount;
+        private long cancelAmount;
+        private long failureCount;
+
+        private Statement(long currentBalance) {
+            this.currentBalance = currentBalance;
+        }
+
+        //그 달 전의 마지막 거래.
+        private void setPrevious(StatementTransactionDto transaction){
+            if(null == previous || previous.getTransactedAt().isBefore(transaction.getTransactedAt())){
+                previous = transaction;
+            }
+        }
+
+        //그 달 뒤의 첫 거래.
+        private void setLater(StatementTransactionDto transaction){
+            if(null == later || later.getTransactedAt().isAfter(transaction.getTransactedAt())){
+                later = transaction;
+            }
+        }
+
+        //aggregate 모드에서 실패 사유가 있는 실패 거래는 transaction_failure 에도 세어진 표본이다.
+        private void add(StatementTransactionDto transaction, FailureRecordMode failureMode){
+            if(null == first){
+                first = transaction;
+            }
+            closing = transaction.getBalanceSnapshot();
+            if(TransactionResultType.S != transaction.getTransactionResultType()){
+                if(null == transaction.getErrorCode() || FailureRecordMode.ROW == failureMode){
+                    failureCount++;
+                }
+                return;
+            }
+            if(TransactionType.USE == transaction.getTransactionType()){
+                debitCount++;
+                debitAmount += transaction.getAmount();
+            }else{
+                cancelCount++;
+                cancelAmount += transaction.getAmount();
+            }
+        }
+
+        private boolean needsLaterBalance(){
+            return null == previous && null == first;
+        }
+
+        private String toLine(String accountNumber){
+            long openingBalance = null != previous ? previous.getBalanceSnapshot()
+                    : null != first ? balanceBefore(first)
+                    : null != later ? balanceBefore(later)
+                    : currentBalance;
+            long closingBalance = null != closing ? closing : openingBalance;
+            return accountNumber + "," + openingBalance + "," + closingBalance + ","
+                    + debitCount + "," + debitAmount + ","
+                    + cancelCount + "," + cancelAmount + "," + failureCount;
+        }
+    }
+
+    //다 쓴 구간 목록. 구간을 쓸때 마다 통째로 다시 쓰고 바꿔치기 한다.
+    private static class Manifest {
+        private final Path file;
+        private final Properties properties;
+
+        private Manifest(Path file, Properties properties) {
+            this.file = file;
+            this.properties = properties;
+        }
+
+        private static Manifest load(Path directory, long rangeSize, boolean force) throws IOException {
+            Path file = directory.resolve(MANIFEST);
+            Properties properties = new Properties();
+            if(!force && Files.exists(file)){
+                try (InputStream in = Files.newInputStream(file)) {
+                    properties.load(in);
+                }
+            }
+            if(!String.valueOf(rangeSize).equals(properties.getProperty(RANGE_SIZE_KEY))){
+                properties.clear();
+                properties.setProperty(RANGE_SIZE_KEY, String.valueOf(rangeSize));
+            }
+            return new Manifest(file, properties);
+        }
+
+        private boolean contains(String from){
+            return properties.containsKey(BLOCK_KEY_PREFIX + from);
+        }
+
+        private synchronized void put(String from, int accounts) throws IOException {
+            properties.setProperty(BLOCK_KEY_PREFIX + from, String.valueOf(accounts));
+            Path temp = file.resolveSibling(MANIFEST + ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                properties.store(out, null);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    private static class Progress extends BackgroundJob.Progress {
+        private final YearMonth month;
+        private final Path directory;
+        private final AtomicLong blocks = new AtomicLong();
+        private final AtomicLong written = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong accounts = new AtomicLong();
+
+        private Progress(YearMonth month, Path directory) {
+            this.month = month;
+            this.directory = directory;
+        }
+
+        private MonthlyStatementDto.Response toResponse(){
+            return MonthlyStatementDto.Response.builder()
+                    .month(month.toString())
+                    .directory(directory.toString())
+                    .state(getState())
+                    .blocks(blocks.get())
+                    .written(written.get())
+                    .skipped(skipped.get())
+                    .accounts(accounts.get())
+                    .error(getError())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.account.tcp;
+
+import com.example.account.dto.QueryTransactionDto;
+import com.example.account.dto.UseBalanceDto;
+import com.example.account.type.ErrorCode;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+//TCP 거래 요청/응답의 binary frame. (숫자는 big-endian)
+//
+//요청 : length(int) | opcode(byte) | requestId(int) | body
+//  USE    : userId(long) | accountNumber(str) | amount(long)
+//  CANCEL : transactionId(str) | accountNumber(str) | amount(long)
+//  QUERY  : transactionId(str)
+//응답 : length(int) | opcode(byte) | requestId(int) | status(byte) | body
+//  OK    USE, CANCEL : accountNumber(str) | transactionResult(byte) | transactionId(str) | amount(long) | transactedAt(long)
+//  OK    QUERY       : accountNumber(str) | transactionType(byte) | transactionResult(byte) | amount(long) | transactedAt(long)
+//  ERROR             : errorCode(str, ErrorCode 이름)
+//
+//length 는 length 자신(4 byte) 을 뺀 frame 길이. str 은 길이(unsigned byte) + US-ASCII.
+//enum 은 ordinal, 일시는 서버 time zone 의 epoch millis.
+//한 연결에서 응답을 기다리지 않고 요청을 이어서 보낼 수 있다. 응답은 끝난 순서로 가므로 requestId 로 짝을 맞춘다.
+public final class BinaryProtocol {
+    public static final byte USE = 1;
+    public static final byte CANCEL = 2;
+    public static final byte QUERY = 3;
+
+    public static final byte OK = 0;
+    public static final byte ERROR = 1;
+
+    //length 를 뺀 frame 의 최소 길이 (opcode + requestId)
+    static final int MIN_FRAME_LENGTH = 5;
+
+    private BinaryProtocol() {
+    }
+
+    //frame 은 length 다음부터 frame 끝까지의 view. (복사하지 않고 그대로 읽는다)
+    static BinaryRequest decodeRequest(ByteBuffer frame){
+        byte opcode = frame.get();
+        int requestId = frame.getInt();
+        BinaryRequest request = switch (opcode) {
+            case USE -> new BinaryRequest(opcode, requestId, frame.getLong(), null, readString(frame), frame.getLong());
+            case CANCEL -> new BinaryRequest(opcode, requestId, null, readString(frame), readString(frame), frame.getLong());
+            case QUERY -> new BinaryRequest(opcode, requestId, null, readString(frame), null, null);
+            default -> throw new IllegalArgumentException("unknown opcode : " + opcode);
+        };
+        if(frame.hasRemaining()){
+            throw new IllegalArgumentException("frame has trailing bytes. opcode : " + opcode);
+        }
+        return request;
+    }
+
+    //out 에 자리가 모자라면 아무것도 쓰지 않고 false.
+    static boolean encodeResponse(BinaryResponse response, ByteBuffer out){
+        int start = out.position();
+        try{
+            out.putInt(0);
+            out.put(response.opcode());
+            out.putInt(response.requestId());
+            if(null != response.errorCode()){
+                out.put(ERROR);
+                writeString(out, response.errorCode().name());
+            }else if(null != response.query()){
+                QueryTransactionDto.Response query = response.query();
+                out.put(OK);
+                writeString(out, query.getAccountNumber());
+                out.put((byte) query.getTransactionType().ordinal());
+                out.put((byte) query.getTransactionResult().ordinal());
+                out.putLong(query.getAmount());
+                out.putLong(epochMillis(query.getTransactedAt()));
+            }else{
+                UseBalanceDto.Response use = response.use();
+                out.put(OK);
+                writeString(out, use.getAccountNumber());
+                out.put((byte) use.getTransactionResult().ordinal());
+                writeString(out, use.getTransactionId());
+                out.putLong(use.getAmount());
+                out.putLong(epochMillis(use.getTransactedAt()));
+            }
+            out.putInt(start, out.position() - start - Integer.BYTES);
+            return true;
+        }catch(BufferOverflowException e){
+            out.position(start);
+            return false;
+        }
+    }
+
+    public static String readString(ByteBuffer buffer){
+        int length = Byte.toUnsignedInt(buffer.get());
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    public static void writeString(ByteBuffer buffer, String value){
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        if(255 < bytes.length){
+            throw new IllegalArgumentException("string too long : " + bytes.length);
+        }
+        buffer.put((byte) bytes.length);
+        buffer.put(bytes);
+    }
+
+    public static long epochMillis(LocalDateTime dateTime){
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
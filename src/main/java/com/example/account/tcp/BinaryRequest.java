@@ -0,0 +1,6 @@
+package com.example.account.tcp;
+
+//opcode 에 따라 쓰지 않는 값은 null.
+record BinaryRequest(byte opcode, int requestId, Long userId, String transactionId,
+                     String accountNumber, Long amount) {
+}
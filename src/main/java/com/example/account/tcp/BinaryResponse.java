@@ -0,0 +1,10 @@
+package com.example.account.tcp;
+
+import com.example.account.dto.QueryTransactionDto;
+import com.example.account.dto.UseBalanceDto;
+import com.example.account.type.ErrorCode;
+
+//use(사용, 취소), query(조회), errorCode 중 하나만 있다.
+record BinaryResponse(byte opcode, int requestId, UseBalanceDto.Response use,
+                      QueryTransactionDto.Response query, ErrorCode errorCode) {
+}
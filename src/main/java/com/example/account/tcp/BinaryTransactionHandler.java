@@ -0,0 +1,77 @@
+package com.example.account.tcp;
+
+import com.example.account.controller.TransactionController;
+import com.example.account.dto.CancelTransactionDto;
+import com.example.account.dto.UseBalanceDto;
+import com.example.account.exception.AccountException;
+import com.example.account.metrics.LatencyRecorder;
+import com.example.account.type.ErrorCode;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+//TCP 요청을 HTTP 와 같은 TransactionController 메서드로 처리한다.
+//(lock 전 검증, 계좌 lock, 실패 거래 저장, 지연 시간 기록이 HTTP 와 같다)
+//@Valid 대신 같은 제약을 Validator 로 검사하고, 어긋나면 HTTP 처럼 INTERNAL_SERVER_ERROR 로 응답한다.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.tcp.enabled", havingValue = "true")
+public class BinaryTransactionHandler {
+    private final TransactionController transactionController;
+    private final Validator validator;
+    private final LatencyRecorder latencyRecorder;
+
+    BinaryResponse handle(BinaryRequest request){
+        latencyRecorder.beginRequest(endpointOf(request.opcode()));
+        try{
+            return switch (request.opcode()) {
+                case BinaryProtocol.USE -> use(request);
+                case BinaryProtocol.CANCEL -> cancel(request);
+                default -> new BinaryResponse(request.opcode(), request.requestId(), null,
+                        transactionController.queryTransaction(request.transactionId()), null);
+            };
+        }catch(AccountException e){
+            return error(request, e.getErrorCode());
+        }catch(Exception e){
+            log.error("tcp request failed. opcode : {}", request.opcode(), e);
+            return error(request, ErrorCode.INTERNAL_SERVER_ERROR);
+        }finally {
+            latencyRecorder.endRequest();
+        }
+    }
+
+    private BinaryResponse use(BinaryRequest request){
+        UseBalanceDto.Request use = new UseBalanceDto.Request(
+                request.userId(), request.accountNumber(), request.amount());
+        if(!validator.validate(use).isEmpty()){
+            return error(request, ErrorCode.INTERNAL_SERVER_ERROR);
+        }
+        return new BinaryResponse(request.opcode(), request.requestId(),
+                transactionController.useBalance(use), null, null);
+    }
+
+    private BinaryResponse cancel(BinaryRequest request){
+        CancelTransactionDto.Request cancel = new CancelTransactionDto.Request(
+                request.transactionId(), request.accountNumber(), request.amount());
+        if(!validator.validate(cancel).isEmpty()){
+            return error(request, ErrorCode.INTERNAL_SERVER_ERROR);
+        }
+        return new BinaryResponse(request.opcode(), request.requestId(),
+                transactionController.cancelTransaction(cancel), null, null);
+    }
+
+    private static BinaryResponse error(BinaryRequest request, ErrorCode errorCode){
+        return new BinaryResponse(request.opcode(), request.requestId(), null, null, errorCode);
+    }
+
+    private static String endpointOf(byte opcode){
+        return switch (opcode) {
+            case BinaryProtocol.USE -> "TCP USE";
+            case BinaryProtocol.CANCEL -> "TCP CANCEL";
+            default -> "TCP QUERY";
+        };
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.account.tcp;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//거래 사용/취소/조회의 binary TCP listener. (BinaryProtocol)
+//selector 스레드 하나가 모든 연결의 accept, read, write 를 하고, 요청 처리(lock, DB) 는 worker 스레드가 한다.
+//연결마다 읽기/쓰기 direct buffer 를 하나씩 두고 계속 쓴다.
+//읽은 frame 은 buffer 의 view 로 바로 읽고, 응답은 selector 스레드가 쓰기 buffer 에 바로 써서 보낸다. (중간 byte[] 복사 없음)
+//한 연결에서 처리 중인 요청이 max-in-flight 개가 넘으면 응답이 나갈 때까지 그 연결은 더 읽지 않는다.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.tcp.enabled", havingValue = "true")
+public class BinaryTransactionServer {
+    private final BinaryTransactionHandler binaryTransactionHandler;
+
+    //0 이면 빈 포트를 쓴다. (getPort 로 확인)
+    @Value("${account.tcp.port:7070}")
+    private int port = 7070;
+
+    @Value("${account.tcp.worker-threads:64}")
+    private int workerThreads = 64;
+
+    @Value("${account.tcp.max-in-flight:256}")
+    private int maxInFlight = 256;
+
+    //연결당 읽기/쓰기 buffer 크기. frame 은 이보다 작아야 한다.
+    @Value("${account.tcp.buffer-size:65536}")
+    private int bufferSize = 65_536;
+
+    private final Queue<Connection> writable = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private ServerSocketChannel serverChannel;
+    private Selector selector;
+    private ExecutorService workers;
+    private Thread selectorThread;
+    private volatile boolean running;
+
+    public BinaryTransactionServer(BinaryTransactionHandler binaryTransactionHandler) {
+        this.binaryTransactionHandler = binaryTransactionHandler;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        AtomicInteger workerIndex = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "tcp-transaction-worker-" + workerIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        running = true;
+        selectorThread = new Thread(this::run, "tcp-transaction-selector");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+        log.info("tcp transaction listener started on port {}", getPort());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        if(!running){
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        selectorThread.join(TimeUnit.SECONDS.toMillis(5));
+        workers.shutdown();
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+    }
+
+    public int getPort(){
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public int getConnectionCount(){
+        return connections.get();
+    }
+
+    private void run(){
+        while (running) {
+            try{
+                selector.select();
+                Connection connection;
+                while (null != (connection = writable.poll())) {
+                    flush(connection);
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if(!key.isValid()){
+                        continue;
+                    }
+                    if(key.isAcceptable()){
+                        accept();
+                    }else{
+                        Connection selected = (Connection) key.attachment();
+                        if(key.isReadable()){
+                            read(selected);
+                        }
+                        if(key.isValid() && key.isWritable()){
+                            flush(selected);
+                        }
+                    }
+                }
+            }catch(Exception e){
+                log.error("tcp selector loop failed", e);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if(null == channel){
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        Connection connection = new Connection(channel);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        connections.incrementAndGet();
+    }
+
+    private void read(Connection connection){
+        try{
+            if(0 > connection.channel.read(connection.in)){
+                close(connection);
+                return;
+            }
+        }catch(IOException e){
+            close(connection);
+            return;
+        }
+
+        ByteBuffer in = connection.in.flip();
+        try{
+            while (Integer.BYTES <= in.remaining()) {
+                int length = in.getInt(in.position());
+                if(BinaryProtocol.MIN_FRAME_LENGTH > length || bufferSize - Integer.BYTES < length){
+                    throw new IllegalArgumentException("invalid frame length : " + length);
+                }
+                if(Integer.BYTES + length > in.remaining()){
+                    break;
+                }
+
+                BinaryRequest request = BinaryProtocol.decodeRequest(
+                        in.slice(in.position() + Integer.BYTES, length));
+                in.position(in.position() + Integer.BYTES + length);
+                connection.inFlight.incrementAndGet();
+                workers.execute(() -> complete(connection, binaryTransactionHandler.handle(request)));
+            }
+        }catch(RuntimeException e){
+            //frame 을 더 읽을 수 없으므로 연결을 끊는다.
+            log.warn("tcp protocol error. remote : {}", connection.channel.socket().getRemoteSocketAddress(), e);
+            close(connection);
+            return;
+        }
+        in.compact();
+        updateInterest(connection);
+    }
+
+    //worker 스레드에서 부른다. 쓰기는 selector 스레드가 한다.
+    private void complete(Connection connection, BinaryResponse response){
+        connection.completed.add(response);
+        writable.add(connection);
+        selector.wakeup();
+    }
+
+    private void flush(Connection connection){
+        if(!connection.key.isValid()){
+            return;
+        }
+
+        BinaryResponse response;
+        while (null != (response = connection.completed.peek())) {
+            if(!BinaryProtocol.encodeResponse(response, connection.out)){
+                break;
+            }
+            connection.completed.poll();
+            connection.inFlight.decrementAndGet();
+        }
+
+        try{
+            connection.out.flip();
+            connection.channel.write(connection.out);
+            connection.out.compact();
+        }catch(IOException e){
+            close(connection);
+            return;
+        }
+        updateInterest(connection);
+    }
+
+    //보낼 것이 남았으면 쓰기를, 처리 중인 요청이 max-in-flight 보다 적으면 읽기를 기다린다.
+    private void updateInterest(Connection connection){
+        int interest = 0;
+        if(maxInFlight > connection.inFlight.get()){
+            interest |= SelectionKey.OP_READ;
+        }
+        if(0 < connection.out.position() || !connection.completed.isEmpty()){
+            interest |= SelectionKey.OP_WRITE;
+        }
+        connection.key.interestOps(interest);
+    }
+
+    private void close(Connection connection){
+        if(!connection.key.isValid()){
+            return;
+        }
+        try{
+            connection.key.cancel();
+            connection.channel.close();
+        }catch(IOException e){
+            log.debug("tcp connection close failed", e);
+        }
+        connections.decrementAndGet();
+    }
+
+    private final class Connection {
+        private final SocketChannel channel;
+        private final ByteBuffer in = ByteBuffer.allocateDirect(bufferSize);
+        //쓰기 모드로 둔다. (보낼때만 flip 했다가 compact)
+        private final ByteBuffer out = ByteBuffer.allocateDirect(bufferSize);
+        private final Queue<BinaryResponse> completed = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private SelectionKey key;
+
+        private Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+}
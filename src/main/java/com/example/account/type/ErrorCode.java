@@ -20,7 +20,11 @@ public enum ErrorCode {
     TRANSACTION_ACCOUNT_NOT_MATCH("거래 취소하려는 계좌와 거래 내역 계좌가 다릅니다."),
     TRANSACTION_NOT_FOUND("거래 아이디에 해당하는 거래 내역이 없습니다."),
     TRANSACTION_AMOUNT_NOT_MATCH("거래 금액과 거래 취소금액이 다릅니다."),
-    TRANSACTION_TOO_OLD("너무 오래된 거래 내역입니다.");
+    TRANSACTION_TOO_OLD("너무 오래된 거래 내역입니다."),
+    INVALID_DATE_RANGE("조회 기간이 올바르지 않습니다."),
+    TOO_MANY_SUBSCRIBERS("잔액 변경 구독자가 너무 많습니다."),
+    TOO_MANY_REQUESTS("요청이 많아 처리하지 못했습니다. 잠시 후 다시 시도해 주세요."),
+    INVALID_IMPORT_FILE("이관할 파일은 이관 디렉토리 안에 있어야 합니다.");
 
     private final String description;
 }
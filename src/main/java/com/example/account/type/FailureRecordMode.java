@@ -0,0 +1,6 @@
+package com.example.account.type;
+
+public enum FailureRecordMode {
+    ROW,                    //실패마다 거래(Transaction) row 를 하나씩 남긴다. (예전 방식)
+    AGGREGATE               //계좌, 거래 종류, ErrorCode, 분 단위로 세어서 transaction_failure 에 한줄로 남긴다.
+}
@@ -0,0 +1,10 @@
+package com.example.account.type;
+
+public enum LatencyPhase {
+    TOTAL,                  //요청 전체 (interceptor preHandle ~ afterCompletion)
+    DESERIALIZATION,        //요청 body 읽기 + @Valid 검증 (preHandle ~ controller 진입)
+    LOCK_WAIT,              //LockAopAspect 에서 계좌 lock 을 잡거나 포기하기까지
+    SERVICE,                //service 메서드 (DB, 트랜잭션 커밋 포함)
+    FAILED_TRANSACTION,     //실패 거래 저장 (saveFailedTransaction, cancelFailedTransaction)
+    SERIALIZATION           //응답 쓰기 (controller 반환 ~ afterCompletion, 에러 응답 포함)
+}
@@ -0,0 +1,9 @@
+package com.example.account.type;
+
+public enum RedisMode {
+    SINGLE,                 //redis 서버 한대
+    CLUSTER,                //redis cluster (키는 slot 으로 노드에 분산됨)
+    REPLICATED,             //master/replica 구성 (AWS ElastiCache 등)
+    SENTINEL,               //sentinel 로 master 를 찾는 구성
+    SHARDED                 //독립된 redis 여러대에 계좌 lock 을 consistent hash 로 분산
+}
@@ -0,0 +1,264 @@
+package com.example.account.validation;
+
+import com.example.account.repository.AccountRepository;
+import com.example.account.shard.ShardRouting;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+//지금까지 발급된 계좌번호의 Bloom filter.
+//기동하면 모든 shard 의 계좌번호를 stream 으로 읽어서 채우고, 그 뒤에 만들어지는 계좌는 createAccount 에서 더한다.
+//다른 서버에서 만든 계좌번호는 redis topic 으로 전달 받는다.
+//메세지를 놓쳤을 때를 위해 resync-interval 마다 같은 filter 에 다시 읽어 넣는다. (계좌는 지워지지 않으므로 더하기만 하면 된다)
+//filter 가 건강하면 (구독 중, 전파 실패 없음, resync-interval 안에 다시 채움) 없다는 답을 그대로 돌려준다.
+//건강하지 않으면 메세지를 놓쳤을 수 있으므로 없다는 답을 DB 에서 확인한 뒤에 돌려준다.
+//(확인은 초당 confirm-per-second 번까지. 넘으면 확인 없이 filter 의 답대로 거절한다 - lock 까지 보내지 않는다)
+//확인해보니 있는 계좌였으면 filter 에 더하고 바로 다시 채운다. (구독이 끊겼으면 다시 구독한다)
+//다 채우기 전에는 모든 계좌번호가 있을 수 있다고 답한다.
+@Slf4j
+@Component
+public class AccountNumberFilter {
+    private static final String TOPIC = "account-number-filter";
+
+    private final AccountRepository accountRepository;
+    private final ShardRouting shardRouting;
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+    private final ObjectProvider<RedissonClient> redissonClient;
+
+    @Value("${account.validation.account-filter.enabled:true}")
+    private boolean enabled;
+
+    //이 갯수를 넘으면 오탐률이 fpp 보다 높아진다. (없는 계좌를 있다고 잘못 답하는 경우만 늘어난다)
+    @Value("${account.validation.account-filter.expected-accounts:1000000}")
+    private long expectedAccounts;
+
+    @Value("${account.validation.account-filter.fpp:0.001}")
+    private double fpp;
+
+    @Value("${account.validation.account-filter.broadcast:true}")
+    private boolean broadcast;
+
+    @Value("${account.validation.account-filter.resync-interval:1h}")
+    private Duration resyncInterval;
+
+    @Value("${account.validation.account-filter.confirm-per-second:200}")
+    private int confirmPerSecond = 200;
+
+    //놓친 계좌번호를 찾아서 다시 채울때 최소 간격. (filter 를 지나간 다른 계좌들 때문에 계속 다시 읽지 않도록)
+    private static final Duration MIN_RESYNC_INTERVAL = Duration.ofMinutes(1);
+
+    //자기가 보낸 메세지를 구분하기 위한 서버 id.
+    private final String nodeId = UUID.randomUUID().toString();
+
+    //채우는 중에도 add 를 받아야 하므로 처음부터 만들어 둔다.
+    private BloomFilter filter;
+    private volatile boolean ready;
+    private volatile long scannedAt;
+    private volatile boolean subscribed;
+    //전파 실패 수. 실패한 뒤에 다 채우기 시작했으면 (scan 시작할때 센 수와 같으면) 다시 건강하다.
+    private final AtomicLong publishFailures = new AtomicLong();
+    private volatile long publishFailuresAtScan;
+    private final AtomicBoolean scanning = new AtomicBoolean();
+
+    //confirm 횟수를 세는 초 단위 window
+    private final AtomicLong confirmSecond = new AtomicLong();
+    private final AtomicInteger confirmCount = new AtomicInteger();
+
+    public AccountNumberFilter(AccountRepository accountRepository,
+                               ShardRouting shardRouting,
+                               ObjectProvider<PlatformTransactionManager> transactionManager,
+                               ObjectProvider<RedissonClient> redissonClient) {
+        this.accountRepository = accountRepository;
+        this.shardRouting = shardRouting;
+        this.transactionManager = transactionManager;
+        this.redissonClient = redissonClient;
+    }
+
+    @PostConstruct
+    public void init(){
+        if(enabled){
+            filter = new BloomFilter(expectedAccounts, fpp);
+        }
+    }
+
+    //기동 요청을 붙잡지 않도록 백그라운드에서 채운다.
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup(){
+        if(enabled && scanning.compareAndSet(false, true)){
+            CompletableFuture.runAsync(this::build);
+        }
+    }
+
+    void build(){
+        try{
+            //먼저 구독해야 읽는 동안 다른 서버에서 만든 계좌도 빠지지 않는다.
+            subscribe();
+
+            long startedAt = System.nanoTime();
+            long failures = publishFailures.get();
+            long count = shardRouting.onEachShard(this::scan).stream()
+                    .mapToLong(Long::longValue)
+                    .sum();
+            ready = true;
+            scannedAt = System.nanoTime();
+            publishFailuresAtScan = failures;
+
+            log.info("account number filter built. accounts : {}, bits : {}, hashes : {}, took : {}ms",
+                    count, filter.getBitCount(), filter.getHashCount(),
+                    (System.nanoTime() - startedAt) / 1_000_000);
+            if(count > expectedAccounts){
+                log.warn("accounts {} exceed account-filter.expected-accounts {}. false positive rate goes up",
+                        count, expectedAccounts);
+            }
+        }catch(Exception e){
+            //채우지 못하면 filter 를 쓰지 않는다. (모든 계좌번호를 통과시킨다)
+            log.error("account number filter build failed", e);
+        }finally {
+            scanning.set(false);
+        }
+    }
+
+    //stream 은 커넥션이 열려 있는 동안만 읽을 수 있으므로 읽기 전용 트랜잭션 안에서 읽는다.
+    private long scan(){
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager.getObject());
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate.execute(status -> {
+            AtomicLong count = new AtomicLong();
+            try (Stream<String> accountNumbers = accountRepository.streamAllAccountNumbers()) {
+                accountNumbers.forEach(accountNumber -> {
+                    filter.add(accountNumber);
+                    count.incrementAndGet();
+                });
+            }
+            return count.get();
+        });
+    }
+
+    //커밋 전에 더한다. (커밋 직후의 요청이 거절되지 않도록. 롤백되면 오탐이 하나 늘 뿐이다)
+    public void add(String accountNumber){
+        if(!enabled){
+            return;
+        }
+        filter.add(accountNumber);
+        publish(accountNumber);
+    }
+
+    public boolean mightExist(String accountNumber){
+        if(!enabled || !ready || filter.mightContain(accountNumber)){
+            return true;
+        }
+        if(isHealthy()){
+            resyncAfter(resyncInterval);
+            return false;
+        }
+        //확인할 수 있는 만큼만 확인하고 나머지는 filter 의 답대로 거절한다.
+        if(!tryConfirm()){
+            resyncAfter(MIN_RESYNC_INTERVAL);
+            return false;
+        }
+
+        boolean exists;
+        try{
+            exists = shardRouting.onShard(accountNumber,
+                    () -> accountRepository.existsByAccountNumber(accountNumber));
+        }catch(Exception e){
+            log.error("account number filter confirm failed. accountNumber : {}", accountNumber, e);
+            return true;
+        }
+
+        if(exists){
+            log.warn("account number filter missed an account. accountNumber : {}, subscribed : {}",
+                    accountNumber, subscribed);
+            filter.add(accountNumber);
+            resyncAfter(MIN_RESYNC_INTERVAL);
+            return true;
+        }
+        resyncAfter(resyncInterval);
+        return false;
+    }
+
+    //놓친 계좌번호가 없다고 볼 수 있는지. (전파를 끄면 resync 만 본다)
+    boolean isHealthy(){
+        if(broadcast && (!subscribed || publishFailures.get() != publishFailuresAtScan)){
+            return false;
+        }
+        return System.nanoTime() - scannedAt <= resyncInterval.toNanos();
+    }
+
+    private void resyncAfter(Duration interval){
+        if(System.nanoTime() - scannedAt > interval.toNanos() && scanning.compareAndSet(false, true)){
+            CompletableFuture.runAsync(this::build);
+        }
+    }
+
+    private boolean tryConfirm(){
+        long second = System.nanoTime() / 1_000_000_000L;
+        long current = confirmSecond.get();
+        if(current != second && confirmSecond.compareAndSet(current, second)){
+            confirmCount.set(0);
+        }
+        return confirmCount.incrementAndGet() <= confirmPerSecond;
+    }
+
+    //구독하지 못해도 filter 는 채운다. (놓친 계좌번호는 다음 resync 에서 들어온다)
+    private void subscribe(){
+        if(!broadcast || subscribed){
+            return;
+        }
+        try{
+            redissonClient.getObject()
+                    .getTopic(TOPIC, StringCodec.INSTANCE)
+                    .addListener(String.class, (channel, message) -> onMessage(message));
+            subscribed = true;
+        }catch(Exception e){
+            log.error("account number filter subscribe failed", e);
+        }
+    }
+
+    private void publish(String accountNumber){
+        if(!broadcast){
+            return;
+        }
+        //전파에 실패하면 redis 가 불안정하므로 이 서버도 다시 채울 때까지 없다는 답을 DB 에서 확인한다.
+        try{
+            redissonClient.getObject()
+                    .getTopic(TOPIC, StringCodec.INSTANCE)
+                    .publishAsync(nodeId + ":" + accountNumber)
+                    .whenComplete((receivers, e) -> {
+                        if(null != e){
+                            onPublishFailed(accountNumber, e);
+                        }
+                    });
+        }catch(Exception e){
+            onPublishFailed(accountNumber, e);
+        }
+    }
+
+    private void onPublishFailed(String accountNumber, Throwable e){
+        publishFailures.incrementAndGet();
+        log.error("account number filter publish failed. accountNumber : {}", accountNumber, e);
+    }
+
+    private void onMessage(String message){
+        int separator = message.lastIndexOf(':');
+        if(!message.substring(0, separator).equals(nodeId)){
+            filter.add(message.substring(separator + 1));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.account.validation;
+
+import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+//계좌번호는 10자리 숫자. (AccountService.createAccount 가 1000000000 부터 만든다)
+//형식이 다르면 있을 수 없는 계좌이므로 ACCOUNT_NOT_FOUND.
+@Component
+@Order(100)
+public class AccountNumberFormatRule implements PreLockRule<AccountLockIdInterface> {
+    private static final int ACCOUNT_NUMBER_LENGTH = 10;
+
+    @Override
+    public Class<AccountLockIdInterface> requestType() {
+        return AccountLockIdInterface.class;
+    }
+
+    @Override
+    public void validate(AccountLockIdInterface request) {
+        if(!isWellFormed(request.getAccountNumber())){
+            throw AccountException.of(ErrorCode.ACCOUNT_NOT_FOUND);
+        }
+    }
+
+    static boolean isWellFormed(String accountNumber) {
+        if(null == accountNumber || ACCOUNT_NUMBER_LENGTH != accountNumber.length()){
+            return false;
+        }
+        for (int i = 0; i < ACCOUNT_NUMBER_LENGTH; i++) {
+            char c = accountNumber.charAt(i);
+            if(c < '0' || c > '9'){
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.account.validation;
+
+import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+//발급된 적 없는 계좌번호(무작위 대입 등) 는 lock, 조회 없이 ACCOUNT_NOT_FOUND.
+@Component
+@Order(150)
+@RequiredArgsConstructor
+public class ExistingAccountRule implements PreLockRule<AccountLockIdInterface> {
+    private final AccountNumberFilter accountNumberFilter;
+
+    @Override
+    public Class<AccountLockIdInterface> requestType() {
+        return AccountLockIdInterface.class;
+    }
+
+    @Override
+    public void validate(AccountLockIdInterface request) {
+        if(!accountNumberFilter.mightExist(request.getAccountNumber())){
+            throw AccountException.of(ErrorCode.ACCOUNT_NOT_FOUND);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.account.validation;
+
+import com.example.account.dto.UseBalanceDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//메모리에 올려둔 사용자 id 목록에 없는 사용자면 USER_NOT_FOUND.
+//사용자는 이 서버에서 만들지 않으므로 (data.sql, 외부 시스템) 목록은 refresh 주기마다 백그라운드에서 다시 읽는다.
+//사용자는 지워지지 않고 id 는 늘어나기만 하므로 목록의 마지막 id 보다 큰 id 는 새로 추가된 사용자일 수 있다.
+//그런 id 는 통과시켜 서비스에서 확인하고 목록을 바로 다시 읽는다. (MIN_RELOAD_INTERVAL 에 한번까지)
+//목록을 아직 읽지 못했다면 통과시키고 서비스에서 확인한다.
+@Slf4j
+@Component
+@Order(300)
+public class KnownUserRule implements PreLockRule<UseBalanceDto.Request> {
+    private final AccountUserRepository accountUserRepository;
+
+    @Value("${account.validation.known-users.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${account.validation.known-users.refresh:30s}")
+    private Duration refresh = Duration.ofSeconds(30);
+
+    //목록에 없는 큰 id 가 계속 와도 이보다 자주 다시 읽지 않는다.
+    private static final Duration MIN_RELOAD_INTERVAL = Duration.ofSeconds(1);
+
+    //정렬된 사용자 id. (조회할때 할당 없이 binary search)
+    private volatile long[] userIds;
+    private volatile long loadedAt;
+    private final AtomicBoolean loading = new AtomicBoolean();
+
+    public KnownUserRule(AccountUserRepository accountUserRepository) {
+        this.accountUserRepository = accountUserRepository;
+    }
+
+    @Override
+    public Class<UseBalanceDto.Request> requestType() {
+        return UseBalanceDto.Request.class;
+    }
+
+    @Override
+    public void validate(UseBalanceDto.Request request) {
+        if(!enabled){
+            return;
+        }
+        if(isStale(refresh)){
+            reload();
+        }
+
+        long[] known = userIds;
+        if(null == known || 0 <= Arrays.binarySearch(known, request.getUserId())){
+            return;
+        }
+        if(0 == known.length || request.getUserId() > known[known.length - 1]){
+            //목록을 읽은 뒤에 추가된 사용자일 수 있다.
+            if(isStale(MIN_RELOAD_INTERVAL)){
+                reload();
+            }
+            return;
+        }
+        throw AccountException.of(ErrorCode.USER_NOT_FOUND);
+    }
+
+    private boolean isStale(Duration interval) {
+        return null == userIds || System.nanoTime() - loadedAt > interval.toNanos();
+    }
+
+    private void reload() {
+        if(loading.compareAndSet(false, true)){
+            CompletableFuture.runAsync(this::load);
+        }
+    }
+
+    void load() {
+        try{
+            long[] loaded = accountUserRepository.findAllIds().stream()
+                    .mapToLong(Long::longValue)
+                    .sorted()
+                    .toArray();
+            loadedAt = System.nanoTime();
+            userIds = loaded;
+        }catch(Exception e){
+            log.error("known user ids load failed", e);
+        }finally {
+            loading.set(false);
+        }
+    }
+}
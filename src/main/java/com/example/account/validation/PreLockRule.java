@@ -0,0 +1,12 @@
+package com.example.account.validation;
+
+import com.example.account.aop.AccountLockIdInterface;
+
+//계좌 lock 을 잡기 전에 요청 값(과 메모리에 있는 값) 만 보고 거절할 수 있는 규칙.
+//lock, DB 를 쓰지 않아야 한다. 위반이면 AccountException 을 던진다.
+//@Component 로 등록하면 PreLockValidator 가 요청 타입에 맞는 규칙들을 @Order 순서로 실행한다.
+public interface PreLockRule<T extends AccountLockIdInterface> {
+    Class<T> requestType();
+
+    void validate(T request);
+}
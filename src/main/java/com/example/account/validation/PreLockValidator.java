@@ -0,0 +1,33 @@
+package com.example.account.validation;
+
+import com.example.account.aop.AccountLockIdInterface;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+//LockAopAspect 가 lock 을 잡기 전에 부른다.
+//요청 타입마다 적용할 규칙 목록은 처음 한번만 골라둔다.
+@Component
+public class PreLockValidator {
+    private final List<PreLockRule<?>> rules;
+    private final ConcurrentHashMap<Class<?>, List<PreLockRule<?>>> rulesByType = new ConcurrentHashMap<>();
+
+    //spring 이 @Order 순서로 정렬해서 넣어준다.
+    public PreLockValidator(List<PreLockRule<?>> rules) {
+        this.rules = List.copyOf(rules);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void validate(AccountLockIdInterface request) {
+        for (PreLockRule rule : rulesByType.computeIfAbsent(request.getClass(), this::rulesFor)) {
+            rule.validate(request);
+        }
+    }
+
+    private List<PreLockRule<?>> rulesFor(Class<?> requestType) {
+        return rules.stream()
+                .filter(rule -> rule.requestType().isAssignableFrom(requestType))
+                .toList();
+    }
+}
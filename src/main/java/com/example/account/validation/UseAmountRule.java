@@ -0,0 +1,30 @@
+package com.example.account.validation;
+
+import com.example.account.dto.UseBalanceDto;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import static com.example.account.service.TransactionService.MAX_USE_AMOUNT;
+import static com.example.account.service.TransactionService.MIN_USE_AMOUNT;
+
+//잔액 사용 금액 범위. (TransactionService.validateUseBalance 와 같은 기준)
+@Component
+@Order(200)
+public class UseAmountRule implements PreLockRule<UseBalanceDto.Request> {
+    @Override
+    public Class<UseBalanceDto.Request> requestType() {
+        return UseBalanceDto.Request.class;
+    }
+
+    @Override
+    public void validate(UseBalanceDto.Request request) {
+        if(MIN_USE_AMOUNT > request.getAmount()){
+            throw AccountException.of(ErrorCode.AMOUNT_IS_TOO_SMALL);
+        }
+        if(MAX_USE_AMOUNT < request.getAmount()){
+            throw AccountException.of(ErrorCode.AMOUNT_IS_TOO_BIG);
+        }
+    }
+}
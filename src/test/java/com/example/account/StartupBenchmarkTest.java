@@ -0,0 +1,167 @@
+package com.example.account;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//기동 시간 벤치마크. (gradlew benchmark 로 실행)
+//프로파일마다 애플리케이션을 별도의 JVM 으로 띄우고
+//프로세스 시작부터 GET /account 가 처음 200 을 돌려줄 때 까지의 시간을 잰다.
+//default 는 기동할때 스키마를 만들고 data.sql 을 넣는다. fast 는 측정 전에 한번 만들어 둔 파일 DB 를 쓴다.
+@Tag("benchmark")
+class StartupBenchmarkTest {
+    private static final int RUNS = Integer.getInteger("benchmark.startup.runs", 3);
+    private static final String[] PROFILES =
+            System.getProperty("benchmark.startup.profiles", "default,fast").split(",");
+    //0 보다 크면 fast 프로파일의 중앙값이 이 값(ms)을 넘을 때 실패 처리.
+    private static final long MAX_MILLIS = Long.getLong("benchmark.startup.maxMillis", 0L);
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    @Test
+    @DisplayName("프로파일별 첫 요청 성공까지의 기동 시간")
+    void timeToFirstSuccessfulRequest() throws Exception {
+        Map<String, long[]> results = new LinkedHashMap<>();
+
+        for (String profile : PROFILES) {
+            if("fast".equals(profile.trim())){
+                seedFastDb();
+            }
+            long[] samples = new long[RUNS];
+            for (int i = 0; i < RUNS; i++) {
+                samples[i] = measure(profile.trim());
+            }
+            Arrays.sort(samples);
+            results.put(profile.trim(), samples);
+        }
+
+        List<String> lines = new ArrayList<>();
+        results.forEach((profile, samples) -> lines.add(String.format(
+                "startup profile=%s runs=%d min=%dms median=%dms max=%dms",
+                profile, samples.length, samples[0],
+                samples[samples.length / 2], samples[samples.length - 1])));
+        lines.forEach(System.out::println);
+
+        Path report = Path.of("build", "benchmarks", "startup.txt");
+        Files.createDirectories(report.getParent());
+        Files.write(report, lines);
+
+        if (MAX_MILLIS > 0 && results.containsKey("fast")) {
+            long[] fast = results.get("fast");
+            assertTrue(fast[fast.length / 2] <= MAX_MILLIS,
+                    "fast profile startup regressed : " + fast[fast.length / 2] + "ms");
+        }
+    }
+
+    private long measure(String profile) throws Exception {
+        int port = freePort();
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(AccountApplication.class.getName());
+        command.add("--server.port=" + port);
+        if (!"default".equals(profile)) {
+            command.add("--spring.profiles.active=" + profile);
+        }
+
+        long startedAt = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.to(new File(
+                        System.getProperty("java.io.tmpdir"), "startup-benchmark.log")))
+                .start();
+        try {
+            waitFirstSuccess(process, port);
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        } finally {
+            //destroy 로 정상 종료시켜야 @PreDestroy 에서 embedded redis 가 내려간다.
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    //gradlew fastDb 와 같다. (측정에 들어가지 않는다)
+    private void seedFastDb() throws Exception {
+        Process process = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                AccountApplication.class.getName(),
+                "--spring.profiles.active=fast",
+                "--spring.main.lazy-initialization=false",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--spring.jpa.defer-datasource-initialization=true",
+                "--spring.sql.init.mode=always",
+                "--account.startup.exit-on-ready=true",
+                "--server.port=0")
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.to(new File(
+                        System.getProperty("java.io.tmpdir"), "startup-benchmark-seed.log")))
+                .start();
+        if (!process.waitFor(STARTUP_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            throw new IllegalStateException("fast profile database seed did not finish");
+        }
+        if (0 != process.exitValue()) {
+            throw new IllegalStateException("fast profile database seed failed : " + process.exitValue());
+        }
+    }
+
+    private void waitFirstSuccess(Process process, int port) throws Exception {
+        //lazy 초기화 프로파일은 첫 요청에서 jpa 초기화가 일어나므로 요청 timeout 을 넉넉히 준다.
+        HttpRequest request = HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/account?user_id=1"))
+                .timeout(STARTUP_TIMEOUT)
+                .GET()
+                .build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("application exited : " + process.exitValue());
+            }
+            try {
+                if (200 == httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode()) {
+                    return;
+                }
+            } catch (ConnectException e) {
+                //아직 포트가 열리지 않음.
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("application did not start in " + STARTUP_TIMEOUT);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
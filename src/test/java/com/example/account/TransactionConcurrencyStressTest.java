@@ -0,0 +1,169 @@
+package com.example.account;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//여러 스레드가 적은 수의 계좌에 /transaction/use, /transaction/cancel 을 동시에 보낸다.
+//실제 서버(LockAopAspect + redis lock + H2)를 거치고,
+//끝난 뒤 계좌 잔액이 "초기 잔액 - 성공한 사용 금액" 과 같은지 (lost update 가 없는지) 확인한다.
+//거래 취소는 잔액을 되돌리지 않는다. (현재 정책)
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                //다른 테스트 컨텍스트와 같은 in-memory DB 를 쓰지 않도록 분리한다.
+                "spring.datasource.url=jdbc:h2:mem:stress",
+                "spring.jpa.properties.hibernate.show_sql=false",
+                "account.cache.account-read.enabled=false"
+        })
+class TransactionConcurrencyStressTest {
+    private static final long USER_ID = 3L;
+    private static final int ACCOUNT_COUNT = 4;
+    private static final long INITIAL_BALANCE = 10_000_000L;
+    private static final int THREADS = 16;
+    private static final int OPERATIONS_PER_THREAD = 40;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("동시에 사용/취소해도 잔액 = 초기 잔액 - 성공한 사용 금액")
+    void noLostUpdatesUnderContention() throws Exception {
+        //given
+        List<String> accountNumbers = new ArrayList<>();
+        for (int i = 0; i < ACCOUNT_COUNT; i++) {
+            JsonNode created = post("/account", Map.of(
+                    "userId", USER_ID,
+                    "initialBalance", INITIAL_BALANCE));
+            accountNumbers.add(created.get("accountNumber").asText());
+        }
+
+        Map<String, AtomicLong> debited = new ConcurrentHashMap<>();
+        accountNumbers.forEach(accountNumber -> debited.put(accountNumber, new AtomicLong()));
+        LongAdder useSuccess = new LongAdder();
+        LongAdder cancelSuccess = new LongAdder();
+        LongAdder rejected = new LongAdder();
+
+        //when
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                List<JsonNode> usedTransactions = new ArrayList<>();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    //3번에 1번은 자기가 성공시킨 사용 거래를 취소한다.
+                    if(!usedTransactions.isEmpty() && 0 == random.nextInt(3)){
+                        JsonNode used = usedTransactions.remove(usedTransactions.size() - 1);
+                        JsonNode response = post("/transaction/cancel", Map.of(
+                                "transactionId", used.get("transactionId").asText(),
+                                "accountNumber", used.get("accountNumber").asText(),
+                                "amount", used.get("amount").asLong()));
+                        if(response.hasNonNull("errorCode")){
+                            rejected.increment();
+                        }else{
+                            cancelSuccess.increment();
+                        }
+                        continue;
+                    }
+
+                    String accountNumber = accountNumbers.get(random.nextInt(ACCOUNT_COUNT));
+                    //Long 캐시(-128~127)를 벗어나는 금액을 사용한다.
+                    long amount = random.nextLong(100, 1_000);
+                    JsonNode response = post("/transaction/use", Map.of(
+                            "userId", USER_ID,
+                            "accountNumber", accountNumber,
+                            "amount", amount));
+                    if(response.hasNonNull("errorCode")){
+                        rejected.increment();
+                        continue;
+                    }
+                    useSuccess.increment();
+                    debited.get(accountNumber).addAndGet(amount);
+                    usedTransactions.add(objectMapper.createObjectNode()
+                            .put("transactionId", response.get("transactionId").asText())
+                            .put("accountNumber", accountNumber)
+                            .put("amount", amount));
+                }
+                return null;
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double elapsedSeconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+        executor.shutdown();
+
+        //then
+        long requests = useSuccess.sum() + cancelSuccess.sum() + rejected.sum();
+        System.out.printf(
+                "stress threads=%d accounts=%d requests=%d use=%d cancel=%d rejected=%d elapsed=%.2fs throughput=%.1f req/s%n",
+                THREADS, ACCOUNT_COUNT, requests, useSuccess.sum(), cancelSuccess.sum(),
+                rejected.sum(), elapsedSeconds, requests / elapsedSeconds);
+
+        assertEquals(THREADS * OPERATIONS_PER_THREAD, requests);
+        assertTrue(useSuccess.sum() > 0);
+        assertTrue(cancelSuccess.sum() > 0);
+
+        for (String accountNumber : accountNumbers) {
+            Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow();
+            long expected = INITIAL_BALANCE - debited.get(accountNumber).get();
+            assertEquals(expected, account.getAccountBalance(),
+                    "lost update on account " + accountNumber);
+
+            //거래 내역 기준으로도 맞아야 하고,
+            //lock 이 제대로 잡혔다면 한 계좌의 사용 후 잔액(balanceSnapshot)은 모두 달라야 한다.
+            List<Transaction> used = transactionRepository.findAll().stream()
+                    .filter(transaction -> USE == transaction.getTransactionType()
+                            && S == transaction.getTransactionResultType()
+                            && account.getId().equals(transaction.getAccount().getId()))
+                    .toList();
+            assertEquals(debited.get(accountNumber).get(),
+                    used.stream().mapToLong(Transaction::getAmount).sum());
+            assertEquals(used.size(),
+                    used.stream().map(Transaction::getBalanceSnapshot).distinct().count());
+        }
+    }
+
+    private JsonNode post(String path, Map<String, Object> body) {
+        return restTemplate.postForObject(path, body, JsonNode.class);
+    }
+}
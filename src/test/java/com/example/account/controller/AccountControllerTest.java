@@ -1,8 +1,11 @@
 package com.example.account.controller;
 
 import com.example.account.dto.AccountDto;
+import com.example.account.dto.AccountSummaryDto;
 import com.example.account.dto.CreateAccountDto;
+import com.example.account.service.AccountProvisioningService;
 import com.example.account.service.AccountService;
+import com.example.account.service.BalanceChangeStream;
 import com.example.account.service.LockService;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -36,6 +39,12 @@ class AccountControllerTest {
     @MockBean
     private LockService redisTestService;
 
+    @MockBean
+    private AccountProvisioningService accountProvisioningService;
+
+    @MockBean
+    private BalanceChangeStream balanceChangeStream;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -63,4 +72,25 @@ class AccountControllerTest {
                 .andExpect(jsonPath("$.accountNumber").value("12345"))
                 .andDo(print());
     }
-}
\ No newline at end of file
+
+    @Test
+    void successGetAccountSummary() throws Exception{
+        //given
+        given(accountService.getAccountSummary(anyLong()))
+                .willReturn(AccountSummaryDto.builder()
+                        .userId(1L)
+                        .accountCount(3)
+                        .activeAccountCount(2)
+                        .totalBalance(5_000L)
+                        .lastActivityAt(LocalDateTime.now())
+                        .build());
+        //when
+        //then
+        mockMvc.perform(get("/account/summary?user_id=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userId").value(1))
+                .andExpect(jsonPath("$.accountCount").value(2))
+                .andExpect(jsonPath("$.totalBalance").value(5000))
+                .andDo(print());
+    }
+}
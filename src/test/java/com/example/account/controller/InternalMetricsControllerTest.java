@@ -0,0 +1,105 @@
+package com.example.account.controller;
+
+import com.example.account.dto.CreateAccountDto;
+import com.example.account.dto.UseBalanceDto;
+import com.jayway.jsonpath.JsonPath;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//sql-stats 를 켜고 실제 요청을 보낸 뒤 endpoint, service method 별 집계가 쌓이는지 확인한다.
+//단계별 지연 시간(latency)도 같이 확인한다.
+@SpringBootTest(properties = {
+        "account.sql-stats.enabled=true",
+        "account.sql-stats.slow-threshold=0ms"
+})
+@AutoConfigureMockMvc
+class InternalMetricsControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @DisplayName("계좌 생성 요청의 SQL 이 endpoint, service method 별로 집계된다.")
+    void sqlStatsPerEndpointAndServiceMethod() throws Exception {
+        //given
+        mockMvc.perform(delete("/internal/sql-stats"))
+                .andExpect(status().isOk());
+
+        //when
+        mockMvc.perform(post("/account")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new CreateAccountDto.Request(1L, 1_000L))))
+                .andExpect(status().isOk());
+
+        //then
+        mockMvc.perform(get("/internal/sql-stats"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.enabled").value(true))
+                .andExpect(jsonPath("$.endpoints[?(@.name == 'POST /account')].calls")
+                        .value(hasItem(1)))
+                .andExpect(jsonPath("$.endpoints[?(@.name == 'POST /account')].statements")
+                        .value(hasItem(greaterThanOrEqualTo(2))))
+                .andExpect(jsonPath("$.serviceMethods[?(@.name == 'AccountService.createAccount')].calls")
+                        .value(hasItem(1)))
+                .andExpect(jsonPath("$.slowStatements[0].bindShape").exists());
+    }
+
+    @Test
+    @DisplayName("잔액 사용 요청의 단계별 지연 시간이 기록된다.")
+    void latencyPerPhase() throws Exception {
+        //given
+        String created = mockMvc.perform(post("/account")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new CreateAccountDto.Request(1L, 1_000L))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String accountNumber = JsonPath.read(created, "$.accountNumber");
+
+        mockMvc.perform(delete("/internal/latency"))
+                .andExpect(status().isOk());
+
+        //when
+        //성공 한번, 잔액 부족으로 실패 한번
+        mockMvc.perform(post("/transaction/use")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalanceDto.Request(1L, accountNumber, 100L))))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/transaction/use")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        new UseBalanceDto.Request(1L, accountNumber, 10_000L))));
+
+        //then
+        String phases = "$.endpoints[?(@.endpoint == 'POST /transaction/use')].phases[*]";
+        mockMvc.perform(get("/internal/latency"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath(phases + ".phase").value(containsInAnyOrder(
+                        "TOTAL", "DESERIALIZATION", "LOCK_WAIT", "SERVICE",
+                        "FAILED_TRANSACTION", "SERIALIZATION")))
+                .andExpect(jsonPath("$.endpoints[?(@.endpoint == 'POST /transaction/use')]"
+                        + ".phases[?(@.phase == 'TOTAL')].count").value(hasItem(2)))
+                .andExpect(jsonPath("$.endpoints[?(@.endpoint == 'POST /transaction/use')]"
+                        + ".phases[?(@.phase == 'FAILED_TRANSACTION')].count").value(hasItem(1)));
+    }
+}
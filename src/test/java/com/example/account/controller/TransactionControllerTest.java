@@ -1,6 +1,7 @@
 package com.example.account.controller;
 
 import com.example.account.dto.CancelTransactionDto;
+import com.example.account.dto.DailyAggregateDto;
 import com.example.account.dto.TransactionDto;
 import com.example.account.dto.UseBalanceDto;
 import com.example.account.repository.AccountRepository;
@@ -13,10 +14,13 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static com.example.account.type.TransactionResultType.*;
 import static com.example.account.type.TransactionType.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
@@ -134,4 +138,30 @@ class TransactionControllerTest {
                 .andDo(print());
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void getDailyAggregatesSuccess() throws Exception {
+        //given
+        given(transactionService.getDailyAggregates(any(), any(), any()))
+                .willReturn(List.of(
+                        DailyAggregateDto.builder()
+                                .aggregateDate(LocalDate.of(2023, 1, 1))
+                                .debitAmount(3_000L).cancelAmount(1_000L)
+                                .successCount(3L).failureCount(1L)
+                                .build(),
+                        DailyAggregateDto.builder()
+                                .aggregateDate(LocalDate.of(2023, 1, 2))
+                                .debitAmount(500L).cancelAmount(0L)
+                                .successCount(1L).failureCount(0L)
+                                .build()));
+        //when
+        //then
+        mockMvc.perform(get("/transaction/daily-aggregate?from=2023-01-01&to=2023-01-31"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.debitAmount").value(3_500L))
+                .andExpect(jsonPath("$.successCount").value(4L))
+                .andExpect(jsonPath("$.days.length()").value(2))
+                .andExpect(jsonPath("$.days[1].aggregateDate").value("2023-01-02"));
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.account.exception;
+
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class AccountExceptionTest {
+
+    @Test
+    @DisplayName("거절 예외는 ErrorCode 마다 하나를 같이 쓰고 stack trace 가 없다.")
+    void sharedAndStackless() {
+        //given
+        AccountException exception = AccountException.of(ErrorCode.AMOUNT_IS_TOO_SMALL);
+
+        //when
+        exception.addSuppressed(new IllegalStateException());
+
+        //then
+        assertSame(exception, AccountException.of(ErrorCode.AMOUNT_IS_TOO_SMALL));
+        assertEquals(ErrorCode.AMOUNT_IS_TOO_SMALL, exception.getErrorCode());
+        assertEquals(ErrorCode.AMOUNT_IS_TOO_SMALL.getDescription(), exception.getErrorMessage());
+        assertEquals(0, exception.getStackTrace().length);
+        assertEquals(0, exception.getSuppressed().length);
+        assertEquals(0, new AccountException(ErrorCode.USER_NOT_FOUND).getStackTrace().length);
+    }
+
+    @Test
+    @DisplayName("거절은 ErrorCode 별로 세어서 한번에 남기고 0 으로 되돌린다.")
+    void rejectionLogAggregatesCounts() {
+        //given
+        RejectionLog rejectionLog = new RejectionLog(Duration.ofHours(1));
+
+        //when
+        for (int i = 0; i < 1_000; i++) {
+            rejectionLog.record(ErrorCode.AMOUNT_IS_TOO_SMALL);
+        }
+        rejectionLog.record(ErrorCode.AMOUNT_OVER_BALANCE);
+
+        //then
+        assertEquals("AMOUNT_OVER_BALANCE=1, AMOUNT_IS_TOO_SMALL=1000", rejectionLog.drain());
+        assertNull(rejectionLog.drain());
+    }
+}
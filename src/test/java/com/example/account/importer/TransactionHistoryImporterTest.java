@@ -0,0 +1,153 @@
+package com.example.account.importer;
+
+import com.example.account.dto.DailyAggregateDto;
+import com.example.account.dto.TransactionImportDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.service.AccountService;
+import com.example.account.service.DailyAccountAggregateService;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+//segment 3줄, partition 2개, JDBC batch 2개로 나눠 넣으면서 잔액 snapshot 과 이어하기가 맞는지 확인한다.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:importer",
+        "account.transaction-import.partitions=2",
+        "account.transaction-import.batch-size=2",
+        "account.transaction-import.segment-size=3",
+        "account.cache.account-read.enabled=false",
+        "spring.jpa.properties.hibernate.show_sql=false"
+})
+class TransactionHistoryImporterTest {
+    @Autowired
+    private TransactionHistoryImporter transactionHistoryImporter;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private DailyAccountAggregateService dailyAccountAggregateService;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("거래 이력을 넣으면서 현재 잔액에 맞는 balanceSnapshot 을 계산하고, checkpoint 부터 이어서 넣는다.")
+    void importsHistoryAndResumes() throws IOException {
+        //given
+        String accountA = accountService.createAccount(1L, 10_000L).getAccountNumber();
+        String accountB = accountService.createAccount(2L, 5_000L).getAccountNumber();
+        Path file = tempDir.resolve("history.csv");
+        Files.writeString(file, String.join("\n",
+                "transaction_id,account_number,transaction_type,transaction_result_type,amount,transacted_at",
+                "L1," + accountA + ",USE,S,1000,2022-01-01T10:00:00",
+                "L2," + accountB + ",USE,S,500,2022-01-01T10:01:00",
+                "L3," + accountA + ",USE,F,300,2022-01-01T10:02:00",
+                "L4,9999999999,USE,S,100,2022-01-01T10:03:00",
+                "L5,broken line",
+                "L6," + accountA + ",CANCEL,S,1000,2022-01-01T10:05:00",
+                "L7," + accountA + ",USE,S,2000,2022-01-01T10:06:00",
+                "L8," + accountB + ",USE,S,1500,2022-01-01T10:07:00"));
+
+        //when
+        TransactionImportDto.Response result = transactionHistoryImporter.importFile(file);
+
+        //then
+        assertEquals("DONE", result.getState());
+        assertEquals(8L, result.getLinesRead());
+        assertEquals(6L, result.getImported());
+        assertEquals(1L, result.getUnknownAccounts());
+        assertEquals(1L, result.getMalformed());
+        assertEquals(8L, result.getCheckpoint());
+
+        //이력 시작 잔액 A : 13,000 / B : 7,000. 마지막 snapshot 은 현재 잔액과 같다.
+        //취소(L6) 는 잔액을 바꾸지 않는다.
+        assertEquals(12_000L, snapshot("L1"));
+        assertEquals(12_000L, snapshot("L3"));
+        assertEquals(12_000L, snapshot("L6"));
+        assertEquals(10_000L, snapshot("L7"));
+        assertEquals(6_500L, snapshot("L2"));
+        assertEquals(5_000L, snapshot("L8"));
+
+        //이관한 날짜의 하루 집계도 다시 만든다. (실패 사유가 없는 실패 거래도 센다)
+        DailyAggregateDto day = dailyAccountAggregateService.getDailyAggregates(accountA,
+                LocalDate.of(2022, 1, 1), LocalDate.of(2022, 1, 1)).get(0);
+        assertEquals(3_000L, day.getDebitAmount());
+        assertEquals(1_000L, day.getCancelAmount());
+        assertEquals(3L, day.getSuccessCount());
+        assertEquals(1L, day.getFailureCount());
+
+        //다 넣은 파일은 다시 넣지 않는다.
+        assertEquals(0L, transactionHistoryImporter.importFile(file).getImported());
+
+        //checkpoint 다음 segment 가 일부만 커밋된 경우 이미 있는 거래는 건너뛴다.
+        Files.writeString(tempDir.resolve("history.csv.checkpoint"), "5");
+        TransactionImportDto.Response resumed = transactionHistoryImporter.importFile(file);
+        assertEquals(0L, resumed.getImported());
+        assertEquals(3L, resumed.getDuplicates());
+        assertEquals(10_000L, snapshot("L7"));
+    }
+
+    private long snapshot(String transactionId) {
+        return transactionRepository.findByTransactionId(transactionId).orElseThrow().getBalanceSnapshot();
+    }
+
+    @Test
+    @DisplayName("이어서 넣을때 원래 거래 아이디를 같이 쓰는 취소 거래는 중복으로 보지 않는다.")
+    void resumesCancelSharingTransactionId() throws IOException {
+        //given
+        String account = accountService.createAccount(3L, 10_000L).getAccountNumber();
+        Path file = tempDir.resolve("cancel-history.csv");
+        Files.writeString(file, String.join("\n",
+                "transaction_id,account_number,transaction_type,transaction_result_type,amount,transacted_at",
+                "C1," + account + ",USE,S,1000,2022-02-01T10:00:00",
+                "C2," + account + ",USE,S,500,2022-02-01T10:01:00",
+                "C3," + account + ",USE,S,200,2022-02-01T10:02:00",
+                "C1," + account + ",CANCEL,S,1000,2022-02-01T10:03:00"));
+        assertEquals(4L, transactionHistoryImporter.importFile(file).getImported());
+
+        //checkpoint 다음 segment 에서 사용(C1) 만 커밋되고 취소(C1) 는 커밋되지 않은 경우.
+        transactionRepository.findAll().stream()
+                .filter(transaction -> "C1".equals(transaction.getTransactionId())
+                        && TransactionType.CANCEL == transaction.getTransactionType())
+                .forEach(transactionRepository::delete);
+        Files.writeString(tempDir.resolve("cancel-history.csv.checkpoint"), "3");
+
+        //when
+        TransactionImportDto.Response resumed = transactionHistoryImporter.importFile(file);
+
+        //then
+        assertEquals(1L, resumed.getImported());
+        assertEquals(0L, resumed.getDuplicates());
+        assertEquals(2L, transactionRepository.findAll().stream()
+                .filter(transaction -> "C1".equals(transaction.getTransactionId()))
+                .count());
+    }
+
+    @Test
+    @DisplayName("이관 디렉토리 밖을 가리키는 파일은 거절한다.")
+    void rejectsFilesOutsideInputDirectory() {
+        assertEquals(Path.of("imports", "history.csv").toAbsolutePath().normalize(),
+                transactionHistoryImporter.resolveInputFile("history.csv"));
+        assertEquals(ErrorCode.INVALID_IMPORT_FILE, assertThrows(AccountException.class,
+                () -> transactionHistoryImporter.resolveInputFile("../application.yml")).getErrorCode());
+        assertEquals(ErrorCode.INVALID_IMPORT_FILE, assertThrows(AccountException.class,
+                () -> transactionHistoryImporter.resolveInputFile("/etc/passwd")).getErrorCode());
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.account.limit;
+
+import com.example.account.dto.UseBalanceDto;
+import com.example.account.service.AccountService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//한도만큼 처리 중이면 쓰기 요청을 바로 거절하고, 한도와 거절 수가 지표로 보이는지 확인한다.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:concurrency-limit",
+        "account.concurrency-limit.enabled=true",
+        "account.concurrency-limit.initial-limit=1",
+        "account.concurrency-limit.min-limit=1",
+        "account.concurrency-limit.max-limit=1",
+        "account.cache.account-read.enabled=false",
+        "spring.jpa.properties.hibernate.show_sql=false"
+})
+@AutoConfigureMockMvc
+class ConcurrencyLimiterTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ConcurrencyLimiter concurrencyLimiter;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Test
+    @DisplayName("한도를 넘은 사용 요청은 TOO_MANY_REQUESTS 로 거절되고 끝나면 다시 받는다.")
+    void rejectsOverLimit() throws Exception {
+        //given
+        String accountNumber = accountService.createAccount(1L, 10_000L).getAccountNumber();
+        String request = objectMapper.writeValueAsString(new UseBalanceDto.Request(1L, accountNumber, 1_000L));
+
+        //when
+        //다른 요청이 처리 중이다.
+        ConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire();
+        try{
+            //then
+            mockMvc.perform(post("/transaction/use")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(request))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.errorCode").value("TOO_MANY_REQUESTS"));
+
+            mockMvc.perform(get("/internal/concurrency-limit"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.enabled").value(true))
+                    .andExpect(jsonPath("$.limit").value(1))
+                    .andExpect(jsonPath("$.inFlight").value(1))
+                    .andExpect(jsonPath("$.rejected").value(1));
+        }finally {
+            concurrencyLimiter.release(permit);
+        }
+
+        //한도 안이면 원래대로 처리된다. (조회는 제한하지 않는다)
+        mockMvc.perform(post("/transaction/use")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(request))
+                .andExpect(jsonPath("$.errorCode").doesNotExist())
+                .andExpect(jsonPath("$.amount").value(1_000));
+        mockMvc.perform(get("/internal/concurrency-limit"))
+                .andExpect(jsonPath("$.inFlight").value(0))
+                .andExpect(jsonPath("$.accepted").value(2));
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.account.limit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GradientLimitTest {
+    private static final long WINDOW = 100_000_000L;
+    private static final long MILLIS = 1_000_000L;
+
+    @Test
+    @DisplayName("지연 시간이 그대로면 한도를 늘리고, 늘어나면 줄이고, 최소/최대 한도를 넘지 않는다.")
+    void limitFollowsLatency() {
+        //given
+        GradientLimit limit = new GradientLimit(20, 5, 100, 1.5, 0.2, WINDOW, 10, 600);
+        long now = 0;
+
+        //when
+        //10ms 로 한도까지 처리 중인 동안은 늘어난다. (window 마다 smoothing * sqrt(한도) 정도)
+        for (int i = 0; i < 100; i++) {
+            now = window(limit, now, 10 * MILLIS, limit.getLimit());
+        }
+        int grown = limit.getLimit();
+
+        //DB 가 느려져서 지연 시간이 10배가 되면 줄어든다.
+        for (int i = 0; i < 50; i++) {
+            now = window(limit, now, 100 * MILLIS, limit.getLimit());
+        }
+        int shrunk = limit.getLimit();
+
+        //then
+        assertEquals(100, grown);
+        //절반씩 줄다가 sqrt(한도) 만큼의 여유가 남는 곳에서 멈춘다. (최소 한도 아래로는 내려가지 않는다)
+        assertTrue(5 <= shrunk && shrunk < 10, String.valueOf(shrunk));
+        assertTrue(limit.getShortRttMillis() >= 100.0);
+        assertTrue(limit.getLongRttMillis() < limit.getShortRttMillis());
+    }
+
+    @Test
+    @DisplayName("처리 중인 요청이 한도의 절반보다 적으면 늘리지 않고, window 가 차기 전에는 바꾸지 않는다.")
+    void limitWaitsForLoadAndFullWindow() {
+        //given
+        GradientLimit limit = new GradientLimit(20, 5, 100, 1.5, 0.2, WINDOW, 10, 600);
+
+        //when
+        long now = 0;
+        for (int i = 0; i < 50; i++) {
+            now = window(limit, now, 10 * MILLIS, 5);
+        }
+        //표본이 window-samples 보다 적다.
+        for (int i = 0; i < 9; i++) {
+            limit.onSample(now + WINDOW * 2, 500 * MILLIS, 20);
+        }
+
+        //then
+        assertEquals(20, limit.getLimit());
+        assertEquals(10.0, limit.getShortRttMillis());
+    }
+
+    //window 하나를 채운다.
+    private static long window(GradientLimit limit, long now, long rttNanos, int inFlight) {
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(now + i * WINDOW / 10, rttNanos, inFlight);
+        }
+        limit.onSample(now + WINDOW, rttNanos, inFlight);
+        return now + WINDOW + 1;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.account.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("1ms ~ 1000ms 를 고르게 넣으면 percentile 이 1.6% 오차 안에 들어온다.")
+    void percentilesWithinRelativeError() {
+        //given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        //when
+        for (long millis = 1; millis <= 1_000; millis++) {
+            histogram.recordNanos(millis * 1_000_000);
+        }
+
+        //then
+        assertEquals(1_000, histogram.getCount());
+        assertEquals(1_000.0, histogram.getMaxMillis());
+        assertWithin(500, histogram.getPercentileMillis(50));
+        assertWithin(990, histogram.getPercentileMillis(99));
+        assertWithin(999, histogram.getPercentileMillis(99.9));
+    }
+
+    @Test
+    @DisplayName("index 와 그 칸의 최대값이 서로 맞는다.")
+    void bucketBoundaries() {
+        for (long value = 0; value < 1_000_000; value += 7) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(value <= LatencyHistogram.highestValueAt(index));
+            if(0 < index){
+                assertTrue(value > LatencyHistogram.highestValueAt(index - 1));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("기대 간격보다 느린 응답은 그 동안 빠진 요청까지 채워서 기록한다.")
+    void correctsCoordinatedOmission() {
+        //given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        //when
+        //10ms 간격으로 보내야 하는데 한번이 100ms 걸렸다.
+        histogram.recordNanosWithExpectedInterval(100_000_000L, 10_000_000L);
+
+        //then
+        //100, 90, 80 ... 10ms
+        assertEquals(10, histogram.getCount());
+        assertWithin(50, histogram.getPercentileMillis(50));
+    }
+
+    @Test
+    @DisplayName("기록이 없으면 0 을 돌려준다.")
+    void emptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getPercentileMillis(99));
+        assertEquals(0, histogram.getMeanMillis());
+    }
+
+    private static void assertWithin(double expected, double actual) {
+        assertTrue(Math.abs(expected - actual) <= expected / 64,
+                "expected " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.account.metrics;
+
+import com.example.account.dto.SqlStatsDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SqlStatsRecorderTest {
+
+    @Test
+    @DisplayName("느린 SQL 은 들어온 순서와 관계없이 가장 느린 100개가 남는다.")
+    void keepsSlowestStatements() {
+        //given
+        SqlStatsRecorder recorder = new SqlStatsRecorder();
+        List<Long> millis = new ArrayList<>();
+        for (long i = 1; i <= 200; i++) {
+            millis.add(i);
+        }
+        Collections.shuffle(millis, new Random(7));
+
+        //when
+        //요청 밖의 스레드에서 기록한다.
+        millis.forEach(elapsed -> recorder.recordStatement("select 1", "", elapsed * 1_000_000));
+        recorder.recordRow();
+
+        //then
+        List<SqlStatsDto.SlowStatement> slowest = recorder.snapshot().getSlowStatements();
+        assertEquals(100, slowest.size());
+        assertEquals(200.0, slowest.get(0).getElapsedMillis());
+        assertEquals(101.0, slowest.get(99).getElapsedMillis());
+        assertNull(slowest.get(0).getEndpoint());
+    }
+}
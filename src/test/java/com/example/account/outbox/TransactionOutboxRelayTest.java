@@ -0,0 +1,122 @@
+package com.example.account.outbox;
+
+import com.example.account.domain.TransactionOutbox;
+import com.example.account.dto.OutboxStatusDto;
+import com.example.account.dto.TransactionDto;
+import com.example.account.repository.TransactionOutboxRepository;
+import com.example.account.service.AccountService;
+import com.example.account.service.TransactionService;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.example.account.type.TransactionResultType.F;
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//거래와 같이 쓴 outbox 이벤트를 relay 가 id 순서로 보내고, 비어 있는 id 앞에서는 gap-timeout 동안 기다리며
+//건너뛴 id 가 늦게 커밋되어도 보내는지 확인한다.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox",
+        "account.outbox.enabled=true",
+        "account.outbox.relay-enabled=false",
+        "account.outbox.sink=memory",
+        "account.outbox.batch-size=2",
+        "account.failure.mode=row",
+        "account.cache.account-read.enabled=false",
+        "spring.jpa.properties.hibernate.show_sql=false"
+})
+class TransactionOutboxRelayTest {
+    @Autowired
+    private TransactionOutboxRelay transactionOutboxRelay;
+
+    @Autowired
+    private OutboxSink outboxSink;
+
+    @Autowired
+    private TransactionOutboxRepository transactionOutboxRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Test
+    @DisplayName("사용, 취소, 실패를 id 순서로 보내고 high-water mark 뒤의 이벤트만 다시 읽는다.")
+    void relaysEventsInOrderFromHighWaterMark() {
+        //given
+        InMemoryOutboxSink sink = (InMemoryOutboxSink) outboxSink;
+        String accountNumber = accountService.createAccount(1L, 10_000L).getAccountNumber();
+        TransactionDto used = transactionService.useBalance(1L, accountNumber, 1_000L);
+        transactionService.cancelTransaction(used.getTransactionId(), accountNumber, 1_000L);
+        transactionService.saveFailedTransaction(accountNumber, 50_000L, ErrorCode.AMOUNT_OVER_BALANCE);
+
+        //when
+        //batch-size 2 라서 두번에 나눠 읽는다.
+        long relayed = transactionOutboxRelay.relay();
+
+        //then
+        assertEquals(3L, relayed);
+        List<TransactionEvent> events = sink.getEvents();
+        assertEquals(List.of(1L, 2L, 3L), events.stream().map(TransactionEvent::getEventId).toList());
+        assertEquals(USE, events.get(0).getTransactionType());
+        assertEquals(S, events.get(0).getTransactionResultType());
+        assertEquals(used.getTransactionId(), events.get(0).getTransactionId());
+        assertEquals(9_000L, events.get(0).getBalanceSnapshot());
+        assertEquals(CANCEL, events.get(1).getTransactionType());
+        assertEquals(F, events.get(2).getTransactionResultType());
+        assertEquals(ErrorCode.AMOUNT_OVER_BALANCE, events.get(2).getErrorCode());
+        assertEquals(accountNumber, events.get(2).getAccountNumber());
+
+        assertEquals(0L, transactionOutboxRelay.relay());
+        OutboxStatusDto.Shard status = transactionOutboxRelay.status().getShards().get(0);
+        assertEquals(3L, status.getPublishedId());
+        assertEquals(0L, status.getPending());
+
+        //4번이 아직 커밋되지 않은 것처럼 비워두면 5번은 gap-timeout 이 지날때까지 보내지 않는다.
+        TransactionOutbox missing = save(LocalDateTime.now());
+        TransactionOutbox next = save(LocalDateTime.now());
+        transactionOutboxRepository.delete(missing);
+        assertEquals(0L, transactionOutboxRelay.relay());
+
+        next.setCreatedAt(LocalDateTime.now().minusMinutes(1));
+        transactionOutboxRepository.save(next);
+        assertEquals(1L, transactionOutboxRelay.relay());
+        assertEquals(next.getId(), sink.getEvents().get(3).getEventId());
+        assertEquals(1, transactionOutboxRelay.status().getShards().get(0).getGaps());
+
+        //건너뛴 4번이 늦게 커밋되면 다음 relay 에서 보낸다.
+        jdbcTemplate.update("insert into transaction_outbox (id, account_number, transaction_type, " +
+                        "transaction_result_type, amount, event_count, occurred_at, created_at) " +
+                        "values (?, '1000000000', 'USE', 'S', 100, 1, ?, ?)",
+                missing.getId(), missing.getCreatedAt(), missing.getCreatedAt());
+        assertEquals(1L, transactionOutboxRelay.relay());
+        assertEquals(missing.getId(), sink.getEvents().get(4).getEventId());
+        assertEquals(0, transactionOutboxRelay.status().getShards().get(0).getGaps());
+        assertEquals(0L, transactionOutboxRelay.relay());
+    }
+
+    private TransactionOutbox save(LocalDateTime createdAt) {
+        return transactionOutboxRepository.save(TransactionOutbox.builder()
+                .accountNumber("1000000000")
+                .transactionType(USE)
+                .transactionResultType(S)
+                .amount(100L)
+                .eventCount(1L)
+                .occurredAt(createdAt)
+                .createdAt(createdAt)
+                .build());
+    }
+}
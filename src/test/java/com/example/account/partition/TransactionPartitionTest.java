@@ -0,0 +1,134 @@
+package com.example.account.partition;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionDto;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.service.AccountService;
+import com.example.account.service.TransactionService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//거래가 거래 월의 테이블에 저장되고, 아이디 조회는 그 달의 테이블 하나만 보는지 확인한다.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:partition",
+        "account.transaction-partition.enabled=true",
+        "account.cache.account-read.enabled=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.show_sql=false"
+})
+class TransactionPartitionTest {
+    @Autowired
+    private TransactionPartitionRouting transactionPartitionRouting;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("거래는 월 테이블에 쓰고, 아이디 조회는 그 달의 테이블만 보고, 지난 달 테이블은 떼어낼 수 있다.")
+    void routesTransactionsToMonthlyTables() {
+        //given
+        YearMonth now = YearMonth.now();
+        String currentTable = TransactionPartitionRouting.tableOf(now);
+        //기동할때 이번 달과 다음 달 테이블을 만든다.
+        assertTrue(transactionPartitionRouting.getPartitions().containsAll(List.of(now, now.plusMonths(1))));
+
+        String accountNumber = accountService.createAccount(1L, 10_000L).getAccountNumber();
+
+        //when
+        TransactionDto used = transactionService.useBalance(1L, accountNumber, 1_000L);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        TransactionDto queried = transactionService.queryTransaction(used.getTransactionId());
+        long queryStatements = statistics.getPrepareStatementCount();
+        transactionService.cancelTransaction(used.getTransactionId(), accountNumber, 1_000L);
+
+        //then
+        assertTrue(used.getTransactionId().startsWith(now.toString().replace("-", "") + "_"));
+        assertEquals(32, used.getTransactionId().length());
+        assertEquals(USE, queried.getTransactionType());
+        assertEquals(1, queryStatements);
+        assertEquals(2, count(currentTable));
+        assertEquals(0, count("transaction"));
+
+        //이관한 예전 거래는 그 달의 테이블을 만들어 넣고, 월이 없는 아이디는 모든 테이블에서 찾는다.
+        Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow();
+        LocalDateTime legacyAt = LocalDateTime.of(2022, 3, 10, 10, 0);
+        transactionPartitionRouting.write(legacyAt, () -> transactionRepository.save(Transaction.builder()
+                .transactionType(CANCEL)
+                .transactionResultType(S)
+                .account(account)
+                .amount(500L)
+                .balanceSnapshot(9_500L)
+                .transactionId("legacy_1")
+                .transactedAt(legacyAt)
+                .build()));
+        assertEquals(1, count("transaction_202203"));
+        assertTrue(transactionPartitionRouting.find("legacy_1",
+                () -> transactionRepository.findDtoByTransactionId("legacy_1")).isPresent());
+
+        //기간 조회는 그 기간의 테이블과 원래 테이블만 본다.
+        assertEquals(2, transactionPartitionRouting.onMonths(YearMonth.of(2022, 3), YearMonth.of(2022, 3),
+                () -> transactionRepository.findDtoByTransactionId("legacy_1")).size());
+
+        //떼어낸 테이블은 조회에서 빠지고, 이번 달 테이블은 지울 수 없다.
+        transactionPartitionRouting.detach(YearMonth.of(2022, 3));
+        assertFalse(transactionPartitionRouting.getPartitions().contains(YearMonth.of(2022, 3)));
+        assertFalse(transactionPartitionRouting.find("legacy_1",
+                () -> transactionRepository.findDtoByTransactionId("legacy_1")).isPresent());
+        assertEquals(1, count("detached_transaction_202203"));
+
+        //지우기는 allow-drop 이 켜져 있어야 하고, 떼어낸 지난 달 테이블만 지운다.
+        assertThrows(IllegalStateException.class, () -> transactionPartitionRouting.drop(YearMonth.of(2022, 3)));
+        ReflectionTestUtils.setField(transactionPartitionRouting, "allowDrop", true);
+        try{
+            assertThrows(IllegalArgumentException.class, () -> transactionPartitionRouting.drop(now));
+            transactionPartitionRouting.onMonth(YearMonth.of(2022, 4), () -> 0);
+            assertThrows(IllegalArgumentException.class, () -> transactionPartitionRouting.drop(YearMonth.of(2022, 4)));
+            transactionPartitionRouting.drop(YearMonth.of(2022, 3));
+        }finally {
+            ReflectionTestUtils.setField(transactionPartitionRouting, "allowDrop", false);
+        }
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from information_schema.tables "
+                + "where lower(table_name) = 'detached_transaction_202203'", Long.class));
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("select count(*) from " + table, Long.class);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.account.service;
+
+import com.example.account.dto.BulkCreateAccountDto;
+import com.example.account.dto.CreateAccountDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+//chunk 4개, JDBC batch 2개로 나눠 넣으면서 사용자 제한, 계좌번호 예약, 요약 갱신이 맞는지 확인한다.
+//(계좌번호를 이어서 쓰므로 순서대로 실행한다)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:provisioning",
+        "account.provisioning.chunk-size=4",
+        "account.provisioning.batch-size=2",
+        "account.cache.account-read.enabled=false",
+        "spring.jpa.properties.hibernate.show_sql=false"
+})
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class AccountProvisioningTest {
+    @Autowired
+    private AccountProvisioningService accountProvisioningService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Test
+    @Order(1)
+    @DisplayName("대량 생성은 제한을 넘는 항목만 실패하고, 성공한 계좌는 연속된 계좌번호로 저장된다.")
+    void provisionAccounts() {
+        //given
+        //사용자 1 은 12개 (2개 초과), 없는 사용자 99, 사용자 2 는 3개.
+        List<CreateAccountDto.Request> requests = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            requests.add(new CreateAccountDto.Request(1L, 1_000L));
+        }
+        requests.add(new CreateAccountDto.Request(99L, 1_000L));
+        for (int i = 0; i < 3; i++) {
+            requests.add(new CreateAccountDto.Request(2L, 500L));
+        }
+
+        //when
+        List<List<BulkCreateAccountDto.Result>> chunks = new ArrayList<>();
+        accountProvisioningService.provision(requests, chunks::add);
+
+        //then
+        //실패 항목이 먼저 오고, 나머지는 chunk 단위로 온다.
+        List<BulkCreateAccountDto.Result> results = chunks.stream().flatMap(List::stream)
+                .sorted(Comparator.comparing(BulkCreateAccountDto.Result::getIndex))
+                .toList();
+        assertEquals(16, results.size());
+        assertEquals(List.of(3, 4, 4, 4, 1), chunks.stream().map(List::size).toList());
+
+        assertEquals(ErrorCode.OVER_MAX_ACCOUNT, results.get(10).getErrorCode());
+        assertEquals(ErrorCode.OVER_MAX_ACCOUNT, results.get(11).getErrorCode());
+        assertEquals(ErrorCode.USER_NOT_FOUND, results.get(12).getErrorCode());
+
+        List<BulkCreateAccountDto.Result> created = results.stream()
+                .filter(result -> null == result.getErrorCode())
+                .toList();
+        for (int i = 0; i < created.size(); i++) {
+            assertEquals(String.valueOf(1_000_000_000L + i), created.get(i).getAccountNumber());
+            assertEquals(created.get(i).getAccountNumber(),
+                    accountRepository.findByAccountNumber(created.get(i).getAccountNumber())
+                            .orElseThrow().getAccountNumber());
+        }
+        assertEquals(13, created.size());
+        assertNull(results.get(0).getErrorCode());
+
+        assertEquals(10, accountService.getAccountSummary(1L).getActiveAccountCount());
+        assertEquals(10_000L, accountService.getAccountSummary(1L).getTotalBalance());
+        assertEquals(1_500L, accountService.getAccountSummary(2L).getTotalBalance());
+
+        //한건씩 만들때도 같은 요약, 계좌번호를 쓴다.
+        assertEquals(ErrorCode.OVER_MAX_ACCOUNT, assertThrows(AccountException.class,
+                () -> accountService.createAccount(1L, 1_000L)).getErrorCode());
+        assertEquals("1000000013", accountService.createAccount(3L, 1_000L).getAccountNumber());
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("결과를 보내다가 실패하면 남은 chunk 는 넣지 않고 요약에서도 되돌린다.")
+    void provisionAccounts_ResultsFailAfterFirstChunk() {
+        //given
+        //사용자 3 이 계좌 9개를 만든다. (chunk 4, 4, 1)
+        int before = accountService.getAccountSummary(3L).getActiveAccountCount();
+        List<CreateAccountDto.Request> requests = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            requests.add(new CreateAccountDto.Request(3L, 100L));
+        }
+        List<List<BulkCreateAccountDto.Result>> chunks = new ArrayList<>();
+
+        //when
+        assertThrows(UncheckedIOException.class, () -> accountProvisioningService.provision(requests, results -> {
+            chunks.add(results);
+            throw new UncheckedIOException(new IOException("client disconnected"));
+        }));
+
+        //then
+        //첫 chunk 는 커밋되었으므로 남고, 나머지 5개는 요약에 남지 않는다.
+        assertEquals(1, chunks.size());
+        chunks.get(0).forEach(result -> assertEquals(result.getAccountNumber(),
+                accountRepository.findByAccountNumber(result.getAccountNumber()).orElseThrow().getAccountNumber()));
+        assertEquals(before + 4, accountService.getAccountSummary(3L).getActiveAccountCount());
+    }
+}
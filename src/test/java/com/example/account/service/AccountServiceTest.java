@@ -6,9 +6,12 @@ import com.example.account.domain.AccountUser;
 import com.example.account.dto.AccountDto;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountUserRepository;
+import com.example.account.replica.ReplicaRouting;
+import com.example.account.shard.ShardRouting;
 import com.example.account.type.AccountStatus;
 import com.example.account.repository.AccountRepository;
 import com.example.account.type.ErrorCode;
+import com.example.account.validation.AccountNumberFilter;
 import jdk.jfr.Description;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -16,16 +19,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import javax.swing.text.html.Option;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -42,6 +48,23 @@ class AccountServiceTest {
     @Mock
     private AccountUserRepository accountUserRepository;
 
+    @Mock
+    private AccountReadCache accountReadCache;
+
+    //sharding 이 꺼진 기본 상태. (action 을 그대로 한번 실행한다)
+    @Spy
+    private ShardRouting shardRouting = new ShardRouting();
+
+    @Mock
+    private AccountNumberFilter accountNumberFilter;
+
+    @Mock
+    private AccountSummaryService accountSummaryService;
+
+    //replica 가 꺼진 기본 상태. (primary 에서 그대로 한번 실행한다)
+    @Spy
+    private ReplicaRouting replicaRouting = new ReplicaRouting(null, null);
+
     //3. @InjectMocks 으로 accountService 에 주입한다.
     @InjectMocks
     private AccountService accountService;
@@ -108,8 +131,8 @@ class AccountServiceTest {
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(accountUser));
 
-        given(accountRepository.countByAccountUser(accountUser))
-                .willReturn(10);
+        given(accountSummaryService.openAccount(eq(accountUser), anyLong(), any()))
+                .willThrow(AccountException.of(ErrorCode.OVER_MAX_ACCOUNT));
 
         //when
         AccountException exception = assertThrows(AccountException.class,
@@ -117,6 +140,7 @@ class AccountServiceTest {
 
         //then
         assertEquals(ErrorCode.OVER_MAX_ACCOUNT, exception.getErrorCode());
+        verify(accountRepository, never()).save(any());
     }
 
     //==========================================================================
@@ -292,8 +316,15 @@ class AccountServiceTest {
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(accountUser));
 
-        given(accountRepository.findByAccountUser(accountUser))
-                .willReturn(emptyAccounts);
+        given(accountRepository.findDtoByAccountUser(accountUser))
+                .willReturn(emptyAccounts.stream()
+                        .map(AccountDto::fromEntity)
+                        .toList());
+
+        //캐시에 없는 경우 : loader 로 DB 에서 읽어온다.
+        given(accountReadCache.get(anyLong(), any()))
+                .willAnswer(invocation ->
+                        invocation.<Supplier<List<AccountDto>>>getArgument(1).get());
         //when
         List<AccountDto> accounts = accountService.getAccounts(1L);
         //then
@@ -302,6 +333,25 @@ class AccountServiceTest {
         assertEquals(accountUser.getId(), accounts.get(0).getUserId());
     }
 
+    @Test
+    @Description("GET ACCOUNTS 성공 - 캐시에 있는 경우 DB 를 읽지 않는다.")
+    void getAccountsTest_Success_CacheHit()  {
+        //given
+        AccountUser accountUser = getEmptyAccountUser();
+        List<AccountDto> cachedAccounts = getEmptyAccounts(2, accountUser).stream()
+                .map(AccountDto::fromEntity)
+                .toList();
+
+        given(accountReadCache.get(anyLong(), any()))
+                .willReturn(cachedAccounts);
+        //when
+        List<AccountDto> accounts = accountService.getAccounts(1L);
+        //then
+        assertEquals(2, accounts.size());
+        verify(accountUserRepository, never()).findById(anyLong());
+        verify(accountRepository, never()).findDtoByAccountUser(any());
+    }
+
     @Test
     @Description("GET ACCOUNT - 유저가 없는 경우.")
     void getAccountsTest_Failed_UserNotFound()  {
@@ -315,6 +365,10 @@ class AccountServiceTest {
         given(accountUserRepository.findById(anyLong()))
                 .willThrow(expectException);
 
+        given(accountReadCache.get(anyLong(), any()))
+                .willAnswer(invocation ->
+                        invocation.<Supplier<List<AccountDto>>>getArgument(1).get());
+
         //when
         AccountException resultException = assertThrows(AccountException.class,
                 () -> accountService.getAccounts(1L));
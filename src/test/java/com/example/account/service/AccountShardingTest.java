@@ -0,0 +1,130 @@
+package com.example.account.service;
+
+import com.example.account.dto.AccountDto;
+import com.example.account.dto.AccountSummaryDto;
+import com.example.account.dto.TransactionDto;
+import com.example.account.shard.ShardRouting;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//H2 in-memory DB 3개를 shard 로, 1개를 사용자 directory 로 띄워서
+//계좌와 거래가 계좌번호의 shard 에만 저장되고, 조회는 shard 를 모아서 처리되는지 확인한다.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:directory",
+        "account.sharding.enabled=true",
+        "account.sharding.urls=" + AccountShardingTest.SHARD_0 + "," + AccountShardingTest.SHARD_1 + "," + AccountShardingTest.SHARD_2,
+        "account.cache.account-read.enabled=false",
+        "spring.jpa.properties.hibernate.show_sql=false"
+})
+class AccountShardingTest {
+    static final String SHARD_0 = "jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1";
+    static final String SHARD_1 = "jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1";
+    static final String SHARD_2 = "jdbc:h2:mem:shard2;DB_CLOSE_DELAY=-1";
+    private static final List<String> SHARDS = List.of(SHARD_0, SHARD_1, SHARD_2);
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private ShardRouting shardRouting;
+
+    @Test
+    @DisplayName("계좌와 거래는 계좌번호의 shard 에 저장되고 조회는 모든 shard 를 모은다.")
+    void accountsAndTransactionsLiveOnTheirShard() throws SQLException {
+        //given
+        //사용자는 directory 에만 있다. (data.sql)
+        List<String> accountNumbers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            accountNumbers.add(accountService.createAccount(2L, 10_000L).getAccountNumber());
+        }
+
+        //when
+        List<TransactionDto> used = new ArrayList<>();
+        for (String accountNumber : accountNumbers) {
+            used.add(transactionService.useBalance(2L, accountNumber, 1_000L));
+        }
+
+        //then
+        //1. 계좌번호는 shard 를 넘어 이어지고, 사용자당 계좌 수 제한도 모든 shard 를 센다.
+        assertEquals(10, new HashSet<>(accountNumbers).size());
+        assertEquals("1000000009", accountNumbers.get(9));
+        assertEquals("OVER_MAX_ACCOUNT", assertThrowsErrorCode(
+                () -> accountService.createAccount(2L, 10_000L)));
+
+        //2. 각 계좌와 거래는 자기 shard 에만 있다.
+        Set<Integer> usedShards = new HashSet<>();
+        for (String accountNumber : accountNumbers) {
+            int shard = Integer.parseInt(shardRouting.shardOf(accountNumber).substring("shard-".length()));
+            usedShards.add(shard);
+            for (int i = 0; i < SHARDS.size(); i++) {
+                long expected = shard == i ? 1 : 0;
+                assertEquals(expected, count(SHARDS.get(i),
+                        "select count(*) from account where account_number = '" + accountNumber + "'"));
+                assertEquals(expected, count(SHARDS.get(i),
+                        "select count(*) from transaction t join account a on t.account_id = a.id"
+                                + " where a.account_number = '" + accountNumber + "' and t.transaction_type = 'USE'"));
+            }
+        }
+        assertTrue(usedShards.size() > 1, "all accounts landed on one shard : " + usedShards);
+        assertEquals(0, count("jdbc:h2:mem:directory", "select count(*) from account"));
+
+        //3. shard 에는 사용자가 없다. (사용자 조회는 directory 로 간다)
+        for (String shard : SHARDS) {
+            assertEquals(0, count(shard, "select count(*) from account_user"));
+        }
+
+        //4. 여러 shard 에 걸친 조회.
+        List<AccountDto> accounts = accountService.getAccounts(2L);
+        assertEquals(accountNumbers, accounts.stream().map(AccountDto::getAccountNumber).toList());
+        accounts.forEach(account -> assertEquals(9_000L, account.getAccountBalance()));
+
+        //사용자 요약은 directory 에서 계좌 생성, 잔액 사용과 같이 갱신된다.
+        AccountSummaryDto summary = accountService.getAccountSummary(2L);
+        assertEquals(10, summary.getActiveAccountCount());
+        assertEquals(90_000L, summary.getTotalBalance());
+
+        for (TransactionDto transaction : used) {
+            assertEquals(transaction.getAccountNumber(),
+                    transactionService.queryTransaction(transaction.getTransactionId()).getAccountNumber());
+        }
+
+        //거래 취소도 원래 거래의 shard 에서 처리된다.
+        TransactionDto canceled = transactionService.cancelTransaction(
+                used.get(0).getTransactionId(), accountNumbers.get(0), 1_000L);
+        assertEquals(used.get(0).getTransactionId(), canceled.getTransactionId());
+    }
+
+    private static String assertThrowsErrorCode(Runnable action) {
+        try{
+            action.run();
+        }catch(com.example.account.exception.AccountException e){
+            return e.getErrorCode().name();
+        }
+        throw new AssertionError("AccountException expected");
+    }
+
+    private static long count(String url, String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             ResultSet resultSet = connection.createStatement().executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.account.service;
+
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.AccountUserSummary;
+import com.example.account.dto.AccountDto;
+import com.example.account.exception.AccountException;
+import com.example.account.partition.TransactionPartitionRouting;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserSummaryRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.shard.ShardRouting;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountSummaryServiceTest {
+    @Mock
+    private AccountUserSummaryRepository accountUserSummaryRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    //sharding 이 꺼진 기본 상태. (action 을 그대로 한번 실행한다)
+    @Spy
+    private ShardRouting shardRouting = new ShardRouting();
+
+    //partition 이 꺼진 기본 상태. (원래 테이블에서 한번 실행한다)
+    private final TransactionPartitionRouting transactionPartitionRouting =
+            new TransactionPartitionRouting(null, new ShardRouting());
+
+    //transaction manager 가 없으면 트랜잭션 없이 실행한다.
+    @Mock
+    private ObjectProvider<PlatformTransactionManager> transactionManager;
+
+    private final AccountUser accountUser = AccountUser.builder().id(1L).userName("user_1").build();
+
+    private AccountSummaryService accountSummaryService() {
+        return new AccountSummaryService(accountUserSummaryRepository, accountRepository, transactionRepository,
+                shardRouting, transactionPartitionRouting, transactionManager);
+    }
+
+    @Test
+    @DisplayName("계좌 수 제한에 걸리면 계좌를 저장하지 않는다.")
+    void openAccount_Failed_OverMaxAccount() {
+        //given
+        given(accountUserSummaryRepository.existsBuilt(1L)).willReturn(true);
+        given(accountUserSummaryRepository.addAccounts(eq(1L), eq(1), eq(1_000L),
+                eq(AccountService.MAX_ACCOUNT_COUNT), any()))
+                .willReturn(0);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountSummaryService().openAccount(accountUser, 1_000L, () -> {
+                    throw new AssertionError("must not save");
+                }));
+
+        //then
+        assertEquals(ErrorCode.OVER_MAX_ACCOUNT, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("계좌 저장에 실패하면 요약을 되돌린다.")
+    void openAccount_SaveFailed_Reverted() {
+        //given
+        given(accountUserSummaryRepository.existsBuilt(1L)).willReturn(true);
+        given(accountUserSummaryRepository.addAccounts(anyLong(), anyInt(), anyLong(), anyInt(), any()))
+                .willReturn(1);
+
+        //when
+        assertThrows(IllegalStateException.class,
+                () -> accountSummaryService().openAccount(accountUser, 1_000L, () -> {
+                    throw new IllegalStateException("save failed");
+                }));
+
+        //then
+        verify(accountUserSummaryRepository).removeAccounts(1L, 1, 1_000L);
+    }
+
+    @Test
+    @DisplayName("요약이 없는 사용자는 빈 줄을 넣고 lock 한 뒤 계좌들로부터 채운다. (해지 계좌는 계좌 수 제한에만 센다)")
+    void getSummary_BuiltFromAccounts() {
+        //given
+        LocalDateTime registeredAt = LocalDateTime.now();
+        AccountUserSummary empty = AccountUserSummary.builder().userId(1L).build();
+        given(accountUserSummaryRepository.findById(1L)).willReturn(Optional.empty());
+        given(accountUserSummaryRepository.findForUpdate(1L)).willReturn(Optional.of(empty));
+        given(accountRepository.findDtoByAccountUserId(1L)).willReturn(List.of(
+                new AccountDto(1L, "1000000000", 3_000L, registeredAt.minusDays(1), null),
+                new AccountDto(1L, "1000000001", 0L, registeredAt, registeredAt),
+                new AccountDto(1L, "1000000002", 2_000L, registeredAt.minusDays(2), null)));
+        given(transactionRepository.findLastTransactedAtByAccountUserId(1L)).willReturn(Optional.empty());
+
+        //when
+        AccountUserSummary summary = accountSummaryService().getSummary(accountUser);
+
+        //then
+        verify(accountUserSummaryRepository).insertEmpty(1L);
+        assertEquals(3, summary.getAccountCount());
+        assertEquals(2, summary.getActiveAccountCount());
+        assertEquals(5_000L, summary.getTotalBalance());
+        assertEquals(registeredAt, summary.getLastActivityAt());
+        verify(accountUserSummaryRepository, never()).save(any());
+        verify(accountUserSummaryRepository, never()).addAccounts(anyLong(), anyInt(), anyLong(), anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("이미 다른 요청이 만든 요약은 다시 세지 않는다. (빈 줄 insert 충돌은 무시한다)")
+    void getSummary_BuiltByOtherRequest() {
+        //given
+        AccountUserSummary built = AccountUserSummary.builder()
+                .userId(1L).accountCount(2).activeAccountCount(2).totalBalance(1_000L).build();
+        given(accountUserSummaryRepository.findById(1L)).willReturn(Optional.empty());
+        given(accountUserSummaryRepository.insertEmpty(1L))
+                .willThrow(new DataIntegrityViolationException("duplicate"));
+        given(accountUserSummaryRepository.findForUpdate(1L)).willReturn(Optional.of(built));
+
+        //when
+        AccountUserSummary summary = accountSummaryService().getSummary(accountUser);
+
+        //then
+        assertEquals(2, summary.getAccountCount());
+        verify(accountRepository, never()).findDtoByAccountUserId(anyLong());
+    }
+
+    @Test
+    @DisplayName("요약이 없을때의 잔액 변경은 요약을 만든 뒤에 다시 더한다.")
+    void addBalance_BuildsThenRetries() {
+        //given
+        given(accountUserSummaryRepository.addBalance(eq(1L), eq(-1_000L), any())).willReturn(0, 1);
+        given(accountUserSummaryRepository.existsBuilt(1L)).willReturn(false);
+        given(accountUserSummaryRepository.findForUpdate(1L))
+                .willReturn(Optional.of(AccountUserSummary.builder().userId(1L).build()));
+        given(accountRepository.findDtoByAccountUserId(1L)).willReturn(List.of());
+        given(transactionRepository.findLastTransactedAtByAccountUserId(1L)).willReturn(Optional.empty());
+
+        //when
+        accountSummaryService().addBalance(1L, -1_000L);
+
+        //then
+        verify(accountUserSummaryRepository).insertEmpty(1L);
+        verify(accountUserSummaryRepository, times(2)).addBalance(eq(1L), eq(-1_000L), any());
+    }
+
+    @Test
+    @DisplayName("마지막 활동 일시는 계좌 생성, 해지, 거래 일시 중 가장 늦은 것이다.")
+    void getSummary_LastActivityFromTransactionsAndUnregistration() {
+        //given
+        LocalDateTime registeredAt = LocalDateTime.now().minusDays(10);
+        AccountUserSummary empty = AccountUserSummary.builder().userId(1L).build();
+        given(accountUserSummaryRepository.findById(1L)).willReturn(Optional.empty());
+        given(accountUserSummaryRepository.findForUpdate(1L)).willReturn(Optional.of(empty));
+        given(accountRepository.findDtoByAccountUserId(1L)).willReturn(List.of(
+                new AccountDto(1L, "1000000000", 3_000L, registeredAt, null),
+                new AccountDto(1L, "1000000001", 0L, registeredAt, registeredAt.plusDays(2))));
+
+        //when
+        //then
+        given(transactionRepository.findLastTransactedAtByAccountUserId(1L))
+                .willReturn(Optional.of(registeredAt.plusDays(1)));
+        assertEquals(registeredAt.plusDays(2), accountSummaryService().getSummary(accountUser).getLastActivityAt());
+
+        empty.setAccountCount(null);
+        given(transactionRepository.findLastTransactedAtByAccountUserId(1L))
+                .willReturn(Optional.of(registeredAt.plusDays(3)));
+        assertEquals(registeredAt.plusDays(3), accountSummaryService().getSummary(accountUser).getLastActivityAt());
+    }
+
+    @Test
+    @DisplayName("sharding 이면 잔액 변경은 shard 트랜잭션이 커밋된 뒤에 더하고, 롤백되면 더하지 않는다.")
+    void addBalance_Sharded_AppliedAfterCommit() {
+        //given
+        given(shardRouting.isEnabled()).willReturn(true);
+        given(accountUserSummaryRepository.addBalance(eq(1L), anyLong(), any())).willReturn(1);
+
+        //when
+        //then
+        TransactionSynchronizationManager.initSynchronization();
+        try{
+            accountSummaryService().addBalance(1L, -1_000L);
+            verify(accountUserSummaryRepository, never()).addBalance(anyLong(), anyLong(), any());
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(
+                            TransactionSynchronization.STATUS_ROLLED_BACK));
+        }finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(accountUserSummaryRepository, never()).addBalance(anyLong(), anyLong(), any());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try{
+            accountSummaryService().addBalance(1L, -2_000L);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(TransactionSynchronization::afterCommit);
+        }finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(accountUserSummaryRepository).addBalance(eq(1L), eq(-2_000L), any());
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//SSE 로 지금 잔액을 먼저 받고, 이 서버의 사용/취소와 다른 서버(redis topic) 의 변경을 이어서 받는지 확인한다.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:balance-events",
+        "account.cache.account-read.enabled=false",
+        "spring.jpa.properties.hibernate.show_sql=false"
+})
+class BalanceChangeStreamTest {
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private BalanceChangeStream balanceChangeStream;
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Test
+    @DisplayName("구독하면 지금 잔액을 받고, 사용과 취소, 다른 서버의 변경을 차례로 받는다.")
+    void streamsBalanceChanges() throws Exception {
+        //given
+        String accountNumber = accountService.createAccount(1L, 10_000L).getAccountNumber();
+        BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        CompletableFuture<HttpResponse<Void>> response = HttpClient.newHttpClient().sendAsync(
+                HttpRequest.newBuilder(URI.create(
+                        "http://localhost:" + port + "/account/" + accountNumber + "/events")).build(),
+                HttpResponse.BodyHandlers.fromLineSubscriber(new LineCollector(events)));
+        assertTrue(nextData(events).contains("\"balance\":10000"));
+
+        //when
+        TransactionDto used = transactionService.useBalance(1L, accountNumber, 1_000L);
+        String useEvent = nextData(events);
+        transactionService.cancelTransaction(used.getTransactionId(), accountNumber, 1_000L);
+        String cancelEvent = nextData(events);
+
+        //다른 서버에서 커밋된 변경. (topic 구독은 백그라운드에서 하므로 받는 쪽이 생길때까지 보낸다)
+        String message = "other-node {\"accountNumber\":\"" + accountNumber + "\",\"balance\":7000," +
+                "\"transactionType\":\"USE\",\"amount\":2000,\"changedAt\":\"2999-01-01T00:00:00\"}";
+        for (int i = 0; i < 50 && 0 == redissonClient.getTopic("account-balance-change", StringCodec.INSTANCE)
+                .publish(message); i++) {
+            Thread.sleep(100);
+        }
+        String remoteEvent = nextData(events);
+
+        //then
+        assertTrue(useEvent.contains("\"balance\":9000"));
+        assertTrue(useEvent.contains("\"transactionType\":\"USE\""));
+        assertTrue(useEvent.contains(used.getTransactionId()));
+        assertTrue(cancelEvent.contains("\"transactionType\":\"CANCEL\""));
+        assertTrue(remoteEvent.contains("\"balance\":7000"));
+        assertEquals(1, balanceChangeStream.getSubscriberCount());
+
+        response.cancel(true);
+    }
+
+    //다음 data 줄. (event 이름, heartbeat comment 줄은 건너뛴다)
+    private String nextData(BlockingQueue<String> events) throws InterruptedException {
+        while (true) {
+            String line = events.poll(10, TimeUnit.SECONDS);
+            assertNotNull(line, "no balance event");
+            if(line.startsWith("data:")){
+                return line;
+            }
+        }
+    }
+
+    private record LineCollector(BlockingQueue<String> lines) implements Flow.Subscriber<String> {
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            lines.add(line);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
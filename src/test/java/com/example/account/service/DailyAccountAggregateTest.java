@@ -0,0 +1,170 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionFailure;
+import com.example.account.dto.DailyAggregateDto;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.DailyAccountAggregateRepository;
+import com.example.account.repository.TransactionFailureRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+//거래를 쓸때 계좌별 하루 집계가 같이 더해지고, 기간 조회가 집계만으로 맞는지 확인한다.
+//지난 날짜는 거래에서 다시 만드는지도 확인한다. (오늘 합계를 보는 첫 테스트가 먼저 돈다)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:daily",
+        "account.cache.account-read.enabled=false",
+        "spring.jpa.properties.hibernate.show_sql=false"
+})
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class DailyAccountAggregateTest {
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private DailyAccountAggregateService dailyAccountAggregateService;
+
+    @Autowired
+    private DailyAccountAggregateRepository dailyAccountAggregateRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionFailureRepository transactionFailureRepository;
+
+    @Test
+    @Order(1)
+    @DisplayName("사용, 취소, 실패가 계좌, 날짜별로 더해지고 모든 계좌 조회는 날짜별 합계다.")
+    void aggregatesOnWriteAndReportsRanges() {
+        //given
+        LocalDate today = LocalDate.now();
+        String accountA = accountService.createAccount(1L, 100_000L).getAccountNumber();
+        String accountB = accountService.createAccount(2L, 100_000L).getAccountNumber();
+
+        //when
+        TransactionDto use = transactionService.useBalance(1L, accountA, 1_000L);
+        transactionService.useBalance(1L, accountA, 2_000L);
+        transactionService.cancelTransaction(use.getTransactionId(), accountA, 1_000L);
+        transactionService.useBalance(2L, accountB, 500L);
+        dailyAccountAggregateService.addFailures(accountA, today, 3L);
+        dailyAccountAggregateService.addFailures(accountB, today.minusDays(1), 2L);
+
+        //then
+        List<DailyAggregateDto> daysA = transactionService.getDailyAggregates(accountA, today.minusDays(7), today);
+        assertEquals(1, daysA.size());
+        assertEquals(today, daysA.get(0).getAggregateDate());
+        assertEquals(3_000L, daysA.get(0).getDebitAmount());
+        assertEquals(1_000L, daysA.get(0).getCancelAmount());
+        assertEquals(3L, daysA.get(0).getSuccessCount());
+        assertEquals(3L, daysA.get(0).getFailureCount());
+
+        List<DailyAggregateDto> days = transactionService.getDailyAggregates(null, today.minusDays(7), today);
+        assertEquals(2, days.size());
+        assertEquals(today.minusDays(1), days.get(0).getAggregateDate());
+        assertEquals(2L, days.get(0).getFailureCount());
+        assertEquals(3_500L, days.get(1).getDebitAmount());
+        assertEquals(4L, days.get(1).getSuccessCount());
+
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.getDailyAggregates(null, today, today.minusDays(1)));
+        assertEquals(ErrorCode.INVALID_DATE_RANGE, exception.getErrorCode());
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("지난 날짜의 집계는 거래와 실패 집계에서 다시 만든다. (있던 값은 바꾼다)")
+    void backfillsFromTransactions() {
+        //given
+        LocalDate day = LocalDate.now().minusDays(30);
+        String account = accountService.createAccount(3L, 100_000L).getAccountNumber();
+        TransactionDto use = transactionService.useBalance(3L, account, 1_000L);
+        transactionService.useBalance(3L, account, 2_000L);
+        transactionService.cancelTransaction(use.getTransactionId(), account, 1_000L);
+        Account saved = accountRepository.findByAccountNumber(account).orElseThrow();
+        transactionRepository.findAll().stream()
+                .filter(transaction -> saved.getId().equals(transaction.getAccount().getId()))
+                .forEach(transaction -> {
+                    transaction.setTransactedAt(day.atTime(10, 0));
+                    transactionRepository.save(transaction);
+                });
+        //실패 사유가 없는 실패 거래 (이관한 이력) 와 aggregate 모드의 실패 집계.
+        transactionRepository.save(Transaction.builder()
+                .account(saved)
+                .transactionType(TransactionType.USE)
+                .transactionResultType(TransactionResultType.F)
+                .amount(500_000L)
+                .balanceSnapshot(97_000L)
+                .transactionId("backfill-failure")
+                .transactedAt(day.atTime(11, 0))
+                .build());
+        transactionFailureRepository.save(TransactionFailure.builder()
+                .accountNumber(account)
+                .transactionType(TransactionType.USE)
+                .errorCode(ErrorCode.AMOUNT_OVER_BALANCE)
+                .bucketStartedAt(day.atTime(12, 0))
+                .failureCount(2L)
+                .build());
+        dailyAccountAggregateService.addFailures(account, day, 9L);
+
+        //when
+        long rows = dailyAccountAggregateService.backfill(day, day);
+
+        //then
+        assertEquals(1L, rows);
+        List<DailyAggregateDto> days = transactionService.getDailyAggregates(account, day, day);
+        assertEquals(1, days.size());
+        assertEquals(3_000L, days.get(0).getDebitAmount());
+        assertEquals(1_000L, days.get(0).getCancelAmount());
+        assertEquals(3L, days.get(0).getSuccessCount());
+        assertEquals(3L, days.get(0).getFailureCount());
+
+        //다시 돌려도 같다.
+        dailyAccountAggregateService.backfill(day, day);
+        assertEquals(3_000L, transactionService.getDailyAggregates(account, day, day).get(0).getDebitAmount());
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("만든 것으로 기억한 row 가 없어졌으면 다시 만들고 더한다.")
+    void recreatesMissingRow() {
+        //given
+        LocalDate today = LocalDate.now();
+        String account = accountService.createAccount(3L, 100_000L).getAccountNumber();
+        transactionService.useBalance(3L, account, 1_000L);
+        dailyAccountAggregateRepository.deleteAll(dailyAccountAggregateRepository
+                .findByAccountNumberAndAggregateDateBetweenOrderByAggregateDate(account, today, today));
+
+        //when
+        transactionService.useBalance(3L, account, 2_000L);
+
+        //then
+        List<DailyAggregateDto> days = transactionService.getDailyAggregates(account, today, today);
+        assertEquals(2_000L, days.get(0).getDebitAmount());
+        assertEquals(1L, days.get(0).getSuccessCount());
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.account.service;
+
+import com.example.account.dto.UseBalanceDto;
+import com.example.account.exception.AccountException;
+import com.example.account.metrics.LatencyRecorder;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.LatencyPhase;
+import com.example.account.validation.PreLockValidator;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class LockAopAspectTest {
+    @Mock
+    private LockService lockService;
+
+    @Mock
+    private LatencyRecorder latencyRecorder;
+
+    @Mock
+    private PreLockValidator preLockValidator;
+
+    @Mock
+    private ProceedingJoinPoint pjp;
+
+    @InjectMocks
+    private LockAopAspect lockAopAspect;
+
+    @Test
+    @DisplayName("lock 을 잡지 못한 대기 시간도 LOCK_WAIT 로 기록한다.")
+    void recordsFailedLockWait() throws Throwable {
+        //given
+        willThrow(AccountException.of(ErrorCode.ACCOUNT_TRANSACTION_LOCK))
+                .given(lockService).lock("1000000000");
+
+        //when
+        assertThrows(AccountException.class, () -> lockAopAspect.aroundMethod(pjp,
+                new UseBalanceDto.Request(1L, "1000000000", 1_000L)));
+
+        //then
+        verify(latencyRecorder).record(eq(LatencyPhase.LOCK_WAIT), anyLong());
+        verify(pjp, never()).proceed();
+        verify(lockService, never()).unlock("1000000000");
+    }
+}
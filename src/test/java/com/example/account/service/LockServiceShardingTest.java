@@ -0,0 +1,84 @@
+package com.example.account.service;
+
+import com.example.account.shard.ConsistentHashRing;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//embedded redis 를 여러대 띄우고
+//sharded 모드의 lockClientRing 으로 계좌 lock 이 고르게 나뉘는지 확인한다.
+class LockServiceShardingTest {
+    private static final int SHARD_COUNT = 3;
+    private static final int ACCOUNT_COUNT = 3_000;
+
+    private final List<RedisServer> redisServers = new ArrayList<>();
+    private final List<RedissonClient> clients = new ArrayList<>();
+
+    private LockService lockService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            int port = freePort();
+            RedisServer redisServer = new RedisServer(port);
+            redisServer.start();
+            redisServers.add(redisServer);
+
+            Config config = new Config();
+            config.useSingleServer().setAddress("redis://127.0.0.1:" + port);
+            clients.add(Redisson.create(config));
+        }
+
+        lockService = new LockService(new ConsistentHashRing<>(clients));
+    }
+
+    @AfterEach
+    void tearDown() {
+        clients.forEach(RedissonClient::shutdown);
+        redisServers.forEach(RedisServer::stop);
+    }
+
+    @Test
+    @DisplayName("계좌 lock 이 redis 샤드들에 고르게 나뉜다.")
+    void lockKeysAreSpreadEvenly() {
+        //given
+        List<String> accountNumbers = new ArrayList<>();
+        for (int i = 0; i < ACCOUNT_COUNT; i++) {
+            accountNumbers.add(String.valueOf(1_000_000_000L + i));
+        }
+
+        //when
+        //lock 을 잡은 상태에서 각 redis 에 만들어진 ACLK 키 갯수를 센다.
+        accountNumbers.forEach(lockService::lock);
+        List<Long> keyCounts = clients.stream()
+                .map(client -> client.getKeys().count())
+                .toList();
+        accountNumbers.forEach(lockService::unlock);
+
+        //then
+        long mean = ACCOUNT_COUNT / SHARD_COUNT;
+        assertEquals(ACCOUNT_COUNT, keyCounts.stream().mapToLong(Long::longValue).sum());
+        keyCounts.forEach(count -> assertTrue(Math.abs(count - mean) <= mean * 0.2,
+                "uneven lock distribution : " + keyCounts));
+        clients.forEach(client -> assertEquals(0, client.getKeys().count()));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.shard.ConsistentHashRing;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class LockServiceTest {
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RLock rLock;
+
+    private LockService lockService;
+
+    @BeforeEach
+    void setUp() {
+        lockService = new LockService(new ConsistentHashRing<>(List.of(redissonClient)));
+        given(redissonClient.getLock(anyString())).willReturn(rLock);
+    }
+
+    @Test
+    void lockSuccess() throws InterruptedException {
+        //given
+        given(rLock.tryLock(anyLong(), anyLong(), eq(TimeUnit.SECONDS))).willReturn(true);
+
+        //when
+        //then
+        assertDoesNotThrow(() -> lockService.lock("1000000000"));
+    }
+
+    @Test
+    @DisplayName("lock 을 잡지 못하면 거래를 진행하지 않는다.")
+    void lockFail_AlreadyLocked() throws InterruptedException {
+        //given
+        given(rLock.tryLock(anyLong(), anyLong(), eq(TimeUnit.SECONDS))).willReturn(false);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockService.lock("1000000000"));
+
+        //then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("redis 에러가 나면 lock 없이 진행하지 않고 실패한다.")
+    void lockFail_RedisError() throws InterruptedException {
+        //given
+        given(rLock.tryLock(anyLong(), anyLong(), eq(TimeUnit.SECONDS)))
+                .willThrow(new IllegalStateException("redis is down"));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockService.lock("1000000000"));
+
+        //then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("lock 대기 중 interrupt 되면 실패하고 interrupt 상태를 유지한다.")
+    void lockFail_Interrupted() throws InterruptedException {
+        //given
+        given(rLock.tryLock(anyLong(), anyLong(), eq(TimeUnit.SECONDS)))
+                .willThrow(new InterruptedException());
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockService.lock("1000000000"));
+
+        //then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        assertTrue(Thread.interrupted());
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.account.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//조회 1번당 지연 시간과 할당량 벤치마크. (gradlew benchmark 로 실행)
+//read-write : 예전처럼 조회를 jakarta @Transactional 과 같은 읽기/쓰기 트랜잭션으로 감싼다.
+//read-only  : 지금의 조회 경로. (읽기 전용 트랜잭션, snapshot 없음, flush 없음)
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:readonly",
+        "account.cache.account-read.enabled=false",
+        "account.latency.enabled=false",
+        "spring.jpa.properties.hibernate.show_sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ReadOnlyQueryBenchmarkTest {
+    private static final int WARMUP = Integer.getInteger("benchmark.read-only.warmup", 3_000);
+    private static final int ITERATIONS = Integer.getInteger("benchmark.read-only.iterations", 10_000);
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("읽기 전용 조회와 읽기/쓰기 트랜잭션 조회의 호출당 지연 시간, 할당량")
+    void readOnlyQueriesAllocateLess() throws Exception {
+        //given
+        //사용자 1 의 계좌 10개와 거래 하나.
+        List<String> accountNumbers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            accountNumbers.add(accountService.createAccount(1L, 10_000L).getAccountNumber());
+        }
+        String transactionId = transactionService.useBalance(1L, accountNumbers.get(0), 1_000L)
+                .getTransactionId();
+
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        //when
+        List<String> lines = new ArrayList<>();
+        Result[] accounts = compare("getAccounts", () -> accountService.getAccounts(1L), readWrite, lines);
+        Result[] transaction = compare("queryTransaction",
+                () -> transactionService.queryTransaction(transactionId), readWrite, lines);
+
+        lines.forEach(System.out::println);
+        Path report = Path.of("build", "benchmarks", "read-only-query.txt");
+        Files.createDirectories(report.getParent());
+        Files.write(report, lines);
+
+        //then
+        //읽기 전용 조회는 flush 하지 않는다.
+        statistics.clear();
+        accountService.getAccounts(1L);
+        transactionService.queryTransaction(transactionId);
+        assertEquals(0, statistics.getFlushCount());
+
+        assertTrue(accounts[1].bytesPerCall() < accounts[0].bytesPerCall(), lines.toString());
+        assertTrue(transaction[1].bytesPerCall() <= transaction[0].bytesPerCall(), lines.toString());
+    }
+
+    private Result[] compare(String name, Supplier<?> query, TransactionTemplate readWrite, List<String> lines) {
+        Supplier<?> readWriteQuery = () -> readWrite.execute(status -> query.get());
+
+        measure(readWriteQuery, WARMUP);
+        measure(query, WARMUP);
+        Result[] results = {measure(readWriteQuery, ITERATIONS), measure(query, ITERATIONS)};
+
+        String[] modes = {"read-write", "read-only"};
+        for (int i = 0; i < results.length; i++) {
+            lines.add(String.format("query=%s mode=%s calls=%d latency=%.1fus/call allocated=%d bytes/call",
+                    name, modes[i], ITERATIONS, results[i].nanosPerCall() / 1_000.0, results[i].bytesPerCall()));
+        }
+        return results;
+    }
+
+    private static Result measure(Supplier<?> query, int iterations) {
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        long allocatedBefore = threadMXBean.getCurrentThreadAllocatedBytes();
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            query.get();
+        }
+        long elapsed = System.nanoTime() - startedAt;
+        long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        return new Result(elapsed / (double) iterations, allocated / iterations);
+    }
+
+    private record Result(double nanosPerCall, long bytesPerCall) {
+    }
+}
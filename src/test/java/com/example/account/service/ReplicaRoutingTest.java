@@ -0,0 +1,137 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.AccountDto;
+import com.example.account.replica.ReplicaLagMonitor;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//H2 in-memory DB 2개를 primary, replica 로 띄워서 조회가 어느 DB 로 가는지 확인한다.
+//두 DB 사이에 복제는 없으므로 replica 에만 있는 데이터와 heartbeat 를 직접 넣어서 복제를 흉내낸다.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary",
+        "account.replica.enabled=true",
+        "account.replica.url=" + ReplicaRoutingTest.REPLICA,
+        "account.replica.init-schema=true",
+        "account.replica.max-staleness=1s",
+        //heartbeat 는 테스트에서 직접 돌린다.
+        "account.replica.heartbeat-interval=1h",
+        "account.cache.account-read.enabled=false",
+        "spring.jpa.properties.hibernate.show_sql=false"
+})
+class ReplicaRoutingTest {
+    static final String REPLICA = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+    private static final String REPLICA_ONLY_ACCOUNT = "9000000000";
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        //replica 에만 있는 사용자 3 의 계좌와 거래. 이 값이 보이면 replica 에서 읽은 것이다.
+        replicaUpdate("delete from transaction");
+        replicaUpdate("delete from account");
+        replicaUpdate("delete from account_user");
+        replicaUpdate("insert into account_user(id, user_name, created_at, updated_at) values(3, 'user_3', now(), now())");
+        replicaUpdate("insert into account(id, account_user_id, account_number, account_status, account_balance, registered_at)"
+                + " values(900, 3, '" + REPLICA_ONLY_ACCOUNT + "', 'IN_USE', 0, now())");
+        replicaUpdate("insert into transaction(id, account_id, transaction_id, transaction_type, transaction_result_type,"
+                + " amount, balance_snapshot, transacted_at) values(900, 900, 'replica_only', 'USE', 'S', 0, 0, now())");
+    }
+
+    @Test
+    @DisplayName("replica 가 충분히 따라와 있으면 조회는 replica 에서, 방금 쓴 사용자는 primary 에서 읽는다.")
+    void readsGoToReplicaUnlessCallerJustWrote() throws Exception {
+        //given
+        replicate(System.currentTimeMillis());
+
+        //when & then
+        //1. replica 에서 읽는다.
+        assertEquals(List.of(REPLICA_ONLY_ACCOUNT), accountNumbers(accountService.getAccounts(3L)));
+
+        //2. 쓴 뒤 replica 가 그 시각까지 따라오지 못했으면 primary 에서 읽는다.
+        String created = accountService.createAccount(3L, 1_000L).getAccountNumber();
+        assertEquals(List.of(created), accountNumbers(accountService.getAccounts(3L)));
+
+        //3. replica 가 따라오면 다시 replica 에서 읽는다.
+        Thread.sleep(5);
+        replicate(System.currentTimeMillis());
+        assertEquals(List.of(REPLICA_ONLY_ACCOUNT), accountNumbers(accountService.getAccounts(3L)));
+
+        //4. replica 가 max-staleness 보다 뒤처지면 primary 에서 읽는다.
+        replicate(System.currentTimeMillis() - 10_000);
+        assertEquals(List.of(created), accountNumbers(accountService.getAccounts(3L)));
+    }
+
+    @Test
+    @DisplayName("거래 조회는 replica 에서 찾고, replica 에 아직 없는 거래는 primary 에서 찾는다.")
+    void queryTransactionFallsBackToPrimary() {
+        //given
+        replicate(System.currentTimeMillis());
+        String accountNumber = accountService.createAccount(1L, 1_000L).getAccountNumber();
+        Account account = accountRepository.findByAccountNumber(accountNumber).get();
+        transactionRepository.save(Transaction.builder()
+                .transactionType(USE)
+                .transactionResultType(S)
+                .account(account)
+                .amount(100L)
+                .balanceSnapshot(900L)
+                .transactionId("primary_only")
+                .transactedAt(LocalDateTime.now())
+                .build());
+
+        //when & then
+        assertEquals(REPLICA_ONLY_ACCOUNT, transactionService.queryTransaction("replica_only").getAccountNumber());
+        assertEquals(accountNumber, transactionService.queryTransaction("primary_only").getAccountNumber());
+    }
+
+    //replica 가 at 시각까지의 primary 를 반영했다고 heartbeat 를 넣는다.
+    private void replicate(long at) {
+        try{
+            replicaUpdate("merge into replica_heartbeat key(id) values(1, " + at + ")");
+        }catch(SQLException e){
+            throw new IllegalStateException(e);
+        }
+        replicaLagMonitor.refresh();
+    }
+
+    private static List<String> accountNumbers(List<AccountDto> accounts) {
+        return accounts.stream().map(AccountDto::getAccountNumber).toList();
+    }
+
+    private static void replicaUpdate(String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(REPLICA, "sa", "");
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.account.service;
+
+import com.example.account.domain.TransactionFailure;
+import com.example.account.outbox.TransactionOutboxWriter;
+import com.example.account.repository.TransactionFailureRepository;
+import com.example.account.shard.ShardRouting;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionFailureAggregatorTest {
+    @Mock
+    private TransactionFailureRepository transactionFailureRepository;
+
+    @Mock
+    private DailyAccountAggregateService dailyAccountAggregateService;
+
+    @Mock
+    private TransactionOutboxWriter transactionOutboxWriter;
+
+    @Mock
+    private ObjectProvider<PlatformTransactionManager> transactionManager;
+
+    @Test
+    @DisplayName("실패는 계좌, 거래 종류, ErrorCode 별로 세어 닫힌 bucket 마다 한줄로 저장한다.")
+    void flushesOneRowPerBucket() {
+        //given
+        TransactionFailureAggregator aggregator =
+                new TransactionFailureAggregator(transactionFailureRepository, new ShardRouting(),
+                        dailyAccountAggregateService, transactionOutboxWriter, transactionManager);
+        for (int i = 0; i < 5; i++) {
+            assertFalse(aggregator.record("1000000000", USE, ErrorCode.AMOUNT_OVER_BALANCE));
+        }
+        aggregator.record("1000000000", USE, ErrorCode.USER_ACCOUNT_NOT_MATCH);
+        aggregator.record("1000000001", CANCEL, ErrorCode.TRANSACTION_AMOUNT_NOT_MATCH);
+
+        //when
+        //아직 열려 있는 bucket 은 저장하지 않는다.
+        aggregator.flush(System.currentTimeMillis());
+        verify(transactionFailureRepository, times(0)).saveAll(any());
+
+        aggregator.flush(Long.MAX_VALUE);
+
+        //then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Iterable<TransactionFailure>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(transactionFailureRepository, times(1)).saveAll(captor.capture());
+
+        List<TransactionFailure> rows = new ArrayList<>();
+        captor.getValue().forEach(rows::add);
+        rows.sort(Comparator.comparing(TransactionFailure::getFailureCount));
+        assertEquals(3, rows.size());
+        assertEquals(5L, rows.get(2).getFailureCount());
+        assertEquals(ErrorCode.AMOUNT_OVER_BALANCE, rows.get(2).getErrorCode());
+        assertEquals("1000000000", rows.get(2).getAccountNumber());
+        assertEquals(0, rows.get(2).getBucketStartedAt().getSecond());
+
+        //하루 집계에는 계좌, 날짜별로 한번씩 더한다.
+        verify(dailyAccountAggregateService).addFailures(eq("1000000000"),
+                eq(rows.get(2).getBucketStartedAt().toLocalDate()), eq(6L));
+        verify(dailyAccountAggregateService).addFailures(eq("1000000001"), any(), eq(1L));
+        //저장한 bucket 마다 실패 이벤트도 같이 쓴다.
+        verify(transactionOutboxWriter).appendFailures(any());
+
+        //저장한 bucket 은 다시 저장하지 않는다.
+        aggregator.flush(Long.MAX_VALUE);
+        verify(transactionFailureRepository, times(1)).saveAll(any());
+    }
+}
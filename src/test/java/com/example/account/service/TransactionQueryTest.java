@@ -0,0 +1,84 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionDto;
+import com.example.account.outbox.TransactionOutboxWriter;
+import com.example.account.partition.TransactionPartitionRouting;
+import com.example.account.replica.ReplicaRouting;
+import com.example.account.shard.ShardRouting;
+import com.example.account.type.AccountStatus;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//거래 조회가 실제 DB 에서 몇번의 쿼리로 처리되는지 확인하는 테스트.
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({TransactionService.class, AccountReadCache.class, ShardRouting.class, ReplicaRouting.class,
+        TransactionFailureAggregator.class, AccountSummaryService.class, DailyAccountAggregateService.class,
+        TransactionPartitionRouting.class, TransactionOutboxWriter.class, BalanceChangeStream.class})
+class TransactionQueryTest {
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("거래 조회는 entity 를 만들지 않고 select 한번으로 끝난다.")
+    void queryTransaction_SingleNarrowSelect() {
+        //given
+        //data.sql 로 들어간 사용자.
+        AccountUser accountUser = testEntityManager.find(AccountUser.class, 1L);
+        Account account = testEntityManager.persist(Account.builder()
+                .accountUser(accountUser)
+                .accountNumber("1000000000")
+                .accountStatus(AccountStatus.IN_USE)
+                .accountBalance(10_000L)
+                .registeredAt(LocalDateTime.now())
+                .build());
+        testEntityManager.persist(Transaction.builder()
+                .transactionType(USE)
+                .transactionResultType(S)
+                .account(account)
+                .amount(1_000L)
+                .balanceSnapshot(9_000L)
+                .transactionId("transaction_id")
+                .transactedAt(LocalDateTime.now())
+                .build());
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        //when
+        TransactionDto transactionDto = transactionService.queryTransaction("transaction_id");
+
+        //then
+        assertEquals("1000000000", transactionDto.getAccountNumber());
+        assertEquals(USE, transactionDto.getTransactionType());
+        assertEquals(S, transactionDto.getTransactionResultType());
+        assertEquals(1_000L, transactionDto.getAmount());
+        assertEquals(9_000L, transactionDto.getBalanceSnapshot());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+}
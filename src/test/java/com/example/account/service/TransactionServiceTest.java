@@ -7,6 +7,10 @@ import com.example.account.dto.TransactionDto;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
+import com.example.account.outbox.TransactionOutboxWriter;
+import com.example.account.partition.TransactionPartitionRouting;
+import com.example.account.replica.ReplicaRouting;
+import com.example.account.shard.ShardRouting;
 import com.example.account.repository.TransactionRepository;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
@@ -19,6 +23,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.exceptions.misusing.WrongTypeOfReturnValue;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -45,6 +50,33 @@ class TransactionServiceTest {
     private AccountRepository accountRepository;
     @Mock
     private AccountUserRepository accountUserRepository;
+    @Mock
+    private AccountReadCache accountReadCache;
+    @Mock
+    private TransactionFailureAggregator transactionFailureAggregator;
+    @Mock
+    private AccountSummaryService accountSummaryService;
+    @Mock
+    private DailyAccountAggregateService dailyAccountAggregateService;
+    @Mock
+    private BalanceChangeStream balanceChangeStream;
+
+    //sharding 이 꺼진 기본 상태. (action 을 그대로 한번 실행한다)
+    @Spy
+    private ShardRouting shardRouting = new ShardRouting();
+
+    //replica 가 꺼진 기본 상태. (primary 에서 그대로 한번 실행한다)
+    @Spy
+    private ReplicaRouting replicaRouting = new ReplicaRouting(null, null);
+
+    //partition 이 꺼진 기본 상태. (원래 테이블에 그대로 쓴다)
+    @Spy
+    private TransactionPartitionRouting transactionPartitionRouting =
+            new TransactionPartitionRouting(null, new ShardRouting());
+
+    //outbox 가 꺼진 기본 상태. (거래만 그대로 저장한다)
+    @Spy
+    private TransactionOutboxWriter transactionOutboxWriter = new TransactionOutboxWriter(null, null);
     @InjectMocks
     private TransactionService transactionService;
 
@@ -127,6 +159,8 @@ class TransactionServiceTest {
         assertEquals(USE,transactionDto.getTransactionType());
         assertEquals(S,transactionDto.getTransactionResultType());
         assertEquals(accountBalance - amount, transactionDto.getBalanceSnapshot());
+        verify(accountSummaryService).addBalance(1L, -amount);
+        verify(dailyAccountAggregateService).addDebit(account.getAccountNumber(), amount);
     }
 
     @Test
@@ -360,6 +394,7 @@ class TransactionServiceTest {
         assertEquals(transactionId, transactionDto.getTransactionId());
         assertEquals(accountNumber, transactionDto.getAccountNumber());
         assertEquals(amount, transactionDto.getAmount());
+        verify(dailyAccountAggregateService).addCancel(accountNumber, amount);
     }
 
     @Test
@@ -510,8 +545,8 @@ class TransactionServiceTest {
         transaction.setTransactionId(transactionId);
         transaction.setAmount(amount);
 
-        given(transactionRepository.findByTransactionId(anyString()))
-                .willReturn(Optional.of(transaction));
+        given(transactionRepository.findDtoByTransactionId(anyString()))
+                .willReturn(Optional.of(TransactionDto.fromEntity(transaction)));
 
         //when
         TransactionDto transactionDto =
@@ -530,7 +565,7 @@ class TransactionServiceTest {
         //given
         final String transactionId = "transaction_id";
 
-        given(transactionRepository.findByTransactionId(anyString()))
+        given(transactionRepository.findDtoByTransactionId(anyString()))
                 .willReturn(Optional.empty());
 
         //when
@@ -539,4 +574,43 @@ class TransactionServiceTest {
         //then
         assertEquals(ErrorCode.TRANSACTION_NOT_FOUND, exception.getErrorCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("실패 거래 : 집계만 하고 거래 row 는 남기지 않는다.")
+    void saveFailedTransaction_AggregatedOnly() {
+        //given
+        given(transactionFailureAggregator.record(anyString(), any(), any()))
+                .willReturn(false);
+
+        //when
+        transactionService.saveFailedTransaction("1000000000", 1_000L, AMOUNT_IS_TOO_BIG);
+
+        //then
+        verify(transactionFailureAggregator).record("1000000000", USE, AMOUNT_IS_TOO_BIG);
+        verify(accountRepository, times(0)).findByAccountNumber(anyString());
+        verify(transactionRepository, times(0)).save(any());
+    }
+
+    @Test
+    @DisplayName("실패 거래 : sample 된 실패는 실패 사유와 함께 거래 row 로 남긴다.")
+    void cancelFailedTransaction_SampledRow() {
+        //given
+        Account account = getEmptyAccount(getAccountUser());
+        account.setAccountBalance(10_000L);
+        given(transactionFailureAggregator.record(anyString(), any(), any()))
+                .willReturn(true);
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+
+        //when
+        transactionService.cancelFailedTransaction("1000000000", 1_000L, ErrorCode.TRANSACTION_AMOUNT_NOT_MATCH);
+
+        //then
+        verify(transactionRepository, times(1)).save(captor.capture());
+        assertEquals(CANCEL, captor.getValue().getTransactionType());
+        assertEquals(F, captor.getValue().getTransactionResultType());
+        assertEquals(ErrorCode.TRANSACTION_AMOUNT_NOT_MATCH, captor.getValue().getErrorCode());
+        assertEquals(10_000L, captor.getValue().getBalanceSnapshot());
+    }
+}
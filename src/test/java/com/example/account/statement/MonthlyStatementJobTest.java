@@ -0,0 +1,190 @@
+package com.example.account.statement;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionFailure;
+import com.example.account.dto.MonthlyStatementDto;
+import com.example.account.dto.StatementTransactionDto;
+import com.example.account.dto.TransactionDto;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionFailureRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.service.AccountService;
+import com.example.account.service.TransactionService;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//계좌번호 2개씩의 구간을 fork-join pool 2개로 나눠 만들면서 잔액, 건수 집계와 다시 실행이 맞는지 확인한다.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statement",
+        "account.statement.range-size=2",
+        "account.statement.parallelism=2",
+        "account.cache.account-read.enabled=false",
+        "spring.jpa.properties.hibernate.show_sql=false"
+})
+class MonthlyStatementJobTest {
+    private static final YearMonth MONTH = YearMonth.of(2023, 1);
+
+    @TempDir
+    static Path outputDir;
+
+    @DynamicPropertySource
+    static void statementProperties(DynamicPropertyRegistry registry) {
+        registry.add("account.statement.output-dir", () -> outputDir.toString());
+    }
+
+    @Autowired
+    private MonthlyStatementJob monthlyStatementJob;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionFailureRepository transactionFailureRepository;
+
+    @Test
+    @DisplayName("계좌별 월 명세를 구간 파일로 만들고, 다시 실행하면 manifest 에 있는 구간은 건너뛴다.")
+    void generatesStatementsAndSkipsWrittenBlocks() throws IOException {
+        //given
+        //거래는 TransactionService 로 만들고 거래 일시만 옮긴다. (잔액 snapshot 은 실제 거래가 남긴 값)
+        //A : 그 달 전 거래가 있다. B : 그 달 뒤에만 거래가 있다. C : 그 달이 끝난 뒤에 만들었다.
+        Account accountA = registeredAt(accountService.createAccount(1L, 10_000L).getAccountNumber(),
+                LocalDateTime.of(2022, 12, 1, 0, 0));
+        Account accountB = registeredAt(accountService.createAccount(2L, 5_000L).getAccountNumber(),
+                LocalDateTime.of(2022, 12, 1, 0, 0));
+        String accountC = accountService.createAccount(3L, 3_000L).getAccountNumber();
+
+        transactedAt(transactionService.useBalance(1L, accountA.getAccountNumber(), 1_000L),
+                LocalDateTime.of(2022, 12, 15, 10, 0));
+        //오래된 거래는 취소할 수 없으므로 취소한 뒤에 두 거래의 일시를 옮긴다.
+        TransactionDto used = transactionService.useBalance(1L, accountA.getAccountNumber(), 2_000L);
+        TransactionDto canceled = transactionService.cancelTransaction(used.getTransactionId(),
+                accountA.getAccountNumber(), 2_000L);
+        transactedAt(used, LocalDateTime.of(2023, 1, 5, 10, 0));
+        transactedAt(canceled, LocalDateTime.of(2023, 1, 6, 10, 0));
+        saveFailure(accountA, 50_000L, null, LocalDateTime.of(2023, 1, 7, 10, 0));
+        //aggregate 모드의 표본 실패 거래는 transaction_failure 에도 세어져 있다.
+        saveFailure(accountA, 50_000L, ErrorCode.AMOUNT_OVER_BALANCE, LocalDateTime.of(2023, 1, 8, 10, 0));
+        transactedAt(transactionService.useBalance(1L, accountA.getAccountNumber(), 500L),
+                LocalDateTime.of(2023, 2, 1, 10, 0));
+        transactedAt(transactionService.useBalance(2L, accountB.getAccountNumber(), 1_000L),
+                LocalDateTime.of(2023, 2, 3, 10, 0));
+        transactionFailureRepository.save(TransactionFailure.builder()
+                .accountNumber(accountA.getAccountNumber())
+                .transactionType(TransactionType.USE)
+                .errorCode(ErrorCode.AMOUNT_OVER_BALANCE)
+                .bucketStartedAt(LocalDateTime.of(2023, 1, 8, 10, 0))
+                .failureCount(3L)
+                .build());
+
+        //취소는 잔액을 바꾸지 않으므로 취소 전 잔액은 취소가 남긴 잔액 그대로다.
+        assertEquals(7_000L, MonthlyStatementJob.balanceBefore(StatementTransactionDto.builder()
+                .transactionType(canceled.getTransactionType())
+                .transactionResultType(canceled.getTransactionResultType())
+                .amount(canceled.getAmount())
+                .balanceSnapshot(canceled.getBalanceSnapshot())
+                .build()));
+
+        //when
+        MonthlyStatementDto.Response result = monthlyStatementJob.generate(MONTH, false);
+
+        //then
+        assertEquals("DONE", result.getState());
+        assertEquals(2L, result.getBlocks());
+        assertEquals(2L, result.getWritten());
+        assertEquals(2L, result.getAccounts());
+
+        Path directory = outputDir.resolve("2023-01");
+        assertEquals(List.of(
+                "account_number,opening_balance,closing_balance,debit_count,debit_amount," +
+                        "cancel_count,cancel_amount,failure_count",
+                accountA.getAccountNumber() + ",9000,7000,1,2000,1,2000,4",
+                accountB.getAccountNumber() + ",5000,5000,0,0,0,0,0"
+        ), readLines(directory.resolve("statement-" + accountA.getAccountNumber() + ".csv.gz")));
+        assertEquals(1, readLines(directory.resolve("statement-" + accountC + ".csv.gz")).size());
+
+        //다 만든 구간은 다시 만들지 않는다.
+        MonthlyStatementDto.Response rerun = monthlyStatementJob.generate(MONTH, false);
+        assertEquals(0L, rerun.getWritten());
+        assertEquals(2L, rerun.getSkipped());
+
+        //파일이 없어진 구간만 다시 만든다.
+        Files.delete(directory.resolve("statement-" + accountC + ".csv.gz"));
+        assertEquals(1L, monthlyStatementJob.generate(MONTH, false).getWritten());
+
+        assertEquals(2L, monthlyStatementJob.generate(MONTH, true).getWritten());
+
+        //끝나지 않은 달은 만들지 않는다.
+        assertEquals("FAILED", monthlyStatementJob.generate(YearMonth.now(), false).getState());
+    }
+
+    private Account registeredAt(String accountNumber, LocalDateTime registeredAt) {
+        Account account = accountRepository.findByAccountNumber(accountNumber).get();
+        account.setRegisteredAt(registeredAt);
+        return accountRepository.save(account);
+    }
+
+    //거래 일시를 옮긴다. (취소 거래는 원래 거래 아이디를 같이 쓰므로 거래 종류로 고른다)
+    private TransactionDto transactedAt(TransactionDto transactionDto, LocalDateTime transactedAt) {
+        Transaction transaction = transactionRepository.findAll().stream()
+                .filter(t -> t.getTransactionId().equals(transactionDto.getTransactionId())
+                        && t.getTransactionType() == transactionDto.getTransactionType())
+                .findFirst().get();
+        transaction.setTransactedAt(transactedAt);
+        transactionRepository.save(transaction);
+        return transactionDto;
+    }
+
+    //실패 거래는 잔액을 바꾸지 않으므로 지금 잔액을 snapshot 으로 남긴다.
+    private void saveFailure(Account account, Long amount, ErrorCode errorCode, LocalDateTime transactedAt) {
+        Account current = accountRepository.findByAccountNumber(account.getAccountNumber()).get();
+        transactionRepository.save(Transaction.builder()
+                .account(current)
+                .transactionType(TransactionType.USE)
+                .transactionResultType(TransactionResultType.F)
+                .amount(amount)
+                .balanceSnapshot(current.getAccountBalance())
+                .errorCode(errorCode)
+                .transactionId(UUID.randomUUID().toString().replace("-", ""))
+                .transactedAt(transactedAt)
+                .build());
+    }
+
+    private List<String> readLines(Path file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            return reader.lines().toList();
+        }
+    }
+}
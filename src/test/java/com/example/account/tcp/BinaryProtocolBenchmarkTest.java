@@ -0,0 +1,154 @@
+package com.example.account.tcp;
+
+import com.example.account.service.AccountService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+//JSON(POST /transaction/use) 과 binary TCP 의 잔액 사용 처리량, 사용 1번당 프로세스 CPU 시간 벤치마크. (gradlew benchmark 로 실행)
+//두 방식 모두 같은 수의 클라이언트가 자기 계좌에 사용 요청을 보낸다.
+//json   : 클라이언트마다 HTTP 연결 하나로 응답을 받고 다음 요청을 보낸다.
+//binary : 클라이언트마다 TCP 연결 하나로 pipeline 개씩 이어서 보내고 응답을 모아 받는다.
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:tcp-benchmark",
+        "account.tcp.enabled=true",
+        "account.tcp.port=0",
+        "account.cache.account-read.enabled=false",
+        "account.latency.enabled=false",
+        "logging.level.com.example.account=warn",
+        "spring.jpa.properties.hibernate.show_sql=false"
+})
+class BinaryProtocolBenchmarkTest {
+    private static final int CLIENTS = Integer.getInteger("benchmark.tcp.clients", 4);
+    private static final int WARMUP = Integer.getInteger("benchmark.tcp.warmup", 500);
+    private static final int REQUESTS = Integer.getInteger("benchmark.tcp.requests", 2_000);
+    private static final int PIPELINE = Integer.getInteger("benchmark.tcp.pipeline", 32);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private BinaryTransactionServer binaryTransactionServer;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Test
+    @DisplayName("JSON 과 binary TCP 의 사용 요청 처리량, 요청당 CPU 시간")
+    void binaryProtocolThroughput() throws Exception {
+        //given
+        //클라이언트마다 사용자 한명의 계좌 하나. (lock 경합 없이 프로토콜 비용만 비교한다)
+        List<String> accountNumbers = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            accountNumbers.add(accountService.createAccount(1L + i % 3, 1_000_000_000L).getAccountNumber());
+        }
+        HttpClient httpClient = HttpClient.newHttpClient();
+
+        //when
+        run(accountNumbers, WARMUP, (userId, accountNumber, requests) -> json(httpClient, userId, accountNumber, requests));
+        run(accountNumbers, WARMUP, this::binary);
+        Result json = run(accountNumbers, REQUESTS,
+                (userId, accountNumber, requests) -> json(httpClient, userId, accountNumber, requests));
+        Result binary = run(accountNumbers, REQUESTS, this::binary);
+
+        List<String> lines = List.of(json.format("json"), binary.format("binary"));
+        lines.forEach(System.out::println);
+        Path report = Path.of("build", "benchmarks", "binary-protocol.txt");
+        Files.createDirectories(report.getParent());
+        Files.write(report, lines);
+
+        //then
+        long expected = 1_000_000_000L - 2L * (WARMUP + REQUESTS) * 100L;
+        for (String accountNumber : accountNumbers) {
+            assertEquals(expected, accountService.getBalance(accountNumber).getBalance());
+        }
+    }
+
+    private void json(HttpClient httpClient, long userId, String accountNumber, int requests) throws Exception {
+        String body = "{\"userId\":" + userId + ",\"accountNumber\":\"" + accountNumber + "\",\"amount\":100}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/transaction/use"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        for (int i = 0; i < requests; i++) {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode(), response.body());
+        }
+    }
+
+    private void binary(long userId, String accountNumber, int requests) throws Exception {
+        try (BinaryTransactionClient client = new BinaryTransactionClient(binaryTransactionServer.getPort())) {
+            for (int sent = 0; sent < requests; ) {
+                int batch = Math.min(PIPELINE, requests - sent);
+                for (int i = 0; i < batch; i++) {
+                    client.sendUse(sent + i, userId, accountNumber, 100L);
+                }
+                client.flush();
+                for (int i = 0; i < batch; i++) {
+                    assertNull(client.read().errorCode());
+                }
+                sent += batch;
+            }
+        }
+    }
+
+    private Result run(List<String> accountNumbers, int requests, Client client) throws Exception {
+        com.sun.management.OperatingSystemMXBean os =
+                (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        ExecutorService executor = Executors.newFixedThreadPool(accountNumbers.size());
+        try{
+            long cpuBefore = os.getProcessCpuTime();
+            long startedAt = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < accountNumbers.size(); i++) {
+                long userId = 1L + i % 3;
+                String accountNumber = accountNumbers.get(i);
+                futures.add(executor.submit(() -> {
+                    client.send(userId, accountNumber, requests);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsed = System.nanoTime() - startedAt;
+            long cpu = os.getProcessCpuTime() - cpuBefore;
+            return new Result((long) requests * accountNumbers.size(), elapsed, cpu);
+        }finally {
+            executor.shutdown();
+        }
+    }
+
+    private interface Client {
+        void send(long userId, String accountNumber, int requests) throws Exception;
+    }
+
+    //CPU 시간은 클라이언트를 포함한 프로세스 전체.
+    private record Result(long requests, long elapsedNanos, long cpuNanos) {
+        private String format(String protocol) {
+            return String.format("protocol=%s clients=%d requests=%d throughput=%.0f/s cpu=%.1fus/request",
+                    protocol, CLIENTS, requests, requests * 1_000_000_000.0 / elapsedNanos,
+                    cpuNanos / 1_000.0 / requests);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.account.tcp;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+//테스트, 벤치마크용 blocking 클라이언트. send 로 쌓아둔 요청을 flush 로 한번에 보내고 응답을 하나씩 읽는다.
+class BinaryTransactionClient implements AutoCloseable {
+    private final SocketChannel channel;
+    private final ByteBuffer out = ByteBuffer.allocateDirect(65_536);
+    private final ByteBuffer in = ByteBuffer.allocateDirect(65_536).flip();
+
+    BinaryTransactionClient(int port) throws IOException {
+        channel = SocketChannel.open(new InetSocketAddress("localhost", port));
+        channel.socket().setTcpNoDelay(true);
+    }
+
+    void sendUse(int requestId, long userId, String accountNumber, long amount) throws IOException {
+        int start = begin(BinaryProtocol.USE, requestId);
+        out.putLong(userId);
+        BinaryProtocol.writeString(out, accountNumber);
+        out.putLong(amount);
+        end(start);
+    }
+
+    void sendCancel(int requestId, String transactionId, String accountNumber, long amount) throws IOException {
+        int start = begin(BinaryProtocol.CANCEL, requestId);
+        BinaryProtocol.writeString(out, transactionId);
+        BinaryProtocol.writeString(out, accountNumber);
+        out.putLong(amount);
+        end(start);
+    }
+
+    void sendQuery(int requestId, String transactionId) throws IOException {
+        int start = begin(BinaryProtocol.QUERY, requestId);
+        BinaryProtocol.writeString(out, transactionId);
+        end(start);
+    }
+
+    void flush() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    Response read() throws IOException {
+        fill(Integer.BYTES);
+        int length = in.getInt();
+        fill(length);
+        byte opcode = in.get();
+        int requestId = in.getInt();
+        if(BinaryProtocol.ERROR == in.get()){
+            return new Response(opcode, requestId, BinaryProtocol.readString(in),
+                    null, null, null, -1, -1, 0L);
+        }
+        String accountNumber = BinaryProtocol.readString(in);
+        if(BinaryProtocol.QUERY == opcode){
+            int transactionType = in.get();
+            int transactionResult = in.get();
+            long amount = in.getLong();
+            in.getLong();
+            return new Response(opcode, requestId, null, accountNumber, null, amount,
+                    transactionType, transactionResult, 0L);
+        }
+        int transactionResult = in.get();
+        String transactionId = BinaryProtocol.readString(in);
+        long amount = in.getLong();
+        long transactedAt = in.getLong();
+        return new Response(opcode, requestId, null, accountNumber, transactionId, amount,
+                -1, transactionResult, transactedAt);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int begin(byte opcode, int requestId) throws IOException {
+        //frame 하나가 들어갈 자리가 없으면 먼저 보낸다.
+        if(512 > out.remaining()){
+            flush();
+        }
+        int start = out.position();
+        out.putInt(0);
+        out.put(opcode);
+        out.putInt(requestId);
+        return start;
+    }
+
+    private void end(int start) {
+        out.putInt(start, out.position() - start - Integer.BYTES);
+    }
+
+    private void fill(int bytes) throws IOException {
+        if(bytes <= in.remaining()){
+            return;
+        }
+        in.compact();
+        while (in.position() < bytes) {
+            if(0 > channel.read(in)){
+                throw new IOException("connection closed");
+            }
+        }
+        in.flip();
+    }
+
+    //errorCode 가 있으면 나머지는 비어 있다. (transactionType 은 조회 응답에만 있다)
+    record Response(byte opcode, int requestId, String errorCode, String accountNumber, String transactionId,
+                    Long amount, int transactionType, int transactionResult, long transactedAt) {
+    }
+}
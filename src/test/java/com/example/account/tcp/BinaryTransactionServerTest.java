@@ -0,0 +1,90 @@
+package com.example.account.tcp;
+
+import com.example.account.service.AccountService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+//한 연결에 요청을 이어서 보내고 requestId 로 응답을 맞추는지, 오류가 ErrorCode 로 오는지 확인한다.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:tcp",
+        "account.tcp.enabled=true",
+        "account.tcp.port=0",
+        "account.cache.account-read.enabled=false",
+        "spring.jpa.properties.hibernate.show_sql=false"
+})
+class BinaryTransactionServerTest {
+    @Autowired
+    private BinaryTransactionServer binaryTransactionServer;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Test
+    @DisplayName("이어서 보낸 사용, 조회, 취소 요청의 응답을 requestId 로 받는다.")
+    void pipelinedRequests() throws Exception {
+        //given
+        String first = accountService.createAccount(1L, 10_000L).getAccountNumber();
+        String second = accountService.createAccount(1L, 10_000L).getAccountNumber();
+
+        try (BinaryTransactionClient client = new BinaryTransactionClient(binaryTransactionServer.getPort())) {
+            //when
+            client.sendUse(1, 1L, first, 1_000L);
+            client.sendUse(2, 1L, second, 2_000L);
+            client.sendUse(3, 1L, first, 20_000L);
+            client.sendQuery(4, "unknown");
+            client.flush();
+            Map<Integer, BinaryTransactionClient.Response> responses = read(client, 4);
+
+            String transactionId = responses.get(1).transactionId();
+            client.sendQuery(5, transactionId);
+            client.flush();
+            BinaryTransactionClient.Response queried = client.read();
+
+            client.sendCancel(6, transactionId, first, 1_000L);
+            client.flush();
+            BinaryTransactionClient.Response canceled = client.read();
+
+            //then
+            assertNull(responses.get(1).errorCode());
+            assertEquals(first, responses.get(1).accountNumber());
+            assertEquals(S.ordinal(), responses.get(1).transactionResult());
+            assertEquals(1_000L, responses.get(1).amount());
+            assertEquals(second, responses.get(2).accountNumber());
+            assertEquals(2_000L, responses.get(2).amount());
+            assertEquals("AMOUNT_OVER_BALANCE", responses.get(3).errorCode());
+            assertEquals("TRANSACTION_NOT_FOUND", responses.get(4).errorCode());
+
+            assertEquals(5, queried.requestId());
+            assertEquals(USE.ordinal(), queried.transactionType());
+            assertEquals(first, queried.accountNumber());
+
+            assertEquals(6, canceled.requestId());
+            assertNull(canceled.errorCode());
+            assertEquals(transactionId, canceled.transactionId());
+            //거래 취소는 잔액을 바꾸지 않는다. (HTTP 와 같다)
+            assertEquals(9_000L, accountService.getBalance(first).getBalance());
+            assertEquals(8_000L, accountService.getBalance(second).getBalance());
+            assertEquals(1, binaryTransactionServer.getConnectionCount());
+        }
+    }
+
+    private static Map<Integer, BinaryTransactionClient.Response> read(BinaryTransactionClient client, int count)
+            throws Exception {
+        Map<Integer, BinaryTransactionClient.Response> responses = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            BinaryTransactionClient.Response response = client.read();
+            responses.put(response.requestId(), response);
+        }
+        return responses;
+    }
+}
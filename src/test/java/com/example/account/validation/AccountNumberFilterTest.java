@@ -0,0 +1,98 @@
+package com.example.account.validation;
+
+import com.example.account.repository.AccountRepository;
+import com.example.account.shard.ShardRouting;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+//filter 가 건강하면 없다는 답을 그대로 쓰고, 건강하지 않을 때만 DB 에서 확인하는지 확인한다.
+@ExtendWith(MockitoExtension.class)
+class AccountNumberFilterTest {
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private ShardRouting shardRouting;
+
+    @Mock
+    private ObjectProvider<PlatformTransactionManager> transactionManager;
+
+    @Mock
+    private ObjectProvider<RedissonClient> redissonClient;
+
+    @Test
+    @DisplayName("건강한 filter 는 없다는 답을 DB 에서 확인하지 않는다.")
+    void trustsNegativeAnswersWhileHealthy() {
+        //given
+        AccountNumberFilter accountNumberFilter = filter(false, 200);
+
+        //when
+        //then
+        assertTrue(accountNumberFilter.isHealthy());
+        assertFalse(accountNumberFilter.mightExist("1999999999"));
+        verify(shardRouting, never()).onShard(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("구독하지 못했으면 없다는 답을 DB 에서 확인해서 있는 계좌는 통과시키고 filter 에 더한다.")
+    void confirmsNegativeAnswersWhileDegraded() {
+        //given
+        given(redissonClient.getObject()).willThrow(new IllegalStateException("redis is down"));
+        given(shardRouting.onShard(eq("1999999999"), any())).willReturn(true);
+        AccountNumberFilter accountNumberFilter = filter(true, 200);
+
+        //when
+        //then
+        assertFalse(accountNumberFilter.isHealthy());
+        assertTrue(accountNumberFilter.mightExist("1999999999"));
+        //더했으므로 다시 확인하지 않는다.
+        assertTrue(accountNumberFilter.mightExist("1999999999"));
+        verify(shardRouting).onShard(eq("1999999999"), any());
+    }
+
+    @Test
+    @DisplayName("확인 횟수를 넘으면 확인 없이 filter 의 답대로 거절한다.")
+    void rejectsWithoutConfirmOverLimit() {
+        //given
+        given(redissonClient.getObject()).willThrow(new IllegalStateException("redis is down"));
+        AccountNumberFilter accountNumberFilter = filter(true, 0);
+
+        //when
+        //then
+        assertFalse(accountNumberFilter.mightExist("1999999998"));
+        verify(shardRouting, never()).onShard(anyString(), any());
+    }
+
+    //계좌가 없는 DB 로 채운 filter.
+    private AccountNumberFilter filter(boolean broadcast, int confirmPerSecond) {
+        AccountNumberFilter accountNumberFilter = new AccountNumberFilter(accountRepository, shardRouting,
+                transactionManager, redissonClient);
+        ReflectionTestUtils.setField(accountNumberFilter, "enabled", true);
+        ReflectionTestUtils.setField(accountNumberFilter, "expectedAccounts", 1_000L);
+        ReflectionTestUtils.setField(accountNumberFilter, "fpp", 0.001);
+        ReflectionTestUtils.setField(accountNumberFilter, "broadcast", broadcast);
+        ReflectionTestUtils.setField(accountNumberFilter, "resyncInterval", Duration.ofHours(1));
+        ReflectionTestUtils.setField(accountNumberFilter, "confirmPerSecond", confirmPerSecond);
+        accountNumberFilter.init();
+        accountNumberFilter.build();
+        return accountNumberFilter;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.account.validation;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+    private static final int ACCOUNTS = 100_000;
+
+    @Test
+    @DisplayName("넣은 계좌번호는 모두 있다고 하고, 넣지 않은 계좌번호의 오탐률은 fpp 근처다.")
+    void noFalseNegativesAndBoundedFalsePositives() {
+        //given
+        BloomFilter filter = new BloomFilter(ACCOUNTS, 0.01);
+
+        //when
+        for (int i = 0; i < ACCOUNTS; i++) {
+            filter.add(String.valueOf(1_000_000_000L + i));
+        }
+
+        //then
+        for (int i = 0; i < ACCOUNTS; i++) {
+            assertTrue(filter.mightContain(String.valueOf(1_000_000_000L + i)));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < ACCOUNTS; i++) {
+            if(filter.mightContain(String.valueOf(2_000_000_000L + i))){
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / ACCOUNTS;
+        assertTrue(rate < 0.02, "false positive rate : " + rate);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.account.validation;
+
+import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.dto.CancelTransactionDto;
+import com.example.account.dto.UseBalanceDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class PreLockValidatorTest {
+    @Mock
+    private AccountUserRepository accountUserRepository;
+
+    @Mock
+    private AccountNumberFilter accountNumberFilter;
+
+    private PreLockValidator preLockValidator;
+
+    @BeforeEach
+    void setUp() {
+        given(accountUserRepository.findAllIds()).willReturn(List.of(5L, 3L, 1L, 2L));
+        given(accountNumberFilter.mightExist(anyString())).willReturn(true);
+        KnownUserRule knownUserRule = new KnownUserRule(accountUserRepository);
+        knownUserRule.load();
+
+        preLockValidator = new PreLockValidator(List.of(
+                new AccountNumberFormatRule(), new ExistingAccountRule(accountNumberFilter),
+                new UseAmountRule(), knownUserRule));
+    }
+
+    @Test
+    @DisplayName("요청 값만으로 알 수 있는 위반은 lock 전에 거절한다.")
+    void rejectsStatelessViolations() {
+        assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, rejected(useRequest(1L, "100000000", 1_000L)));
+        assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, rejected(useRequest(1L, "10000000a0", 1_000L)));
+        assertEquals(ErrorCode.AMOUNT_IS_TOO_SMALL, rejected(useRequest(1L, "1000000000", 99L)));
+        assertEquals(ErrorCode.AMOUNT_IS_TOO_BIG, rejected(useRequest(1L, "1000000000", 100_001L)));
+        assertEquals(ErrorCode.USER_NOT_FOUND, rejected(useRequest(4L, "1000000000", 1_000L)));
+    }
+
+    @Test
+    @DisplayName("발급된 적 없는 계좌번호는 lock 전에 거절한다.")
+    void rejectsAccountNumbersNeverIssued() {
+        given(accountNumberFilter.mightExist("1999999999")).willReturn(false);
+
+        assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, rejected(useRequest(1L, "1999999999", 1_000L)));
+        assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, rejected(
+                new CancelTransactionDto.Request("transaction_id", "1999999999", 1_000L)));
+    }
+
+    @Test
+    @DisplayName("목록의 마지막 id 보다 큰 사용자는 목록을 읽은 뒤 추가되었을 수 있으므로 통과시킨다.")
+    void passesUsersNewerThanLoadedIds() {
+        assertEquals(ErrorCode.USER_NOT_FOUND, rejected(useRequest(4L, "1000000000", 1_000L)));
+        assertDoesNotThrow(() -> preLockValidator.validate(useRequest(6L, "1000000000", 1_000L)));
+    }
+
+    @Test
+    @DisplayName("요청 타입에 맞는 규칙만 적용한다.")
+    void appliesRulesByRequestType() {
+        //사용 금액, 사용자 규칙은 거래 취소에는 적용되지 않는다.
+        assertDoesNotThrow(() -> preLockValidator.validate(
+                new CancelTransactionDto.Request("transaction_id", "1000000000", 10L)));
+        assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, rejected(
+                new CancelTransactionDto.Request("transaction_id", "1", 1_000L)));
+
+        assertDoesNotThrow(() -> preLockValidator.validate(useRequest(2L, "1000000000", 100L)));
+        assertDoesNotThrow(() -> preLockValidator.validate(useRequest(3L, "1000000000", 100_000L)));
+    }
+
+    private ErrorCode rejected(AccountLockIdInterface request) {
+        return assertThrows(AccountException.class, () -> preLockValidator.validate(request)).getErrorCode();
+    }
+
+    private static UseBalanceDto.Request useRequest(Long userId, String accountNumber, Long amount) {
+        return new UseBalanceDto.Request(userId, accountNumber, amount);
+    }
+}